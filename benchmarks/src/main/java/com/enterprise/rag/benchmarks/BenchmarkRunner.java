@@ -0,0 +1,35 @@
+package com.enterprise.rag.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ * 
+ * <p>接受 JMH 的全部命令行参数，并始终启用 GC 分析器，输出每次操作的分配字节数 (gc.alloc.rate.norm)</p>
+ * 
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar                  # 全部基准
+ * java -jar benchmarks/target/benchmarks.jar FusionBenchmark  # 按正则选择
+ * </pre>
+ */
+public final class BenchmarkRunner {
+    
+    private BenchmarkRunner() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,105 @@
+package com.enterprise.rag.domain.service.fusion;
+
+import com.enterprise.rag.domain.model.search.RetrievalMethodType;
+import com.enterprise.rag.domain.model.search.SearchResultItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端融合基准
+ * 
+ * <p>各检索方法返回 candidates 条结果，其中约一半文档被多个方法同时命中。
+ * 检索方法数受 {@link RetrievalMethodType} 限制，最多 3 个。</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FusionBenchmark {
+    
+    @Param({"2", "3"})
+    private int methods;
+    
+    @Param({"10", "100", "1000"})
+    private int candidates;
+    
+    @Param({"10"})
+    private int topK;
+    
+    private final RRFFusionStrategy rrf = new RRFFusionStrategy();
+    private final LinearWeightFusionStrategy linear = new LinearWeightFusionStrategy();
+    
+    private Map<RetrievalMethodType, List<FusionStrategy.RankedDocument>> resultsByMethod;
+    private FusionParameters parameters;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        RetrievalMethodType[] types = RetrievalMethodType.values();
+        resultsByMethod = new EnumMap<>(RetrievalMethodType.class);
+        Map<RetrievalMethodType, Double> weights = new EnumMap<>(RetrievalMethodType.class);
+        
+        for (int m = 0; m < methods; m++) {
+            List<FusionStrategy.RankedDocument> docs = new ArrayList<>(candidates);
+            double score = 10 + random.nextDouble() * 10;
+            for (int rank = 1; rank <= candidates; rank++) {
+                // 偶数排名的 ID 取自各方法共享的 ID 池，其余为该方法独有
+                String id = rank % 2 == 0
+                        ? "doc-" + random.nextInt(candidates)
+                        : "doc-" + m + "-" + rank;
+                docs.add(new FusionStrategy.RankedDocument(id, score, rank,
+                        Map.of("title", "title " + id, "content", "content " + id), Map.of()));
+                score -= random.nextDouble() * 0.1;
+            }
+            resultsByMethod.put(types[m], dedupe(docs));
+            weights.put(types[m], 1.0 + m * 0.5);
+        }
+        parameters = new FusionParameters("kb-bench", weights, topK, FusionParameters.DEFAULT_RRF_K);
+    }
+    
+    @Benchmark
+    public List<SearchResultItem> rrf() {
+        return rrf.fuse(resultsByMethod, parameters);
+    }
+    
+    @Benchmark
+    public List<SearchResultItem> linearWeight() {
+        return linear.fuse(resultsByMethod, parameters);
+    }
+    
+    /**
+     * 同一方法的结果中文档 ID 唯一
+     */
+    private static List<FusionStrategy.RankedDocument> dedupe(List<FusionStrategy.RankedDocument> docs) {
+        List<FusionStrategy.RankedDocument> unique = new ArrayList<>(docs.size());
+        Set<String> seen = new HashSet<>();
+        for (FusionStrategy.RankedDocument doc : docs) {
+            if (seen.add(doc.documentId())) {
+                unique.add(new FusionStrategy.RankedDocument(
+                        doc.documentId(), doc.score(), unique.size() + 1, doc.content(), doc.highlights()));
+            }
+        }
+        return unique;
+    }
+}
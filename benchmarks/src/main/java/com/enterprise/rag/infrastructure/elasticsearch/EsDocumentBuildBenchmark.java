@@ -0,0 +1,138 @@
+package com.enterprise.rag.infrastructure.elasticsearch;
+
+import com.enterprise.rag.domain.model.document.Document;
+import com.enterprise.rag.domain.model.knowledgebase.EmbeddingConfig;
+import com.enterprise.rag.domain.model.knowledgebase.FieldDefinition;
+import com.enterprise.rag.domain.model.knowledgebase.IndexType;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBaseStatus;
+import com.enterprise.rag.domain.service.EmbeddingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ES 文档构建基准 (字段映射、向量字段与源文本哈希)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EsDocumentBuildBenchmark {
+    
+    @Param({"1", "3"})
+    private int vectorFields;
+    
+    @Param({"512", "4096"})
+    private int contentLength;
+    
+    private ElasticsearchDocumentClient client;
+    private KnowledgeBase knowledgeBase;
+    private Document document;
+    private Map<String, float[]> vectors;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        // buildEsDocument 不访问 ES 客户端，只通过 Embedding 服务判断降级向量
+        client = new ElasticsearchDocumentClient(null, null, null, new NoopEmbeddingService());
+        Random random = new Random(42);
+        
+        List<FieldDefinition> fieldDefinitions = new ArrayList<>();
+        Map<String, Object> content = new HashMap<>();
+        vectors = new HashMap<>();
+        for (int i = 0; i < vectorFields; i++) {
+            String fieldName = "body_" + i;
+            fieldDefinitions.add(FieldDefinition.builder()
+                    .fieldName(fieldName)
+                    .indexType(IndexType.VECTOR)
+                    .embeddingConfig(EmbeddingConfig.builder().modelId("text-embedding-3-small").dimension(1536)
+                            .similarity("cosine").build())
+                    .build());
+            content.put(fieldName, text(random, contentLength));
+            float[] vector = new float[1536];
+            for (int d = 0; d < vector.length; d++) {
+                vector[d] = random.nextFloat();
+            }
+            vectors.put(fieldName, vector);
+        }
+        fieldDefinitions.add(FieldDefinition.builder().fieldName("title").indexType(IndexType.TEXT).build());
+        fieldDefinitions.add(FieldDefinition.builder().fieldName("category").indexType(IndexType.KEYWORD)
+                .isFilter(true).build());
+        content.put("title", text(random, 64));
+        content.put("category", "news");
+        
+        knowledgeBase = KnowledgeBase.builder()
+                .id("kb-bench")
+                .name("benchmark")
+                .status(KnowledgeBaseStatus.ACTIVE)
+                .fieldDefinitions(fieldDefinitions)
+                .indexName("rag_kb_bench")
+                .build();
+        document = Document.builder()
+                .id("doc-1")
+                .knowledgeBaseId("kb-bench")
+                .content(content)
+                .metadata(Map.of("source", "benchmark"))
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+    
+    @Benchmark
+    public Map<String, Object> buildEsDocument() {
+        return client.buildEsDocument(knowledgeBase, document, vectors);
+    }
+    
+    private static String text(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(i % 6 == 5 ? ' ' : (char) ('a' + random.nextInt(26)));
+        }
+        return builder.toString();
+    }
+    
+    /**
+     * 不产生降级向量的 Embedding 服务
+     */
+    private static final class NoopEmbeddingService implements EmbeddingService {
+        
+        @Override
+        public float[] embed(String text, String modelId) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public List<float[]> embedBatch(List<String> texts, String modelId) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public int getDimension(String modelId) {
+            return 1536;
+        }
+        
+        @Override
+        public int getMaxBatchSize(String modelId) {
+            return 64;
+        }
+    }
+}
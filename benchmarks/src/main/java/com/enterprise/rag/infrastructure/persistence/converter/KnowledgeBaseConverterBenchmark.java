@@ -0,0 +1,84 @@
+package com.enterprise.rag.infrastructure.persistence.converter;
+
+import com.enterprise.rag.domain.model.knowledgebase.EmbeddingConfig;
+import com.enterprise.rag.domain.model.knowledgebase.FieldDefinition;
+import com.enterprise.rag.domain.model.knowledgebase.IndexType;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBaseStatus;
+import com.enterprise.rag.infrastructure.persistence.entity.KnowledgeBasePO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 知识库实体 → 领域模型转换基准 (字段定义 JSON 反序列化与字段索引构建)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnowledgeBaseConverterBenchmark {
+    
+    @Param({"5", "20", "50"})
+    private int fields;
+    
+    private KnowledgeBaseConverter converter;
+    private KnowledgeBasePO entity;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        converter = new KnowledgeBaseConverter(new ObjectMapper());
+        
+        List<FieldDefinition> fieldDefinitions = new ArrayList<>(fields);
+        IndexType[] types = IndexType.values();
+        for (int i = 0; i < fields; i++) {
+            IndexType type = types[i % types.length];
+            fieldDefinitions.add(FieldDefinition.builder()
+                    .fieldName("field_" + i)
+                    .indexType(type)
+                    .isFilter(type == IndexType.KEYWORD)
+                    .embeddingConfig(type == IndexType.VECTOR
+                            ? EmbeddingConfig.builder().modelId("text-embedding-3-small").dimension(1536)
+                                    .similarity("cosine").build()
+                            : null)
+                    .description("field " + i)
+                    .required(i == 0)
+                    .build());
+        }
+        KnowledgeBase knowledgeBase = KnowledgeBase.builder()
+                .id("kb-bench")
+                .name("benchmark")
+                .tenantId("tenant")
+                .status(KnowledgeBaseStatus.ACTIVE)
+                .fieldDefinitions(fieldDefinitions)
+                .indexName("rag_kb_bench")
+                .activeIndex("rag_kb_bench_v1")
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .version(1L)
+                .build();
+        entity = converter.toEntity(knowledgeBase);
+    }
+    
+    @Benchmark
+    public KnowledgeBase toDomain() {
+        return converter.toDomain(entity);
+    }
+}
@@ -9,17 +9,36 @@ CREATE TABLE IF NOT EXISTS knowledge_base (
     status VARCHAR(32) NOT NULL DEFAULT 'CREATING',
     field_definitions TEXT NOT NULL DEFAULT '[]',
     index_name VARCHAR(255) NOT NULL UNIQUE,
+    active_index VARCHAR(255),
+    migration TEXT,
+    migration_owner VARCHAR(255),
+    migration_heartbeat_at TIMESTAMP,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP,
     version BIGINT NOT NULL DEFAULT 0,
     deleted INTEGER NOT NULL DEFAULT 0
 );
 
+-- 早期版本建立的表补齐物理索引与迁移列
+ALTER TABLE knowledge_base ADD COLUMN IF NOT EXISTS active_index VARCHAR(255);
+ALTER TABLE knowledge_base ADD COLUMN IF NOT EXISTS migration TEXT;
+ALTER TABLE knowledge_base ADD COLUMN IF NOT EXISTS migration_owner VARCHAR(255);
+ALTER TABLE knowledge_base ADD COLUMN IF NOT EXISTS migration_heartbeat_at TIMESTAMP;
+
 -- 索引
 CREATE INDEX IF NOT EXISTS idx_knowledge_base_tenant_id ON knowledge_base(tenant_id);
 CREATE INDEX IF NOT EXISTS idx_knowledge_base_status ON knowledge_base(status);
 CREATE INDEX IF NOT EXISTS idx_knowledge_base_index_name ON knowledge_base(index_name);
 
+-- 重建索引完成后待删除的旧物理索引
+CREATE TABLE IF NOT EXISTS index_retirement (
+    index_name VARCHAR(255) PRIMARY KEY,
+    knowledge_base_id VARCHAR(36) NOT NULL,
+    retire_after TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_index_retirement_retire_after ON index_retirement(retire_after);
+
 -- 文档元数据表 (可选，用于追踪)
 CREATE TABLE IF NOT EXISTS document_metadata (
     id VARCHAR(36) PRIMARY KEY,
@@ -34,20 +53,43 @@ CREATE TABLE IF NOT EXISTS document_metadata (
 CREATE INDEX IF NOT EXISTS idx_document_metadata_kb_id ON document_metadata(knowledge_base_id);
 CREATE INDEX IF NOT EXISTS idx_document_metadata_source ON document_metadata(source_document_id);
 
--- 摄取任务表 (可选，用于异步任务追踪)
+-- 摄取任务表 (异步批量摄取，按检查点恢复)
 CREATE TABLE IF NOT EXISTS ingestion_task (
     id VARCHAR(36) PRIMARY KEY,
     knowledge_base_id VARCHAR(36) NOT NULL REFERENCES knowledge_base(id),
     status VARCHAR(32) NOT NULL DEFAULT 'PENDING',
-    total_documents INTEGER NOT NULL DEFAULT 0,
-    processed_documents INTEGER NOT NULL DEFAULT 0,
-    failed_documents INTEGER NOT NULL DEFAULT 0,
+    source_type VARCHAR(32) NOT NULL DEFAULT 'FILE',
+    source_location TEXT,
+    total_documents BIGINT NOT NULL DEFAULT 0,
+    source_bytes BIGINT NOT NULL DEFAULT 0,
+    source_node VARCHAR(255),
+    processed_documents BIGINT NOT NULL DEFAULT 0,
+    failed_documents BIGINT NOT NULL DEFAULT 0,
+    embedded_vectors BIGINT NOT NULL DEFAULT 0,
+    checkpoint BIGINT NOT NULL DEFAULT 0,
+    elapsed_ms BIGINT NOT NULL DEFAULT 0,
+    owner VARCHAR(255),
+    heartbeat_at TIMESTAMP,
     error_message TEXT,
     started_at TIMESTAMP,
     completed_at TIMESTAMP,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+-- 早期版本建立的表补齐任务列
+ALTER TABLE ingestion_task ADD COLUMN IF NOT EXISTS source_type VARCHAR(32) NOT NULL DEFAULT 'FILE';
+ALTER TABLE ingestion_task ADD COLUMN IF NOT EXISTS source_location TEXT;
+ALTER TABLE ingestion_task ADD COLUMN IF NOT EXISTS embedded_vectors BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE ingestion_task ADD COLUMN IF NOT EXISTS checkpoint BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE ingestion_task ADD COLUMN IF NOT EXISTS elapsed_ms BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE ingestion_task ADD COLUMN IF NOT EXISTS owner VARCHAR(255);
+ALTER TABLE ingestion_task ADD COLUMN IF NOT EXISTS heartbeat_at TIMESTAMP;
+ALTER TABLE ingestion_task ADD COLUMN IF NOT EXISTS source_bytes BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE ingestion_task ADD COLUMN IF NOT EXISTS source_node VARCHAR(255);
+ALTER TABLE ingestion_task ALTER COLUMN total_documents TYPE BIGINT;
+ALTER TABLE ingestion_task ALTER COLUMN processed_documents TYPE BIGINT;
+ALTER TABLE ingestion_task ALTER COLUMN failed_documents TYPE BIGINT;
+
 CREATE INDEX IF NOT EXISTS idx_ingestion_task_kb_id ON ingestion_task(knowledge_base_id);
 CREATE INDEX IF NOT EXISTS idx_ingestion_task_status ON ingestion_task(status);
 
@@ -0,0 +1,468 @@
+package com.enterprise.rag.application.service;
+
+import com.enterprise.rag.domain.model.document.Document;
+import com.enterprise.rag.domain.model.knowledgebase.FieldDefinition;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
+import com.enterprise.rag.infrastructure.elasticsearch.BulkIndexResult;
+import com.enterprise.rag.infrastructure.kafka.IngestionMessage;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * NDJSON 流式批量摄取服务
+ * 
+ * <p>逐行读取输入 (REST 请求体或摄取任务的来源)，每行是一条与 Kafka 摄取消息格式相同的 JSON 对象，攒满一个有界微批次
+ * (条数或字节数上限) 后经 {@link IngestionService#ingestBatch} 校验、向量化并写入，再按输入顺序输出逐行状态。
+ * 任一时刻只持有一个微批次，内存占用与上传总量无关。</p>
+ */
+@Slf4j
+@Service
+public class BulkIngestionService {
+    
+    private final IngestionService ingestionService;
+    private final ObjectReader lineReader;
+    private final int batchSize;
+    private final long maxBatchBytes;
+    private final int maxLineBytes;
+    
+    public BulkIngestionService(IngestionService ingestionService,
+                                ObjectMapper objectMapper,
+                                @Value("${rag.ingestion.bulk-api.batch-size:200}") int batchSize,
+                                @Value("${rag.ingestion.bulk-api.max-batch-bytes:8388608}") long maxBatchBytes,
+                                @Value("${rag.ingestion.bulk-api.max-line-bytes:1048576}") int maxLineBytes) {
+        if (batchSize < 1 || maxBatchBytes < 1 || maxLineBytes < 1) {
+            throw new IllegalArgumentException("Bulk API batch size, max batch bytes and max line bytes must be positive");
+        }
+        this.ingestionService = ingestionService;
+        this.lineReader = objectMapper.readerFor(IngestionMessage.class);
+        this.batchSize = batchSize;
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxLineBytes = maxLineBytes;
+    }
+    
+    /**
+     * 流式摄取 NDJSON
+     * 
+     * <p>单行解析或校验失败不影响其他行；整个微批次写入失败时该批次的行均标记为失败，后续批次继续处理。
+     * 超过 rag.ingestion.bulk-api.max-line-bytes 的行不读入内存，记为 413。</p>
+     * 
+     * @param knowledgeBaseId 知识库 ID
+     * @param input NDJSON 输入流 (UTF-8)，行位置为从 1 开始的行号
+     * @param sink 逐行状态接收方
+     * @return 汇总统计
+     */
+    public BulkSummary ingest(String knowledgeBaseId, InputStream input, StatusSink sink) throws IOException {
+        return ingest(knowledgeBaseId, LineSource.of(input, 1, maxLineBytes), BulkOptions.DEFAULT, sink);
+    }
+    
+    /**
+     * 从任意行来源摄取
+     * 
+     * @param knowledgeBaseId 知识库 ID
+     * @param source 行来源
+     * @param options 摄取选项
+     * @param sink 逐行状态接收方，每个微批次结束后收到一次进度
+     * @return 汇总统计
+     */
+    public BulkSummary ingest(String knowledgeBaseId, LineSource source, BulkOptions options, StatusSink sink)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        KnowledgeBase knowledgeBase = ingestionService.requireIngestible(knowledgeBaseId);
+        List<PendingLine> batch = new ArrayList<>(batchSize);
+        long batchBytes = 0;
+        long lines = 0;
+        long lastPosition = -1;
+        long[] counts = new long[2];
+        
+        SourceLine line;
+        while ((line = source.next()) != null) {
+            lines++;
+            lastPosition = line.position();
+            long lineBytes = line.text() != null ? utf8Length(line.text()) : Long.MAX_VALUE;
+            
+            // 解析失败的行也留在批次中，以便状态按输入顺序输出
+            PendingLine pending;
+            if (lineBytes > maxLineBytes) {
+                pending = new PendingLine(line.position(), null, null, null, new LineStatus(line.position(), null, null,
+                        413, "line_too_long", "Line exceeds " + maxLineBytes + " bytes"));
+                lineBytes = 0;
+            } else if (line.text().isBlank()) {
+                continue;
+            } else {
+                pending = parse(knowledgeBaseId, line, options);
+            }
+            if (pending == null) {
+                continue;
+            }
+            batch.add(pending);
+            batchBytes += lineBytes;
+            
+            if (batch.size() >= batchSize || batchBytes >= maxBatchBytes) {
+                flush(knowledgeBase, batch, lastPosition, options, sink, counts);
+                batch.clear();
+                batchBytes = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(knowledgeBase, batch, lastPosition, options, sink, counts);
+        }
+        
+        BulkSummary summary = new BulkSummary(lines, counts[0], counts[1], System.currentTimeMillis() - start);
+        log.info("Bulk ingested into knowledge base {}: {} lines, {} succeeded, {} failed in {} ms",
+                knowledgeBaseId, summary.lines(), summary.succeeded(), summary.failed(), summary.tookMs());
+        return summary;
+    }
+    
+    /**
+     * 解析单行，失败时返回已带状态的行；按选项跳过的行返回 null
+     */
+    private PendingLine parse(String knowledgeBaseId, SourceLine line, BulkOptions options) {
+        long position = line.position();
+        IngestionMessage message;
+        try {
+            message = lineReader.readValue(line.text());
+        } catch (JsonProcessingException e) {
+            return PendingLine.failed(position, null, null, "parse_exception", e.getOriginalMessage());
+        } catch (RuntimeException e) {
+            return PendingLine.failed(position, null, null, "parse_exception", e.getMessage());
+        }
+        if (message == null) {
+            return PendingLine.failed(position, null, null, "validation_exception", "Line is JSON null");
+        }
+        
+        IngestionMessage.OperationType operation = message.getOperation() != null
+                ? message.getOperation() : IngestionMessage.OperationType.INDEX;
+        if (message.getKnowledgeBaseId() != null && !message.getKnowledgeBaseId().equals(knowledgeBaseId)) {
+            if (options.skipOtherKnowledgeBases()) {
+                return null;
+            }
+            return PendingLine.failed(position, message.getDocumentId(), operation, "validation_exception",
+                    "Line targets knowledge base " + message.getKnowledgeBaseId());
+        }
+        if (operation != IngestionMessage.OperationType.INDEX && message.getDocumentId() == null) {
+            return PendingLine.failed(position, null, operation, "validation_exception",
+                    "Document ID is required for " + operation);
+        }
+        
+        String documentId;
+        if (message.getDocumentId() != null) {
+            documentId = message.getDocumentId();
+        } else if (options.documentIdNamespace() != null) {
+            // 由来源位置派生，从检查点恢复时重放的行不会产生重复文档
+            documentId = UUID.nameUUIDFromBytes((options.documentIdNamespace() + ":" + position)
+                    .getBytes(StandardCharsets.UTF_8)).toString();
+        } else {
+            documentId = UUID.randomUUID().toString();
+        }
+        return new PendingLine(position, documentId, operation, message, null);
+    }
+    
+    /**
+     * 写入一个微批次并按输入顺序输出逐行状态
+     * 
+     * <p>同一文档在批内的多行按 {@link IngestionMessage#foldWith} 依次折叠为一个操作，不能折叠的后续操作
+     * (删除后的更新) 在下一轮写入，每轮每个文档至多一个操作，结果与逐行写入一致。折叠在一起的行共享同一状态。</p>
+     */
+    private void flush(KnowledgeBase knowledgeBase, List<PendingLine> batch, long lastPosition, BulkOptions options,
+                       StatusSink sink, long[] counts) throws IOException {
+        String knowledgeBaseId = knowledgeBase.getId();
+        // 文档 ID → 按到达顺序折叠后的操作序列
+        Map<String, List<PendingOp>> sequences = new LinkedHashMap<>();
+        int rounds = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingLine pending = batch.get(i);
+            if (pending.status() != null) {
+                continue;
+            }
+            List<PendingOp> sequence = sequences.computeIfAbsent(pending.documentId(), k -> new ArrayList<>(1));
+            IngestionMessage folded = sequence.isEmpty()
+                    ? null : sequence.get(sequence.size() - 1).message().foldWith(pending.message());
+            if (folded != null) {
+                PendingOp last = sequence.get(sequence.size() - 1);
+                last.lines().add(i);
+                sequence.set(sequence.size() - 1, new PendingOp(pending.documentId(), folded, last.lines()));
+            } else {
+                List<Integer> lines = new ArrayList<>(1);
+                lines.add(i);
+                sequence.add(new PendingOp(pending.documentId(), pending.message(), lines));
+            }
+            rounds = Math.max(rounds, sequence.size());
+        }
+        
+        LineStatus[] statuses = new LineStatus[batch.size()];
+        int embeddings = 0;
+        LineStatus batchFailure = null;
+        for (int round = 0; round < rounds; round++) {
+            List<PendingOp> ops = new ArrayList<>();
+            for (List<PendingOp> sequence : sequences.values()) {
+                if (sequence.size() > round) {
+                    ops.add(sequence.get(round));
+                }
+            }
+            
+            Map<String, BulkIndexResult.ItemFailure> failures = new HashMap<>();
+            if (batchFailure == null) {
+                try {
+                    failures = writeRound(knowledgeBaseId, ops);
+                } catch (RuntimeException e) {
+                    if (options.abortOnBatchFailure()) {
+                        throw e;
+                    }
+                    batchFailure = toBatchFailure(knowledgeBaseId, batch.size(), e);
+                }
+            }
+            
+            for (PendingOp op : ops) {
+                BulkIndexResult.ItemFailure failure = failures.get(op.documentId());
+                if (batchFailure == null && failure == null
+                        && op.message().operationOrDefault() != IngestionMessage.OperationType.DELETE) {
+                    embeddings += vectorValues(knowledgeBase, op.message());
+                }
+                for (int line : op.lines()) {
+                    PendingLine pending = batch.get(line);
+                    if (batchFailure != null) {
+                        statuses[line] = new LineStatus(pending.position(), pending.documentId(), pending.operation(),
+                                batchFailure.status(), batchFailure.error(), batchFailure.reason());
+                    } else if (failure != null) {
+                        statuses[line] = new LineStatus(pending.position(), pending.documentId(), pending.operation(),
+                                failure.status(), failure.errorType(), failure.reason());
+                    } else {
+                        statuses[line] = new LineStatus(pending.position(), pending.documentId(), pending.operation(),
+                                pending.operation() == IngestionMessage.OperationType.INDEX ? 201 : 200, null, null);
+                    }
+                }
+            }
+        }
+        
+        int succeeded = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            LineStatus status = statuses[i] != null ? statuses[i] : batch.get(i).status();
+            if (status.succeeded()) {
+                succeeded++;
+            }
+            sink.accept(status);
+        }
+        counts[0] += succeeded;
+        counts[1] += batch.size() - succeeded;
+        sink.batchCompleted(new BatchProgress(lastPosition, batch.size(), succeeded, batch.size() - succeeded,
+                embeddings));
+    }
+    
+    /**
+     * 以一次 {@link IngestionService#ingestBatch} 写入一轮操作 (每个文档至多一个)
+     * 
+     * @return 文档 ID → 失败项
+     */
+    private Map<String, BulkIndexResult.ItemFailure> writeRound(String knowledgeBaseId, List<PendingOp> ops) {
+        List<Document> upserts = new ArrayList<>();
+        List<Document> updates = new ArrayList<>();
+        List<String> deleteIds = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (PendingOp op : ops) {
+            IngestionMessage message = op.message();
+            IngestionMessage.OperationType operation = message.operationOrDefault();
+            if (operation == IngestionMessage.OperationType.DELETE) {
+                deleteIds.add(op.documentId());
+                continue;
+            }
+            Document document = Document.builder()
+                    .id(op.documentId())
+                    .knowledgeBaseId(knowledgeBaseId)
+                    .content(message.getContent())
+                    .metadata(message.getMetadata())
+                    .sourceDocumentId(message.getSourceDocumentId())
+                    .chunkIndex(message.getChunkIndex())
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build();
+            (operation == IngestionMessage.OperationType.UPDATE ? updates : upserts).add(document);
+        }
+        
+        Map<String, BulkIndexResult.ItemFailure> failures = new HashMap<>();
+        BulkIndexResult result = ingestionService.ingestBatch(knowledgeBaseId, upserts, updates, deleteIds);
+        for (BulkIndexResult.ItemFailure failure : result.failures()) {
+            failures.put(failure.documentId(), failure);
+        }
+        return failures;
+    }
+    
+    private static LineStatus toBatchFailure(String knowledgeBaseId, int lines, RuntimeException e) {
+        if (e instanceof IllegalArgumentException) {
+            return new LineStatus(0, null, null, 400, "validation_exception", e.getMessage());
+        }
+        if (e instanceof IllegalStateException) {
+            return new LineStatus(0, null, null, 409, "illegal_state_exception", e.getMessage());
+        }
+        log.error("Bulk write of {} lines into knowledge base {} failed", lines, knowledgeBaseId, e);
+        return new LineStatus(0, null, null, 500, "internal_error", e.getMessage());
+    }
+    
+    /**
+     * UTF-8 编码后的字节数 (不实际编码)
+     */
+    static long utf8Length(String text) {
+        long bytes = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+    
+    private static int vectorValues(KnowledgeBase knowledgeBase, IngestionMessage message) {
+        if (message.getContent() == null) {
+            return 0;
+        }
+        int count = 0;
+        for (FieldDefinition fd : knowledgeBase.getVectorFields()) {
+            if (message.getContent().get(fd.getFieldName()) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 行来源
+     */
+    public interface LineSource extends AutoCloseable {
+        
+        /**
+         * @return 下一行，结束时返回 null
+         */
+        SourceLine next() throws IOException;
+        
+        @Override
+        default void close() throws IOException {
+        }
+        
+        /**
+         * 按行读取 UTF-8 输入流 (关闭来源不关闭输入流)
+         * 
+         * @param firstPosition 第一行的位置
+         * @param maxLineBytes 单行最大字节数，超长的行以内容为 null 的行返回
+         */
+        static LineSource of(InputStream input, long firstPosition, int maxLineBytes) {
+            return new NdjsonLineSource(input, firstPosition, maxLineBytes, false);
+        }
+    }
+    
+    /**
+     * 来源中的一行
+     * 
+     * @param position 行在来源中的位置 (行号或位移)，单调递增
+     * @param text 行内容，超过单行字节上限而未读入时为 null
+     */
+    public record SourceLine(long position, String text) {
+    }
+    
+    /**
+     * 摄取选项
+     * 
+     * @param documentIdNamespace 未指定文档 ID 时按 (命名空间, 行位置) 派生 ID；为 null 时随机生成
+     * @param skipOtherKnowledgeBases 跳过指向其他知识库的行，而不是记为失败
+     * @param abortOnBatchFailure 整个微批次写入失败 (非逐文档失败) 时抛出异常中止，而不是将该批次记为失败后继续
+     */
+    public record BulkOptions(String documentIdNamespace, boolean skipOtherKnowledgeBases,
+                              boolean abortOnBatchFailure) {
+        
+        public static final BulkOptions DEFAULT = new BulkOptions(null, false, false);
+    }
+    
+    /**
+     * 逐行状态接收方
+     */
+    public interface StatusSink {
+        
+        void accept(LineStatus status) throws IOException;
+        
+        /**
+         * 一个微批次处理完成，此前读取的所有行均已输出状态
+         */
+        void batchCompleted(BatchProgress progress) throws IOException;
+    }
+    
+    /**
+     * 微批次进度
+     * 
+     * @param lastPosition 已读取的最后一行的位置
+     * @param lines 批次行数
+     * @param succeeded 成功行数
+     * @param failed 失败行数
+     * @param embeddings 成功写入的行中需要向量的字段值数
+     */
+    public record BatchProgress(long lastPosition, int lines, int succeeded, int failed, int embeddings) {
+    }
+    
+    /**
+     * 单行处理状态
+     * 
+     * @param line 行位置 (NDJSON 请求体中为从 1 开始的行号)
+     * @param documentId 文档 ID
+     * @param operation 操作类型
+     * @param status HTTP 语义的状态码
+     * @param error 错误类型，成功时为 null
+     * @param reason 失败原因，成功时为 null
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record LineStatus(long line, String documentId, IngestionMessage.OperationType operation,
+                             int status, String error, String reason) {
+        
+        public boolean succeeded() {
+            return status / 100 == 2;
+        }
+    }
+    
+    /**
+     * 批量摄取汇总
+     * 
+     * @param lines 读取的行数 (含空行和跳过的行)
+     * @param succeeded 成功的行数
+     * @param failed 失败的行数
+     * @param tookMs 耗时 (毫秒)
+     */
+    public record BulkSummary(long lines, long succeeded, long failed, long tookMs) {
+    }
+    
+    /**
+     * 微批次中的一行，status 非 null 表示解析阶段已失败
+     */
+    private record PendingLine(long position, String documentId, IngestionMessage.OperationType operation,
+                               IngestionMessage message, LineStatus status) {
+        
+        private static PendingLine failed(long position, String documentId,
+                                          IngestionMessage.OperationType operation, String error, String reason) {
+            return new PendingLine(position, documentId, operation, null,
+                    new LineStatus(position, documentId, operation, 400, error, reason));
+        }
+    }
+    
+    /**
+     * 一轮中某个文档的写入操作
+     * 
+     * @param message 折叠后的消息
+     * @param lines 折叠为该操作的行在微批次中的下标
+     */
+    private record PendingOp(String documentId, IngestionMessage message, List<Integer> lines) {
+    }
+}
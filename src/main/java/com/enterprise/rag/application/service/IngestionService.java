@@ -4,7 +4,8 @@ import com.enterprise.rag.domain.model.document.Document;
 import com.enterprise.rag.domain.model.knowledgebase.FieldDefinition;
 import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
 import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBaseRepository;
-import com.enterprise.rag.domain.service.EmbeddingService;
+import com.enterprise.rag.domain.service.EmbeddingBatcher;
+import com.enterprise.rag.infrastructure.elasticsearch.BulkIndexResult;
 import com.enterprise.rag.infrastructure.elasticsearch.ElasticsearchDocumentClient;
 import com.enterprise.rag.infrastructure.elasticsearch.ElasticsearchIndexManager;
 import lombok.RequiredArgsConstructor;
@@ -27,25 +28,33 @@ import java.util.*;
 public class IngestionService {
     
     private final KnowledgeBaseRepository knowledgeBaseRepository;
-    private final EmbeddingService embeddingService;
+    private final EmbeddingBatcher embeddingBatcher;
     private final ElasticsearchDocumentClient esDocumentClient;
     private final ElasticsearchIndexManager esIndexManager;
     
     /**
-     * 摄取单个文档
+     * 获取可接收数据的知识库
+     * 
+     * @throws IllegalArgumentException 知识库不存在
+     * @throws IllegalStateException 知识库当前不接收数据
      */
-    @Transactional
-    public void ingestDocument(String knowledgeBaseId, String documentId,
-                               Map<String, Object> content, Map<String, Object> metadata,
-                               String sourceDocumentId, Integer chunkIndex) {
-        // 获取知识库
+    public KnowledgeBase requireIngestible(String knowledgeBaseId) {
         KnowledgeBase knowledgeBase = knowledgeBaseRepository.findById(knowledgeBaseId)
                 .orElseThrow(() -> new IllegalArgumentException("Knowledge base not found: " + knowledgeBaseId));
-        
-        // 检查知识库状态
         if (!knowledgeBase.canIngest()) {
             throw new IllegalStateException("Knowledge base is not accepting data: " + knowledgeBase.getStatus());
         }
+        return knowledgeBase;
+    }
+    
+    /**
+     * 摄取单个文档
+     */
+    @Transactional
+    public void ingestDocument(String knowledgeBaseId, String documentId,
+                               Map<String, Object> content, Map<String, Object> metadata,
+                               String sourceDocumentId, Integer chunkIndex) {
+        KnowledgeBase knowledgeBase = requireIngestible(knowledgeBaseId);
         
         // 校验入站数据
         knowledgeBase.validateInboundData(content);
@@ -63,11 +72,16 @@ public class IngestionService {
                 .build();
         
         // 生成向量
-        Map<String, float[]> vectors = generateVectors(knowledgeBase, content);
+        Map<String, float[]> vectors = embeddingBatcher.embedDocuments(knowledgeBase, List.of(content)).get(0);
         
         // 索引到 ES
         try {
             esDocumentClient.indexDocument(knowledgeBase, document, vectors);
+            BulkIndexResult mirrored = mirrorToMigration(knowledgeBase, List.of(document), List.of(), List.of());
+            if (mirrored.hasFailures()) {
+                throw new IOException("Failed to index document into migration index: "
+                        + mirrored.failures().get(0).reason());
+            }
             log.info("Successfully ingested document {} into knowledge base {}", docId, knowledgeBaseId);
         } catch (IOException e) {
             log.error("Failed to index document {} into ES", docId, e);
@@ -77,18 +91,15 @@ public class IngestionService {
     
     /**
      * 批量摄取文档
+     * 
+     * @return 逐文档的写入结果
      */
     @Transactional
-    public void ingestDocuments(String knowledgeBaseId, List<Map<String, Object>> documents) {
-        KnowledgeBase knowledgeBase = knowledgeBaseRepository.findById(knowledgeBaseId)
-                .orElseThrow(() -> new IllegalArgumentException("Knowledge base not found: " + knowledgeBaseId));
-        
-        if (!knowledgeBase.canIngest()) {
-            throw new IllegalStateException("Knowledge base is not accepting data: " + knowledgeBase.getStatus());
-        }
+    public BulkIndexResult ingestDocuments(String knowledgeBaseId, List<Map<String, Object>> documents) {
+        KnowledgeBase knowledgeBase = requireIngestible(knowledgeBaseId);
         
         List<Document> docList = new ArrayList<>();
-        Map<String, Map<String, float[]>> documentVectors = new HashMap<>();
+        List<Map<String, Object>> contents = new ArrayList<>();
         
         for (Map<String, Object> docData : documents) {
             @SuppressWarnings("unchecked")
@@ -109,13 +120,22 @@ public class IngestionService {
                     .build();
             
             docList.add(document);
-            documentVectors.put(docId, generateVectors(knowledgeBase, content));
+            contents.add(content);
+        }
+        
+        // 整批按模型分组批量生成向量
+        List<Map<String, float[]>> vectors = embeddingBatcher.embedDocuments(knowledgeBase, contents);
+        Map<String, Map<String, float[]>> documentVectors = new HashMap<>();
+        for (int i = 0; i < docList.size(); i++) {
+            documentVectors.put(docList.get(i).getId(), vectors.get(i));
         }
         
         try {
-            esDocumentClient.bulkIndexDocuments(knowledgeBase, docList, documentVectors);
-            log.info("Successfully bulk ingested {} documents into knowledge base {}", 
-                    documents.size(), knowledgeBaseId);
+            BulkIndexResult result = esDocumentClient.bulkIndexDocuments(knowledgeBase, docList, documentVectors)
+                    .merge(mirrorToMigration(knowledgeBase, docList, List.of(), List.of()));
+            log.info("Bulk ingested {} documents into knowledge base {} ({} failed)", 
+                    result.succeeded(), knowledgeBaseId, result.failures().size());
+            return result;
         } catch (IOException e) {
             log.error("Failed to bulk index documents into ES", e);
             throw new RuntimeException("Failed to bulk index documents", e);
@@ -123,30 +143,144 @@ public class IngestionService {
     }
     
     /**
-     * 根据知识库定义生成向量
+     * 按知识库批量写入
+     * 
+     * <p>知识库只查询一次，整批文档一起生成向量，索引、更新与删除合并写入。
+     * 校验失败的文档不中断整批，作为失败项返回。</p>
+     * 
+     * <p>更新为部分更新：只写入消息中出现的字段，且只对源文本哈希与已存储哈希不同的向量字段重新生成向量；
+     * 文档尚不存在时按完整文档索引。</p>
+     * 
+     * <p>知识库重建索引期间，写入同时同步到迁移目标索引。</p>
+     * 
+     * @param upserts 待索引 (新增或覆盖) 的文档
+     * @param updates 待更新的文档
+     * @param deleteIds 待删除的文档 ID
+     * @return 逐文档的写入结果
      */
-    private Map<String, float[]> generateVectors(KnowledgeBase knowledgeBase, Map<String, Object> content) {
-        Map<String, float[]> vectors = new HashMap<>();
-        
-        List<FieldDefinition> vectorFields = knowledgeBase.getVectorFields();
-        
-        for (FieldDefinition fd : vectorFields) {
-            String fieldName = fd.getFieldName();
-            Object fieldValue = content.get(fieldName);
+    public BulkIndexResult ingestBatch(String knowledgeBaseId, List<Document> upserts,
+                                       List<Document> updates, List<String> deleteIds) {
+        KnowledgeBase knowledgeBase = requireIngestible(knowledgeBaseId);
+        BulkIndexResult result = writeBatch(knowledgeBase, upserts, updates, deleteIds);
+        return result.merge(mirrorToMigration(knowledgeBase, upserts, updates, deleteIds));
+    }
+    
+    private BulkIndexResult writeBatch(KnowledgeBase knowledgeBase, List<Document> upserts,
+                                       List<Document> updates, List<String> deleteIds) {
+        String knowledgeBaseId = knowledgeBase.getId();
+        try {
+            // 区分已存在文档 (部分更新) 与新文档 (完整索引)
+            List<Document> toIndex = new ArrayList<>(upserts);
+            List<Document> partialUpdates = new ArrayList<>(updates.size());
+            Map<String, Map<String, String>> storedHashes = esDocumentClient.getContentHashes(
+                    knowledgeBase.getPhysicalIndexName(), updates.stream().map(Document::getId).toList());
+            for (Document document : updates) {
+                (storedHashes.containsKey(document.getId()) ? partialUpdates : toIndex).add(document);
+            }
+            
+            List<Document> valid = new ArrayList<>(toIndex.size());
+            List<BulkIndexResult.ItemFailure> rejected = new ArrayList<>();
+            for (Document document : toIndex) {
+                try {
+                    if (document.getContent() == null) {
+                        throw new IllegalArgumentException("Document content is missing");
+                    }
+                    knowledgeBase.validateInboundData(document.getContent());
+                    valid.add(document);
+                } catch (IllegalArgumentException e) {
+                    rejected.add(new BulkIndexResult.ItemFailure(document.getId(), 400, "validation_exception", e.getMessage()));
+                }
+            }
             
-            if (fieldValue != null) {
-                String textToEmbed = String.valueOf(fieldValue);
-                String modelId = fd.getEmbeddingConfig().getModelId();
-                
-                float[] vector = embeddingService.embed(textToEmbed, modelId);
-                vectors.put(fieldName, vector);
-                
-                log.debug("Generated vector for field {} using model {}, dimension: {}", 
-                        fieldName, modelId, vector.length);
+            // 新文档向量化全部向量字段，更新只向量化源文本变化的字段，整批一起请求
+            List<Map<String, Object>> contents = new ArrayList<>(valid.size() + partialUpdates.size());
+            for (Document document : valid) {
+                contents.add(document.getContent());
             }
+            int reembedded = 0;
+            for (Document document : partialUpdates) {
+                Map<String, Object> changed = changedVectorContent(knowledgeBase, document,
+                        storedHashes.get(document.getId()));
+                reembedded += changed.size();
+                contents.add(changed);
+            }
+            
+            List<Map<String, float[]>> vectors = embeddingBatcher.embedDocuments(knowledgeBase, contents);
+            Map<String, Map<String, float[]>> documentVectors = new HashMap<>();
+            for (int i = 0; i < valid.size(); i++) {
+                documentVectors.put(valid.get(i).getId(), vectors.get(i));
+            }
+            for (int i = 0; i < partialUpdates.size(); i++) {
+                documentVectors.put(partialUpdates.get(i).getId(), vectors.get(valid.size() + i));
+            }
+            if (!partialUpdates.isEmpty()) {
+                log.debug("Updating {} documents in knowledge base {}, re-embedding {} of {} vector fields",
+                        partialUpdates.size(), knowledgeBaseId, reembedded,
+                        partialUpdates.size() * knowledgeBase.getVectorFields().size());
+            }
+            
+            BulkIndexResult result = esDocumentClient.bulkWrite(knowledgeBase, valid, partialUpdates,
+                    documentVectors, deleteIds);
+            return new BulkIndexResult(0, rejected).merge(result);
+        } catch (IOException e) {
+            log.error("Failed to bulk write documents into knowledge base {}", knowledgeBaseId, e);
+            throw new RuntimeException("Failed to bulk write documents", e);
         }
-        
-        return vectors;
+    }
+    
+    /**
+     * 重建索引期间将写入同步到迁移目标索引
+     * 
+     * <p>目标索引按迁移后的字段定义写入并向量化。目标索引中尚不存在的文档 (未被 _reindex 复制到) 的更新
+     * 改为按实时索引中更新后的完整文档索引，避免写入残缺文档；目标写入失败与实时写入失败一样返回调用方重试。</p>
+     * 
+     * @return 未在迁移时为空结果
+     */
+    private BulkIndexResult mirrorToMigration(KnowledgeBase knowledgeBase, List<Document> upserts,
+                                              List<Document> updates, List<String> deleteIds) {
+        if (knowledgeBase.getMigration() == null) {
+            return BulkIndexResult.empty();
+        }
+        KnowledgeBase target = knowledgeBase.migrationTarget();
+        List<Document> targetUpserts = new ArrayList<>(upserts);
+        List<Document> targetUpdates = new ArrayList<>(updates.size());
+        if (!updates.isEmpty()) {
+            try {
+                List<String> ids = updates.stream().map(Document::getId).toList();
+                Set<String> inTarget = esDocumentClient.existingIds(target.getPhysicalIndexName(), ids);
+                Map<String, Document> current = esDocumentClient.getDocuments(knowledgeBase,
+                        ids.stream().filter(id -> !inTarget.contains(id)).toList());
+                for (Document document : updates) {
+                    if (inTarget.contains(document.getId())) {
+                        targetUpdates.add(document);
+                    } else if (current.containsKey(document.getId())) {
+                        targetUpserts.add(current.get(document.getId()));
+                    }
+                }
+            } catch (IOException e) {
+                log.error("Failed to read documents for migration of knowledge base {}", knowledgeBase.getId(), e);
+                throw new RuntimeException("Failed to bulk write documents", e);
+            }
+        }
+        return writeBatch(target, targetUpserts, targetUpdates, deleteIds);
+    }
+    
+    /**
+     * 源文本与已存储哈希不同的向量字段内容
+     */
+    private Map<String, Object> changedVectorContent(KnowledgeBase knowledgeBase, Document document,
+                                                     Map<String, String> storedHashes) {
+        Map<String, Object> changed = new HashMap<>();
+        if (document.getContent() == null) {
+            return changed;
+        }
+        for (FieldDefinition fd : knowledgeBase.getVectorFields()) {
+            Object value = document.getContent().get(fd.getFieldName());
+            if (value != null && !EmbeddingBatcher.sourceHash(fd, value).equals(storedHashes.get(fd.getFieldName()))) {
+                changed.put(fd.getFieldName(), value);
+            }
+        }
+        return changed;
     }
     
     /**
@@ -157,7 +291,12 @@ public class IngestionService {
                 .orElseThrow(() -> new IllegalArgumentException("Knowledge base not found: " + knowledgeBaseId));
         
         try {
-            esDocumentClient.deleteDocument(knowledgeBase.getIndexName(), documentId);
+            esDocumentClient.deleteDocument(knowledgeBase.getPhysicalIndexName(), documentId);
+            BulkIndexResult mirrored = mirrorToMigration(knowledgeBase, List.of(), List.of(), List.of(documentId));
+            if (mirrored.hasFailures()) {
+                throw new IOException("Failed to delete document from migration index: "
+                        + mirrored.failures().get(0).reason());
+            }
             log.info("Deleted document {} from knowledge base {}", documentId, knowledgeBaseId);
         } catch (IOException e) {
             log.error("Failed to delete document {}", documentId, e);
@@ -167,12 +306,28 @@ public class IngestionService {
     
     /**
      * 更新文档
+     * 
+     * <p>部分更新，不删除原文档；只对源文本变化的向量字段重新生成向量 (见 {@link #ingestBatch})</p>
      */
-    @Transactional
     public void updateDocument(String knowledgeBaseId, String documentId,
                                Map<String, Object> content, Map<String, Object> metadata) {
-        // 更新实际上是删除后重新索引
-        deleteDocument(knowledgeBaseId, documentId);
-        ingestDocument(knowledgeBaseId, documentId, content, metadata, null, null);
+        Document document = Document.builder()
+                .id(documentId)
+                .knowledgeBaseId(knowledgeBaseId)
+                .content(content)
+                .metadata(metadata)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+        
+        BulkIndexResult result = ingestBatch(knowledgeBaseId, List.of(), List.of(document), List.of());
+        if (result.hasFailures()) {
+            BulkIndexResult.ItemFailure failure = result.failures().get(0);
+            if (failure.status() == 400) {
+                throw new IllegalArgumentException(failure.reason());
+            }
+            throw new RuntimeException("Failed to update document " + documentId + ": " + failure.reason());
+        }
+        log.info("Updated document {} in knowledge base {}", documentId, knowledgeBaseId);
     }
 }
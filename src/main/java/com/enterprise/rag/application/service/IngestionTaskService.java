@@ -0,0 +1,196 @@
+package com.enterprise.rag.application.service;
+
+import com.enterprise.rag.domain.model.ingestion.IngestionSourceType;
+import com.enterprise.rag.domain.model.ingestion.IngestionTask;
+import com.enterprise.rag.domain.model.ingestion.IngestionTaskRepository;
+import com.enterprise.rag.domain.model.ingestion.IngestionTaskStatus;
+import com.enterprise.rag.infrastructure.kafka.KafkaRangeLineSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 摄取任务服务
+ * 
+ * <p>提交、查询、取消和重试异步摄取任务。任务由工作线程池异步领取执行，
+ * 大批量回填不再占用请求线程。上传的 NDJSON 先完整落盘到暂存目录，任务结束后删除。</p>
+ * 
+ * <p>暂存目录位于接收节点本地，上传任务记录接收节点名，只由该节点领取 (含心跳过期后的接管)；
+ * 接收节点永久下线时任务保持等待，需重新上传。</p>
+ */
+@Slf4j
+@Service
+public class IngestionTaskService {
+    
+    private final IngestionTaskRepository taskRepository;
+    private final IngestionService ingestionService;
+    private final Path fileRoot;
+    private final Path spoolDirectory;
+    private final String nodeName;
+    
+    public IngestionTaskService(
+            IngestionTaskRepository taskRepository,
+            IngestionService ingestionService,
+            @Value("${rag.ingestion.task.file-root:./data/ingest}") String fileRoot,
+            @Value("${rag.ingestion.task.spool-directory:./data/ingest-spool}") String spoolDirectory,
+            @Value("${rag.ingestion.task.node-name:}") String nodeName) {
+        this.taskRepository = taskRepository;
+        this.ingestionService = ingestionService;
+        this.fileRoot = Path.of(fileRoot).toAbsolutePath().normalize();
+        this.spoolDirectory = Path.of(spoolDirectory).toAbsolutePath().normalize();
+        this.nodeName = nodeName.isBlank() ? hostName() : nodeName;
+    }
+    
+    /**
+     * 本节点名，用于限定只能在本节点执行的任务 (本地暂存文件)
+     */
+    public String getNodeName() {
+        return nodeName;
+    }
+    
+    /**
+     * 提交服务端 NDJSON 文件摄取任务
+     * 
+     * @param path 相对于 rag.ingestion.task.file-root 的文件路径
+     */
+    public IngestionTask submitFile(String knowledgeBaseId, String path) {
+        ingestionService.requireIngestible(knowledgeBaseId);
+        Path file = fileRoot.resolve(path).normalize();
+        if (!file.startsWith(fileRoot)) {
+            throw new IllegalArgumentException("File path must be inside the ingestion file root: " + path);
+        }
+        if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+            throw new IllegalArgumentException("File not found or not readable: " + path);
+        }
+        long bytes;
+        try {
+            bytes = Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read size of " + path, e);
+        }
+        return create(UUID.randomUUID().toString(), knowledgeBaseId, IngestionSourceType.FILE, file.toString(),
+                null, 0, bytes, 0);
+    }
+    
+    /**
+     * 提交上传的 NDJSON 摄取任务，请求体写入暂存文件后即返回
+     */
+    public IngestionTask submitUpload(String knowledgeBaseId, InputStream body) {
+        ingestionService.requireIngestible(knowledgeBaseId);
+        String taskId = UUID.randomUUID().toString();
+        Path spoolFile = spoolDirectory.resolve(taskId + ".ndjson");
+        try {
+            Files.createDirectories(spoolDirectory);
+            long bytes = Files.copy(body, spoolFile);
+            log.info("Spooled {} bytes of NDJSON for ingestion task {}", bytes, taskId);
+            return create(taskId, knowledgeBaseId, IngestionSourceType.NDJSON_UPLOAD, spoolFile.toString(),
+                    nodeName, 0, bytes, 0);
+        } catch (IOException e) {
+            deleteQuietly(spoolFile);
+            throw new UncheckedIOException("Failed to spool NDJSON upload", e);
+        } catch (RuntimeException e) {
+            deleteQuietly(spoolFile);
+            throw e;
+        }
+    }
+    
+    /**
+     * 提交 Kafka 位移区间重放任务
+     */
+    public IngestionTask submitKafkaRange(String knowledgeBaseId, String topic, int partition,
+                                          long startOffset, long endOffset) {
+        ingestionService.requireIngestible(knowledgeBaseId);
+        KafkaRangeLineSource.Range range = new KafkaRangeLineSource.Range(topic, partition, startOffset, endOffset);
+        return create(UUID.randomUUID().toString(), knowledgeBaseId, IngestionSourceType.KAFKA_RANGE,
+                range.format(), null, range.size(), 0, range.startOffset());
+    }
+    
+    public IngestionTask getTask(String taskId) {
+        return taskRepository.findById(taskId)
+                .orElseThrow(() -> new IllegalArgumentException("Ingestion task not found: " + taskId));
+    }
+    
+    public List<IngestionTask> listTasks(String knowledgeBaseId) {
+        return taskRepository.findByKnowledgeBaseId(knowledgeBaseId);
+    }
+    
+    /**
+     * 取消任务，运行中的任务在当前批次结束后停止
+     */
+    public IngestionTask cancel(String taskId) {
+        IngestionTask task = getTask(taskId);
+        if (!taskRepository.cancel(taskId)) {
+            throw new IllegalStateException("Ingestion task already finished: " + task.getStatus());
+        }
+        if (task.getStatus() == IngestionTaskStatus.PENDING
+                && task.getSourceType() == IngestionSourceType.NDJSON_UPLOAD) {
+            if (nodeName.equals(task.getSourceNode())) {
+                deleteQuietly(Path.of(task.getSourceLocation()));
+            } else {
+                log.warn("Spooled upload {} of cancelled ingestion task {} remains on node {}",
+                        task.getSourceLocation(), taskId, task.getSourceNode());
+            }
+        }
+        log.info("Cancelled ingestion task {}", taskId);
+        return getTask(taskId);
+    }
+    
+    /**
+     * 重新排队失败的任务，从检查点继续
+     */
+    public IngestionTask resume(String taskId) {
+        IngestionTask task = getTask(taskId);
+        if (!taskRepository.requeue(taskId)) {
+            throw new IllegalStateException("Only failed ingestion tasks can be resumed: " + task.getStatus());
+        }
+        log.info("Requeued ingestion task {} from checkpoint {}", taskId, task.getCheckpoint());
+        return getTask(taskId);
+    }
+    
+    private IngestionTask create(String taskId, String knowledgeBaseId, IngestionSourceType sourceType,
+                                 String sourceLocation, String sourceNode, long totalDocuments, long sourceBytes,
+                                 long checkpoint) {
+        IngestionTask task = taskRepository.create(IngestionTask.builder()
+                .id(taskId)
+                .knowledgeBaseId(knowledgeBaseId)
+                .status(IngestionTaskStatus.PENDING)
+                .sourceType(sourceType)
+                .sourceLocation(sourceLocation)
+                .totalDocuments(totalDocuments)
+                .sourceBytes(sourceBytes)
+                .sourceNode(sourceNode)
+                .checkpoint(checkpoint)
+                .createdAt(LocalDateTime.now())
+                .build());
+        log.info("Submitted ingestion task {} ({} {}) for knowledge base {}",
+                taskId, sourceType, sourceLocation, knowledgeBaseId);
+        return task;
+    }
+    
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+    
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete spooled upload {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.enterprise.rag.application.service;
+
+import com.enterprise.rag.domain.model.ingestion.IngestionSourceType;
+import com.enterprise.rag.domain.model.ingestion.IngestionTask;
+import com.enterprise.rag.domain.model.ingestion.IngestionTaskRepository;
+import com.enterprise.rag.domain.model.ingestion.IngestionTaskStatus;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBaseRepository;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBaseStatus;
+import com.enterprise.rag.infrastructure.elasticsearch.ElasticsearchIndexManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+
+/**
+ * 知识库批量装载模式服务
+ * 
+ * <p>大批量摄取任务开始时将知识库切换为 BULK_LOADING，索引关闭刷新、不写副本并提高 translog 刷盘阈值；
+ * 最后一个大任务结束时恢复常规设置、刷新索引，并可选地提交段合并。
+ * 是否仍有装载方以摄取任务表中运行中的大任务为准，多节点执行时不会提前恢复设置；
+ * 持有节点崩溃后遗留的装载模式由 {@link #releaseAbandoned()} 定期恢复。</p>
+ */
+@Slf4j
+@Service
+public class KnowledgeBaseBulkLoadService {
+    
+    private final KnowledgeBaseRepository knowledgeBaseRepository;
+    private final IngestionTaskRepository taskRepository;
+    private final ElasticsearchIndexManager esIndexManager;
+    private final boolean enabled;
+    private final long minDocuments;
+    private final long minBytes;
+    private final boolean forceMergeEnabled;
+    private final long forceMergeMaxSegments;
+    
+    public KnowledgeBaseBulkLoadService(
+            KnowledgeBaseRepository knowledgeBaseRepository,
+            IngestionTaskRepository taskRepository,
+            ElasticsearchIndexManager esIndexManager,
+            @Value("${rag.index.bulk-load.enabled:true}") boolean enabled,
+            @Value("${rag.index.bulk-load.min-documents:100000}") long minDocuments,
+            @Value("${rag.index.bulk-load.min-bytes:268435456}") long minBytes,
+            @Value("${rag.index.bulk-load.force-merge.enabled:true}") boolean forceMergeEnabled,
+            @Value("${rag.index.bulk-load.force-merge.max-num-segments:1}") long forceMergeMaxSegments) {
+        this.knowledgeBaseRepository = knowledgeBaseRepository;
+        this.taskRepository = taskRepository;
+        this.esIndexManager = esIndexManager;
+        this.enabled = enabled;
+        this.minDocuments = minDocuments;
+        this.minBytes = minBytes;
+        this.forceMergeEnabled = forceMergeEnabled;
+        this.forceMergeMaxSegments = forceMergeMaxSegments;
+    }
+    
+    /**
+     * 判断任务是否足够大，需要批量装载模式
+     * 
+     * <p>Kafka 区间按消息数，文件按提交时记录的字节数判断；只依赖任务记录，任意节点的判断结果一致
+     * (上传暂存文件只存在于接收上传的节点)</p>
+     */
+    public boolean isLargeLoad(IngestionTask task) {
+        if (!enabled) {
+            return false;
+        }
+        if (task.getSourceType() == IngestionSourceType.KAFKA_RANGE) {
+            return task.getTotalDocuments() >= minDocuments;
+        }
+        return task.getSourceBytes() >= minBytes;
+    }
+    
+    /**
+     * 进入批量装载模式，已处于该模式时重新应用索引设置
+     * 
+     * <p>先以条件更新持久化 BULK_LOADING 再修改索引设置：切换失败 (如并发开始重建索引) 时不修改设置，
+     * 已修改的设置总能由 {@link #end} 或 {@link #releaseAbandoned()} 按状态恢复</p>
+     * 
+     * @return 知识库是否处于批量装载模式 (非 ACTIVE 或正在重建索引时不切换)
+     */
+    public boolean begin(String knowledgeBaseId) {
+        KnowledgeBase knowledgeBase = load(knowledgeBaseId);
+        if (knowledgeBase.getStatus() != KnowledgeBaseStatus.BULK_LOADING) {
+            if (!knowledgeBaseRepository.transitionStatus(knowledgeBaseId,
+                    KnowledgeBaseStatus.ACTIVE, KnowledgeBaseStatus.BULK_LOADING)) {
+                // 其他节点可能已并发切换为批量装载模式
+                knowledgeBase = load(knowledgeBaseId);
+                if (knowledgeBase.getStatus() != KnowledgeBaseStatus.BULK_LOADING) {
+                    log.info("Knowledge base {} ({}) does not enter bulk load mode",
+                            knowledgeBaseId, knowledgeBase.getStatus());
+                    return false;
+                }
+            } else {
+                log.info("Knowledge base {} entered bulk load mode", knowledgeBaseId);
+            }
+        }
+        try {
+            esIndexManager.startBulkLoad(knowledgeBase.getPhysicalIndexName());
+        } catch (IOException e) {
+            // 状态已持久化，任务结束时照常恢复设置
+            log.warn("Failed to apply bulk load settings to knowledge base {}: {}", knowledgeBaseId, e.getMessage());
+        }
+        return true;
+    }
+    
+    /**
+     * 装载方结束：没有其他运行中的大任务时恢复常规设置并结束批量装载模式
+     * 
+     * @param taskId 结束的任务 ID，不计入仍在运行的装载方
+     */
+    public void end(String knowledgeBaseId, String taskId) {
+        if (hasOtherLoaders(knowledgeBaseId, taskId)) {
+            log.info("Knowledge base {} stays in bulk load mode for other running ingestion tasks", knowledgeBaseId);
+            return;
+        }
+        KnowledgeBase knowledgeBase = load(knowledgeBaseId);
+        if (knowledgeBase.getStatus() != KnowledgeBaseStatus.BULK_LOADING) {
+            return;
+        }
+        String indexName = knowledgeBase.getPhysicalIndexName();
+        try {
+            esIndexManager.finishBulkLoad(indexName);
+        } catch (IOException e) {
+            // 保持装载模式，由定期恢复重试
+            log.error("Failed to restore settings of knowledge base {} after bulk load", knowledgeBaseId, e);
+            return;
+        }
+        if (!knowledgeBaseRepository.transitionStatus(knowledgeBaseId,
+                KnowledgeBaseStatus.BULK_LOADING, KnowledgeBaseStatus.ACTIVE)) {
+            log.info("Knowledge base {} already left bulk load mode", knowledgeBaseId);
+            return;
+        }
+        log.info("Knowledge base {} left bulk load mode", knowledgeBaseId);
+        
+        if (forceMergeEnabled) {
+            try {
+                esIndexManager.forceMerge(indexName, forceMergeMaxSegments);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to start force merge of index {}: {}", indexName, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 恢复没有运行中大任务的批量装载模式知识库 (持有节点崩溃、任务被取消等)
+     */
+    public void releaseAbandoned() {
+        for (KnowledgeBase knowledgeBase : knowledgeBaseRepository.findByStatus(KnowledgeBaseStatus.BULK_LOADING)) {
+            if (!hasOtherLoaders(knowledgeBase.getId(), null)) {
+                log.info("Releasing abandoned bulk load mode of knowledge base {}", knowledgeBase.getId());
+                end(knowledgeBase.getId(), null);
+            }
+        }
+    }
+    
+    private boolean hasOtherLoaders(String knowledgeBaseId, String taskId) {
+        return taskRepository.findByKnowledgeBaseId(knowledgeBaseId).stream()
+                .filter(task -> task.getStatus() == IngestionTaskStatus.RUNNING)
+                .filter(task -> !task.getId().equals(taskId))
+                .anyMatch(this::isLargeLoad);
+    }
+    
+    private KnowledgeBase load(String knowledgeBaseId) {
+        return knowledgeBaseRepository.findById(knowledgeBaseId)
+                .orElseThrow(() -> new IllegalArgumentException("Knowledge base not found: " + knowledgeBaseId));
+    }
+}
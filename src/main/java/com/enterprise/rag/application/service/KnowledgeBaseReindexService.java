@@ -0,0 +1,706 @@
+package com.enterprise.rag.application.service;
+
+import com.enterprise.rag.domain.model.knowledgebase.FieldDefinition;
+import com.enterprise.rag.domain.model.knowledgebase.IndexMigration;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBaseRepository;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBaseStatus;
+import com.enterprise.rag.domain.service.EmbeddingBatcher;
+import com.enterprise.rag.infrastructure.elasticsearch.BulkIndexResult;
+import com.enterprise.rag.infrastructure.elasticsearch.ElasticsearchDocumentClient;
+import com.enterprise.rag.infrastructure.elasticsearch.ElasticsearchIndexManager;
+import com.google.common.util.concurrent.RateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 知识库重建索引服务
+ * 
+ * <p>字段定义变化无法原地修改 mapping 时 (如向量模型或维度变化)，在后台按新字段定义构建新的物理索引，
+ * 完成后原子切换知识库别名，检索全程使用旧索引不受影响：</p>
+ * <ol>
+ *     <li>以批量装载设置创建目标索引，并在知识库上记录迁移，此后实时写入同时写两个索引</li>
+ *     <li>限速的异步 _reindex 复制未变化的字段，移除需重新向量化的向量</li>
+ *     <li>删除目标索引中实时索引已不存在的文档 (复制快照与并发删除的交错)</li>
+ *     <li>按新嵌入配置批量重新向量化源文本哈希不一致的文档，期间被双写修改的文档跳过</li>
+ *     <li>恢复索引设置，切换别名，知识库改用新字段定义与新物理索引，旧索引延迟删除</li>
+ * </ol>
+ * 
+ * <p>迁移记录持久化在知识库上，各步骤可重复执行：任务中断后可从头恢复，已完成的工作不会重复写入。</p>
+ * 
+ * <p>执行迁移的节点在知识库上持有带心跳的租约，其他节点不能恢复或放弃他人正在运行的迁移，
+ * 持有者心跳过期后方可接管。待删除的旧索引同样持久化，由各节点定期清理，节点重启不会遗留旧索引。</p>
+ */
+@Slf4j
+@Service
+public class KnowledgeBaseReindexService implements AutoCloseable {
+    
+    private final KnowledgeBaseRepository knowledgeBaseRepository;
+    private final ElasticsearchIndexManager esIndexManager;
+    private final ElasticsearchDocumentClient esDocumentClient;
+    private final EmbeddingBatcher embeddingBatcher;
+    private final float defaultRequestsPerSecond;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long settleDelayMs;
+    private final long retireDelayMs;
+    private final long leaseTimeoutMs;
+    private final long heartbeatIntervalMs;
+    private final long retireSweepIntervalMs;
+    private final String nodeId;
+    private final Map<String, ReindexJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "kb-reindex");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "kb-reindex-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public KnowledgeBaseReindexService(
+            KnowledgeBaseRepository knowledgeBaseRepository,
+            ElasticsearchIndexManager esIndexManager,
+            ElasticsearchDocumentClient esDocumentClient,
+            EmbeddingBatcher embeddingBatcher,
+            @Value("${rag.index.reindex.requests-per-second:500}") float defaultRequestsPerSecond,
+            @Value("${rag.index.reindex.batch-size:500}") int batchSize,
+            @Value("${rag.index.reindex.poll-interval-ms:5000}") long pollIntervalMs,
+            @Value("${rag.index.reindex.settle-delay-ms:10000}") long settleDelayMs,
+            @Value("${rag.index.reindex.retire-delay-ms:600000}") long retireDelayMs,
+            @Value("${rag.index.reindex.lease-timeout-ms:120000}") long leaseTimeoutMs,
+            @Value("${rag.index.reindex.heartbeat-interval-ms:30000}") long heartbeatIntervalMs,
+            @Value("${rag.index.reindex.retire-sweep-interval-ms:60000}") long retireSweepIntervalMs) {
+        if (heartbeatIntervalMs <= 0 || leaseTimeoutMs <= heartbeatIntervalMs * 2) {
+            throw new IllegalArgumentException("Reindex lease timeout must exceed twice the heartbeat interval");
+        }
+        if (retireSweepIntervalMs <= 0) {
+            throw new IllegalArgumentException("Reindex retire sweep interval must be positive");
+        }
+        this.knowledgeBaseRepository = knowledgeBaseRepository;
+        this.esIndexManager = esIndexManager;
+        this.esDocumentClient = esDocumentClient;
+        this.embeddingBatcher = embeddingBatcher;
+        this.defaultRequestsPerSecond = defaultRequestsPerSecond;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.settleDelayMs = settleDelayMs;
+        this.retireDelayMs = retireDelayMs;
+        this.leaseTimeoutMs = leaseTimeoutMs;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.retireSweepIntervalMs = retireSweepIntervalMs;
+        this.nodeId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        scheduler.scheduleWithFixedDelay(this::retireDue, retireSweepIntervalMs, retireSweepIntervalMs,
+                TimeUnit.MILLISECONDS);
+        scheduler.execute(this::upgradeLegacyMappings);
+    }
+    
+    /**
+     * 以新字段定义开始重建索引
+     * 
+     * @param fieldDefinitions 迁移后的完整字段定义
+     * @param requestsPerSecond 复制与重新向量化的限速 (每秒文档数)，为空时使用默认值，不大于 0 时不限速
+     * @throws IllegalStateException 知识库已在重建索引 (含其他节点)
+     */
+    public synchronized ReindexStatus start(String knowledgeBaseId, List<FieldDefinition> fieldDefinitions,
+                                            Float requestsPerSecond) {
+        requireNotRunning(knowledgeBaseId);
+        KnowledgeBase knowledgeBase = load(knowledgeBaseId);
+        IndexMigration migration = knowledgeBase.startMigration(fieldDefinitions);
+        knowledgeBaseRepository.save(knowledgeBase);
+        claimLease(knowledgeBaseId);
+        log.info("Starting reindex of knowledge base {} from {} into {}",
+                knowledgeBaseId, knowledgeBase.getPhysicalIndexName(), migration.getTargetIndex());
+        return launch(knowledgeBase, requestsPerSecond);
+    }
+    
+    /**
+     * 恢复中断或失败的重建索引
+     * 
+     * @throws IllegalStateException 无迁移记录，或迁移正由其他节点运行
+     */
+    public synchronized ReindexStatus resume(String knowledgeBaseId, Float requestsPerSecond) {
+        requireNotRunning(knowledgeBaseId);
+        KnowledgeBase knowledgeBase = load(knowledgeBaseId);
+        if (knowledgeBase.getMigration() == null) {
+            throw new IllegalStateException("Knowledge base is not being reindexed");
+        }
+        claimLease(knowledgeBaseId);
+        log.info("Resuming reindex of knowledge base {} into {}",
+                knowledgeBaseId, knowledgeBase.getMigration().getTargetIndex());
+        return launch(knowledgeBase, requestsPerSecond);
+    }
+    
+    /**
+     * 放弃重建索引：删除目标索引并清除迁移记录，运行中的任务在当前批次结束后清理
+     * 
+     * @throws IllegalStateException 无迁移记录，或迁移正由其他节点运行 (需在该节点放弃)
+     */
+    public synchronized ReindexStatus abort(String knowledgeBaseId) {
+        ReindexJob job = jobs.get(knowledgeBaseId);
+        if (job != null && job.running) {
+            job.abortRequested = true;
+            log.info("Requested abort of reindex of knowledge base {}", knowledgeBaseId);
+            return job.snapshot();
+        }
+        KnowledgeBase knowledgeBase = load(knowledgeBaseId);
+        if (knowledgeBase.getMigration() == null) {
+            throw new IllegalStateException("Knowledge base is not being reindexed");
+        }
+        claimLease(knowledgeBaseId);
+        try {
+            discardMigration(knowledgeBase);
+        } finally {
+            knowledgeBaseRepository.releaseMigration(knowledgeBaseId, nodeId);
+        }
+        jobs.remove(knowledgeBaseId);
+        return getStatus(knowledgeBaseId);
+    }
+    
+    /**
+     * 查询重建索引进度
+     * 
+     * <p>迁移由其他节点持有有效租约时阶段为 RUNNING_ON_OTHER_NODE (进度在该节点查询)；
+     * 无节点运行而知识库仍有迁移记录时 (如节点重启)，阶段为 INTERRUPTED</p>
+     */
+    public ReindexStatus getStatus(String knowledgeBaseId) {
+        ReindexJob job = jobs.get(knowledgeBaseId);
+        if (job != null && job.running) {
+            return job.snapshot();
+        }
+        KnowledgeBase knowledgeBase = load(knowledgeBaseId);
+        IndexMigration migration = knowledgeBase.getMigration();
+        if (migration != null) {
+            Optional<String> owner = knowledgeBaseRepository.findMigrationOwner(knowledgeBaseId, staleBefore());
+            if (owner.isPresent() && !owner.get().equals(nodeId)) {
+                return new ReindexStatus(knowledgeBaseId, Phase.RUNNING_ON_OTHER_NODE,
+                        knowledgeBase.getPhysicalIndexName(), migration.getTargetIndex(), 0, 0, 0, 0, 0,
+                        migration.getStartedAt(), null, null);
+            }
+        }
+        if (job != null) {
+            return job.snapshot();
+        }
+        if (migration != null) {
+            return new ReindexStatus(knowledgeBaseId, Phase.INTERRUPTED, knowledgeBase.getPhysicalIndexName(),
+                    migration.getTargetIndex(), 0, 0, 0, 0, 0, migration.getStartedAt(), null, null);
+        }
+        return ReindexStatus.idle(knowledgeBaseId, knowledgeBase.getPhysicalIndexName());
+    }
+    
+    @Override
+    public void close() {
+        jobs.values().forEach(job -> job.stopRequested = true);
+        executor.shutdown();
+        scheduler.shutdown();
+    }
+    
+    private void requireNotRunning(String knowledgeBaseId) {
+        ReindexJob job = jobs.get(knowledgeBaseId);
+        if (job != null && job.running) {
+            throw new IllegalStateException("Knowledge base is already being reindexed: " + knowledgeBaseId);
+        }
+    }
+    
+    private void claimLease(String knowledgeBaseId) {
+        if (!knowledgeBaseRepository.claimMigration(knowledgeBaseId, nodeId, staleBefore())) {
+            String owner = knowledgeBaseRepository.findMigrationOwner(knowledgeBaseId, staleBefore())
+                    .orElse("another node");
+            throw new IllegalStateException("Knowledge base " + knowledgeBaseId + " is being reindexed on " + owner);
+        }
+    }
+    
+    /**
+     * 续约运行中任务的租约，租约已被接管时停止任务；数据库暂时不可用时保留任务，由租约超时兜底
+     */
+    private void renewLease(ReindexJob job) {
+        if (!job.running) {
+            return;
+        }
+        try {
+            if (!knowledgeBaseRepository.renewMigration(job.knowledgeBaseId, nodeId) && job.running) {
+                job.leaseLost = true;
+                job.stopRequested = true;
+                log.warn("Stopping reindex of knowledge base {}: lease no longer held by node {}",
+                        job.knowledgeBaseId, nodeId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to renew reindex lease of knowledge base {}: {}", job.knowledgeBaseId, e.getMessage());
+        }
+    }
+    
+    private LocalDateTime staleBefore() {
+        return LocalDateTime.now().minusNanos(leaseTimeoutMs * 1_000_000);
+    }
+    
+    private ReindexStatus launch(KnowledgeBase knowledgeBase, Float requestsPerSecond) {
+        ReindexJob job = new ReindexJob(knowledgeBase.getId(), knowledgeBase.getPhysicalIndexName(),
+                knowledgeBase.getMigration().getTargetIndex(),
+                requestsPerSecond != null ? requestsPerSecond : defaultRequestsPerSecond);
+        jobs.put(knowledgeBase.getId(), job);
+        job.heartbeat = scheduler.scheduleWithFixedDelay(() -> renewLease(job), heartbeatIntervalMs,
+                heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        executor.execute(() -> run(job));
+        return job.snapshot();
+    }
+    
+    private void run(ReindexJob job) {
+        try {
+            job.phase = Phase.CREATING_INDEX;
+            esIndexManager.createMigrationIndex(load(job.knowledgeBaseId));
+            
+            job.phase = Phase.COPYING;
+            copy(job);
+            
+            // 目标索引关闭了刷新，遍历前手动刷新；此后的写入均经双写，无需再检查
+            esIndexManager.refresh(job.targetIndex);
+            job.phase = Phase.RECONCILING;
+            reconcileDeletes(job);
+            
+            job.phase = Phase.REEMBEDDING;
+            reembed(job);
+            
+            job.phase = Phase.SWAPPING;
+            swap(job);
+            job.finish(Phase.COMPLETED, null);
+            log.info("Reindex of knowledge base {} completed: {} copied, {} re-embedded, {} stale deleted",
+                    job.knowledgeBaseId, job.copied, job.reembedded, job.reconciledDeletes);
+        } catch (ReindexStoppedException e) {
+            if (job.abortRequested) {
+                abortStopped(job);
+            } else {
+                job.finish(Phase.INTERRUPTED, (job.leaseLost ? "Lease lost during " : "Stopped during ") + job.phase);
+                log.info("Reindex of knowledge base {} stopped during {}", job.knowledgeBaseId, job.phase);
+            }
+        } catch (Exception e) {
+            log.error("Reindex of knowledge base {} failed during {}", job.knowledgeBaseId, job.phase, e);
+            job.finish(Phase.FAILED, e.getMessage());
+        } finally {
+            job.heartbeat.cancel(false);
+            try {
+                knowledgeBaseRepository.releaseMigration(job.knowledgeBaseId, nodeId);
+            } catch (RuntimeException e) {
+                log.warn("Failed to release reindex lease of knowledge base {}, it expires after {} ms: {}",
+                        job.knowledgeBaseId, leaseTimeoutMs, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 限速 _reindex 复制；已提交且仍在运行或已成功的任务直接等待，不重复提交
+     */
+    private void copy(ReindexJob job) throws IOException {
+        KnowledgeBase knowledgeBase = load(job.knowledgeBaseId);
+        IndexMigration migration = knowledgeBase.getMigration();
+        
+        String taskId = migration.getReindexTaskId();
+        Optional<ElasticsearchIndexManager.ReindexProgress> previous = taskId != null
+                ? esIndexManager.getReindexProgress(taskId)
+                : Optional.empty();
+        if (previous.isEmpty() || (previous.get().completed() && previous.get().error() != null)) {
+            // 等待各节点加载迁移记录开始双写，之后的写入不依赖复制快照
+            sleep(job, settleDelayMs);
+            
+            Set<String> targetFields = new HashSet<>();
+            migration.getFieldDefinitions().forEach(fd -> targetFields.add(fd.getFieldName()));
+            List<String> removedFields = new ArrayList<>();
+            List<String> removedHashes = new ArrayList<>();
+            for (FieldDefinition fd : knowledgeBase.getFieldDefinitionList()) {
+                if (!targetFields.contains(fd.getFieldName())) {
+                    removedFields.add(fd.getFieldName());
+                    if (fd.isVectorField()) {
+                        removedFields.add(fd.getVectorFieldName());
+                        removedHashes.add(fd.getFieldName());
+                    }
+                }
+            }
+            for (FieldDefinition fd : knowledgeBase.getMigrationChangedVectorFields()) {
+                removedFields.add(fd.getVectorFieldName());
+                removedHashes.add(fd.getFieldName());
+            }
+            
+            taskId = esIndexManager.startReindex(job.sourceIndex, job.targetIndex, removedFields, removedHashes,
+                    job.requestsPerSecond);
+            knowledgeBase.recordReindexTask(taskId);
+            knowledgeBaseRepository.save(knowledgeBase);
+        }
+        
+        while (true) {
+            ElasticsearchIndexManager.ReindexProgress progress = esIndexManager.getReindexProgress(taskId)
+                    .orElseThrow(() -> new IllegalStateException("Reindex task disappeared"));
+            job.total = progress.total();
+            // 被拒绝后重试的 create 可能在首次已生效，重试时又计为版本冲突
+            job.copied = Math.min(progress.total(), progress.created() + progress.versionConflicts());
+            if (progress.completed()) {
+                if (progress.error() != null) {
+                    throw new IllegalStateException("Reindex task failed: " + progress.error());
+                }
+                return;
+            }
+            if (job.abortRequested || job.stopRequested) {
+                if (job.abortRequested) {
+                    esIndexManager.cancelTask(taskId);
+                }
+                throw new ReindexStoppedException();
+            }
+            sleep(job, pollIntervalMs);
+        }
+    }
+    
+    /**
+     * 删除目标索引中实时索引已不存在的文档
+     */
+    private void reconcileDeletes(ReindexJob job) throws IOException {
+        String after = null;
+        while (true) {
+            checkStopped(job);
+            List<ElasticsearchDocumentClient.ScannedDocument> page =
+                    esDocumentClient.scan(job.targetIndex, List.of(), after, batchSize);
+            if (page.isEmpty()) {
+                return;
+            }
+            Set<String> existing = esDocumentClient.existingIds(job.sourceIndex,
+                    page.stream().map(ElasticsearchDocumentClient.ScannedDocument::id).toList());
+            List<ElasticsearchDocumentClient.ScannedDocument> stale = page.stream()
+                    .filter(document -> !existing.contains(document.id()))
+                    .toList();
+            if (!stale.isEmpty()) {
+                // 被双写并发修改的文档以版本冲突失败，保留
+                job.reconciledDeletes += esDocumentClient.deleteIfUnchanged(job.targetIndex, stale).succeeded();
+            }
+            after = page.get(page.size() - 1).id();
+        }
+    }
+    
+    /**
+     * 按新嵌入配置重新向量化源文本哈希不一致的向量字段
+     */
+    private void reembed(ReindexJob job) throws IOException {
+        KnowledgeBase knowledgeBase = load(job.knowledgeBaseId);
+        KnowledgeBase target = knowledgeBase.migrationTarget();
+        List<FieldDefinition> changed = knowledgeBase.getMigrationChangedVectorFields();
+        if (changed.isEmpty()) {
+            return;
+        }
+        List<String> includes = new ArrayList<>();
+        changed.forEach(fd -> includes.add(fd.getFieldName()));
+        includes.add(ElasticsearchDocumentClient.CONTENT_HASHES_FIELD);
+        RateLimiter rateLimiter = job.requestsPerSecond > 0 ? RateLimiter.create(job.requestsPerSecond) : null;
+        
+        long failed = 0;
+        String firstFailure = null;
+        String after = null;
+        while (true) {
+            checkStopped(job);
+            List<ElasticsearchDocumentClient.ScannedDocument> page =
+                    esDocumentClient.scan(job.targetIndex, includes, after, batchSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            after = page.get(page.size() - 1).id();
+            
+            List<ElasticsearchDocumentClient.ScannedDocument> stale = new ArrayList<>();
+            List<Map<String, Object>> contents = new ArrayList<>();
+            for (ElasticsearchDocumentClient.ScannedDocument document : page) {
+                Map<String, Object> content = staleVectorContent(changed, document.source());
+                if (!content.isEmpty()) {
+                    stale.add(document);
+                    contents.add(content);
+                }
+            }
+            if (stale.isEmpty()) {
+                continue;
+            }
+            if (rateLimiter != null) {
+                rateLimiter.acquire(stale.size());
+            }
+            
+            List<Map<String, float[]>> vectors = embeddingBatcher.embedDocuments(target, contents);
+            Map<String, Map<String, Object>> contentById = new HashMap<>();
+            Map<String, Map<String, float[]>> vectorsById = new HashMap<>();
+            for (int i = 0; i < stale.size(); i++) {
+                contentById.put(stale.get(i).id(), contents.get(i));
+                vectorsById.put(stale.get(i).id(), vectors.get(i));
+            }
+            BulkIndexResult result = esDocumentClient.updateVectorsIfUnchanged(target, stale, contentById, vectorsById);
+            job.reembedded += result.succeeded();
+            // 版本冲突的文档已被双写按新配置重新写入
+            for (BulkIndexResult.ItemFailure failure : result.failures()) {
+                if (failure.status() != 409) {
+                    failed++;
+                    firstFailure = firstFailure != null ? firstFailure : failure.documentId() + ": " + failure.reason();
+                }
+            }
+        }
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " documents failed to re-embed, first " + firstFailure);
+        }
+    }
+    
+    private static Map<String, Object> staleVectorContent(List<FieldDefinition> changed, Map<String, Object> source) {
+        Object stored = source.get(ElasticsearchDocumentClient.CONTENT_HASHES_FIELD);
+        Map<?, ?> hashes = stored instanceof Map<?, ?> map ? map : Map.of();
+        Map<String, Object> content = new HashMap<>();
+        for (FieldDefinition fd : changed) {
+            Object value = source.get(fd.getFieldName());
+            if (value != null && !EmbeddingBatcher.sourceHash(fd, value).equals(hashes.get(fd.getFieldName()))) {
+                content.put(fd.getFieldName(), value);
+            }
+        }
+        return content;
+    }
+    
+    /**
+     * 恢复索引设置、切换别名并提交新字段定义，旧物理索引记录为延迟删除
+     * 
+     * <p>早期的无版本索引与别名同名，切换时必须删除：先复制为版本 0 的索引并登记延迟删除，
+     * 删除前仍可将别名指回该副本回退。复制到切换之间旧索引禁止写入</p>
+     */
+    private void swap(ReindexJob job) throws IOException {
+        checkStopped(job);
+        esIndexManager.finishBulkLoad(job.targetIndex);
+        
+        KnowledgeBase knowledgeBase = load(job.knowledgeBaseId);
+        String alias = knowledgeBase.getIndexName();
+        String previousIndex = knowledgeBase.getPhysicalIndexName();
+        boolean legacy = previousIndex.equals(alias) && esIndexManager.isConcreteIndex(alias);
+        if (legacy) {
+            String legacyCopy = alias + "_v0";
+            esIndexManager.cloneIndex(alias, legacyCopy);
+            scheduleRetirement(job.knowledgeBaseId, legacyCopy);
+        }
+        try {
+            esIndexManager.swapAlias(alias, job.targetIndex);
+        } catch (IOException | RuntimeException e) {
+            if (legacy) {
+                esIndexManager.setWriteBlock(alias, false);
+            }
+            throw e;
+        }
+        knowledgeBase.completeMigration();
+        knowledgeBaseRepository.save(knowledgeBase);
+        
+        if (!previousIndex.equals(alias)) {
+            scheduleRetirement(job.knowledgeBaseId, previousIndex);
+        }
+    }
+    
+    private void scheduleRetirement(String knowledgeBaseId, String indexName) {
+        if (retireDelayMs >= 0) {
+            knowledgeBaseRepository.scheduleIndexRetirement(knowledgeBaseId, indexName,
+                    LocalDateTime.now().plusNanos(retireDelayMs * 1_000_000));
+        }
+    }
+    
+    /**
+     * 早期的无版本索引创建时没有源文本哈希字段的 mapping，写入的哈希会被动态映射；启动时补充
+     */
+    private void upgradeLegacyMappings() {
+        try {
+            for (KnowledgeBaseStatus status : List.of(KnowledgeBaseStatus.ACTIVE, KnowledgeBaseStatus.BULK_LOADING,
+                    KnowledgeBaseStatus.SUSPENDED)) {
+                for (KnowledgeBase knowledgeBase : knowledgeBaseRepository.findByStatus(status)) {
+                    String indexName = knowledgeBase.getPhysicalIndexName();
+                    if (!indexName.equals(knowledgeBase.getIndexName())) {
+                        continue;
+                    }
+                    try {
+                        if (!esIndexManager.ensureContentHashesMapping(indexName)) {
+                            log.warn("Index {} of knowledge base {} already maps {} dynamically, reindex to drop it",
+                                    indexName, knowledgeBase.getId(), ElasticsearchDocumentClient.CONTENT_HASHES_FIELD);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("Failed to upgrade mapping of index {}: {}", indexName, e.getMessage());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to upgrade legacy index mappings: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 删除到期的旧物理索引，领取后推迟一个清理周期，删除失败或节点中途退出时届时重试
+     */
+    private void retireDue() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime retryAfter = now.plusNanos(retireSweepIntervalMs * 1_000_000);
+            for (String indexName : knowledgeBaseRepository.findDueIndexRetirements(now)) {
+                if (!knowledgeBaseRepository.claimIndexRetirement(indexName, now, retryAfter)) {
+                    continue;
+                }
+                try {
+                    esIndexManager.deleteIndex(indexName);
+                    knowledgeBaseRepository.removeIndexRetirement(indexName);
+                    log.info("Retired previous index {}", indexName);
+                } catch (IOException | RuntimeException e) {
+                    log.error("Failed to retire previous index {}, retrying in {} ms",
+                            indexName, retireSweepIntervalMs, e);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to sweep retired indices: {}", e.getMessage());
+        }
+    }
+    
+    private void abortStopped(ReindexJob job) {
+        try {
+            discardMigration(load(job.knowledgeBaseId));
+            job.finish(Phase.ABORTED, null);
+        } catch (Exception e) {
+            log.error("Failed to clean up aborted reindex of knowledge base {}", job.knowledgeBaseId, e);
+            job.finish(Phase.FAILED, "Abort cleanup failed: " + e.getMessage());
+        }
+    }
+    
+    private void discardMigration(KnowledgeBase knowledgeBase) {
+        IndexMigration migration = knowledgeBase.getMigration();
+        try {
+            if (migration.getReindexTaskId() != null) {
+                esIndexManager.cancelTask(migration.getReindexTaskId());
+            }
+            knowledgeBase.abortMigration();
+            knowledgeBaseRepository.save(knowledgeBase);
+            esIndexManager.deleteIndex(migration.getTargetIndex());
+            // 切换前中断时早期的无版本索引可能仍禁止写入
+            String indexName = knowledgeBase.getIndexName();
+            if (knowledgeBase.getPhysicalIndexName().equals(indexName) && esIndexManager.isConcreteIndex(indexName)) {
+                esIndexManager.setWriteBlock(indexName, false);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to discard migration index " + migration.getTargetIndex(), e);
+        }
+        log.info("Aborted reindex of knowledge base {} into {}", knowledgeBase.getId(), migration.getTargetIndex());
+    }
+    
+    private KnowledgeBase load(String knowledgeBaseId) {
+        return knowledgeBaseRepository.findById(knowledgeBaseId)
+                .orElseThrow(() -> new IllegalArgumentException("Knowledge base not found: " + knowledgeBaseId));
+    }
+    
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+    
+    private static void checkStopped(ReindexJob job) {
+        if (job.abortRequested || job.stopRequested) {
+            throw new ReindexStoppedException();
+        }
+    }
+    
+    private static void sleep(ReindexJob job, long millis) {
+        long deadline = System.currentTimeMillis() + millis;
+        try {
+            for (long remaining = millis; remaining > 0; remaining = deadline - System.currentTimeMillis()) {
+                checkStopped(job);
+                Thread.sleep(Math.min(remaining, 1000));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ReindexStoppedException();
+        }
+    }
+    
+    /**
+     * 重建索引阶段
+     */
+    public enum Phase {
+        IDLE, CREATING_INDEX, COPYING, RECONCILING, REEMBEDDING, SWAPPING, COMPLETED, FAILED, ABORTED, INTERRUPTED,
+        RUNNING_ON_OTHER_NODE
+    }
+    
+    /**
+     * 重建索引状态
+     * 
+     * @param copied 已由 _reindex 处理的文档数 (含因已双写而跳过的文档)
+     * @param reconciledDeletes 从目标索引删除的已不存在文档数
+     * @param reembedded 重新向量化的文档数
+     */
+    public record ReindexStatus(String knowledgeBaseId,
+                                Phase phase,
+                                String sourceIndex,
+                                String targetIndex,
+                                float requestsPerSecond,
+                                long total,
+                                long copied,
+                                long reconciledDeletes,
+                                long reembedded,
+                                LocalDateTime startedAt,
+                                LocalDateTime finishedAt,
+                                String error) {
+        
+        static ReindexStatus idle(String knowledgeBaseId, String index) {
+            return new ReindexStatus(knowledgeBaseId, Phase.IDLE, index, null, 0, 0, 0, 0, 0, null, null, null);
+        }
+    }
+    
+    private static final class ReindexJob {
+        
+        private final String knowledgeBaseId;
+        private final String sourceIndex;
+        private final String targetIndex;
+        private final float requestsPerSecond;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile Phase phase = Phase.CREATING_INDEX;
+        private volatile boolean running = true;
+        private volatile boolean stopRequested;
+        private volatile boolean abortRequested;
+        private volatile boolean leaseLost;
+        private volatile ScheduledFuture<?> heartbeat;
+        private volatile long total;
+        private volatile long copied;
+        private volatile long reconciledDeletes;
+        private volatile long reembedded;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+        
+        private ReindexJob(String knowledgeBaseId, String sourceIndex, String targetIndex, float requestsPerSecond) {
+            this.knowledgeBaseId = knowledgeBaseId;
+            this.sourceIndex = sourceIndex;
+            this.targetIndex = targetIndex;
+            this.requestsPerSecond = requestsPerSecond;
+        }
+        
+        private void finish(Phase phase, String error) {
+            this.phase = phase;
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+            this.running = false;
+        }
+        
+        private ReindexStatus snapshot() {
+            return new ReindexStatus(knowledgeBaseId, phase, sourceIndex, targetIndex, requestsPerSecond, total,
+                    copied, reconciledDeletes, reembedded, startedAt, finishedAt, error);
+        }
+    }
+    
+    /**
+     * 任务被停止或放弃
+     */
+    private static final class ReindexStoppedException extends RuntimeException {
+        
+        private ReindexStoppedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.enterprise.rag.application.service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 有长度上限的 NDJSON 行来源
+ * 
+ * <p>按字节读取 UTF-8 输入，以 \n (或 \r\n) 分行。超过 maxLineBytes 的行不缓存，读到行尾后以内容为 null 的
+ * {@link BulkIngestionService.SourceLine} 返回，单行的内存占用不超过上限。</p>
+ */
+public class NdjsonLineSource implements BulkIngestionService.LineSource {
+    
+    private final InputStream input;
+    private final int maxLineBytes;
+    private final boolean closeInput;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+    private long position;
+    
+    /**
+     * @param input UTF-8 输入流
+     * @param firstPosition 第一行的位置
+     * @param maxLineBytes 单行最大字节数 (不含换行符)
+     * @param closeInput 关闭来源时是否关闭输入流
+     */
+    public NdjsonLineSource(InputStream input, long firstPosition, int maxLineBytes, boolean closeInput) {
+        if (maxLineBytes < 1) {
+            throw new IllegalArgumentException("Max line bytes must be positive");
+        }
+        this.input = input instanceof BufferedInputStream ? input : new BufferedInputStream(input);
+        this.position = firstPosition;
+        this.maxLineBytes = maxLineBytes;
+        this.closeInput = closeInput;
+    }
+    
+    @Override
+    public BulkIngestionService.SourceLine next() throws IOException {
+        buffer.reset();
+        long length = 0;
+        int last = -1;
+        int b;
+        while ((b = input.read()) != -1 && b != '\n') {
+            // 多缓存一个字节，以便去掉 \r 后仍能判断是否超长
+            if (length++ <= maxLineBytes) {
+                buffer.write(b);
+            }
+            last = b;
+        }
+        if (b == -1 && length == 0) {
+            return null;
+        }
+        if (last == '\r') {
+            length--;
+        }
+        if (length > maxLineBytes) {
+            return new BulkIngestionService.SourceLine(position++, null);
+        }
+        return new BulkIngestionService.SourceLine(position++,
+                new String(buffer.toByteArray(), 0, (int) length, StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 跳过若干行 (如从检查点恢复)，不解码内容
+     * 
+     * @return 实际跳过的行数 (输入结束时可能少于 lines)
+     */
+    public long skip(long lines) throws IOException {
+        long skipped = 0;
+        int b = 0;
+        while (skipped < lines && b != -1) {
+            b = input.read();
+            if (b == -1) {
+                break;
+            }
+            while (b != '\n' && b != -1) {
+                b = input.read();
+            }
+            skipped++;
+        }
+        position += skipped;
+        return skipped;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (closeInput) {
+            input.close();
+        }
+    }
+}
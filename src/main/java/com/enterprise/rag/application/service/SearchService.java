@@ -5,6 +5,8 @@ import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBaseRepository;
 import com.enterprise.rag.domain.model.search.SearchRequest;
 import com.enterprise.rag.domain.model.search.SearchResult;
 import com.enterprise.rag.domain.service.fusion.FusionProcessor;
+import com.enterprise.rag.domain.service.fusion.AdaptiveCandidateSizer;
+import com.enterprise.rag.domain.service.fusion.ScoreStatistics;
 import com.enterprise.rag.infrastructure.elasticsearch.ElasticsearchIndexManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +29,8 @@ public class SearchService {
     private final KnowledgeBaseRepository knowledgeBaseRepository;
     private final FusionProcessor fusionProcessor;
     private final ElasticsearchIndexManager esIndexManager;
+    private final ScoreStatistics scoreStatistics;
+    private final AdaptiveCandidateSizer candidateSizer;
     
     /**
      * 执行混合检索
@@ -76,6 +80,9 @@ public class SearchService {
      */
     @Transactional
     public KnowledgeBase createKnowledgeBase(KnowledgeBase knowledgeBase) {
+        // 分配第一个版本的物理索引，索引名称作为别名
+        knowledgeBase.initializeIndex();
+        
         // 保存到数据库
         KnowledgeBase saved = knowledgeBaseRepository.save(knowledgeBase);
         
@@ -99,12 +106,17 @@ public class SearchService {
                 .orElseThrow(() -> new IllegalArgumentException("Knowledge base not found: " + id));
         
         try {
-            // 删除 ES 索引
-            esIndexManager.deleteIndex(knowledgeBase.getIndexName());
+            // 删除 ES 索引 (别名随物理索引一起删除) 及进行中的迁移目标索引
+            esIndexManager.deleteIndex(knowledgeBase.getPhysicalIndexName());
+            if (knowledgeBase.getMigration() != null) {
+                esIndexManager.deleteIndex(knowledgeBase.getMigration().getTargetIndex());
+            }
             
             // 标记为删除
             knowledgeBase.markAsDeleted();
             knowledgeBaseRepository.save(knowledgeBase);
+            scoreStatistics.remove(id);
+            candidateSizer.remove(id);
             
             log.info("Deleted knowledge base: {}", id);
         } catch (IOException e) {
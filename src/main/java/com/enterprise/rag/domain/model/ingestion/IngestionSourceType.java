@@ -0,0 +1,22 @@
+package com.enterprise.rag.domain.model.ingestion;
+
+/**
+ * 摄取任务来源类型枚举
+ */
+public enum IngestionSourceType {
+    
+    /**
+     * 服务端 NDJSON 文件 - 位置为文件路径，检查点为已处理行数
+     */
+    FILE,
+    
+    /**
+     * 上传的 NDJSON - 请求体先落盘再处理，位置与检查点同 FILE
+     */
+    NDJSON_UPLOAD,
+    
+    /**
+     * Kafka 位移区间 - 位置为 topic:partition:startOffset:endOffset，检查点为下一个待读位移
+     */
+    KAFKA_RANGE
+}
@@ -0,0 +1,131 @@
+package com.enterprise.rag.domain.model.ingestion;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 摄取任务
+ * 
+ * <p>大批量摄取的异步任务快照。任务由工作线程领取后按批次处理，
+ * 每批完成后持久化检查点与进度，节点崩溃后由其他节点从检查点恢复。</p>
+ */
+@Getter
+@Builder(toBuilder = true)
+public class IngestionTask {
+    
+    /**
+     * 任务唯一标识
+     */
+    private final String id;
+    
+    /**
+     * 目标知识库 ID
+     */
+    private final String knowledgeBaseId;
+    
+    /**
+     * 任务状态
+     */
+    private final IngestionTaskStatus status;
+    
+    /**
+     * 来源类型
+     */
+    private final IngestionSourceType sourceType;
+    
+    /**
+     * 来源位置 (格式见 {@link IngestionSourceType})
+     */
+    private final String sourceLocation;
+    
+    /**
+     * 文档总数 (来源大小未知时为 0)
+     */
+    private final long totalDocuments;
+    
+    /**
+     * 来源字节数 (提交时记录，Kafka 区间为 0)
+     */
+    private final long sourceBytes;
+    
+    /**
+     * 来源所在节点 (上传任务的暂存文件只存在于接收节点)，为空时任意节点均可执行
+     */
+    private final String sourceNode;
+    
+    /**
+     * 已处理 (成功) 的文档数
+     */
+    private final long processedDocuments;
+    
+    /**
+     * 失败的文档数
+     */
+    private final long failedDocuments;
+    
+    /**
+     * 需要向量的字段值数
+     */
+    private final long embeddedVectors;
+    
+    /**
+     * 检查点 (下一个待读位置)
+     */
+    private final long checkpoint;
+    
+    /**
+     * 累计运行时长 (毫秒，不含排队和崩溃后等待恢复的时间)
+     */
+    private final long elapsedMs;
+    
+    /**
+     * 当前持有任务的节点
+     */
+    private final String owner;
+    
+    /**
+     * 最近一次心跳时间
+     */
+    private final LocalDateTime heartbeatAt;
+    
+    /**
+     * 错误信息 (最近一次失败原因)
+     */
+    private final String errorMessage;
+    
+    private final LocalDateTime startedAt;
+    
+    private final LocalDateTime completedAt;
+    
+    private final LocalDateTime createdAt;
+    
+    /**
+     * 文档吞吐 (成功与失败合计，条/秒)
+     */
+    public double getDocumentsPerSecond() {
+        return elapsedMs > 0 ? (processedDocuments + failedDocuments) * 1000.0 / elapsedMs : 0.0;
+    }
+    
+    /**
+     * 向量吞吐 (个/秒)
+     */
+    public double getEmbeddingsPerSecond() {
+        return elapsedMs > 0 ? embeddedVectors * 1000.0 / elapsedMs : 0.0;
+    }
+    
+    /**
+     * 任务进度
+     * 
+     * @param checkpoint 下一个待读位置
+     * @param processedDocuments 已处理 (成功) 的文档数
+     * @param failedDocuments 失败的文档数
+     * @param embeddedVectors 需要向量的字段值数
+     * @param elapsedMs 累计运行时长 (毫秒)
+     * @param errorMessage 最近一次失败原因
+     */
+    public record Progress(long checkpoint, long processedDocuments, long failedDocuments,
+                           long embeddedVectors, long elapsedMs, String errorMessage) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.enterprise.rag.domain.model.ingestion;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 摄取任务仓储接口 - 领域层定义
+ * 
+ * <p>状态变更均为带条件的更新，返回 false 表示任务已不在预期状态 (被取消或被其他节点接管)</p>
+ */
+public interface IngestionTaskRepository {
+    
+    /**
+     * 新建任务
+     */
+    IngestionTask create(IngestionTask task);
+    
+    /**
+     * 根据 ID 查找
+     */
+    Optional<IngestionTask> findById(String id);
+    
+    /**
+     * 查找知识库的任务 (按创建时间倒序)
+     */
+    List<IngestionTask> findByKnowledgeBaseId(String knowledgeBaseId);
+    
+    /**
+     * 查找节点 node 可领取的任务：等待中的任务，或心跳早于 staleBefore 的运行中任务；
+     * 来源限定在其他节点的任务除外
+     */
+    List<IngestionTask> findClaimable(String node, LocalDateTime staleBefore, int limit);
+    
+    /**
+     * 领取任务
+     * 
+     * @param owner 执行者 (节点上的工作线程池实例)
+     * @param node 执行者所在节点
+     * @return 是否领取成功
+     */
+    boolean claim(String id, String owner, String node, LocalDateTime staleBefore);
+    
+    /**
+     * 刷新心跳
+     * 
+     * @return 任务仍由 owner 持有且在运行中
+     */
+    boolean heartbeat(String id, String owner);
+    
+    /**
+     * 持久化检查点与进度，同时刷新心跳
+     * 
+     * @return 任务仍由 owner 持有且在运行中
+     */
+    boolean saveProgress(String id, String owner, IngestionTask.Progress progress);
+    
+    /**
+     * 结束任务
+     * 
+     * @param status 终止状态 (COMPLETED 或 FAILED)
+     * @return 任务仍由 owner 持有且在运行中
+     */
+    boolean finish(String id, String owner, IngestionTaskStatus status, long totalDocuments,
+                   IngestionTask.Progress progress);
+    
+    /**
+     * 释放任务 (节点停机时)，任务回到等待状态，检查点保留
+     * 
+     * @return 任务仍由 owner 持有且在运行中
+     */
+    boolean release(String id, String owner, IngestionTask.Progress progress);
+    
+    /**
+     * 将失败的任务重新排队，从检查点继续
+     * 
+     * @return 是否重新排队成功
+     */
+    boolean requeue(String id);
+    
+    /**
+     * 取消未结束的任务
+     * 
+     * @return 是否取消成功
+     */
+    boolean cancel(String id);
+}
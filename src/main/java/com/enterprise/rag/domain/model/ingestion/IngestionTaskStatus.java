@@ -0,0 +1,36 @@
+package com.enterprise.rag.domain.model.ingestion;
+
+/**
+ * 摄取任务状态枚举
+ */
+public enum IngestionTaskStatus {
+    
+    /**
+     * 等待 - 已提交，尚未被工作线程领取
+     */
+    PENDING,
+    
+    /**
+     * 运行中 - 已被某个节点领取，按心跳判断是否存活
+     */
+    RUNNING,
+    
+    /**
+     * 已完成 - 来源已全部读取 (可能含失败的文档)
+     */
+    COMPLETED,
+    
+    /**
+     * 失败 - 任务因来源不可读等原因中止
+     */
+    FAILED,
+    
+    /**
+     * 已取消
+     */
+    CANCELLED;
+    
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
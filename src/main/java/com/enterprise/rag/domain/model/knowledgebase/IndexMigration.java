@@ -0,0 +1,38 @@
+package com.enterprise.rag.domain.model.knowledgebase;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 索引迁移 - 值对象
+ * 
+ * <p>记录进行中的重建索引：新字段定义写入新的物理索引，期间实时写入同时写两个索引，
+ * 完成后知识库别名原子切换到新索引</p>
+ */
+@Getter
+@Builder(toBuilder = true)
+public class IndexMigration {
+    
+    /**
+     * 目标物理索引名称
+     */
+    private final String targetIndex;
+    
+    /**
+     * 迁移后的字段定义
+     */
+    private final List<FieldDefinition> fieldDefinitions;
+    
+    /**
+     * ES _reindex 任务 ID (已提交时)
+     */
+    private final String reindexTaskId;
+    
+    /**
+     * 开始时间
+     */
+    private final LocalDateTime startedAt;
+}
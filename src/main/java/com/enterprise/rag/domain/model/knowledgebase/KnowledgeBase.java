@@ -1,5 +1,6 @@
 package com.enterprise.rag.domain.model.knowledgebase;
 
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 
@@ -12,6 +13,10 @@ import java.util.stream.Collectors;
  * 
  * <p>知识库是 RAG 系统的核心聚合根，定义了数据的元结构和检索配置。
  * 每个知识库对应一个 Elasticsearch 索引，通过字段定义来驱动动态的数据摄取和检索行为。</p>
+ * 
+ * <p>索引名称是指向带版本号物理索引 ({@code <indexName>_v<N>}) 的别名。字段定义与物理索引成对保存，
+ * 读写均直接使用物理索引，保证各节点缓存的字段定义与其访问的索引 mapping 一致；
+ * 早期创建的知识库没有物理索引记录，索引名称即物理索引。</p>
  */
 @Getter
 public class KnowledgeBase {
@@ -44,13 +49,30 @@ public class KnowledgeBase {
     /**
      * 字段定义集合
      */
+    @Getter(AccessLevel.NONE)
     private final Map<String, FieldDefinition> fieldDefinitions;
     
+    /**
+     * 按角色预计算的字段视图 (字段定义变更时整体重建)
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile FieldIndex fieldIndex;
+    
     /**
      * Elasticsearch 索引名称
      */
     private final String indexName;
     
+    /**
+     * 当前物理索引名称 (为空时即索引名称)
+     */
+    private String activeIndex;
+    
+    /**
+     * 进行中的索引迁移
+     */
+    private IndexMigration migration;
+    
     /**
      * 创建时间
      */
@@ -69,8 +91,8 @@ public class KnowledgeBase {
     @Builder
     public KnowledgeBase(String id, String name, String description, String tenantId,
                          KnowledgeBaseStatus status, List<FieldDefinition> fieldDefinitions,
-                         String indexName, LocalDateTime createdAt, LocalDateTime updatedAt,
-                         Long version) {
+                         String indexName, String activeIndex, IndexMigration migration,
+                         LocalDateTime createdAt, LocalDateTime updatedAt, Long version) {
         this.id = id != null ? id : UUID.randomUUID().toString();
         this.name = name;
         this.description = description;
@@ -80,7 +102,10 @@ public class KnowledgeBase {
         if (fieldDefinitions != null) {
             fieldDefinitions.forEach(fd -> this.fieldDefinitions.put(fd.getFieldName(), fd));
         }
+        this.fieldIndex = new FieldIndex(this.fieldDefinitions.values());
         this.indexName = indexName != null ? indexName : generateIndexName(tenantId, this.id);
+        this.activeIndex = activeIndex;
+        this.migration = migration;
         this.createdAt = createdAt != null ? createdAt : LocalDateTime.now();
         this.updatedAt = updatedAt;
         this.version = version != null ? version : 0L;
@@ -95,6 +120,7 @@ public class KnowledgeBase {
             throw new IllegalArgumentException("Field already exists: " + fieldDefinition.getFieldName());
         }
         this.fieldDefinitions.put(fieldDefinition.getFieldName(), fieldDefinition);
+        this.fieldIndex = new FieldIndex(this.fieldDefinitions.values());
         this.updatedAt = LocalDateTime.now();
     }
     
@@ -107,6 +133,7 @@ public class KnowledgeBase {
             throw new IllegalArgumentException("Field not found: " + fieldDefinition.getFieldName());
         }
         this.fieldDefinitions.put(fieldDefinition.getFieldName(), fieldDefinition);
+        this.fieldIndex = new FieldIndex(this.fieldDefinitions.values());
         this.updatedAt = LocalDateTime.now();
     }
     
@@ -118,6 +145,7 @@ public class KnowledgeBase {
             throw new IllegalArgumentException("Field not found: " + fieldName);
         }
         this.fieldDefinitions.remove(fieldName);
+        this.fieldIndex = new FieldIndex(this.fieldDefinitions.values());
         this.updatedAt = LocalDateTime.now();
     }
     
@@ -125,7 +153,7 @@ public class KnowledgeBase {
      * 获取所有字段定义
      */
     public List<FieldDefinition> getFieldDefinitionList() {
-        return new ArrayList<>(fieldDefinitions.values());
+        return fieldIndex.all;
     }
     
     /**
@@ -139,36 +167,207 @@ public class KnowledgeBase {
      * 获取所有向量字段
      */
     public List<FieldDefinition> getVectorFields() {
-        return fieldDefinitions.values().stream()
-                .filter(FieldDefinition::isVectorField)
-                .collect(Collectors.toList());
+        return fieldIndex.vectorFields;
     }
     
     /**
      * 获取所有文本字段
      */
     public List<FieldDefinition> getTextFields() {
-        return fieldDefinitions.values().stream()
-                .filter(FieldDefinition::isTextField)
-                .collect(Collectors.toList());
+        return fieldIndex.textFields;
     }
     
     /**
      * 获取所有关键词字段
      */
     public List<FieldDefinition> getKeywordFields() {
-        return fieldDefinitions.values().stream()
-                .filter(FieldDefinition::isKeywordField)
-                .collect(Collectors.toList());
+        return fieldIndex.keywordFields;
     }
     
     /**
      * 获取所有可过滤字段
      */
     public List<FieldDefinition> getFilterableFields() {
-        return fieldDefinitions.values().stream()
-                .filter(FieldDefinition::isFilter)
-                .collect(Collectors.toList());
+        return fieldIndex.filterableFields;
+    }
+    
+    /**
+     * 获取所有文本字段名称 (默认全文检索字段)
+     */
+    public List<String> getTextFieldNames() {
+        return fieldIndex.textFieldNames;
+    }
+    
+    /**
+     * 获取向量字段名称映射: 字段名 → 存储向量的 ES 字段名
+     */
+    public Map<String, String> getVectorFieldNames() {
+        return fieldIndex.vectorFieldNames;
+    }
+    
+    /**
+     * 获取过滤字段映射: 可过滤字段名 → 用于精确匹配的 ES 字段名
+     * 
+     * <p>TEXT 字段映射到 keyword 子字段；向量字段不可过滤，不在映射中</p>
+     */
+    public Map<String, String> getFilterFieldNames() {
+        return fieldIndex.filterFieldNames;
+    }
+    
+    /**
+     * 获取当前物理索引名称 (检索与写入使用)
+     */
+    public String getPhysicalIndexName() {
+        return activeIndex != null ? activeIndex : indexName;
+    }
+    
+    /**
+     * 为新建知识库分配第一个版本的物理索引
+     */
+    public void initializeIndex() {
+        if (this.status != KnowledgeBaseStatus.CREATING) {
+            throw new IllegalStateException("Physical index can only be assigned while creating");
+        }
+        if (this.activeIndex == null) {
+            this.activeIndex = versionedIndexName(1);
+        }
+    }
+    
+    /**
+     * 开始索引迁移
+     * 
+     * @param targetFieldDefinitions 迁移后的完整字段定义
+     */
+    public IndexMigration startMigration(List<FieldDefinition> targetFieldDefinitions) {
+        if (this.status != KnowledgeBaseStatus.ACTIVE) {
+            throw new IllegalStateException("Only active knowledge base can be reindexed");
+        }
+        if (this.migration != null) {
+            throw new IllegalStateException("Knowledge base is already being reindexed into " + migration.getTargetIndex());
+        }
+        if (targetFieldDefinitions == null || targetFieldDefinitions.isEmpty()) {
+            throw new IllegalArgumentException("Field definitions are required");
+        }
+        Set<String> names = new HashSet<>();
+        for (FieldDefinition fd : targetFieldDefinitions) {
+            fd.validate();
+            if (!names.add(fd.getFieldName())) {
+                throw new IllegalArgumentException("Duplicate field: " + fd.getFieldName());
+            }
+        }
+        
+        this.migration = IndexMigration.builder()
+                .targetIndex(versionedIndexName(currentIndexVersion() + 1))
+                .fieldDefinitions(List.copyOf(targetFieldDefinitions))
+                .startedAt(LocalDateTime.now())
+                .build();
+        this.updatedAt = LocalDateTime.now();
+        return this.migration;
+    }
+    
+    /**
+     * 记录迁移使用的 ES _reindex 任务
+     */
+    public void recordReindexTask(String taskId) {
+        requireMigration();
+        this.migration = migration.toBuilder().reindexTaskId(taskId).build();
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    /**
+     * 迁移目标视图：迁移后的字段定义与目标物理索引，用于双写和重新向量化
+     */
+    public KnowledgeBase migrationTarget() {
+        requireMigration();
+        return new KnowledgeBase(id, name, description, tenantId, status, migration.getFieldDefinitions(),
+                indexName, migration.getTargetIndex(), null, createdAt, updatedAt, version);
+    }
+    
+    /**
+     * 复制当前状态 (修改后保存，不影响读取方共享的缓存实例)
+     * 
+     * <p>字段定义与迁移信息不可变，副本只复制字段定义表并复用已构建的字段索引</p>
+     */
+    public KnowledgeBase copy() {
+        return new KnowledgeBase(this);
+    }
+    
+    private KnowledgeBase(KnowledgeBase source) {
+        this.id = source.id;
+        this.name = source.name;
+        this.description = source.description;
+        this.tenantId = source.tenantId;
+        this.status = source.status;
+        this.fieldDefinitions = new LinkedHashMap<>(source.fieldDefinitions);
+        this.fieldIndex = source.fieldIndex;
+        this.indexName = source.indexName;
+        this.activeIndex = source.activeIndex;
+        this.migration = source.migration;
+        this.createdAt = source.createdAt;
+        this.updatedAt = source.updatedAt;
+        this.version = source.version;
+    }
+    
+    /**
+     * 迁移后源文本需重新向量化的向量字段 (新增或嵌入配置变化)
+     */
+    public List<FieldDefinition> getMigrationChangedVectorFields() {
+        requireMigration();
+        return migration.getFieldDefinitions().stream()
+                .filter(FieldDefinition::isVectorField)
+                .filter(fd -> {
+                    FieldDefinition current = fieldDefinitions.get(fd.getFieldName());
+                    return current == null || !current.isVectorField()
+                            || !Objects.equals(current.getEmbeddingConfig(), fd.getEmbeddingConfig());
+                })
+                .toList();
+    }
+    
+    /**
+     * 完成迁移：切换到新字段定义与目标物理索引
+     */
+    public void completeMigration() {
+        requireMigration();
+        this.fieldDefinitions.clear();
+        migration.getFieldDefinitions().forEach(fd -> this.fieldDefinitions.put(fd.getFieldName(), fd));
+        this.fieldIndex = new FieldIndex(this.fieldDefinitions.values());
+        this.activeIndex = migration.getTargetIndex();
+        this.migration = null;
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    /**
+     * 放弃迁移
+     */
+    public void abortMigration() {
+        requireMigration();
+        this.migration = null;
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    private void requireMigration() {
+        if (this.migration == null) {
+            throw new IllegalStateException("Knowledge base is not being reindexed");
+        }
+    }
+    
+    /**
+     * 当前物理索引版本号，早期的无版本索引视为版本 0
+     */
+    private int currentIndexVersion() {
+        String prefix = indexName + "_v";
+        if (activeIndex != null && activeIndex.startsWith(prefix)) {
+            try {
+                return Integer.parseInt(activeIndex.substring(prefix.length()));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+    
+    private String versionedIndexName(int version) {
+        return indexName + "_v" + version;
     }
     
     /**
@@ -214,7 +413,8 @@ public class KnowledgeBase {
      * 判断是否可接收数据
      */
     public boolean canIngest() {
-        return this.status == KnowledgeBaseStatus.ACTIVE;
+        return this.status == KnowledgeBaseStatus.ACTIVE ||
+               this.status == KnowledgeBaseStatus.BULK_LOADING;
     }
     
     /**
@@ -222,6 +422,7 @@ public class KnowledgeBase {
      */
     public boolean canSearch() {
         return this.status == KnowledgeBaseStatus.ACTIVE || 
+               this.status == KnowledgeBaseStatus.BULK_LOADING ||
                this.status == KnowledgeBaseStatus.SUSPENDED;
     }
     
@@ -230,13 +431,11 @@ public class KnowledgeBase {
      */
     public void validateInboundData(Map<String, Object> data) {
         // 检查必填字段
-        fieldDefinitions.values().stream()
-                .filter(FieldDefinition::isRequired)
-                .forEach(fd -> {
-                    if (!data.containsKey(fd.getFieldName())) {
-                        throw new IllegalArgumentException("Required field missing: " + fd.getFieldName());
-                    }
-                });
+        for (FieldDefinition fd : fieldIndex.requiredFields) {
+            if (!data.containsKey(fd.getFieldName())) {
+                throw new IllegalArgumentException("Required field missing: " + fd.getFieldName());
+            }
+        }
     }
     
     /**
@@ -260,4 +459,38 @@ public class KnowledgeBase {
     public int hashCode() {
         return Objects.hash(id);
     }
+    
+    /**
+     * 字段角色视图
+     * 
+     * <p>不可变快照，检索和摄取路径上的字段查找直接读取，不再每次过滤字段集合</p>
+     */
+    private static final class FieldIndex {
+        
+        private final List<FieldDefinition> all;
+        private final List<FieldDefinition> vectorFields;
+        private final List<FieldDefinition> textFields;
+        private final List<FieldDefinition> keywordFields;
+        private final List<FieldDefinition> filterableFields;
+        private final List<FieldDefinition> requiredFields;
+        private final List<String> textFieldNames;
+        private final Map<String, String> vectorFieldNames;
+        private final Map<String, String> filterFieldNames;
+        
+        private FieldIndex(Collection<FieldDefinition> definitions) {
+            this.all = List.copyOf(definitions);
+            this.vectorFields = all.stream().filter(FieldDefinition::isVectorField).toList();
+            this.textFields = all.stream().filter(FieldDefinition::isTextField).toList();
+            this.keywordFields = all.stream().filter(FieldDefinition::isKeywordField).toList();
+            this.filterableFields = all.stream().filter(FieldDefinition::isFilter).toList();
+            this.requiredFields = all.stream().filter(FieldDefinition::isRequired).toList();
+            this.textFieldNames = textFields.stream().map(FieldDefinition::getFieldName).toList();
+            this.vectorFieldNames = vectorFields.stream()
+                    .collect(Collectors.toUnmodifiableMap(FieldDefinition::getFieldName, FieldDefinition::getVectorFieldName));
+            this.filterFieldNames = filterableFields.stream()
+                    .filter(fd -> !fd.isVectorField())
+                    .collect(Collectors.toUnmodifiableMap(FieldDefinition::getFieldName,
+                            fd -> fd.isTextField() ? fd.getFieldName() + ".keyword" : fd.getFieldName()));
+        }
+    }
 }
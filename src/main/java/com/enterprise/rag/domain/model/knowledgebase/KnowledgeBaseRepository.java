@@ -1,5 +1,6 @@
 package com.enterprise.rag.domain.model.knowledgebase;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 /**
@@ -9,11 +10,13 @@ public interface KnowledgeBaseRepository {
     
     /**
      * 保存知识库
+     * 
+     * @throws IllegalStateException 知识库已被并发修改 (版本号不一致)
      */
     KnowledgeBase save(KnowledgeBase knowledgeBase);
     
     /**
-     * 根据 ID 查找
+     * 根据 ID 查找，返回的实例归调用方所有，可修改后 save
      */
     Optional<KnowledgeBase> findById(String id);
     
@@ -27,6 +30,11 @@ public interface KnowledgeBaseRepository {
      */
     java.util.List<KnowledgeBase> findByTenantId(String tenantId);
     
+    /**
+     * 根据状态查找所有
+     */
+    java.util.List<KnowledgeBase> findByStatus(KnowledgeBaseStatus status);
+    
     /**
      * 删除知识库
      */
@@ -36,4 +44,58 @@ public interface KnowledgeBaseRepository {
      * 检查是否存在
      */
     boolean existsById(String id);
+    
+    /**
+     * 条件切换状态：仅当当前状态为 expected 且无进行中迁移时成功
+     * 
+     * @return 是否切换成功
+     */
+    boolean transitionStatus(String id, KnowledgeBaseStatus expected, KnowledgeBaseStatus status);
+    
+    /**
+     * 领取进行中迁移的租约 (执行重建索引的节点)
+     * 
+     * @param staleBefore 早于该时间的心跳视为持有者已失效
+     * @return 是否领取成功 (无迁移或由其他节点持有时失败)
+     */
+    boolean claimMigration(String id, String owner, LocalDateTime staleBefore);
+    
+    /**
+     * 续约迁移租约
+     * 
+     * @return 是否仍持有租约
+     */
+    boolean renewMigration(String id, String owner);
+    
+    /**
+     * 释放迁移租约 (仅当由 owner 持有时)
+     */
+    void releaseMigration(String id, String owner);
+    
+    /**
+     * 持有有效迁移租约的节点
+     */
+    Optional<String> findMigrationOwner(String id, LocalDateTime staleBefore);
+    
+    /**
+     * 记录待删除的旧物理索引
+     */
+    void scheduleIndexRetirement(String id, String indexName, LocalDateTime retireAfter);
+    
+    /**
+     * 已到删除时间的旧物理索引
+     */
+    java.util.List<String> findDueIndexRetirements(LocalDateTime now);
+    
+    /**
+     * 领取到期的旧索引删除，领取后推迟到 retryAfter，删除失败时届时重试
+     * 
+     * @return 是否领取成功 (已被其他节点领取时失败)
+     */
+    boolean claimIndexRetirement(String indexName, LocalDateTime now, LocalDateTime retryAfter);
+    
+    /**
+     * 删除旧索引后移除记录
+     */
+    void removeIndexRetirement(String indexName);
 }
@@ -15,6 +15,11 @@ public enum KnowledgeBaseStatus {
      */
     ACTIVE,
     
+    /**
+     * 批量装载 - 大批量摄取期间索引关闭刷新与副本，可写入，检索结果可能滞后
+     */
+    BULK_LOADING,
+    
     /**
      * 暂停 - 暂停接收数据
      */
@@ -6,15 +6,35 @@ package com.enterprise.rag.domain.model.search;
 public enum FusionStrategyType {
     
     /**
-     * 线性加权融合
+     * 线性加权融合 - 每次请求内 Min-Max 归一化后加权求和 (加权 CombSUM)
      */
     LINEAR_WEIGHT,
     
+    /**
+     * CombMNZ 融合 - 加权 CombSUM 分数乘以命中该文档的检索方法数
+     */
+    COMB_MNZ,
+    
+    /**
+     * Z-Score 融合 - 按知识库累计的分数均值与标准差标准化后加权求和
+     */
+    ZSCORE,
+    
+    /**
+     * 分布归一化融合 (DBSF) - 以知识库累计分数的 均值 ± 3 倍标准差 为边界归一化后加权求和
+     */
+    DBSF,
+    
     /**
      * RRF (Reciprocal Rank Fusion) 融合
      */
     RRF,
     
+    /**
+     * Elasticsearch 服务端 RRF 融合 - 单个请求同时携带 knn 与 query，由 ES 完成排名融合
+     */
+    ES_NATIVE_RRF,
+    
     /**
      * 无融合 - 单一检索方法
      */
@@ -62,10 +62,9 @@ public class RetrievalMethod {
         private final String vectorField;
         
         /**
-         * KNN 候选数量
+         * KNN 候选数量 (未指定时按取回窗口自适应)
          */
-        @Builder.Default
-        private final Integer numCandidates = 100;
+        private final Integer numCandidates;
         
         /**
          * 相似度阈值
@@ -103,6 +102,29 @@ public class RetrievalMethod {
         private final String analyzer;
     }
     
+    /**
+     * 复制检索方法并替换 KNN 候选数量
+     */
+    public RetrievalMethod withNumCandidates(int numCandidates) {
+        VectorSearchConfig.VectorSearchConfigBuilder config = VectorSearchConfig.builder()
+                .numCandidates(numCandidates);
+        if (vectorConfig != null) {
+            config.queryVector(vectorConfig.getQueryVector())
+                    .vectorField(vectorConfig.getVectorField())
+                    .similarity(vectorConfig.getSimilarity());
+        } else {
+            config.similarity(null);
+        }
+        return RetrievalMethod.builder()
+                .type(type)
+                .weight(weight)
+                .targetFields(targetFields)
+                .vectorConfig(config.build())
+                .textConfig(textConfig)
+                .minScore(minScore)
+                .build();
+    }
+    
     /**
      * 创建向量检索方法
      */
@@ -81,6 +81,11 @@ public class SearchRequest {
      */
     private final HighlightConfig highlightConfig;
     
+    /**
+     * 检索超时时间 (毫秒)，为空时使用全局默认值
+     */
+    private final Long timeoutMs;
+    
     /**
      * 高亮配置
      */
@@ -112,5 +117,11 @@ public class SearchRequest {
         if (topK != null && (topK < 1 || topK > 1000)) {
             throw new IllegalArgumentException("TopK must be between 1 and 1000");
         }
+        if (timeoutMs != null && timeoutMs < 1) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        if (rrfK != null && rrfK < 1) {
+            throw new IllegalArgumentException("RRF k must be positive");
+        }
     }
 }
@@ -10,7 +10,7 @@ import java.util.Map;
  * 搜索结果项 - 值对象
  */
 @Getter
-@Builder
+@Builder(toBuilder = true)
 public class SearchResultItem {
     
     /**
@@ -0,0 +1,171 @@
+package com.enterprise.rag.domain.service;
+
+import com.enterprise.rag.domain.model.knowledgebase.FieldDefinition;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
+import com.google.common.hash.Hashing;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * 批量向量生成器
+ * 
+ * <p>将一批文档中所有向量字段的文本按模型分组，先查询 {@link EmbeddingStore} 并对批内相同文本去重，
+ * 剩余文本按模型的单次请求上限切分后并发调用 {@link EmbeddingService#embedBatch}，
+ * 再将向量回填到对应的文档和字段并写回存储。</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmbeddingBatcher {
+    
+    private final EmbeddingService embeddingService;
+    private final ObjectProvider<EmbeddingStore> embeddingStore;
+    
+    @Qualifier("embeddingExecutor")
+    private final Executor embeddingExecutor;
+    
+    /**
+     * 为一批文档生成向量
+     * 
+     * @param knowledgeBase 知识库元数据
+     * @param contents 文档内容列表
+     * @return 与 contents 一一对应的向量 (字段名 → 向量)
+     */
+    public List<Map<String, float[]>> embedDocuments(KnowledgeBase knowledgeBase, List<Map<String, Object>> contents) {
+        List<Map<String, float[]>> results = new ArrayList<>(contents.size());
+        for (int i = 0; i < contents.size(); i++) {
+            results.add(new HashMap<>());
+        }
+        
+        List<FieldDefinition> vectorFields = knowledgeBase.getVectorFields();
+        if (vectorFields.isEmpty() || contents.isEmpty()) {
+            return results;
+        }
+        
+        // 按模型收集待向量化文本及其回填位置，相同文本只保留一份
+        Map<String, Map<String, List<Slot>>> slotsByModel = new LinkedHashMap<>();
+        int requested = 0;
+        for (int i = 0; i < contents.size(); i++) {
+            Map<String, Object> content = contents.get(i);
+            if (content == null) {
+                continue;
+            }
+            for (FieldDefinition fd : vectorFields) {
+                Object fieldValue = content.get(fd.getFieldName());
+                if (fieldValue != null) {
+                    String text = String.valueOf(fieldValue);
+                    slotsByModel.computeIfAbsent(fd.getEmbeddingConfig().getModelId(), k -> new LinkedHashMap<>())
+                            .computeIfAbsent(text, k -> new ArrayList<>(1))
+                            .add(new Slot(i, fd.getFieldName()));
+                    requested++;
+                }
+            }
+        }
+        
+        // 已存储的向量直接回填，其余按模型上限切分，并发请求
+        EmbeddingStore store = embeddingStore.getIfAvailable();
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        int embedded = 0;
+        for (Map.Entry<String, Map<String, List<Slot>>> entry : slotsByModel.entrySet()) {
+            String modelId = entry.getKey();
+            int dimension = embeddingService.getDimension(modelId);
+            List<String> missing = new ArrayList<>();
+            for (Map.Entry<String, List<Slot>> textSlots : entry.getValue().entrySet()) {
+                float[] stored = store != null ? store.get(modelId, textSlots.getKey(), dimension) : null;
+                if (stored != null) {
+                    fill(textSlots.getValue(), stored, results);
+                } else {
+                    missing.add(textSlots.getKey());
+                }
+            }
+            embedded += missing.size();
+            
+            int chunkSize = Math.max(1, embeddingService.getMaxBatchSize(modelId));
+            for (int from = 0; from < missing.size(); from += chunkSize) {
+                List<String> chunk = missing.subList(from, Math.min(from + chunkSize, missing.size()));
+                Map<String, List<Slot>> slotsByText = entry.getValue();
+                chunks.add(CompletableFuture.runAsync(
+                        () -> embedChunk(modelId, dimension, chunk, slotsByText, store, results), embeddingExecutor));
+            }
+        }
+        
+        try {
+            CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        
+        if (store != null) {
+            store.recordDeduplication(knowledgeBase.getId(), requested, requested - embedded);
+        }
+        log.debug("Generated vectors for {} documents: {} of {} field values embedded in {} requests across {} models",
+                contents.size(), embedded, requested, chunks.size(), slotsByModel.size());
+        
+        return results;
+    }
+    
+    /**
+     * 向量字段源文本的哈希 (含模型 ID)，文本或模型不变时哈希不变，可据此跳过重新向量化
+     */
+    public static String sourceHash(FieldDefinition fieldDefinition, Object fieldValue) {
+        return Hashing.murmur3_128().newHasher()
+                .putString(String.valueOf(fieldDefinition.getEmbeddingConfig().getModelId()), StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(String.valueOf(fieldValue), StandardCharsets.UTF_8)
+                .hash()
+                .toString();
+    }
+    
+    /**
+     * 向量化一个分片，回填结果并写入存储
+     */
+    private void embedChunk(String modelId, int dimension, List<String> texts, Map<String, List<Slot>> slotsByText,
+                            EmbeddingStore store, List<Map<String, float[]>> results) {
+        List<float[]> vectors = embeddingService.embedBatch(texts, modelId);
+        if (vectors.size() != texts.size()) {
+            throw new IllegalStateException(String.format(
+                    "Embedding service returned %d vectors for %d texts (model %s)",
+                    vectors.size(), texts.size(), modelId));
+        }
+        
+        // 服务不可用时的降级向量只用于本批次，不写入存储，后续相同文本重新向量化
+        for (int i = 0; i < texts.size(); i++) {
+            fill(slotsByText.get(texts.get(i)), vectors.get(i), results);
+            if (store != null && !embeddingService.isFallback(vectors.get(i))) {
+                store.put(modelId, texts.get(i), vectors.get(i), dimension);
+            }
+        }
+    }
+    
+    private static void fill(List<Slot> slots, float[] vector, List<Map<String, float[]>> results) {
+        for (Slot slot : slots) {
+            Map<String, float[]> documentVectors = results.get(slot.documentIndex());
+            synchronized (documentVectors) {
+                documentVectors.put(slot.fieldName(), vector);
+            }
+        }
+    }
+    
+    /**
+     * 待向量化文本的回填位置
+     */
+    private record Slot(int documentIndex, String fieldName) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.enterprise.rag.domain.service;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 嵌入向量服务接口 - 领域服务
@@ -27,6 +28,52 @@ public interface EmbeddingService {
      */
     List<float[]> embedBatch(List<String> texts, String modelId);
     
+    /**
+     * 异步生成单个文本的嵌入向量
+     * 
+     * <p>默认实现在调用线程中同步执行，支持非阻塞传输的实现应覆盖此方法</p>
+     * 
+     * @param text 输入文本
+     * @param modelId 模型 ID
+     * @return 嵌入向量
+     */
+    default CompletableFuture<float[]> embedAsync(String text, String modelId) {
+        try {
+            return CompletableFuture.completedFuture(embed(text, modelId));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * 异步批量生成嵌入向量
+     * 
+     * <p>默认实现在调用线程中同步执行，支持非阻塞传输的实现应覆盖此方法</p>
+     * 
+     * @param texts 文本列表
+     * @param modelId 模型 ID
+     * @return 嵌入向量列表
+     */
+    default CompletableFuture<List<float[]>> embedBatchAsync(List<String> texts, String modelId) {
+        try {
+            return CompletableFuture.completedFuture(embedBatch(texts, modelId));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * 判断向量是否为服务不可用时生成的降级向量
+     * 
+     * <p>降级向量与文本无关，只能用于当次请求，不得缓存或持久化</p>
+     * 
+     * @param vector 本服务返回的向量
+     * @return 是否为降级向量
+     */
+    default boolean isFallback(float[] vector) {
+        return false;
+    }
+    
     /**
      * 获取模型的向量维度
      * 
@@ -34,4 +81,12 @@ public interface EmbeddingService {
      * @return 向量维度
      */
     int getDimension(String modelId);
+    
+    /**
+     * 获取模型单次批量请求允许的最大文本数
+     * 
+     * @param modelId 模型 ID
+     * @return 单次请求文本数上限
+     */
+    int getMaxBatchSize(String modelId);
 }
@@ -0,0 +1,38 @@
+package com.enterprise.rag.domain.service;
+
+/**
+ * 向量存储接口 - 领域服务
+ * 
+ * <p>按 (模型, 文本内容) 保存已生成的向量，摄取时命中则无需再次调用 {@link EmbeddingService}</p>
+ */
+public interface EmbeddingStore {
+    
+    /**
+     * 查询向量
+     * 
+     * @param modelId 模型 ID
+     * @param text 源文本
+     * @param dimension 模型向量维度
+     * @return 向量，未命中时返回 null；返回的向量可能被共享，调用方不得修改
+     */
+    float[] get(String modelId, String text, int dimension);
+    
+    /**
+     * 保存向量
+     * 
+     * @param modelId 模型 ID
+     * @param text 源文本
+     * @param vector 向量
+     * @param dimension 模型向量维度
+     */
+    void put(String modelId, String text, float[] vector, int dimension);
+    
+    /**
+     * 记录一次摄取的向量复用情况
+     * 
+     * @param knowledgeBaseId 知识库 ID
+     * @param requested 需要向量的字段值总数
+     * @param reused 通过存储命中或批内重复而未调用 Embedding 服务的数量
+     */
+    void recordDeduplication(String knowledgeBaseId, int requested, int reused);
+}
@@ -0,0 +1,318 @@
+package com.enterprise.rag.domain.service.fusion;
+
+import com.enterprise.rag.domain.model.search.RetrievalMethod;
+import com.enterprise.rag.domain.model.search.RetrievalMethodType;
+import com.enterprise.rag.domain.model.search.SearchResultItem;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 自适应候选数量控制器
+ * 
+ * <p>按 (知识库, 检索方法) 学习融合结果的来源排名深度：每个进入融合 topK 的文档在各检索方法中的排名
+ * 以 rank / topK 记入直方图。取回窗口取使累计占比达到 target-recall 的最小深度，
+ * 向量检索的 num_candidates 随窗口按 num-candidates-factor 放大。</p>
+ * 
+ * <p>窗口缩小后更深的排名不再可见，直方图只记录探索请求：以 exploration-rate 的概率按最大窗口取回，
+ * 样本数不足 min-samples 时使用融合策略的默认窗口。计数累计满 decay-threshold 后减半，跟随数据分布变化。
+ * 同时统计融合结果中被多个检索方法同时命中的比例 (重叠率)。</p>
+ */
+@Component
+public class AdaptiveCandidateSizer {
+    
+    private static final RetrievalMethodType[] METHODS = RetrievalMethodType.values();
+    
+    /**
+     * 直方图桶宽 (topK 的倍数)
+     */
+    private static final double BUCKET_WIDTH = 0.25;
+    
+    /**
+     * ES knn num_candidates 上限
+     */
+    private static final int MAX_NUM_CANDIDATES = 10000;
+    
+    private final Map<String, KnowledgeBaseStatistics> statistics = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final double targetRecall;
+    private final double minMultiplier;
+    private final double maxMultiplier;
+    private final double explorationRate;
+    private final long minSamples;
+    private final long decayThreshold;
+    private final double numCandidatesFactor;
+    private final int buckets;
+    
+    public AdaptiveCandidateSizer(
+            MeterRegistry meterRegistry,
+            @Value("${rag.search.adaptive-candidates.enabled:true}") boolean enabled,
+            @Value("${rag.search.adaptive-candidates.target-recall:0.95}") double targetRecall,
+            @Value("${rag.search.adaptive-candidates.min-multiplier:1.0}") double minMultiplier,
+            @Value("${rag.search.adaptive-candidates.max-multiplier:4.0}") double maxMultiplier,
+            @Value("${rag.search.adaptive-candidates.exploration-rate:0.05}") double explorationRate,
+            @Value("${rag.search.adaptive-candidates.min-samples:500}") long minSamples,
+            @Value("${rag.search.adaptive-candidates.decay-threshold:20000}") long decayThreshold,
+            @Value("${rag.search.adaptive-candidates.num-candidates-factor:5}") double numCandidatesFactor) {
+        if (targetRecall <= 0 || targetRecall > 1) {
+            throw new IllegalArgumentException("Adaptive candidates target recall must be in (0, 1]");
+        }
+        if (minMultiplier < 1 || maxMultiplier < minMultiplier) {
+            throw new IllegalArgumentException("Adaptive candidates multipliers must satisfy 1 <= min <= max");
+        }
+        if (explorationRate < 0 || explorationRate > 1 || numCandidatesFactor < 1) {
+            throw new IllegalArgumentException("Invalid adaptive candidates exploration rate or num candidates factor");
+        }
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.targetRecall = targetRecall;
+        this.minMultiplier = minMultiplier;
+        this.maxMultiplier = maxMultiplier;
+        this.explorationRate = explorationRate;
+        this.minSamples = minSamples;
+        this.decayThreshold = decayThreshold;
+        this.numCandidatesFactor = numCandidatesFactor;
+        this.buckets = (int) Math.ceil(maxMultiplier / BUCKET_WIDTH);
+    }
+    
+    /**
+     * 为一次检索决定各检索方法的取回窗口
+     * 
+     * @param defaultWindow 融合策略的默认窗口
+     */
+    public CandidatePlan plan(String knowledgeBaseId, List<RetrievalMethod> methods, int topK, int defaultWindow) {
+        int[] windows = new int[METHODS.length];
+        boolean[] learned = new boolean[METHODS.length];
+        boolean exploring = enabled && ThreadLocalRandom.current().nextDouble() < explorationRate;
+        int maxWindow = window(topK, maxMultiplier);
+        KnowledgeBaseStatistics kbStatistics = enabled ? statistics.get(knowledgeBaseId) : null;
+        
+        for (RetrievalMethod method : methods) {
+            int ordinal = method.getType().ordinal();
+            if (exploring) {
+                windows[ordinal] = Math.max(defaultWindow, maxWindow);
+                continue;
+            }
+            double multiplier = kbStatistics != null ? kbStatistics.depth[ordinal].quantile(targetRecall) : -1;
+            if (multiplier < 0) {
+                windows[ordinal] = defaultWindow;
+            } else {
+                multiplier = Math.min(maxMultiplier, Math.max(minMultiplier, multiplier));
+                windows[ordinal] = window(topK, multiplier);
+                learned[ordinal] = true;
+            }
+        }
+        return new CandidatePlan(topK, defaultWindow, windows, learned, exploring);
+    }
+    
+    /**
+     * 计算向量检索的 num_candidates：未显式指定时按窗口放大，不小于窗口
+     */
+    public RetrievalMethod applyNumCandidates(RetrievalMethod method, int window) {
+        if (method.getType() != RetrievalMethodType.VECTOR) {
+            return method;
+        }
+        Integer explicit = method.getVectorConfig() != null ? method.getVectorConfig().getNumCandidates() : null;
+        int numCandidates = explicit != null
+                ? Math.max(window, explicit)
+                : (int) Math.min(MAX_NUM_CANDIDATES, Math.max(window, Math.ceil(window * numCandidatesFactor)));
+        return explicit != null && explicit == numCandidates ? method : method.withNumCandidates(numCandidates);
+    }
+    
+    /**
+     * 记录融合结果：来源排名深度 (仅探索请求) 与重叠率
+     * 
+     * @param results 融合后的 topK 结果 (最小分数过滤前)
+     */
+    public void observe(String knowledgeBaseId, CandidatePlan plan, List<SearchResultItem> results) {
+        if (!enabled || results.isEmpty()) {
+            return;
+        }
+        KnowledgeBaseStatistics kbStatistics = statistics.computeIfAbsent(knowledgeBaseId,
+                id -> new KnowledgeBaseStatistics(id));
+        
+        int overlapping = 0;
+        for (SearchResultItem item : results) {
+            Map<RetrievalMethodType, Integer> ranks = item.getMethodRanks();
+            if (ranks == null) {
+                continue;
+            }
+            if (ranks.size() > 1) {
+                overlapping++;
+            }
+            if (plan.exploring()) {
+                for (Map.Entry<RetrievalMethodType, Integer> entry : ranks.entrySet()) {
+                    kbStatistics.depth[entry.getKey().ordinal()].record((double) entry.getValue() / plan.topK());
+                }
+            }
+        }
+        kbStatistics.results.add(results.size());
+        kbStatistics.overlapping.add(overlapping);
+        kbStatistics.overlapSummary.record((double) overlapping / results.size());
+        for (RetrievalMethodType method : METHODS) {
+            if (plan.windows()[method.ordinal()] > 0) {
+                kbStatistics.windowSummary(method).record(plan.windows()[method.ordinal()]);
+            }
+        }
+    }
+    
+    /**
+     * 累计重叠率 (融合结果中被多个检索方法同时命中的比例)
+     * 
+     * @return 无样本时返回 -1
+     */
+    public double overlapRate(String knowledgeBaseId) {
+        KnowledgeBaseStatistics kbStatistics = statistics.get(knowledgeBaseId);
+        if (kbStatistics == null) {
+            return -1;
+        }
+        long results = kbStatistics.results.sum();
+        return results > 0 ? (double) kbStatistics.overlapping.sum() / results : -1;
+    }
+    
+    /**
+     * 移除知识库的统计及其指标
+     */
+    public void remove(String knowledgeBaseId) {
+        statistics.remove(knowledgeBaseId);
+        for (String name : List.of("rag.search.fusion.overlap", "rag.search.candidate.window")) {
+            meterRegistry.find(name).tag("knowledge_base", knowledgeBaseId).meters().forEach(meterRegistry::remove);
+        }
+    }
+    
+    private int window(int topK, double multiplier) {
+        return Math.max(topK, (int) Math.ceil(topK * multiplier));
+    }
+    
+    /**
+     * 单次检索的取回计划
+     * 
+     * @param topK 返回数量
+     * @param defaultWindow 融合策略的默认窗口
+     * @param windows 各检索方法的取回窗口，下标为检索方法序号
+     * @param learned 窗口是否来自学习到的深度分布 (否则为默认窗口或探索窗口)
+     * @param exploring 是否为探索请求
+     */
+    public record CandidatePlan(int topK, int defaultWindow, int[] windows, boolean[] learned, boolean exploring) {
+        
+        public int window(RetrievalMethodType method) {
+            return windows[method.ordinal()];
+        }
+        
+        /**
+         * 调试信息：各检索方法的窗口与来源
+         */
+        public Map<String, Object> toDebugInfo() {
+            Map<String, Object> methods = new HashMap<>();
+            for (RetrievalMethodType method : METHODS) {
+                if (windows[method.ordinal()] > 0) {
+                    methods.put(method.name(), Map.of(
+                            "window", windows[method.ordinal()],
+                            "source", exploring ? "exploration" : learned[method.ordinal()] ? "learned" : "default"));
+                }
+            }
+            return Map.of("exploring", exploring, "methods", methods);
+        }
+    }
+    
+    /**
+     * 单个知识库的统计
+     */
+    private final class KnowledgeBaseStatistics {
+        
+        private final String knowledgeBaseId;
+        private final DepthHistogram[] depth = new DepthHistogram[METHODS.length];
+        private final LongAdder results = new LongAdder();
+        private final LongAdder overlapping = new LongAdder();
+        private final DistributionSummary overlapSummary;
+        private final DistributionSummary[] windowSummaries = new DistributionSummary[METHODS.length];
+        
+        private KnowledgeBaseStatistics(String knowledgeBaseId) {
+            this.knowledgeBaseId = knowledgeBaseId;
+            for (int i = 0; i < depth.length; i++) {
+                depth[i] = new DepthHistogram();
+            }
+            this.overlapSummary = DistributionSummary.builder("rag.search.fusion.overlap")
+                    .description("Fraction of fused results retrieved by more than one method")
+                    .tag("knowledge_base", knowledgeBaseId)
+                    .register(meterRegistry);
+        }
+        
+        private DistributionSummary windowSummary(RetrievalMethodType method) {
+            DistributionSummary summary = windowSummaries[method.ordinal()];
+            if (summary == null) {
+                summary = DistributionSummary.builder("rag.search.candidate.window")
+                        .description("Hits requested from each retrieval method before fusion")
+                        .tag("knowledge_base", knowledgeBaseId)
+                        .tag("method", method.name())
+                        .register(meterRegistry);
+                windowSummaries[method.ordinal()] = summary;
+            }
+            return summary;
+        }
+    }
+    
+    /**
+     * 来源排名深度直方图 (rank / topK)，无锁计数
+     */
+    private final class DepthHistogram {
+        
+        private final AtomicLongArray counts = new AtomicLongArray(buckets);
+        private final LongAdder total = new LongAdder();
+        private final AtomicBoolean decaying = new AtomicBoolean();
+        
+        void record(double ratio) {
+            int bucket = (int) Math.ceil(ratio / BUCKET_WIDTH) - 1;
+            counts.incrementAndGet(Math.min(buckets - 1, Math.max(0, bucket)));
+            total.increment();
+            if (total.sum() >= decayThreshold && decaying.compareAndSet(false, true)) {
+                try {
+                    long remaining = 0;
+                    for (int i = 0; i < buckets; i++) {
+                        remaining += counts.updateAndGet(i, count -> count / 2);
+                    }
+                    total.reset();
+                    total.add(remaining);
+                } finally {
+                    decaying.set(false);
+                }
+            }
+        }
+        
+        /**
+         * 累计占比达到 recall 的最小深度 (topK 的倍数)
+         * 
+         * @return 样本不足时返回 -1
+         */
+        double quantile(double recall) {
+            long sum = 0;
+            long[] snapshot = new long[buckets];
+            for (int i = 0; i < buckets; i++) {
+                snapshot[i] = counts.get(i);
+                sum += snapshot[i];
+            }
+            if (sum < minSamples) {
+                return -1;
+            }
+            long cumulative = 0;
+            for (int i = 0; i < buckets; i++) {
+                cumulative += snapshot[i];
+                if (cumulative >= recall * sum) {
+                    return (i + 1) * BUCKET_WIDTH;
+                }
+            }
+            return maxMultiplier;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.enterprise.rag.domain.service.fusion;
+
+import com.enterprise.rag.domain.model.search.FusionStrategyType;
+import com.enterprise.rag.domain.model.search.RetrievalMethodType;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * CombMNZ 融合策略实现
+ * 
+ * <p>在加权 CombSUM 的基础上乘以命中该文档的检索方法数，奖励被多种检索方法同时召回的文档</p>
+ * 
+ * <pre>
+ * final_score = |{i : d ∈ results_i}| * Σ(weight_i * normalized_score_i)
+ * </pre>
+ * 
+ * <p>参考论文: Fox, Shaw (1994) - "Combination of Multiple Searches"</p>
+ */
+@Component
+public class CombMNZFusionStrategy extends ScoreNormalizingFusionStrategy {
+    
+    @Override
+    public FusionStrategyType getType() {
+        return FusionStrategyType.COMB_MNZ;
+    }
+    
+    @Override
+    protected DoubleUnaryOperator normalizer(
+            FusionParameters parameters, RetrievalMethodType method, List<RankedDocument> docs) {
+        return minMax(docs);
+    }
+    
+    @Override
+    protected boolean multiplyByHits() {
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package com.enterprise.rag.domain.service.fusion;
+
+import com.enterprise.rag.domain.model.search.FusionStrategyType;
+import com.enterprise.rag.domain.model.search.RetrievalMethodType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * 分布归一化融合 (DBSF) 策略实现
+ * 
+ * <p>以分数分布的 μ ± 3σ 作为归一化边界，截断到 [0, 1] 后加权求和。
+ * 分布取知识库累计的分数统计，累计样本不足时退回本次结果的均值与标准差。</p>
+ * 
+ * <pre>
+ * normalized_score = clamp((score - (μ - 3σ)) / 6σ, 0, 1)
+ * final_score = Σ(weight_i * normalized_score_i)
+ * </pre>
+ */
+@Component
+public class DistributionBasedFusionStrategy extends ScoreNormalizingFusionStrategy {
+    
+    private final ScoreStatistics scoreStatistics;
+    private final double candidateMultiplier;
+    
+    public DistributionBasedFusionStrategy(
+            ScoreStatistics scoreStatistics,
+            @Value("${rag.search.fusion.candidate-multiplier:1.5}") double candidateMultiplier) {
+        this.scoreStatistics = scoreStatistics;
+        this.candidateMultiplier = candidateMultiplier;
+    }
+    
+    @Override
+    public FusionStrategyType getType() {
+        return FusionStrategyType.DBSF;
+    }
+    
+    @Override
+    public int candidateWindow(int topK) {
+        return Math.max(topK, (int) Math.ceil(topK * candidateMultiplier));
+    }
+    
+    @Override
+    protected DoubleUnaryOperator normalizer(
+            FusionParameters parameters, RetrievalMethodType method, List<RankedDocument> docs) {
+        ScoreStatistics.ScoreMoments moments = scoreStatistics.moments(parameters.knowledgeBaseId(), method);
+        if (moments == null) {
+            moments = ScoreStatistics.of(docs);
+        }
+        if (moments.standardDeviation() == 0) {
+            return score -> 0.5;
+        }
+        double lower = moments.mean() - 3 * moments.standardDeviation();
+        double range = 6 * moments.standardDeviation();
+        return score -> Math.min(1, Math.max(0, (score - lower) / range));
+    }
+}
@@ -0,0 +1,295 @@
+package com.enterprise.rag.domain.service.fusion;
+
+import com.enterprise.rag.domain.model.search.RetrievalMethodType;
+import com.enterprise.rag.domain.model.search.SearchResultItem;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 融合累加器
+ * 
+ * <p>按文档槽位存放各检索方法的排名、分数与融合分数：文档 ID 通过开放寻址表映射到槽位，
+ * 各检索方法的数据存放在按 (槽位, 方法序号) 索引的基本类型数组中，最终用容量为 topK 的小顶堆选出结果，
+ * 只为返回的文档构建结果对象。</p>
+ * 
+ * <p>实例按线程复用：{@link #acquire(Map)} 取出当前线程的实例，使用完毕后必须调用 {@link #release()}。
+ * 超过保留上限的实例在释放时丢弃，避免个别大请求长期占用内存。</p>
+ */
+final class FusionAccumulator {
+    
+    private static final RetrievalMethodType[] METHODS = RetrievalMethodType.values();
+    
+    /**
+     * 线程复用实例的最大保留槽位数
+     */
+    private static final int MAX_RETAINED_CAPACITY = 8192;
+    
+    private static final ThreadLocal<FusionAccumulator> POOL = new ThreadLocal<>();
+    
+    private String[] ids;
+    private FusionStrategy.RankedDocument[] documents;
+    private double[] fused;
+    
+    /**
+     * 各检索方法分数，下标为 slot * METHODS.length + ordinal
+     */
+    private double[] methodScores;
+    
+    /**
+     * 各检索方法排名 (从 1 开始)，0 表示文档未出现在该方法结果中
+     */
+    private int[] methodRanks;
+    
+    /**
+     * 开放寻址表，存放 槽位 + 1，0 表示空位
+     */
+    private int[] table;
+    private int size;
+    private boolean inUse;
+    
+    private FusionAccumulator(int capacity) {
+        allocate(capacity);
+    }
+    
+    /**
+     * 取出当前线程的累加器，容量按各检索方法结果数之和预留
+     */
+    static FusionAccumulator acquire(Map<RetrievalMethodType, List<FusionStrategy.RankedDocument>> resultsByMethod) {
+        int expectedDocuments = 0;
+        for (List<FusionStrategy.RankedDocument> docs : resultsByMethod.values()) {
+            expectedDocuments += docs.size();
+        }
+        FusionAccumulator accumulator = POOL.get();
+        if (accumulator == null || accumulator.inUse) {
+            accumulator = new FusionAccumulator(Math.max(16, expectedDocuments));
+            if (expectedDocuments <= MAX_RETAINED_CAPACITY && POOL.get() == null) {
+                POOL.set(accumulator);
+            }
+        } else if (accumulator.ids.length < expectedDocuments) {
+            accumulator.allocate(expectedDocuments);
+        }
+        accumulator.inUse = true;
+        return accumulator;
+    }
+    
+    /**
+     * 清空并归还累加器
+     */
+    void release() {
+        Arrays.fill(ids, 0, size, null);
+        Arrays.fill(documents, 0, size, null);
+        Arrays.fill(fused, 0, size, 0.0);
+        Arrays.fill(methodScores, 0, size * METHODS.length, 0.0);
+        Arrays.fill(methodRanks, 0, size * METHODS.length, 0);
+        Arrays.fill(table, 0);
+        size = 0;
+        inUse = false;
+        if (ids.length > MAX_RETAINED_CAPACITY && POOL.get() == this) {
+            POOL.remove();
+        }
+    }
+    
+    /**
+     * 获取文档槽位，文档首次出现时分配新槽位
+     */
+    int slot(FusionStrategy.RankedDocument document) {
+        String id = document.documentId();
+        int mask = table.length - 1;
+        int index = mix(id.hashCode()) & mask;
+        while (true) {
+            int entry = table[index];
+            if (entry == 0) {
+                break;
+            }
+            if (ids[entry - 1].equals(id)) {
+                return entry - 1;
+            }
+            index = (index + 1) & mask;
+        }
+        
+        if (size == ids.length) {
+            grow();
+            return slot(document);
+        }
+        int slot = size++;
+        ids[slot] = id;
+        documents[slot] = document;
+        table[index] = slot + 1;
+        return slot;
+    }
+    
+    /**
+     * 记录文档在某检索方法中的排名与分数 (分数用于结果展示)
+     */
+    void record(int slot, RetrievalMethodType method, int rank, double score) {
+        int offset = slot * METHODS.length + method.ordinal();
+        methodRanks[offset] = rank;
+        methodScores[offset] = score;
+    }
+    
+    /**
+     * 累加融合分数
+     */
+    void add(int slot, double score) {
+        fused[slot] += score;
+    }
+    
+    /**
+     * 融合分数乘以命中该文档的检索方法数
+     */
+    void multiplyByHits() {
+        for (int slot = 0; slot < size; slot++) {
+            int hits = 0;
+            int base = slot * METHODS.length;
+            for (int m = 0; m < METHODS.length; m++) {
+                if (methodRanks[base + m] > 0) {
+                    hits++;
+                }
+            }
+            fused[slot] *= hits;
+        }
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    /**
+     * 按融合分数选出前 topK 个文档，分数相同时先出现的文档在前
+     */
+    List<SearchResultItem> topK(int topK) {
+        int count = Math.min(topK, size);
+        if (count == 0) {
+            return List.of();
+        }
+        
+        // 小顶堆，堆顶为当前入选文档中最差的一个
+        int[] heap = new int[count];
+        int heapSize = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (heapSize < count) {
+                heap[heapSize] = slot;
+                siftUp(heap, heapSize++);
+            } else if (better(slot, heap[0])) {
+                heap[0] = slot;
+                siftDown(heap, heapSize);
+            }
+        }
+        
+        SearchResultItem[] items = new SearchResultItem[count];
+        while (heapSize > 0) {
+            int slot = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+            items[heapSize] = toItem(slot);
+        }
+        return Arrays.asList(items);
+    }
+    
+    private SearchResultItem toItem(int slot) {
+        Map<RetrievalMethodType, Double> scores = new EnumMap<>(RetrievalMethodType.class);
+        Map<RetrievalMethodType, Integer> ranks = new EnumMap<>(RetrievalMethodType.class);
+        int base = slot * METHODS.length;
+        for (int m = 0; m < METHODS.length; m++) {
+            if (methodRanks[base + m] > 0) {
+                scores.put(METHODS[m], methodScores[base + m]);
+                ranks.put(METHODS[m], methodRanks[base + m]);
+            }
+        }
+        FusionStrategy.RankedDocument document = documents[slot];
+        return SearchResultItem.builder()
+                .documentId(ids[slot])
+                .score(fused[slot])
+                .methodScores(scores)
+                .methodRanks(ranks)
+                .content(document.content())
+                .highlights(document.highlights())
+                .build();
+    }
+    
+    /**
+     * 判断文档 a 是否排在文档 b 之前
+     */
+    private boolean better(int a, int b) {
+        int compare = Double.compare(fused[a], fused[b]);
+        return compare > 0 || (compare == 0 && a < b);
+    }
+    
+    private void siftUp(int[] heap, int index) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!better(heap[parent], slot)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = slot;
+    }
+    
+    private void siftDown(int[] heap, int heapSize) {
+        if (heapSize == 0) {
+            return;
+        }
+        int index = 0;
+        int slot = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && better(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!better(slot, heap[child])) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = slot;
+    }
+    
+    private void allocate(int capacity) {
+        ids = new String[capacity];
+        documents = new FusionStrategy.RankedDocument[capacity];
+        fused = new double[capacity];
+        methodScores = new double[capacity * METHODS.length];
+        methodRanks = new int[capacity * METHODS.length];
+        table = new int[tableSize(capacity)];
+    }
+    
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        documents = Arrays.copyOf(documents, capacity);
+        fused = Arrays.copyOf(fused, capacity);
+        methodScores = Arrays.copyOf(methodScores, capacity * METHODS.length);
+        methodRanks = Arrays.copyOf(methodRanks, capacity * METHODS.length);
+        table = new int[tableSize(capacity)];
+        int mask = table.length - 1;
+        for (int slot = 0; slot < size; slot++) {
+            int index = mix(ids[slot].hashCode()) & mask;
+            while (table[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            table[index] = slot + 1;
+        }
+    }
+    
+    /**
+     * 表大小为不小于两倍容量的 2 的幂，负载因子不超过 0.5
+     */
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+    }
+    
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,52 @@
+package com.enterprise.rag.domain.service.fusion;
+
+import com.enterprise.rag.domain.model.search.RetrievalMethodType;
+
+import java.util.Map;
+
+/**
+ * 融合参数 - 单次请求的融合配置
+ * 
+ * <p>融合策略是无状态单例，所有随请求变化的参数都通过该对象传入</p>
+ * 
+ * @param knowledgeBaseId 知识库 ID (按知识库统计分数分布的策略使用)
+ * @param weights 各检索方法的权重 (未指定时为 1.0)
+ * @param topK 返回数量
+ * @param rrfK RRF 排名常数
+ */
+public record FusionParameters(String knowledgeBaseId, Map<RetrievalMethodType, Double> weights,
+                               int topK, int rrfK) {
+    
+    /**
+     * 默认 RRF k 参数，k 值越大排名差异的影响越小
+     */
+    public static final int DEFAULT_RRF_K = 60;
+    
+    public FusionParameters {
+        if (topK < 1) {
+            throw new IllegalArgumentException("Fusion topK must be positive");
+        }
+        if (rrfK < 1) {
+            throw new IllegalArgumentException("RRF k must be positive");
+        }
+        weights = weights != null ? weights : Map.of();
+    }
+    
+    /**
+     * 构建融合参数
+     * 
+     * @param rrfK RRF 排名常数，为 null 时使用默认值
+     */
+    public static FusionParameters of(String knowledgeBaseId, Map<RetrievalMethodType, Double> weights,
+                                      int topK, Integer rrfK) {
+        return new FusionParameters(knowledgeBaseId, weights, topK, rrfK != null ? rrfK : DEFAULT_RRF_K);
+    }
+    
+    /**
+     * 获取检索方法权重
+     */
+    public double weight(RetrievalMethodType method) {
+        Double weight = weights.get(method);
+        return weight != null ? weight : 1.0;
+    }
+}
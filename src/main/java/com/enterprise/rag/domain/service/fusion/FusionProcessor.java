@@ -1,19 +1,31 @@
 package com.enterprise.rag.domain.service.fusion;
 
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.MsearchResponse;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.ResponseBody;
+import co.elastic.clients.elasticsearch.core.search.SourceConfig;
+import com.enterprise.rag.domain.model.knowledgebase.FieldDefinition;
 import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
 import com.enterprise.rag.domain.model.search.*;
 import com.enterprise.rag.domain.service.EmbeddingService;
+import com.enterprise.rag.domain.service.fusion.AdaptiveCandidateSizer.CandidatePlan;
+import com.enterprise.rag.domain.service.search.SearchFilterCompiler;
 import com.enterprise.rag.domain.service.search.SearchStrategy;
 import com.enterprise.rag.domain.service.search.SearchStrategyFactory;
 import com.enterprise.rag.infrastructure.elasticsearch.ElasticsearchDocumentClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 /**
@@ -26,43 +38,427 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class FusionProcessor {
     
+    /**
+     * 各检索分支只取回文档 ID 与分数，融合后的 topK 再统一回填内容
+     */
+    private static final SourceConfig NO_SOURCE = SourceConfig.of(s -> s.fetch(false));
+    
+    private static final String METADATA_FIELD = "_metadata";
+    
     private final SearchStrategyFactory searchStrategyFactory;
     private final FusionStrategyFactory fusionStrategyFactory;
     private final ElasticsearchDocumentClient esDocumentClient;
     private final EmbeddingService embeddingService;
+    private final SearchFilterCompiler searchFilterCompiler;
+    private final ScoreStatistics scoreStatistics;
+    private final AdaptiveCandidateSizer candidateSizer;
+    
+    @Qualifier("searchExecutor")
+    private final Executor searchExecutor;
+    
+    @Value("${rag.search.timeout-ms:3000}")
+    private long defaultTimeoutMs;
+    
+    @Value("${rag.search.msearch-enabled:true}")
+    private boolean msearchEnabled;
+    
+    /**
+     * 服务端融合可占用的截止时间比例，其余时间留给超时后的客户端融合回退
+     */
+    @Value("${rag.search.native-rrf.budget-fraction:0.6}")
+    private double serverSideBudget;
     
     /**
      * 执行混合检索并融合结果
+     * 
+     * <p>查询向量生成、各检索分支和融合步骤构成一个依赖图并发执行：
+     * 文本检索无需等待向量生成，向量检索在查询向量就绪后立即发出。
+     * 超过请求截止时间仍未完成的分支会被取消，使用已完成分支的结果进行融合。</p>
      */
     public SearchResult process(KnowledgeBase knowledgeBase, SearchRequest request) {
         long startTime = System.currentTimeMillis();
         
         request.validate();
         
+        // 过滤条件只编译一次，由所有检索分支共享
+        List<Query> filters = searchFilterCompiler.compile(knowledgeBase, request.getFilters());
+        
+        long timeoutMs = request.getTimeoutMs() != null ? request.getTimeoutMs() : defaultTimeoutMs;
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        
         // 如果只有一个检索方法且不需要融合
         if (request.getRetrievalMethods().size() == 1 && 
             request.getFusionStrategy() == FusionStrategyType.NONE) {
-            return executeSingleSearch(knowledgeBase, request);
+            return executeSingleSearch(knowledgeBase, request, filters, timeoutMs, deadlineNanos, startTime);
         }
         
-        // 执行多个检索方法
-        Map<RetrievalMethodType, List<FusionStrategy.RankedDocument>> resultsByMethod = new HashMap<>();
-        Map<RetrievalMethodType, Double> weights = new HashMap<>();
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+        List<CompletableFuture<?>> inFlight = new CopyOnWriteArrayList<>();
         
-        // 为向量检索生成查询向量
-        float[] queryVector = generateQueryVector(knowledgeBase, request);
+        // 为向量检索生成查询向量 (向量检索分支的前置依赖，服务端融合回退时复用)
+        long embeddingStart = System.nanoTime();
+        CompletableFuture<float[]> queryVectorFuture = hasVectorSearch(request)
+                ? embeddingService.embedAsync(request.getQueryText(), resolveQueryModelId(knowledgeBase))
+                        .whenComplete((vector, e) -> timings.put("embedding", elapsedMillis(embeddingStart)))
+                : CompletableFuture.completedFuture(null);
         
+        try {
+            // 服务端融合：单个请求由 ES 完成排名融合，不支持、失败或超出预算时回退到客户端融合
+            FusionStrategy fusionStrategy = fusionStrategyFactory.getStrategy(request.getFusionStrategy());
+            if (fusionStrategy instanceof ServerSideFusionStrategy serverSideStrategy) {
+                if (serverSideStrategy.isAvailable() && serverSideStrategy.supports(request.getRetrievalMethods())
+                        && request.getMinScore() == null) {
+                    Optional<SearchResult> result = executeServerSideFusion(knowledgeBase, request, filters,
+                            serverSideStrategy, queryVectorFuture, inFlight, timings, timeoutMs, deadlineNanos,
+                            startTime);
+                    if (result.isPresent()) {
+                        return result.get();
+                    }
+                }
+                fusionStrategy = fusionStrategyFactory.getStrategy(serverSideStrategy.getFallbackType());
+            }
+            FusionStrategy appliedStrategy = fusionStrategy;
+            // 各检索方法的取回窗口：按知识库学习到的来源排名深度决定，样本不足时使用融合策略的默认窗口
+            CandidatePlan plan = candidateSizer.plan(knowledgeBase.getId(), request.getRetrievalMethods(),
+                    request.getTopK(), appliedStrategy.candidateWindow(request.getTopK()));
+            
+            // 并发执行各检索方法；查询向量已就绪 (缓存命中或无需向量) 时合并为一次 _msearch 往返，
+            // 否则各分支单独发出，文本检索不等待向量生成
+            List<CompletableFuture<BranchOutcome>> branches = new ArrayList<>();
+            if (msearchEnabled && request.getRetrievalMethods().size() > 1 && queryVectorFuture.isDone()) {
+                branches.addAll(executeMultiSearch(knowledgeBase, request, filters, plan, queryVectorFuture,
+                        inFlight, timings, deadlineNanos));
+            } else {
+                for (RetrievalMethod method : request.getRetrievalMethods()) {
+                    branches.add(executeBranch(knowledgeBase, request, filters, method, plan, queryVectorFuture,
+                            inFlight, deadlineNanos));
+                }
+            }
+            
+            CompletableFuture<SearchResult> fusedFuture = CompletableFuture
+                    .allOf(branches.toArray(new CompletableFuture[0]))
+                    .thenApplyAsync(ignored -> fuse(knowledgeBase, request, appliedStrategy, plan,
+                            branches.stream().map(CompletableFuture::join).collect(Collectors.toList()),
+                            timings, timeoutMs, startTime), searchExecutor);
+            
+            return fusedFuture.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            // 取消超时分支仍在进行的请求
+            queryVectorFuture.cancel(true);
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+    
+    /**
+     * 执行服务端融合
+     * 
+     * <p>所有检索方法合并为一个 ES 请求，只有最终 topK 文档返回客户端。结果窗口取各检索方法自适应窗口的最大值
+     * (rank.rrf 只有一个 window_size)。ES 响应不携带 RRF 分数，结果分数按最终排名以 1 / (k + rank) 还原，
+     * 与真实融合分数不可比，因此带 minScore 的请求不走服务端融合。</p>
+     * 
+     * <p>查询向量异步生成，整个请求只占用截止时间前 serverSideBudget 比例的时间，
+     * 超时后取消请求并回退到客户端融合，由剩余时间内完成的分支给出部分结果。</p>
+     * 
+     * @return 融合结果；需要回退到客户端融合时返回 empty
+     */
+    private Optional<SearchResult> executeServerSideFusion(
+            KnowledgeBase knowledgeBase,
+            SearchRequest request,
+            List<Query> filters,
+            ServerSideFusionStrategy strategy,
+            CompletableFuture<float[]> queryVectorFuture,
+            List<CompletableFuture<?>> inFlight,
+            Map<String, Long> timings,
+            long timeoutMs,
+            long deadlineNanos,
+            long startTime) {
+        
+        int rankConstant = request.getRrfK() != null ? request.getRrfK() : FusionParameters.DEFAULT_RRF_K;
+        CandidatePlan plan = candidateSizer.plan(knowledgeBase.getId(), request.getRetrievalMethods(),
+                request.getTopK(), strategy.candidateWindow(request.getTopK()));
+        int windowSize = request.getTopK();
         for (RetrievalMethod method : request.getRetrievalMethods()) {
-            try {
-                List<FusionStrategy.RankedDocument> docs = executeSearch(
-                        knowledgeBase, request.getQueryText(), method, queryVector, request.getTopK() * 2
-                );
-                resultsByMethod.put(method.getType(), docs);
+            windowSize = Math.max(windowSize, plan.window(method.getType()));
+        }
+        int window = windowSize;
+        
+        SourceConfig sourceFilter = sourceFilter(knowledgeBase, request);
+        long[] searchStart = new long[1];
+        CompletableFuture<SearchResponse<Map>> future = queryVectorFuture.thenCompose(queryVector -> {
+            List<co.elastic.clients.elasticsearch.core.SearchRequest> methodRequests = new ArrayList<>();
+            for (RetrievalMethod method : request.getRetrievalMethods()) {
+                methodRequests.add(buildEsRequest(knowledgeBase, request.getQueryText(),
+                        candidateSizer.applyNumCandidates(method, window), queryVector, window, filters, sourceFilter));
+            }
+            searchStart[0] = System.nanoTime();
+            CompletableFuture<SearchResponse<Map>> response = esDocumentClient.searchAsync(
+                    strategy.buildCombinedRequest(methodRequests, request.getTopK(), window, rankConstant));
+            inFlight.add(response);
+            return response;
+        });
+        
+        long budgetNanos = (long) (Math.max(0, deadlineNanos - System.nanoTime()) * serverSideBudget);
+        SearchResponse<Map> response;
+        try {
+            response = future.get(budgetNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            inFlight.forEach(f -> f.cancel(true));
+            inFlight.clear();
+            log.warn("{} search exceeded its share of the {} ms deadline, falling back to {}",
+                    strategy.getType(), timeoutMs, strategy.getFallbackType());
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause()
+                    : e.getCause() != null ? e.getCause() : e;
+            if (isServerSideFusionUnsupported(cause)) {
+                strategy.markUnavailable(cause.getMessage());
+            } else {
+                log.warn("Server-side fusion failed, falling back to {}: {}",
+                        strategy.getFallbackType(), cause.getMessage());
+            }
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Search execution interrupted", e);
+        }
+        timings.put("search", elapsedMillis(searchStart[0]));
+        
+        List<FusionStrategy.RankedDocument> docs = convertToRankedDocuments(response);
+        List<SearchResultItem> items = new ArrayList<>(docs.size());
+        for (FusionStrategy.RankedDocument doc : docs) {
+            items.add(SearchResultItem.builder()
+                    .documentId(doc.documentId())
+                    .score(1.0 / (rankConstant + doc.rank()))
+                    .methodScores(Map.of())
+                    .methodRanks(Map.of())
+                    .content(contentOf(doc.content()))
+                    .highlights(doc.highlights())
+                    .metadata(metadataOf(doc.content()))
+                    .build());
+        }
+        
+        Map<String, Object> debug = new HashMap<>();
+        debug.put("serverSideFusion", true);
+        debug.put("windowSize", window);
+        debug.put("rankConstant", rankConstant);
+        debug.put("timings", new HashMap<>(timings));
+        debug.put("timeoutMs", timeoutMs);
+        debug.put("candidates", plan.toDebugInfo());
+        
+        return Optional.of(SearchResult.builder()
+                .knowledgeBaseId(knowledgeBase.getId())
+                .items(items)
+                .totalHits((long) items.size())
+                .took(System.currentTimeMillis() - startTime)
+                .fusionStrategy(strategy.getType())
+                .debugInfo(debug)
+                .build());
+    }
+    
+    /**
+     * 判断 ES 错误是否表示集群不支持服务端融合 (版本过低或许可证不满足)
+     */
+    private boolean isServerSideFusionUnsupported(Throwable cause) {
+        if (!(cause instanceof ElasticsearchException esException)) {
+            return false;
+        }
+        if (esException.status() == 403) {
+            return true;
+        }
+        String reason = esException.error() != null && esException.error().reason() != null
+                ? esException.error().reason().toLowerCase()
+                : "";
+        return esException.status() == 400
+                && (reason.contains("rank") || reason.contains("rrf") || reason.contains("license"));
+    }
+    
+    /**
+     * 构建单个检索分支
+     * 
+     * <p>分支在截止时间到达时以 TIMED_OUT 结果完成，不会阻塞融合步骤</p>
+     */
+    private CompletableFuture<BranchOutcome> executeBranch(
+            KnowledgeBase knowledgeBase,
+            SearchRequest request,
+            List<Query> filters,
+            RetrievalMethod method,
+            CandidatePlan plan,
+            CompletableFuture<float[]> queryVectorFuture,
+            List<CompletableFuture<?>> inFlight,
+            long deadlineNanos) {
+        
+        long branchStart = System.nanoTime();
+        int window = plan.window(method.getType());
+        RetrievalMethod sizedMethod = candidateSizer.applyNumCandidates(method, window);
+        CompletableFuture<float[]> dependency = method.getType() == RetrievalMethodType.VECTOR
+                ? queryVectorFuture
+                : CompletableFuture.completedFuture(null);
+        
+        CompletableFuture<BranchOutcome> branch = dependency
+                .thenCompose(queryVector -> {
+                    CompletableFuture<SearchResponse<Map>> response = esDocumentClient.searchAsync(
+                            buildEsRequest(knowledgeBase, request.getQueryText(), sizedMethod, queryVector,
+                                    window, filters, NO_SOURCE));
+                    inFlight.add(response);
+                    return response;
+                })
+                .thenApply(response -> BranchOutcome.completed(
+                        method, convertToRankedDocuments(response), elapsedMillis(branchStart)))
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (!(cause instanceof CancellationException)) {
+                        log.error("Failed to execute {} search: {}", method.getType(), cause.getMessage());
+                    }
+                    // 继续执行其他检索方法
+                    return BranchOutcome.failed(method, elapsedMillis(branchStart));
+                });
+        
+        return branch.completeOnTimeout(
+                BranchOutcome.timedOut(method, elapsedMillis(branchStart, deadlineNanos)),
+                Math.max(0, deadlineNanos - System.nanoTime()),
+                TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * 通过一次 _msearch 请求执行所有检索方法，再按检索方法拆分响应
+     * 
+     * <p>所有子请求在查询向量就绪后一起发出，因此只在查询向量已就绪时使用：向量仍在生成时合并请求会让文本检索
+     * 等待向量生成，节省的一次往返抵不上这段等待。向量生成失败只影响向量检索分支，
+     * 单个子请求的构建或执行失败也只影响对应分支。</p>
+     */
+    private List<CompletableFuture<BranchOutcome>> executeMultiSearch(
+            KnowledgeBase knowledgeBase,
+            SearchRequest request,
+            List<Query> filters,
+            CandidatePlan plan,
+            CompletableFuture<float[]> queryVectorFuture,
+            List<CompletableFuture<?>> inFlight,
+            Map<String, Long> timings,
+            long deadlineNanos) {
+        
+        List<RetrievalMethod> methods = request.getRetrievalMethods();
+        long branchStart = System.nanoTime();
+        
+        CompletableFuture<MultiSearchBatch> batchFuture = queryVectorFuture
+                .exceptionally(e -> {
+                    log.error("Failed to generate query vector: {}", e.getMessage());
+                    return null;
+                })
+                .thenCompose(queryVector -> {
+                    int[] itemIndex = new int[methods.size()];
+                    List<co.elastic.clients.elasticsearch.core.SearchRequest> esRequests = new ArrayList<>();
+                    
+                    for (int i = 0; i < methods.size(); i++) {
+                        try {
+                            int window = plan.window(methods.get(i).getType());
+                            esRequests.add(buildEsRequest(knowledgeBase, request.getQueryText(),
+                                    candidateSizer.applyNumCandidates(methods.get(i), window),
+                                    queryVector, window, filters, NO_SOURCE));
+                            itemIndex[i] = esRequests.size() - 1;
+                        } catch (RuntimeException e) {
+                            log.error("Failed to build {} search: {}", methods.get(i).getType(), e.getMessage());
+                            itemIndex[i] = -1;
+                        }
+                    }
+                    
+                    if (esRequests.isEmpty()) {
+                        return CompletableFuture.completedFuture(new MultiSearchBatch(itemIndex, List.of()));
+                    }
+                    
+                    long msearchStart = System.nanoTime();
+                    CompletableFuture<MsearchResponse<Map>> response = esDocumentClient.msearchAsync(esRequests);
+                    inFlight.add(response);
+                    return response.thenApply(r -> {
+                        timings.put("msearch", elapsedMillis(msearchStart));
+                        return new MultiSearchBatch(itemIndex, r.responses());
+                    });
+                });
+        
+        List<CompletableFuture<BranchOutcome>> branches = new ArrayList<>();
+        for (int i = 0; i < methods.size(); i++) {
+            int methodIndex = i;
+            RetrievalMethod method = methods.get(i);
+            
+            CompletableFuture<BranchOutcome> branch = batchFuture
+                    .thenApply(batch -> {
+                        int index = batch.itemIndex()[methodIndex];
+                        if (index < 0) {
+                            return BranchOutcome.failed(method, elapsedMillis(branchStart));
+                        }
+                        MultiSearchResponseItem<Map> item = batch.items().get(index);
+                        if (item.isFailure()) {
+                            log.error("Failed to execute {} search: {}", method.getType(),
+                                    item.failure().error().reason());
+                            return BranchOutcome.failed(method, elapsedMillis(branchStart));
+                        }
+                        return BranchOutcome.completed(
+                                method, convertToRankedDocuments(item.result()), elapsedMillis(branchStart));
+                    })
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        if (!(cause instanceof CancellationException)) {
+                            log.error("Failed to execute {} search: {}", method.getType(), cause.getMessage());
+                        }
+                        return BranchOutcome.failed(method, elapsedMillis(branchStart));
+                    });
+            
+            branches.add(branch.completeOnTimeout(
+                    BranchOutcome.timedOut(method, elapsedMillis(branchStart, deadlineNanos)),
+                    Math.max(0, deadlineNanos - System.nanoTime()),
+                    TimeUnit.NANOSECONDS));
+        }
+        
+        return branches;
+    }
+    
+    /**
+     * 记录分数统计，只取默认窗口深度的分数，使统计量始终描述同一深度的分布
+     * 
+     * <p>更深的窗口 (探索或学习到的窗口) 截取前 defaultWindow 条，与按默认窗口取回的结果相同；
+     * 更浅的窗口缺少较低的分数，不记录</p>
+     */
+    private void recordScores(String knowledgeBaseId, CandidatePlan plan, RetrievalMethodType method,
+                              List<FusionStrategy.RankedDocument> documents) {
+        int defaultWindow = plan.defaultWindow();
+        if (plan.window(method) < defaultWindow) {
+            return;
+        }
+        scoreStatistics.record(knowledgeBaseId, method,
+                documents.size() > defaultWindow ? documents.subList(0, defaultWindow) : documents);
+    }
+    
+    /**
+     * 融合已完成分支的结果
+     */
+    private SearchResult fuse(KnowledgeBase knowledgeBase,
+                              SearchRequest request,
+                              FusionStrategy fusionStrategy,
+                              CandidatePlan plan,
+                              List<BranchOutcome> outcomes,
+                              Map<String, Long> timings,
+                              long timeoutMs,
+                              long startTime) {
+        
+        Map<RetrievalMethodType, List<FusionStrategy.RankedDocument>> resultsByMethod = new HashMap<>();
+        Map<RetrievalMethodType, Double> weights = new HashMap<>();
+        
+        for (BranchOutcome outcome : outcomes) {
+            if (outcome.status() == BranchStatus.COMPLETED) {
+                RetrievalMethod method = outcome.method();
+                resultsByMethod.put(method.getType(), outcome.documents());
+                recordScores(knowledgeBase.getId(), plan, method.getType(), outcome.documents());
                 weights.put(method.getType(), method.getWeight() != null ? method.getWeight() : 1.0);
-                
-            } catch (Exception e) {
-                log.error("Failed to execute {} search: {}", method.getType(), e.getMessage());
-                // 继续执行其他检索方法
+            } else if (outcome.status() == BranchStatus.TIMED_OUT) {
+                log.warn("{} search exceeded deadline of {} ms and was cancelled",
+                        outcome.method().getType(), timeoutMs);
             }
         }
         
@@ -72,21 +468,18 @@ public class FusionProcessor {
                     .items(List.of())
                     .totalHits(0L)
                     .took(System.currentTimeMillis() - startTime)
-                    .fusionStrategy(request.getFusionStrategy())
+                    .fusionStrategy(fusionStrategy.getType())
+                    .debugInfo(buildDebugInfo(knowledgeBase, plan, outcomes, weights, timings, timeoutMs))
                     .build();
         }
         
-        // 执行融合
-        FusionStrategy fusionStrategy = fusionStrategyFactory.getStrategy(request.getFusionStrategy());
-        
-        // 如果是 RRF 策略，设置 k 参数
-        if (fusionStrategy instanceof RRFFusionStrategy rrfStrategy && request.getRrfK() != null) {
-            rrfStrategy.setK(request.getRrfK());
-        }
+        long fusionStart = System.nanoTime();
         
+        // 执行融合，请求级参数随调用传入，策略实例无状态
         List<SearchResultItem> fusedResults = fusionStrategy.fuse(
-                resultsByMethod, weights, request.getTopK()
+                resultsByMethod, FusionParameters.of(knowledgeBase.getId(), weights, request.getTopK(), request.getRrfK())
         );
+        candidateSizer.observe(knowledgeBase.getId(), plan, fusedResults);
         
         // 应用最小分数过滤
         if (request.getMinScore() != null) {
@@ -95,47 +488,128 @@ public class FusionProcessor {
                     .collect(Collectors.toList());
         }
         
+        timings.put("fusion", elapsedMillis(fusionStart));
+        
+        // 回填最终结果的文档内容，失败时返回不含内容的结果
+        boolean hydrated = true;
+        long hydrationStart = System.nanoTime();
+        try {
+            fusedResults = hydrate(knowledgeBase, request, fusedResults);
+            timings.put("hydration", elapsedMillis(hydrationStart));
+        } catch (IOException | ElasticsearchException e) {
+            log.error("Failed to hydrate search results: {}", e.getMessage());
+            hydrated = false;
+        }
         long took = System.currentTimeMillis() - startTime;
         
+        Map<String, Object> debug = buildDebugInfo(knowledgeBase, plan, outcomes, weights, timings, timeoutMs);
+        debug.put("hydrated", hydrated);
+        
         return SearchResult.builder()
                 .knowledgeBaseId(knowledgeBase.getId())
                 .items(fusedResults)
                 .totalHits((long) fusedResults.size())
                 .took(took)
-                .fusionStrategy(request.getFusionStrategy())
-                .debugInfo(buildDebugInfo(resultsByMethod, weights))
+                .fusionStrategy(fusionStrategy.getType())
+                .debugInfo(debug)
                 .build();
     }
     
     /**
-     * 执行单个检索策略
+     * 通过检索策略构建 ES 请求
+     * 
+     * @param source 返回的 _source 字段
      */
-    private List<FusionStrategy.RankedDocument> executeSearch(
+    private co.elastic.clients.elasticsearch.core.SearchRequest buildEsRequest(
             KnowledgeBase knowledgeBase,
             String queryText,
             RetrievalMethod method,
             float[] queryVector,
-            int topK) throws IOException {
+            int topK,
+            List<Query> filters,
+            SourceConfig source) {
         
         SearchStrategy strategy = searchStrategyFactory.getStrategy(method.getType());
         
-        co.elastic.clients.elasticsearch.core.SearchRequest.Builder requestBuilder = 
-                strategy.buildSearchRequest(knowledgeBase, queryText, method, queryVector, topK);
-        
-        // 添加过滤条件
-        // 这里可以根据需要扩展添加过滤逻辑
-        
-        co.elastic.clients.elasticsearch.core.SearchRequest esRequest = requestBuilder.build();
-        SearchResponse<Map> response = esDocumentClient.search(esRequest);
+        // 过滤条件由各检索策略下推到 ES (文本检索 bool.filter，向量检索 knn.filter)
+        return strategy.buildSearchRequest(knowledgeBase, queryText, method, queryVector, topK, filters)
+                .source(source)
+                .build();
+    }
+    
+    /**
+     * 检索结果不返回的 _source 字段：源文本哈希，以及按请求排除的向量字段与元数据
+     */
+    private List<String> sourceExcludes(KnowledgeBase knowledgeBase, SearchRequest request) {
+        List<String> excludes = new ArrayList<>();
+        excludes.add(ElasticsearchDocumentClient.CONTENT_HASHES_FIELD);
+        if (!request.isIncludeVectors()) {
+            excludes.addAll(knowledgeBase.getVectorFieldNames().values());
+        }
+        if (!request.isIncludeMetadata()) {
+            excludes.add(METADATA_FIELD);
+        }
+        return excludes;
+    }
+    
+    private SourceConfig sourceFilter(KnowledgeBase knowledgeBase, SearchRequest request) {
+        List<String> excludes = sourceExcludes(knowledgeBase, request);
+        return SourceConfig.of(s -> s.filter(f -> f.excludes(excludes)));
+    }
+    
+    /**
+     * 通过一次 mget 回填融合结果的内容与元数据
+     * 
+     * <p>检索后已被删除的文档不再返回</p>
+     */
+    private List<SearchResultItem> hydrate(KnowledgeBase knowledgeBase,
+                                           SearchRequest request,
+                                           List<SearchResultItem> items) throws IOException {
+        if (items.isEmpty()) {
+            return items;
+        }
+        List<String> documentIds = new ArrayList<>(items.size());
+        for (SearchResultItem item : items) {
+            documentIds.add(item.getDocumentId());
+        }
+        Map<String, Map<String, Object>> sources = esDocumentClient.getSources(
+                knowledgeBase.getPhysicalIndexName(), documentIds, sourceExcludes(knowledgeBase, request));
         
-        return convertToRankedDocuments(response);
+        List<SearchResultItem> hydrated = new ArrayList<>(items.size());
+        for (SearchResultItem item : items) {
+            Map<String, Object> source = sources.get(item.getDocumentId());
+            if (source != null) {
+                hydrated.add(item.toBuilder()
+                        .content(contentOf(source))
+                        .metadata(metadataOf(source))
+                        .build());
+            }
+        }
+        return hydrated;
+    }
+    
+    /**
+     * 文档内容：_source 中除元数据以外的字段
+     */
+    private static Map<String, Object> contentOf(Map<String, Object> source) {
+        if (!source.containsKey(METADATA_FIELD)) {
+            return source;
+        }
+        Map<String, Object> content = new HashMap<>(source);
+        content.remove(METADATA_FIELD);
+        return content;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> metadataOf(Map<String, Object> source) {
+        return source.get(METADATA_FIELD) instanceof Map<?, ?> metadata ? (Map<String, Object>) metadata : null;
     }
     
     /**
      * 将 ES 响应转换为排名文档列表
      */
     @SuppressWarnings("unchecked")
-    private List<FusionStrategy.RankedDocument> convertToRankedDocuments(SearchResponse<Map> response) {
+    private List<FusionStrategy.RankedDocument> convertToRankedDocuments(ResponseBody<Map> response) {
         List<FusionStrategy.RankedDocument> docs = new ArrayList<>();
         
         int rank = 1;
@@ -158,86 +632,177 @@ public class FusionProcessor {
     
     /**
      * 执行单一检索（无融合）
+     * 
+     * <p>与融合检索共用截止时间：查询向量异步生成，检索在向量就绪后发出，
+     * 超过截止时间仍未完成时取消请求并返回空结果</p>
      */
-    private SearchResult executeSingleSearch(KnowledgeBase knowledgeBase, SearchRequest request) {
-        long startTime = System.currentTimeMillis();
-        
+    private SearchResult executeSingleSearch(KnowledgeBase knowledgeBase,
+                                             SearchRequest request,
+                                             List<Query> filters,
+                                             long timeoutMs,
+                                             long deadlineNanos,
+                                             long startTime) {
         RetrievalMethod method = request.getRetrievalMethods().get(0);
-        float[] queryVector = null;
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+        List<CompletableFuture<?>> inFlight = new CopyOnWriteArrayList<>();
         
-        if (method.getType() == RetrievalMethodType.VECTOR) {
-            queryVector = generateQueryVector(knowledgeBase, request);
-        }
+        long embeddingStart = System.nanoTime();
+        CompletableFuture<float[]> queryVectorFuture = method.getType() == RetrievalMethodType.VECTOR
+                ? embeddingService.embedAsync(request.getQueryText(), resolveQueryModelId(knowledgeBase))
+                        .whenComplete((vector, e) -> timings.put("embedding", elapsedMillis(embeddingStart)))
+                : CompletableFuture.completedFuture(null);
+        long[] searchStart = new long[1];
+        CompletableFuture<SearchResponse<Map>> future = queryVectorFuture.thenCompose(queryVector -> {
+            searchStart[0] = System.nanoTime();
+            CompletableFuture<SearchResponse<Map>> response = esDocumentClient.searchAsync(
+                    buildEsRequest(knowledgeBase, request.getQueryText(), method, queryVector, request.getTopK(),
+                            filters, sourceFilter(knowledgeBase, request)));
+            inFlight.add(response);
+            return response;
+        });
         
+        SearchResponse<Map> response;
         try {
-            List<FusionStrategy.RankedDocument> docs = executeSearch(
-                    knowledgeBase, request.getQueryText(), method, queryVector, request.getTopK()
-            );
-            
-            List<SearchResultItem> items = docs.stream()
-                    .map(doc -> SearchResultItem.builder()
-                            .documentId(doc.documentId())
-                            .score(doc.score())
-                            .content(doc.content())
-                            .highlights(doc.highlights())
-                            .methodScores(Map.of(method.getType(), doc.score()))
-                            .methodRanks(Map.of(method.getType(), doc.rank()))
-                            .build())
-                    .collect(Collectors.toList());
-            
+            response = future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("{} search exceeded deadline of {} ms and was cancelled", method.getType(), timeoutMs);
             return SearchResult.builder()
                     .knowledgeBaseId(knowledgeBase.getId())
-                    .items(items)
-                    .totalHits((long) items.size())
+                    .items(List.of())
+                    .totalHits(0L)
                     .took(System.currentTimeMillis() - startTime)
                     .fusionStrategy(FusionStrategyType.NONE)
+                    .debugInfo(Map.of("status", BranchStatus.TIMED_OUT.name(),
+                            "timings", new HashMap<>(timings), "timeoutMs", timeoutMs))
                     .build();
-                    
-        } catch (IOException e) {
-            log.error("Search failed", e);
-            throw new RuntimeException("Search execution failed", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause()
+                    : e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            log.error("Search failed", cause);
+            throw new RuntimeException("Search execution failed", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Search execution interrupted", e);
+        } finally {
+            queryVectorFuture.cancel(true);
+            inFlight.forEach(f -> f.cancel(true));
         }
+        timings.put("search", elapsedMillis(searchStart[0]));
+        
+        List<SearchResultItem> items = convertToRankedDocuments(response).stream()
+                .map(doc -> SearchResultItem.builder()
+                        .documentId(doc.documentId())
+                        .score(doc.score())
+                        .content(contentOf(doc.content()))
+                        .highlights(doc.highlights())
+                        .metadata(metadataOf(doc.content()))
+                        .methodScores(Map.of(method.getType(), doc.score()))
+                        .methodRanks(Map.of(method.getType(), doc.rank()))
+                        .build())
+                .collect(Collectors.toList());
+        
+        return SearchResult.builder()
+                .knowledgeBaseId(knowledgeBase.getId())
+                .items(items)
+                .totalHits((long) items.size())
+                .took(System.currentTimeMillis() - startTime)
+                .fusionStrategy(FusionStrategyType.NONE)
+                .build();
+    }
+    
+    /**
+     * 查询向量使用第一个向量字段的模型
+     */
+    private String resolveQueryModelId(KnowledgeBase knowledgeBase) {
+        List<FieldDefinition> vectorFields = knowledgeBase.getVectorFields();
+        return vectorFields.isEmpty() ? null : vectorFields.get(0).getEmbeddingConfig().getModelId();
     }
     
     /**
-     * 生成查询向量
+     * 判断请求中是否包含向量检索方法
      */
-    private float[] generateQueryVector(KnowledgeBase knowledgeBase, SearchRequest request) {
-        // 检查是否有向量检索方法
-        boolean hasVectorSearch = request.getRetrievalMethods().stream()
+    private boolean hasVectorSearch(SearchRequest request) {
+        return request.getRetrievalMethods().stream()
                 .anyMatch(m -> m.getType() == RetrievalMethodType.VECTOR);
-        
-        if (!hasVectorSearch) {
-            return null;
-        }
-        
-        // 获取第一个向量字段的模型 ID
-        String modelId = knowledgeBase.getVectorFields().stream()
-                .findFirst()
-                .map(fd -> fd.getEmbeddingConfig().getModelId())
-                .orElse(null);
-        
-        return embeddingService.embed(request.getQueryText(), modelId);
     }
     
     /**
      * 构建调试信息
      */
     private Map<String, Object> buildDebugInfo(
-            Map<RetrievalMethodType, List<FusionStrategy.RankedDocument>> resultsByMethod,
-            Map<RetrievalMethodType, Double> weights) {
+            KnowledgeBase knowledgeBase,
+            CandidatePlan plan,
+            List<BranchOutcome> outcomes,
+            Map<RetrievalMethodType, Double> weights,
+            Map<String, Long> timings,
+            long timeoutMs) {
         
         Map<String, Object> debug = new HashMap<>();
         
         Map<String, Object> methodInfo = new HashMap<>();
-        for (Map.Entry<RetrievalMethodType, List<FusionStrategy.RankedDocument>> entry : resultsByMethod.entrySet()) {
-            methodInfo.put(entry.getKey().name(), Map.of(
-                    "count", entry.getValue().size(),
-                    "weight", weights.getOrDefault(entry.getKey(), 1.0)
+        for (BranchOutcome outcome : outcomes) {
+            RetrievalMethodType type = outcome.method().getType();
+            methodInfo.put(type.name(), Map.of(
+                    "count", outcome.documents().size(),
+                    "weight", weights.getOrDefault(type, 1.0),
+                    "status", outcome.status().name(),
+                    "tookMs", outcome.tookMs()
             ));
         }
         debug.put("methods", methodInfo);
+        debug.put("timings", new HashMap<>(timings));
+        debug.put("timeoutMs", timeoutMs);
+        
+        Map<String, Object> candidates = new HashMap<>(plan.toDebugInfo());
+        candidates.put("overlapRate", candidateSizer.overlapRate(knowledgeBase.getId()));
+        debug.put("candidates", candidates);
         
         return debug;
     }
+    
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+    
+    private static long elapsedMillis(long startNanos, long endNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(0, endNanos - startNanos));
+    }
+    
+    /**
+     * _msearch 批量响应 - itemIndex[i] 为第 i 个检索方法对应的响应项下标，-1 表示请求构建失败
+     */
+    private record MultiSearchBatch(int[] itemIndex, List<MultiSearchResponseItem<Map>> items) {}
+    
+    /**
+     * 检索分支状态
+     */
+    private enum BranchStatus {
+        COMPLETED, FAILED, TIMED_OUT
+    }
+    
+    /**
+     * 检索分支执行结果
+     */
+    private record BranchOutcome(
+            RetrievalMethod method,
+            BranchStatus status,
+            List<FusionStrategy.RankedDocument> documents,
+            long tookMs
+    ) {
+        static BranchOutcome completed(RetrievalMethod method, List<FusionStrategy.RankedDocument> documents, long tookMs) {
+            return new BranchOutcome(method, BranchStatus.COMPLETED, documents, tookMs);
+        }
+        
+        static BranchOutcome failed(RetrievalMethod method, long tookMs) {
+            return new BranchOutcome(method, BranchStatus.FAILED, List.of(), tookMs);
+        }
+        
+        static BranchOutcome timedOut(RetrievalMethod method, long tookMs) {
+            return new BranchOutcome(method, BranchStatus.TIMED_OUT, List.of(), tookMs);
+        }
+    }
 }
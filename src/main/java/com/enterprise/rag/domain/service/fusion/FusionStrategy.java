@@ -19,18 +19,27 @@ public interface FusionStrategy {
      */
     FusionStrategyType getType();
     
+    /**
+     * 每个检索方法参与融合的候选数量
+     * 
+     * <p>默认取 topK 的两倍；分数标准化不依赖单次结果分布的策略可以取更少的候选</p>
+     */
+    default int candidateWindow(int topK) {
+        return topK * 2;
+    }
+    
     /**
      * 融合多个检索结果
      * 
-     * @param resultsByMethod 各检索方法的结果 (检索方法类型 -> 文档列表)
-     * @param weights 各检索方法的权重
-     * @param topK 返回数量
+     * <p>实现必须无状态，可被并发调用</p>
+     * 
+     * @param resultsByMethod 各检索方法的结果 (检索方法类型 -> 文档列表，按排名排序)
+     * @param parameters 本次请求的融合参数
      * @return 融合后的结果列表
      */
     List<SearchResultItem> fuse(
             Map<RetrievalMethodType, List<RankedDocument>> resultsByMethod,
-            Map<RetrievalMethodType, Double> weights,
-            int topK
+            FusionParameters parameters
     );
     
     /**
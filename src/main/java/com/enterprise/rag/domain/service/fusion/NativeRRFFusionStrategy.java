@@ -0,0 +1,125 @@
+package com.enterprise.rag.domain.service.fusion;
+
+import co.elastic.clients.elasticsearch._types.KnnQuery;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.util.ApiTypeHelper;
+import com.enterprise.rag.domain.model.search.FusionStrategyType;
+import com.enterprise.rag.domain.model.search.RetrievalMethod;
+import com.enterprise.rag.domain.model.search.RetrievalMethodType;
+import com.enterprise.rag.domain.model.search.SearchResultItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Elasticsearch 原生 RRF 融合策略实现
+ * 
+ * <p>将向量检索的 knn 子句与文本检索的 query 子句合并到一个请求中，
+ * 通过 <code>rank.rrf</code> 由 Elasticsearch 在服务端完成倒数排名融合。
+ * 相比客户端融合，每个检索方法不再需要各自返回 topK * 2 条完整 _source。</p>
+ * 
+ * <p>ES 的 rank.rrf 只支持一个 query 子句与任意个 knn 子句的组合，且不支持按检索方法加权，
+ * 指定了不同权重的请求由客户端 (加权) RRF 处理；集群版本或许可证不支持时，标记为不可用并在重试间隔内回退到客户端 RRF。</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NativeRRFFusionStrategy implements ServerSideFusionStrategy {
+    
+    private final RRFFusionStrategy clientSideStrategy;
+    
+    @Value("${rag.search.native-rrf.retry-interval-ms:600000}")
+    private long retryIntervalMs;
+    
+    /**
+     * 服务端融合恢复尝试的时间点 (毫秒时间戳)
+     */
+    private volatile long unavailableUntil = 0L;
+    
+    @Override
+    public FusionStrategyType getType() {
+        return FusionStrategyType.ES_NATIVE_RRF;
+    }
+    
+    @Override
+    public FusionStrategyType getFallbackType() {
+        return FusionStrategyType.RRF;
+    }
+    
+    @Override
+    public boolean supports(List<RetrievalMethod> retrievalMethods) {
+        int vectorCount = 0;
+        int queryCount = 0;
+        for (RetrievalMethod method : retrievalMethods) {
+            if (method.getWeight() != null && method.getWeight() != 1.0) {
+                return false;
+            }
+            if (method.getType() == RetrievalMethodType.VECTOR) {
+                vectorCount++;
+            } else if (method.getType() == RetrievalMethodType.TEXT) {
+                queryCount++;
+            } else {
+                return false;
+            }
+        }
+        return vectorCount >= 1 && queryCount <= 1 && vectorCount + queryCount >= 2;
+    }
+    
+    @Override
+    public SearchRequest buildCombinedRequest(List<SearchRequest> methodRequests, int topK,
+                                              int windowSize, int rankConstant) {
+        SearchRequest.Builder builder = new SearchRequest.Builder()
+                .index(methodRequests.get(0).index())
+                .size(topK)
+                .rank(r -> r.rrf(rrf -> rrf
+                        .windowSize((long) Math.max(windowSize, topK))
+                        .rankConstant((long) rankConstant)
+                ));
+        
+        List<KnnQuery> knnQueries = new ArrayList<>();
+        for (SearchRequest methodRequest : methodRequests) {
+            if (ApiTypeHelper.isDefined(methodRequest.knn())) {
+                knnQueries.addAll(methodRequest.knn());
+            }
+            if (methodRequest.query() != null) {
+                builder.query(methodRequest.query());
+            }
+            if (methodRequest.highlight() != null) {
+                builder.highlight(methodRequest.highlight());
+            }
+            if (methodRequest.source() != null) {
+                builder.source(methodRequest.source());
+            }
+        }
+        builder.knn(knnQueries);
+        
+        return builder.build();
+    }
+    
+    @Override
+    public boolean isAvailable() {
+        return System.currentTimeMillis() >= unavailableUntil;
+    }
+    
+    @Override
+    public void markUnavailable(String reason) {
+        unavailableUntil = System.currentTimeMillis() + retryIntervalMs;
+        log.warn("Elasticsearch native RRF is not supported by the cluster, falling back to client-side RRF for {} ms: {}",
+                retryIntervalMs, reason);
+    }
+    
+    /**
+     * 客户端融合 - 与回退策略一致
+     */
+    @Override
+    public List<SearchResultItem> fuse(
+            Map<RetrievalMethodType, List<RankedDocument>> resultsByMethod,
+            FusionParameters parameters) {
+        return clientSideStrategy.fuse(resultsByMethod, parameters);
+    }
+}
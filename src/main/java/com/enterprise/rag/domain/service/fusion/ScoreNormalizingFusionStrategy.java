@@ -0,0 +1,100 @@
+package com.enterprise.rag.domain.service.fusion;
+
+import com.enterprise.rag.domain.model.search.RetrievalMethodType;
+import com.enterprise.rag.domain.model.search.SearchResultItem;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * 分数归一化融合策略基类
+ * 
+ * <p>各检索方法的原始分数经子类给出的归一化函数转换后，按归一化权重 (总和为 1) 加权求和</p>
+ * 
+ * <pre>
+ * final_score = Σ(weight_i * normalize_i(score_i))
+ * </pre>
+ */
+@Slf4j
+public abstract class ScoreNormalizingFusionStrategy implements FusionStrategy {
+    
+    @Override
+    public List<SearchResultItem> fuse(
+            Map<RetrievalMethodType, List<RankedDocument>> resultsByMethod,
+            FusionParameters parameters) {
+        
+        if (resultsByMethod.isEmpty()) {
+            return List.of();
+        }
+        
+        double weightSum = 0;
+        for (RetrievalMethodType method : resultsByMethod.keySet()) {
+            weightSum += parameters.weight(method);
+        }
+        
+        FusionAccumulator accumulator = FusionAccumulator.acquire(resultsByMethod);
+        try {
+            for (Map.Entry<RetrievalMethodType, List<RankedDocument>> entry : resultsByMethod.entrySet()) {
+                RetrievalMethodType method = entry.getKey();
+                List<RankedDocument> docs = entry.getValue();
+                if (docs.isEmpty()) {
+                    continue;
+                }
+                double weight = weightSum > 0 ? parameters.weight(method) / weightSum : 0;
+                DoubleUnaryOperator normalizer = normalizer(parameters, method, docs);
+                
+                for (int i = 0; i < docs.size(); i++) {
+                    RankedDocument doc = docs.get(i);
+                    double score = normalizer.applyAsDouble(doc.score()) * weight;
+                    int slot = accumulator.slot(doc);
+                    accumulator.record(slot, method, i + 1, score);
+                    accumulator.add(slot, score);
+                }
+            }
+            if (multiplyByHits()) {
+                accumulator.multiplyByHits();
+            }
+            
+            List<SearchResultItem> results = accumulator.topK(parameters.topK());
+            
+            log.debug("{} fusion: {} methods, {} unique docs -> {} results",
+                    getType(), resultsByMethod.size(), accumulator.size(), results.size());
+            
+            return results;
+        } finally {
+            accumulator.release();
+        }
+    }
+    
+    /**
+     * 获取检索方法的分数归一化函数
+     * 
+     * @param docs 该检索方法本次返回的文档 (非空)
+     */
+    protected abstract DoubleUnaryOperator normalizer(
+            FusionParameters parameters, RetrievalMethodType method, List<RankedDocument> docs);
+    
+    /**
+     * 融合分数是否乘以命中该文档的检索方法数
+     */
+    protected boolean multiplyByHits() {
+        return false;
+    }
+    
+    /**
+     * Min-Max 归一化到 [0, 1] 区间
+     */
+    protected static DoubleUnaryOperator minMax(List<RankedDocument> docs) {
+        double minScore = Double.POSITIVE_INFINITY;
+        double maxScore = Double.NEGATIVE_INFINITY;
+        for (RankedDocument doc : docs) {
+            minScore = Math.min(minScore, doc.score());
+            maxScore = Math.max(maxScore, doc.score());
+        }
+        double min = minScore;
+        double range = maxScore - minScore > 0 ? maxScore - minScore : 1; // 避免除零
+        return score -> (score - min) / range;
+    }
+}
@@ -0,0 +1,157 @@
+package com.enterprise.rag.domain.service.fusion;
+
+import com.enterprise.rag.domain.model.search.RetrievalMethodType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 检索分数统计
+ * 
+ * <p>按 (知识库, 检索方法) 累计原始检索分数的数量、和与平方和，供 Z-Score / DBSF 融合标准化分数。
+ * 累加使用无锁的 LongAdder / DoubleAdder；每个窗口累计满 window 条后切换到新窗口，
+ * 统计量取当前与上一窗口之和，使分布随索引内容变化而更新。</p>
+ */
+@Component
+public class ScoreStatistics {
+    
+    private static final RetrievalMethodType[] METHODS = RetrievalMethodType.values();
+    
+    private final Map<String, MethodStatistics[]> statistics = new ConcurrentHashMap<>();
+    private final long window;
+    private final long minSamples;
+    
+    public ScoreStatistics(
+            @Value("${rag.search.fusion.statistics.window:10000}") long window,
+            @Value("${rag.search.fusion.statistics.min-samples:200}") long minSamples) {
+        if (window < 1 || minSamples < 1) {
+            throw new IllegalArgumentException("Score statistics window and min samples must be positive");
+        }
+        this.window = window;
+        this.minSamples = minSamples;
+    }
+    
+    /**
+     * 记录一次检索返回的分数
+     * 
+     * <p>分布随取回深度变化，调用方应只传入同一深度 (融合策略的默认窗口) 的结果</p>
+     */
+    public void record(String knowledgeBaseId, RetrievalMethodType method, List<FusionStrategy.RankedDocument> docs) {
+        if (docs.isEmpty()) {
+            return;
+        }
+        MethodStatistics[] byMethod = statistics.computeIfAbsent(knowledgeBaseId, id -> {
+            MethodStatistics[] created = new MethodStatistics[METHODS.length];
+            for (int i = 0; i < created.length; i++) {
+                created[i] = new MethodStatistics();
+            }
+            return created;
+        });
+        byMethod[method.ordinal()].record(docs, window);
+    }
+    
+    /**
+     * 获取分数分布
+     * 
+     * @return 样本数不足 min-samples 时返回 null
+     */
+    public ScoreMoments moments(String knowledgeBaseId, RetrievalMethodType method) {
+        MethodStatistics[] byMethod = statistics.get(knowledgeBaseId);
+        if (byMethod == null) {
+            return null;
+        }
+        ScoreMoments moments = byMethod[method.ordinal()].moments();
+        return moments.count() >= minSamples ? moments : null;
+    }
+    
+    /**
+     * 移除知识库的统计
+     */
+    public void remove(String knowledgeBaseId) {
+        statistics.remove(knowledgeBaseId);
+    }
+    
+    /**
+     * 按一组分数计算分布
+     */
+    public static ScoreMoments of(List<FusionStrategy.RankedDocument> docs) {
+        double sum = 0;
+        double sumSquares = 0;
+        for (FusionStrategy.RankedDocument doc : docs) {
+            sum += doc.score();
+            sumSquares += doc.score() * doc.score();
+        }
+        return ScoreMoments.of(docs.size(), sum, sumSquares);
+    }
+    
+    /**
+     * 分数分布
+     * 
+     * @param count 样本数
+     * @param mean 均值
+     * @param standardDeviation 标准差
+     */
+    public record ScoreMoments(long count, double mean, double standardDeviation) {
+        
+        static ScoreMoments of(long count, double sum, double sumSquares) {
+            if (count == 0) {
+                return new ScoreMoments(0, 0, 0);
+            }
+            double mean = sum / count;
+            double variance = Math.max(0, sumSquares / count - mean * mean);
+            return new ScoreMoments(count, mean, Math.sqrt(variance));
+        }
+    }
+    
+    /**
+     * 单个检索方法的分窗口累计
+     */
+    private static final class MethodStatistics {
+        
+        private final AtomicReference<Window> current = new AtomicReference<>(new Window());
+        private volatile Window previous;
+        
+        void record(List<FusionStrategy.RankedDocument> docs, long window) {
+            Window target = current.get();
+            double sum = 0;
+            double sumSquares = 0;
+            for (FusionStrategy.RankedDocument doc : docs) {
+                sum += doc.score();
+                sumSquares += doc.score() * doc.score();
+            }
+            target.count.add(docs.size());
+            target.sum.add(sum);
+            target.sumSquares.add(sumSquares);
+            
+            if (target.count.sum() >= window && current.compareAndSet(target, new Window())) {
+                previous = target;
+            }
+        }
+        
+        ScoreMoments moments() {
+            Window latest = current.get();
+            Window older = previous;
+            long count = latest.count.sum();
+            double sum = latest.sum.sum();
+            double sumSquares = latest.sumSquares.sum();
+            if (older != null) {
+                count += older.count.sum();
+                sum += older.sum.sum();
+                sumSquares += older.sumSquares.sum();
+            }
+            return ScoreMoments.of(count, sum, sumSquares);
+        }
+    }
+    
+    private static final class Window {
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+        private final DoubleAdder sumSquares = new DoubleAdder();
+    }
+}
@@ -0,0 +1,47 @@
+package com.enterprise.rag.domain.service.fusion;
+
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import com.enterprise.rag.domain.model.search.FusionStrategyType;
+import com.enterprise.rag.domain.model.search.RetrievalMethod;
+
+import java.util.List;
+
+/**
+ * 服务端融合策略接口
+ * 
+ * <p>将各检索方法的请求合并为一个 ES 请求，由 Elasticsearch 完成排名融合，
+ * 只有最终 topK 文档会返回客户端。集群不支持时回退到客户端融合策略。</p>
+ */
+public interface ServerSideFusionStrategy extends FusionStrategy {
+    
+    /**
+     * 判断给定的检索方法组合能否在服务端融合
+     */
+    boolean supports(List<RetrievalMethod> retrievalMethods);
+    
+    /**
+     * 将各检索方法的 ES 请求合并为一个服务端融合请求
+     * 
+     * @param methodRequests 各检索方法的 ES 请求
+     * @param topK 返回数量
+     * @param windowSize 参与融合的每个检索方法结果窗口
+     * @param rankConstant 排名常数 (RRF k)
+     * @return 合并后的 ES 请求
+     */
+    SearchRequest buildCombinedRequest(List<SearchRequest> methodRequests, int topK, int windowSize, int rankConstant);
+    
+    /**
+     * 当前集群是否可用服务端融合
+     */
+    boolean isAvailable();
+    
+    /**
+     * 标记集群不支持服务端融合
+     */
+    void markUnavailable(String reason);
+    
+    /**
+     * 客户端回退融合策略类型
+     */
+    FusionStrategyType getFallbackType();
+}
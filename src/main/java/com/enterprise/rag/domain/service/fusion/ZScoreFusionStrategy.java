@@ -0,0 +1,55 @@
+package com.enterprise.rag.domain.service.fusion;
+
+import com.enterprise.rag.domain.model.search.FusionStrategyType;
+import com.enterprise.rag.domain.model.search.RetrievalMethodType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Z-Score 融合策略实现
+ * 
+ * <p>分数按知识库累计的分数分布标准化，不受单次结果列表长度与分数范围影响；
+ * 累计样本不足时退回本次结果的均值与标准差。</p>
+ * 
+ * <pre>
+ * final_score = Σ(weight_i * (score_i - μ_i) / σ_i)
+ * </pre>
+ */
+@Component
+public class ZScoreFusionStrategy extends ScoreNormalizingFusionStrategy {
+    
+    private final ScoreStatistics scoreStatistics;
+    private final double candidateMultiplier;
+    
+    public ZScoreFusionStrategy(
+            ScoreStatistics scoreStatistics,
+            @Value("${rag.search.fusion.candidate-multiplier:1.5}") double candidateMultiplier) {
+        this.scoreStatistics = scoreStatistics;
+        this.candidateMultiplier = candidateMultiplier;
+    }
+    
+    @Override
+    public FusionStrategyType getType() {
+        return FusionStrategyType.ZSCORE;
+    }
+    
+    @Override
+    public int candidateWindow(int topK) {
+        return Math.max(topK, (int) Math.ceil(topK * candidateMultiplier));
+    }
+    
+    @Override
+    protected DoubleUnaryOperator normalizer(
+            FusionParameters parameters, RetrievalMethodType method, List<RankedDocument> docs) {
+        ScoreStatistics.ScoreMoments moments = scoreStatistics.moments(parameters.knowledgeBaseId(), method);
+        if (moments == null) {
+            moments = ScoreStatistics.of(docs);
+        }
+        double mean = moments.mean();
+        double deviation = moments.standardDeviation() > 0 ? moments.standardDeviation() : 1;
+        return score -> (score - mean) / deviation;
+    }
+}
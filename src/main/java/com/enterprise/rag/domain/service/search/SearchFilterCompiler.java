@@ -0,0 +1,145 @@
+package com.enterprise.rag.domain.service.search;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.RangeQuery;
+import co.elastic.clients.json.JsonData;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 检索过滤条件编译器
+ * 
+ * <p>将 SearchRequest.filters 编译为 ES filter 上下文中的 term/terms/range 子句。
+ * filter 子句不参与打分，可被 ES 缓存复用，并可作为 kNN 的预过滤条件。</p>
+ * 
+ * <p>支持的条件格式：</p>
+ * <ul>
+ *   <li>标量值: {"category": "news"} → term</li>
+ *   <li>列表值: {"category": ["news", "blog"]} → terms</li>
+ *   <li>范围值: {"year": {"gte": 2020, "lt": 2024}} → range</li>
+ * </ul>
+ */
+@Component
+public class SearchFilterCompiler {
+    
+    private static final Set<String> RANGE_OPERATORS = Set.of("gt", "gte", "lt", "lte");
+    
+    /**
+     * 编译过滤条件
+     * 
+     * @param knowledgeBase 知识库元数据
+     * @param filters 过滤条件 (字段名 → 条件值)
+     * @return filter 子句列表，无过滤条件时返回空列表
+     * @throws IllegalArgumentException 字段不可过滤或条件格式不合法
+     */
+    public List<Query> compile(KnowledgeBase knowledgeBase, Map<String, Object> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return List.of();
+        }
+        
+        List<Query> clauses = new ArrayList<>(filters.size());
+        for (Map.Entry<String, Object> entry : filters.entrySet()) {
+            String field = resolveFilterField(knowledgeBase, entry.getKey());
+            clauses.add(compileClause(field, entry.getKey(), entry.getValue()));
+        }
+        return List.copyOf(clauses);
+    }
+    
+    /**
+     * 解析过滤字段对应的 ES 字段名
+     * 
+     * <p>TEXT 字段使用 keyword 子字段做精确匹配</p>
+     */
+    private String resolveFilterField(KnowledgeBase knowledgeBase, String fieldName) {
+        String field = knowledgeBase.getFilterFieldNames().get(fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException("Field is not filterable in knowledge base: " + fieldName);
+        }
+        return field;
+    }
+    
+    /**
+     * 根据条件值类型构建 filter 子句
+     */
+    private Query compileClause(String field, String fieldName, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Filter value cannot be null: " + fieldName);
+        }
+        
+        if (value instanceof Collection<?> values) {
+            if (values.isEmpty()) {
+                throw new IllegalArgumentException("Filter value list cannot be empty: " + fieldName);
+            }
+            List<FieldValue> terms = new ArrayList<>(values.size());
+            for (Object v : values) {
+                terms.add(toFieldValue(fieldName, v));
+            }
+            return Query.of(q -> q.terms(t -> t
+                    .field(field)
+                    .terms(tf -> tf.value(terms))));
+        }
+        
+        if (value instanceof Map<?, ?> range) {
+            return Query.of(q -> q.range(buildRange(field, fieldName, range)));
+        }
+        
+        FieldValue term = toFieldValue(fieldName, value);
+        return Query.of(q -> q.term(t -> t.field(field).value(term)));
+    }
+    
+    /**
+     * 构建范围条件
+     */
+    private RangeQuery buildRange(String field, String fieldName, Map<?, ?> range) {
+        if (range.isEmpty()) {
+            throw new IllegalArgumentException("Range filter cannot be empty: " + fieldName);
+        }
+        
+        RangeQuery.Builder builder = new RangeQuery.Builder().field(field);
+        for (Map.Entry<?, ?> entry : range.entrySet()) {
+            String operator = String.valueOf(entry.getKey());
+            if (!RANGE_OPERATORS.contains(operator)) {
+                throw new IllegalArgumentException(
+                        "Unsupported range operator '" + operator + "' for filter: " + fieldName);
+            }
+            if (entry.getValue() == null) {
+                throw new IllegalArgumentException("Range bound cannot be null: " + fieldName + "." + operator);
+            }
+            JsonData bound = JsonData.of(entry.getValue());
+            switch (operator) {
+                case "gt" -> builder.gt(bound);
+                case "gte" -> builder.gte(bound);
+                case "lt" -> builder.lt(bound);
+                default -> builder.lte(bound);
+            }
+        }
+        return builder.build();
+    }
+    
+    /**
+     * 标量值转换为 FieldValue
+     */
+    private FieldValue toFieldValue(String fieldName, Object value) {
+        if (value instanceof String s) {
+            return FieldValue.of(s);
+        }
+        if (value instanceof Boolean b) {
+            return FieldValue.of(b);
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return FieldValue.of(((Number) value).longValue());
+        }
+        if (value instanceof Number n) {
+            return FieldValue.of(n.doubleValue());
+        }
+        throw new IllegalArgumentException("Unsupported filter value type for " + fieldName
+                + ": " + value.getClass().getSimpleName());
+    }
+}
@@ -1,10 +1,13 @@
 package com.enterprise.rag.domain.service.search;
 
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
 import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
 import com.enterprise.rag.domain.model.search.RetrievalMethod;
 import com.enterprise.rag.domain.model.search.RetrievalMethodType;
 
+import java.util.List;
+
 /**
  * 检索策略接口
  * 
@@ -25,6 +28,7 @@ public interface SearchStrategy {
      * @param retrievalMethod 检索方法配置
      * @param queryVector 查询向量 (向量检索时使用)
      * @param topK 返回数量
+     * @param filters 过滤子句 (由 {@link SearchFilterCompiler} 编译，可为空列表)
      * @return ES SearchRequest Builder
      */
     SearchRequest.Builder buildSearchRequest(
@@ -32,7 +36,8 @@ public interface SearchStrategy {
             String queryText,
             RetrievalMethod retrievalMethod,
             float[] queryVector,
-            int topK
+            int topK,
+            List<Query> filters
     );
     
     /**
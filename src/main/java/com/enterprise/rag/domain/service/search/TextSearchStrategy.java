@@ -2,7 +2,6 @@ package com.enterprise.rag.domain.service.search;
 
 import co.elastic.clients.elasticsearch._types.query_dsl.*;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
-import com.enterprise.rag.domain.model.knowledgebase.FieldDefinition;
 import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
 import com.enterprise.rag.domain.model.search.RetrievalMethod;
 import com.enterprise.rag.domain.model.search.RetrievalMethodType;
@@ -12,7 +11,6 @@ import org.springframework.stereotype.Component;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * 文本检索策略实现
@@ -34,7 +32,8 @@ public class TextSearchStrategy implements SearchStrategy {
             String queryText,
             RetrievalMethod retrievalMethod,
             float[] queryVector,
-            int topK) {
+            int topK,
+            List<Query> filters) {
         
         if (queryText == null || queryText.isBlank()) {
             throw new IllegalArgumentException("Query text is required for text search");
@@ -44,10 +43,15 @@ public class TextSearchStrategy implements SearchStrategy {
         List<String> searchFields = determineSearchFields(knowledgeBase, retrievalMethod);
         
         // 构建查询
-        Query query = buildTextQuery(queryText, searchFields, retrievalMethod);
+        Query textQuery = buildTextQuery(queryText, searchFields, retrievalMethod);
+        
+        // 过滤条件放入 bool.filter，不参与打分且可被 ES 缓存
+        Query query = filters == null || filters.isEmpty()
+                ? textQuery
+                : Query.of(q -> q.bool(b -> b.must(textQuery).filter(filters)));
         
         SearchRequest.Builder builder = new SearchRequest.Builder()
-                .index(knowledgeBase.getIndexName())
+                .index(knowledgeBase.getPhysicalIndexName())
                 .query(query)
                 .size(topK);
         
@@ -62,7 +66,7 @@ public class TextSearchStrategy implements SearchStrategy {
         );
         
         log.debug("Built text search request for index {} with fields {}, topK={}",
-                knowledgeBase.getIndexName(), searchFields, topK);
+                knowledgeBase.getPhysicalIndexName(), searchFields, topK);
         
         return builder;
     }
@@ -111,14 +115,12 @@ public class TextSearchStrategy implements SearchStrategy {
         }
         
         // 默认使用所有文本字段
-        List<FieldDefinition> textFields = knowledgeBase.getTextFields();
-        if (textFields.isEmpty()) {
+        List<String> textFieldNames = knowledgeBase.getTextFieldNames();
+        if (textFieldNames.isEmpty()) {
             throw new IllegalStateException("No text fields defined in knowledge base");
         }
         
-        return textFields.stream()
-                .map(FieldDefinition::getFieldName)
-                .collect(Collectors.toList());
+        return textFieldNames;
     }
     
     /**
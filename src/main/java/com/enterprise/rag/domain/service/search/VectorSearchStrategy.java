@@ -1,6 +1,7 @@
 package com.enterprise.rag.domain.service.search;
 
 import co.elastic.clients.elasticsearch._types.KnnQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
 import com.enterprise.rag.domain.model.knowledgebase.FieldDefinition;
 import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
@@ -20,6 +21,11 @@ import java.util.List;
 @Component
 public class VectorSearchStrategy implements SearchStrategy {
     
+    /**
+     * 未指定且未经自适应调整时的 KNN 候选数量
+     */
+    private static final int DEFAULT_NUM_CANDIDATES = 100;
+    
     @Override
     public RetrievalMethodType getSupportedType() {
         return RetrievalMethodType.VECTOR;
@@ -31,7 +37,8 @@ public class VectorSearchStrategy implements SearchStrategy {
             String queryText,
             RetrievalMethod retrievalMethod,
             float[] queryVector,
-            int topK) {
+            int topK,
+            List<Query> filters) {
         
         if (queryVector == null || queryVector.length == 0) {
             throw new IllegalArgumentException("Query vector is required for vector search");
@@ -40,10 +47,11 @@ public class VectorSearchStrategy implements SearchStrategy {
         // 确定向量字段
         String vectorFieldName = determineVectorField(knowledgeBase, retrievalMethod);
         
-        // 获取 KNN 配置
-        int numCandidates = retrievalMethod.getVectorConfig() != null 
-                ? retrievalMethod.getVectorConfig().getNumCandidates() 
-                : 100;
+        // 获取 KNN 配置，num_candidates 不能小于 k
+        Integer configuredCandidates = retrievalMethod.getVectorConfig() != null
+                ? retrievalMethod.getVectorConfig().getNumCandidates()
+                : null;
+        int numCandidates = Math.max(topK, configuredCandidates != null ? configuredCandidates : DEFAULT_NUM_CANDIDATES);
         
         Float similarity = retrievalMethod.getVectorConfig() != null
                 ? retrievalMethod.getVectorConfig().getSimilarity()
@@ -51,12 +59,12 @@ public class VectorSearchStrategy implements SearchStrategy {
         
         // 构建 KNN 查询
         SearchRequest.Builder builder = new SearchRequest.Builder()
-                .index(knowledgeBase.getIndexName())
-                .knn(buildKnnQuery(vectorFieldName, queryVector, topK, numCandidates, similarity))
+                .index(knowledgeBase.getPhysicalIndexName())
+                .knn(buildKnnQuery(vectorFieldName, queryVector, topK, numCandidates, similarity, filters))
                 .size(topK);
         
         log.debug("Built vector search request for index {} with field {}, topK={}, numCandidates={}",
-                knowledgeBase.getIndexName(), vectorFieldName, topK, numCandidates);
+                knowledgeBase.getPhysicalIndexName(), vectorFieldName, topK, numCandidates);
         
         return builder;
     }
@@ -65,7 +73,8 @@ public class VectorSearchStrategy implements SearchStrategy {
      * 构建 KNN 查询
      */
     private KnnQuery buildKnnQuery(String vectorField, float[] queryVector, 
-                                   int k, int numCandidates, Float similarity) {
+                                   int k, int numCandidates, Float similarity,
+                                   List<Query> filters) {
         KnnQuery.Builder knnBuilder = new KnnQuery.Builder()
                 .field(vectorField)
                 .queryVector(toFloatList(queryVector))
@@ -76,6 +85,11 @@ public class VectorSearchStrategy implements SearchStrategy {
             knnBuilder.similarity(similarity);
         }
         
+        // 预过滤：在 HNSW 搜索阶段应用过滤条件，保证返回 k 个满足条件的结果
+        if (filters != null && !filters.isEmpty()) {
+            knnBuilder.filter(filters);
+        }
+        
         return knnBuilder.build();
     }
     
@@ -88,19 +102,14 @@ public class VectorSearchStrategy implements SearchStrategy {
             retrievalMethod.getVectorConfig().getVectorField() != null) {
             String fieldName = retrievalMethod.getVectorConfig().getVectorField();
             // 获取对应的向量存储字段名
-            return knowledgeBase.getFieldDefinition(fieldName)
-                    .filter(FieldDefinition::isVectorField)
-                    .map(FieldDefinition::getVectorFieldName)
-                    .orElse(fieldName);
+            return knowledgeBase.getVectorFieldNames().getOrDefault(fieldName, fieldName);
         }
         
         // 如果目标字段列表中有指定
         if (retrievalMethod.getTargetFields() != null && !retrievalMethod.getTargetFields().isEmpty()) {
             String fieldName = retrievalMethod.getTargetFields().get(0);
-            return knowledgeBase.getFieldDefinition(fieldName)
-                    .filter(FieldDefinition::isVectorField)
-                    .map(FieldDefinition::getVectorFieldName)
-                    .orElse(fieldName + "_vector");
+            String vectorFieldName = knowledgeBase.getVectorFieldNames().get(fieldName);
+            return vectorFieldName != null ? vectorFieldName : fieldName + "_vector";
         }
         
         // 默认使用第一个向量字段
@@ -113,9 +122,9 @@ public class VectorSearchStrategy implements SearchStrategy {
     }
     
     /**
-     * float[] 转 List<Float>
+     * float[] 转 List<Float> (包可见供基准测试调用)
      */
-    private List<Float> toFloatList(float[] array) {
+    static List<Float> toFloatList(float[] array) {
         Float[] boxedArray = new Float[array.length];
         for (int i = 0; i < array.length; i++) {
             boxedArray[i] = array[i];
@@ -0,0 +1,250 @@
+package com.enterprise.rag.infrastructure.cache;
+
+import com.enterprise.rag.domain.service.EmbeddingService;
+import com.enterprise.rag.infrastructure.persistence.mapper.NotificationMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 向量缓存清除协调器
+ * 
+ * <p>查询向量缓存与摄取向量存储都保存在各节点本地。清除在本节点同步执行后经 pg_notify 广播，
+ * 其他节点的监听线程收到后各自清除；监听连接中断期间的广播会丢失。</p>
+ * 
+ * <p>未指定模型写入的条目按默认模型向量化，清除默认模型时一并清除，也可用 {@link #DEFAULT_MODEL_ID} 单独指定。</p>
+ */
+@Slf4j
+@Component
+public class EmbeddingCachePurger implements SmartLifecycle {
+    
+    /**
+     * 指代未指定模型写入的条目的模型 ID
+     */
+    public static final String DEFAULT_MODEL_ID = "_default";
+    
+    private final DataSource dataSource;
+    private final NotificationMapper notificationMapper;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<EmbeddingVectorCache> embeddingVectorCache;
+    private final ObjectProvider<MappedEmbeddingStore> embeddingStore;
+    private final EmbeddingService embeddingService;
+    private final String defaultModel;
+    private final String channel;
+    private final boolean enabled;
+    private final long pollTimeoutMs;
+    private final long reconnectDelayMs;
+    private final String nodeId = UUID.randomUUID().toString();
+    
+    private volatile boolean running;
+    private Thread listenerThread;
+    
+    public EmbeddingCachePurger(
+            DataSource dataSource,
+            NotificationMapper notificationMapper,
+            ObjectMapper objectMapper,
+            ObjectProvider<EmbeddingVectorCache> embeddingVectorCache,
+            ObjectProvider<MappedEmbeddingStore> embeddingStore,
+            EmbeddingService embeddingService,
+            @Value("${embedding.service.default-model:text-embedding-ada-002}") String defaultModel,
+            @Value("${rag.embedding.cache.purge-channel:rag_embedding_cache_purge}") String channel,
+            @Value("${rag.embedding.cache.purge-listener-enabled:true}") boolean enabled,
+            @Value("${rag.embedding.cache.purge-listener-poll-timeout-ms:1000}") long pollTimeoutMs,
+            @Value("${rag.embedding.cache.purge-listener-reconnect-delay-ms:5000}") long reconnectDelayMs) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid embedding cache purge channel name: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.notificationMapper = notificationMapper;
+        this.objectMapper = objectMapper;
+        this.embeddingVectorCache = embeddingVectorCache;
+        this.embeddingStore = embeddingStore;
+        this.embeddingService = embeddingService;
+        this.defaultModel = defaultModel;
+        this.channel = channel;
+        this.enabled = enabled;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.reconnectDelayMs = reconnectDelayMs;
+    }
+    
+    /**
+     * 清除本节点的条目并广播到其他节点
+     * 
+     * @param fromMillis 为 null 时清除全部条目，否则只清除 [fromMillis, toMillis) 内写入的条目
+     * @return 本节点的清除结果
+     * @throws IllegalStateException 本节点未启用目标缓存
+     */
+    public PurgeResult purge(Target target, String modelId, Long fromMillis, Long toMillis) {
+        if (!isAvailable(target)) {
+            throw new IllegalStateException(target + " is not enabled");
+        }
+        long purged = apply(target, modelId, fromMillis, toMillis);
+        boolean broadcast = false;
+        try {
+            String payload = objectMapper.writeValueAsString(
+                    new PurgeMessage(nodeId, target, modelId, fromMillis, toMillis));
+            notificationMapper.notify(channel, payload);
+            broadcast = true;
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to broadcast {} purge for model {}, other nodes keep their entries: {}",
+                    target, modelId, e.getMessage());
+        }
+        return new PurgeResult(purged, broadcast);
+    }
+    
+    public boolean isAvailable(Target target) {
+        return switch (target) {
+            case QUERY_CACHE -> embeddingVectorCache.getIfAvailable() != null;
+            case INGESTION_STORE -> embeddingStore.getIfAvailable() != null;
+        };
+    }
+    
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "embedding-cache-purge");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        log.info("Started embedding cache purge listener on channel {}", channel);
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+            listenerThread = null;
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * 在本节点清除，默认模型同时清除未指定模型写入的条目
+     */
+    private long apply(Target target, String modelId, Long fromMillis, Long toMillis) {
+        List<String> modelIds = new ArrayList<>(2);
+        if (!DEFAULT_MODEL_ID.equals(modelId)) {
+            modelIds.add(modelId);
+        }
+        if (DEFAULT_MODEL_ID.equals(modelId) || defaultModel.equals(modelId)) {
+            modelIds.add(null);
+        }
+        
+        long purged = 0;
+        for (String model : modelIds) {
+            purged += switch (target) {
+                case QUERY_CACHE -> {
+                    EmbeddingVectorCache cache = embeddingVectorCache.getIfAvailable();
+                    if (cache == null) {
+                        yield 0;
+                    }
+                    yield fromMillis == null ? cache.purge(model)
+                            : cache.purge(model, embeddingService.getDimension(model), fromMillis, toMillis);
+                }
+                case INGESTION_STORE -> {
+                    MappedEmbeddingStore store = embeddingStore.getIfAvailable();
+                    if (store == null) {
+                        yield 0;
+                    }
+                    yield fromMillis == null ? store.purge(model)
+                            : store.purge(model, embeddingService.getDimension(model), fromMillis, toMillis);
+                }
+            };
+        }
+        return purged;
+    }
+    
+    /**
+     * 监听循环：断线后等待重连，直到停止
+     */
+    private void listenLoop() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (reconnect) {
+                    log.warn("Reconnected embedding cache purge listener, purges broadcast while disconnected were lost");
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeoutMs);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        handle(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Embedding cache purge listener connection failed, retrying in {} ms: {}",
+                        reconnectDelayMs, e.getMessage());
+                reconnect = true;
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    private void handle(String payload) {
+        try {
+            PurgeMessage message = objectMapper.readValue(payload, PurgeMessage.class);
+            if (nodeId.equals(message.origin())) {
+                return;
+            }
+            long purged = apply(message.target(), message.modelId(), message.fromMillis(), message.toMillis());
+            log.info("Purged {} {} entries for model {} on request of another node",
+                    purged, message.target(), message.modelId());
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.error("Failed to apply embedding cache purge {}: {}", payload, e.getMessage());
+        }
+    }
+    
+    /**
+     * 清除目标
+     */
+    public enum Target {
+        QUERY_CACHE, INGESTION_STORE
+    }
+    
+    /**
+     * 本节点的清除结果
+     * 
+     * @param purged 本节点清除的条目数
+     * @param broadcast 是否已广播到其他节点
+     */
+    public record PurgeResult(long purged, boolean broadcast) {
+    }
+    
+    private record PurgeMessage(String origin, Target target, String modelId, Long fromMillis, Long toMillis) {
+    }
+}
@@ -0,0 +1,253 @@
+package com.enterprise.rag.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 两级向量缓存
+ * 
+ * <p>热层为堆内有界缓存；冷层为每个模型一个 {@link MappedVectorStore}，容量大且重启后保留。
+ * 冷层命中的向量会提升到热层。缓存键为 (模型, 规范化文本) 的 128 位哈希。</p>
+ */
+@Slf4j
+public class EmbeddingVectorCache implements AutoCloseable {
+    
+    private static final String METRIC_NAME = "rag.embedding.cache.requests";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    
+    private final Cache<CacheKey, float[]> hotTier;
+    private final Map<String, MappedVectorStore> diskTier = new ConcurrentHashMap<>();
+    private final boolean diskEnabled;
+    private final Path directory;
+    private final int segmentRecords;
+    private final int maxSegments;
+    private final MeterRegistry meterRegistry;
+    private final String name;
+    
+    /**
+     * @param name 缓存名称，用作指标的 cache 标签
+     */
+    public EmbeddingVectorCache(String name,
+                                long hotMaxEntries,
+                                boolean diskEnabled,
+                                Path directory,
+                                int segmentRecords,
+                                int maxSegments,
+                                MeterRegistry meterRegistry) {
+        this.hotTier = Caffeine.newBuilder()
+                .maximumSize(hotMaxEntries)
+                .recordStats()
+                .build();
+        this.diskEnabled = diskEnabled;
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.maxSegments = maxSegments;
+        this.meterRegistry = meterRegistry;
+        this.name = name;
+        CaffeineCacheMetrics.monitor(meterRegistry, hotTier, name + "_hot_tier");
+    }
+    
+    /**
+     * 计算缓存键：空白折叠 + Unicode NFC 规范化后的文本哈希
+     */
+    public CacheKey keyOf(String modelId, String text) {
+        String model = modelKey(modelId);
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC).strip()).replaceAll(" ");
+        HashCode hash = Hashing.murmur3_128().newHasher()
+                .putString(model, StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(normalized, StandardCharsets.UTF_8)
+                .hash();
+        ByteBuffer bytes = ByteBuffer.wrap(hash.asBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        return new CacheKey(model, bytes.getLong(), bytes.getLong());
+    }
+    
+    /**
+     * 查询向量
+     * 
+     * @param key 缓存键
+     * @param dimension 模型向量维度
+     * @return 向量，未命中时返回 null
+     */
+    public float[] get(CacheKey key, int dimension) {
+        float[] vector = hotTier.getIfPresent(key);
+        if (vector != null) {
+            record(key.modelId(), "hot_hit");
+            return vector;
+        }
+        
+        MappedVectorStore store = store(key.modelId(), dimension);
+        if (store != null) {
+            vector = store.get(key.hi(), key.lo());
+            if (vector != null) {
+                hotTier.put(key, vector);
+                record(key.modelId(), "disk_hit");
+                return vector;
+            }
+        }
+        
+        record(key.modelId(), "miss");
+        return null;
+    }
+    
+    /**
+     * 写入向量，维度与模型维度不一致时拒绝缓存
+     * 
+     * @return 是否写入
+     */
+    public boolean put(CacheKey key, float[] vector, int dimension) {
+        if (vector == null || vector.length != dimension) {
+            log.warn("Not caching embedding for model {}: dimension {} does not match expected {}",
+                    key.modelId(), vector != null ? vector.length : 0, dimension);
+            record(key.modelId(), "rejected");
+            return false;
+        }
+        
+        hotTier.put(key, vector);
+        MappedVectorStore store = store(key.modelId(), dimension);
+        if (store != null) {
+            try {
+                store.put(key.hi(), key.lo(), vector);
+            } catch (RuntimeException e) {
+                log.warn("Failed to persist embedding for model {}: {}", key.modelId(), e.getMessage());
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 清除模型的全部缓存条目 (两级)
+     * 
+     * @return 清除的条目数
+     */
+    public long purge(String modelId) {
+        String model = modelKey(modelId);
+        long purged = hotTier.asMap().keySet().stream().filter(k -> k.modelId().equals(model)).count();
+        hotTier.asMap().keySet().removeIf(k -> k.modelId().equals(model));
+        
+        synchronized (diskTier) {
+            MappedVectorStore store = diskTier.remove(model);
+            if (store != null) {
+                purged = Math.max(purged, store.size());
+                store.close();
+            }
+            if (diskEnabled) {
+                try {
+                    MappedVectorStore.delete(modelDirectory(model));
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to delete embedding cache for model " + model, e);
+                }
+            }
+        }
+        
+        log.info("Purged {} cached embeddings for model {}", purged, model);
+        return purged;
+    }
+    
+    /**
+     * 清除模型在 [fromMillis, toMillis) 内写入的条目
+     * 
+     * <p>热层不记录写入时间，清除该模型的全部热层条目，之后从冷层重新提升</p>
+     * 
+     * @param dimension 模型向量维度
+     * @return 从冷层清除的条目数
+     */
+    public long purge(String modelId, int dimension, long fromMillis, long toMillis) {
+        String model = modelKey(modelId);
+        hotTier.asMap().keySet().removeIf(k -> k.modelId().equals(model));
+        
+        MappedVectorStore store = store(model, dimension);
+        long purged = store != null ? store.removeWrittenBetween(fromMillis, toMillis) : 0;
+        
+        log.info("Purged {} cached embeddings for model {} written between {} and {}",
+                purged, model, fromMillis, toMillis);
+        return purged;
+    }
+    
+    @Override
+    public void close() {
+        synchronized (diskTier) {
+            diskTier.values().forEach(MappedVectorStore::close);
+            diskTier.clear();
+        }
+    }
+    
+    /**
+     * 获取模型的冷层存储，已有存储的维度与模型维度不一致时重建
+     */
+    private MappedVectorStore store(String model, int dimension) {
+        if (!diskEnabled) {
+            return null;
+        }
+        MappedVectorStore store = diskTier.get(model);
+        if (store != null && store.getDimension() == dimension) {
+            return store;
+        }
+        
+        synchronized (diskTier) {
+            store = diskTier.get(model);
+            if (store != null && store.getDimension() == dimension) {
+                return store;
+            }
+            if (store != null) {
+                store.close();
+                diskTier.remove(model);
+            }
+            Path modelDirectory = modelDirectory(model);
+            try {
+                try {
+                    store = MappedVectorStore.open(modelDirectory, dimension, segmentRecords, maxSegments);
+                } catch (IllegalStateException e) {
+                    log.warn("Discarding embedding cache for model {}: {}", model, e.getMessage());
+                    MappedVectorStore.delete(modelDirectory);
+                    store = MappedVectorStore.open(modelDirectory, dimension, segmentRecords, maxSegments);
+                }
+            } catch (IOException e) {
+                log.error("Failed to open embedding cache for model {}, disk tier disabled for it: {}",
+                        model, e.getMessage());
+                return null;
+            }
+            diskTier.put(model, store);
+            return store;
+        }
+    }
+    
+    private Path modelDirectory(String model) {
+        String name = model.isEmpty() ? "_default" : model.replaceAll("[^A-Za-z0-9._-]", "_");
+        return directory.resolve(name);
+    }
+    
+    private void record(String model, String result) {
+        meterRegistry.counter(METRIC_NAME, "cache", name, "model", model.isEmpty() ? "default" : model,
+                "result", result).increment();
+    }
+    
+    private static String modelKey(String modelId) {
+        return modelId != null ? modelId : "";
+    }
+    
+    /**
+     * 缓存键
+     * 
+     * @param modelId 模型 ID (默认模型为空串)
+     * @param hi 哈希高 64 位
+     * @param lo 哈希低 64 位
+     */
+    public record CacheKey(String modelId, long hi, long lo) {
+    }
+}
@@ -0,0 +1,104 @@
+package com.enterprise.rag.infrastructure.cache;
+
+import com.enterprise.rag.domain.service.EmbeddingStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于内存映射文件的摄取向量存储
+ * 
+ * <p>复用 {@link EmbeddingVectorCache} 的两级结构 (堆内热层 + 每模型一个 {@link MappedVectorStore})，
+ * 按 (模型, 规范化文本) 哈希寻址，进程重启后保留。同时按知识库统计向量复用率。</p>
+ */
+public class MappedEmbeddingStore implements EmbeddingStore, AutoCloseable {
+    
+    private static final String METRIC_PREFIX = "rag.ingestion.embedding.dedup";
+    
+    private final EmbeddingVectorCache vectors;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, DeduplicationStats> statsByKnowledgeBase = new ConcurrentHashMap<>();
+    
+    public MappedEmbeddingStore(EmbeddingVectorCache vectors, MeterRegistry meterRegistry) {
+        this.vectors = vectors;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @Override
+    public float[] get(String modelId, String text, int dimension) {
+        return vectors.get(vectors.keyOf(modelId, text), dimension);
+    }
+    
+    @Override
+    public void put(String modelId, String text, float[] vector, int dimension) {
+        vectors.put(vectors.keyOf(modelId, text), vector, dimension);
+    }
+    
+    @Override
+    public void recordDeduplication(String knowledgeBaseId, int requested, int reused) {
+        DeduplicationStats stats = statsByKnowledgeBase.computeIfAbsent(knowledgeBaseId, this::register);
+        stats.requested.add(requested);
+        stats.reused.add(reused);
+    }
+    
+    /**
+     * 各知识库的向量复用统计 (知识库 ID → 统计快照)
+     */
+    public Map<String, Map<String, Object>> getDeduplicationStats() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        statsByKnowledgeBase.forEach((knowledgeBaseId, stats) -> snapshot.put(knowledgeBaseId, Map.of(
+                "requested", stats.requested.sum(),
+                "reused", stats.reused.sum(),
+                "ratio", stats.ratio())));
+        return snapshot;
+    }
+    
+    /**
+     * 清除模型的已存储向量
+     */
+    public long purge(String modelId) {
+        return vectors.purge(modelId);
+    }
+    
+    /**
+     * 清除模型在 [fromMillis, toMillis) 内写入的向量 (例如 Embedding 服务异常期间)
+     */
+    public long purge(String modelId, int dimension, long fromMillis, long toMillis) {
+        return vectors.purge(modelId, dimension, fromMillis, toMillis);
+    }
+    
+    @Override
+    public void close() {
+        vectors.close();
+    }
+    
+    private DeduplicationStats register(String knowledgeBaseId) {
+        DeduplicationStats stats = new DeduplicationStats();
+        Tags tags = Tags.of("knowledge_base", knowledgeBaseId);
+        meterRegistry.more().counter(METRIC_PREFIX + ".requested", tags, stats.requested, LongAdder::sum);
+        meterRegistry.more().counter(METRIC_PREFIX + ".reused", tags, stats.reused, LongAdder::sum);
+        Gauge.builder(METRIC_PREFIX + ".ratio", stats, DeduplicationStats::ratio)
+                .tag("knowledge_base", knowledgeBaseId)
+                .register(meterRegistry);
+        return stats;
+    }
+    
+    /**
+     * 单个知识库的累计统计
+     */
+    private static final class DeduplicationStats {
+        
+        private final LongAdder requested = new LongAdder();
+        private final LongAdder reused = new LongAdder();
+        
+        private double ratio() {
+            long total = requested.sum();
+            return total == 0 ? 0.0 : (double) reused.sum() / total;
+        }
+    }
+}
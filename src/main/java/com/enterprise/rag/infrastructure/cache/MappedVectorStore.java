@@ -0,0 +1,416 @@
+package com.enterprise.rag.infrastructure.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 内存映射的定长向量存储
+ * 
+ * <p>单个模型的向量以追加方式写入若干定长分段文件，每条记录为 16 字节键 (128 位哈希)、8 字节写入时间加定长 float 数组。
+ * 数据位于堆外映射内存，进程重启后重新扫描分段重建索引；索引为原始类型数组的开放寻址表，不产生逐条目对象。</p>
+ * 
+ * <p>记录先写向量、最后写键的高 64 位作为提交标记，未写完的记录在重启扫描时被忽略。
+ * 写满 maxSegments 个分段后不再追加。按写入时间删除的记录以墓碑键标记，空间不回收。</p>
+ */
+@Slf4j
+public class MappedVectorStore implements Closeable {
+    
+    private static final int MAGIC = 0x52564543;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 16;
+    private static final int KEY_BYTES = 16;
+    private static final int VECTOR_OFFSET = KEY_BYTES + Long.BYTES;
+    
+    /**
+     * 已删除记录的键高 64 位 (有效键最高位为 1，0 表示未提交)
+     */
+    private static final long TOMBSTONE = 1L;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".vec";
+    
+    private final Path directory;
+    private final int dimension;
+    private final int recordBytes;
+    private final int segmentRecords;
+    private final int maxSegments;
+    private final List<Segment> segments = new ArrayList<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    /**
+     * 索引: 键 → 位置 (分段序号 * segmentRecords + 段内序号)，0 键表示空槽
+     */
+    private long[] indexHi;
+    private long[] indexLo;
+    private int[] indexLocation;
+    private int indexSize;
+    
+    private boolean full;
+    
+    /**
+     * 已关闭：{@link EmbeddingVectorCache} 在锁外返回存储，关闭 (清除、重建) 期间仍可能有并发读写
+     */
+    private boolean closed;
+    
+    private MappedVectorStore(Path directory, int dimension, int segmentRecords, int maxSegments) {
+        this.directory = directory;
+        this.dimension = dimension;
+        this.recordBytes = VECTOR_OFFSET + dimension * Float.BYTES;
+        // 单个分段受 MappedByteBuffer 的 int 容量限制
+        this.segmentRecords = (int) Math.min(segmentRecords, (Integer.MAX_VALUE - HEADER_BYTES) / recordBytes);
+        this.maxSegments = (int) Math.min(maxSegments, Integer.MAX_VALUE / this.segmentRecords);
+        allocateIndex(1024);
+    }
+    
+    /**
+     * 打开 (或创建) 存储目录，并从已有分段重建索引
+     * 
+     * @throws IllegalStateException 已有分段的向量维度与 dimension 不一致
+     */
+    public static MappedVectorStore open(Path directory, int dimension, int segmentRecords, int maxSegments)
+            throws IOException {
+        if (dimension < 1 || segmentRecords < 1 || maxSegments < 1) {
+            throw new IllegalArgumentException("Dimension, segment records and max segments must be positive");
+        }
+        Files.createDirectories(directory);
+        MappedVectorStore store = new MappedVectorStore(directory, dimension, segmentRecords, maxSegments);
+        try {
+            store.load();
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+    
+    /**
+     * 删除存储目录下的所有分段
+     */
+    public static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+    
+    public int getDimension() {
+        return dimension;
+    }
+    
+    /**
+     * 已存储的向量数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 读取向量
+     * 
+     * @return 向量副本，不存在或存储已关闭时返回 null
+     */
+    public float[] get(long keyHi, long keyLo) {
+        long hi = normalize(keyHi);
+        lock.readLock().lock();
+        try {
+            int location = closed ? -1 : find(hi, keyLo);
+            if (location < 0) {
+                return null;
+            }
+            Segment segment = segments.get(location / segmentRecords);
+            int offset = recordOffset(location % segmentRecords) + VECTOR_OFFSET;
+            float[] vector = new float[dimension];
+            segment.floats(offset, dimension).get(vector);
+            return vector;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 追加向量，键已存在或存储已关闭时忽略
+     * 
+     * @return 是否写入
+     */
+    public boolean put(long keyHi, long keyLo, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException(String.format(
+                    "Vector dimension %d does not match store dimension %d", vector.length, dimension));
+        }
+        long hi = normalize(keyHi);
+        lock.writeLock().lock();
+        try {
+            if (closed || full || find(hi, keyLo) >= 0) {
+                return false;
+            }
+            Segment segment = writableSegment();
+            if (segment == null) {
+                full = true;
+                log.warn("Vector store {} reached its capacity of {} records, new entries are not persisted",
+                        directory, (long) segmentRecords * maxSegments);
+                return false;
+            }
+            
+            int slot = segment.count;
+            int offset = recordOffset(slot);
+            segment.floats(offset + VECTOR_OFFSET, dimension).put(vector);
+            segment.buffer.putLong(offset + KEY_BYTES, System.currentTimeMillis());
+            segment.buffer.putLong(offset + Long.BYTES, keyLo);
+            segment.buffer.putLong(offset, hi);
+            segment.count++;
+            
+            insert(hi, keyLo, (segments.size() - 1) * segmentRecords + slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 删除写入时间在 [fromMillis, toMillis) 内的记录 (例如 Embedding 服务异常期间写入的向量)
+     * 
+     * @return 删除的记录数
+     */
+    public int removeWrittenBetween(long fromMillis, long toMillis) {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return 0;
+            }
+            int removed = 0;
+            for (Segment segment : segments) {
+                for (int slot = 0; slot < segment.count; slot++) {
+                    int offset = recordOffset(slot);
+                    long writtenAt = segment.buffer.getLong(offset + KEY_BYTES);
+                    if (segment.buffer.getLong(offset) != TOMBSTONE && writtenAt >= fromMillis && writtenAt < toMillis) {
+                        segment.buffer.putLong(offset, TOMBSTONE);
+                        removed++;
+                    }
+                }
+            }
+            if (removed > 0) {
+                rebuildIndex();
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+            for (Segment segment : segments) {
+                try {
+                    segment.buffer.force();
+                    segment.channel.close();
+                } catch (IOException | UncheckedIOException e) {
+                    log.warn("Failed to close vector store segment in {}: {}", directory, e.getMessage());
+                }
+            }
+            segments.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void load() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream
+                    .filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted(Comparator.comparing(p -> p.getFileName().toString()))
+                    .toList();
+        }
+        
+        for (Path file : files) {
+            Segment segment = mapSegment(file, false);
+            segments.add(segment);
+            while (segment.count < segmentRecords && segment.buffer.getLong(recordOffset(segment.count)) != 0) {
+                segment.count++;
+            }
+        }
+        rebuildIndex();
+        
+        if (!files.isEmpty()) {
+            log.info("Loaded {} vectors (dimension {}) from {} segments in {}",
+                    indexSize, dimension, files.size(), directory);
+        }
+    }
+    
+    /**
+     * 获取可写分段，当前分段写满时创建新分段
+     */
+    private Segment writableSegment() {
+        if (!segments.isEmpty() && segments.get(segments.size() - 1).count < segmentRecords) {
+            return segments.get(segments.size() - 1);
+        }
+        if (segments.size() >= maxSegments) {
+            return null;
+        }
+        try {
+            Path file = directory.resolve(String.format("%s%05d%s", SEGMENT_PREFIX, segments.size(), SEGMENT_SUFFIX));
+            Segment segment = mapSegment(file, true);
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create vector store segment in " + directory, e);
+        }
+    }
+    
+    private Segment mapSegment(Path file, boolean create) throws IOException {
+        long size = HEADER_BYTES + (long) segmentRecords * recordBytes;
+        FileChannel channel = create
+                ? FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (!create && channel.size() != size) {
+                throw new IllegalStateException(String.format(
+                        "Segment %s has size %d, expected %d for dimension %d", file, channel.size(), size, dimension));
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (create) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, FORMAT_VERSION);
+                buffer.putInt(8, dimension);
+                buffer.putInt(12, segmentRecords);
+            } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION
+                    || buffer.getInt(8) != dimension || buffer.getInt(12) != segmentRecords) {
+                throw new IllegalStateException(String.format(
+                        "Segment %s header does not match dimension %d / segment records %d",
+                        file, dimension, segmentRecords));
+            }
+            return new Segment(channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    private int recordOffset(int slot) {
+        return HEADER_BYTES + slot * recordBytes;
+    }
+    
+    /**
+     * 高位置 1，保证有效键非 0 (0 键标记空槽和未提交记录)
+     */
+    private static long normalize(long keyHi) {
+        return keyHi | Long.MIN_VALUE;
+    }
+    
+    /**
+     * 从分段重建索引，跳过墓碑记录
+     */
+    private void rebuildIndex() {
+        allocateIndex(1024);
+        indexSize = 0;
+        for (int segmentIndex = 0; segmentIndex < segments.size(); segmentIndex++) {
+            Segment segment = segments.get(segmentIndex);
+            for (int slot = 0; slot < segment.count; slot++) {
+                int offset = recordOffset(slot);
+                long hi = segment.buffer.getLong(offset);
+                if (hi != TOMBSTONE) {
+                    insert(hi, segment.buffer.getLong(offset + Long.BYTES), segmentIndex * segmentRecords + slot);
+                }
+            }
+        }
+    }
+    
+    private void allocateIndex(int capacity) {
+        indexHi = new long[capacity];
+        indexLo = new long[capacity];
+        indexLocation = new int[capacity];
+    }
+    
+    private int find(long hi, long lo) {
+        int mask = indexHi.length - 1;
+        int slot = mix(hi, lo) & mask;
+        while (indexHi[slot] != 0) {
+            if (indexHi[slot] == hi && indexLo[slot] == lo) {
+                return indexLocation[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+    
+    private void insert(long hi, long lo, int location) {
+        if ((indexSize + 1) * 2 > indexHi.length) {
+            long[] oldHi = indexHi;
+            long[] oldLo = indexLo;
+            int[] oldLocation = indexLocation;
+            allocateIndex(oldHi.length * 2);
+            indexSize = 0;
+            for (int i = 0; i < oldHi.length; i++) {
+                if (oldHi[i] != 0) {
+                    insert(oldHi[i], oldLo[i], oldLocation[i]);
+                }
+            }
+        }
+        
+        int mask = indexHi.length - 1;
+        int slot = mix(hi, lo) & mask;
+        while (indexHi[slot] != 0) {
+            if (indexHi[slot] == hi && indexLo[slot] == lo) {
+                indexLocation[slot] = location;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        indexHi[slot] = hi;
+        indexLo[slot] = lo;
+        indexLocation[slot] = location;
+        indexSize++;
+    }
+    
+    private static int mix(long hi, long lo) {
+        long h = hi ^ (lo * 0x9E3779B97F4A7C15L);
+        return (int) (h ^ (h >>> 32));
+    }
+    
+    /**
+     * 映射的分段文件
+     */
+    private static final class Segment {
+        
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int count;
+        
+        private Segment(FileChannel channel, MappedByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+        
+        private FloatBuffer floats(int offset, int length) {
+            return buffer.slice(offset, length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.enterprise.rag.infrastructure.config;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.ElasticsearchTransport;
@@ -45,4 +46,12 @@ public class ElasticsearchConfig {
     public ElasticsearchClient elasticsearchClient(ElasticsearchTransport transport) {
         return new ElasticsearchClient(transport);
     }
+    
+    /**
+     * 异步客户端 - 与同步客户端共享底层连接，返回的 Future 支持取消进行中的 HTTP 请求
+     */
+    @Bean
+    public ElasticsearchAsyncClient elasticsearchAsyncClient(ElasticsearchTransport transport) {
+        return new ElasticsearchAsyncClient(transport);
+    }
 }
@@ -0,0 +1,104 @@
+package com.enterprise.rag.infrastructure.config;
+
+import com.enterprise.rag.domain.service.EmbeddingService;
+import com.enterprise.rag.infrastructure.cache.EmbeddingVectorCache;
+import com.enterprise.rag.infrastructure.cache.MappedEmbeddingStore;
+import com.enterprise.rag.infrastructure.external.CachingEmbeddingService;
+import com.enterprise.rag.infrastructure.external.CoalescingEmbeddingService;
+import com.enterprise.rag.infrastructure.external.EmbeddingClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.nio.file.Path;
+
+/**
+ * Embedding 服务配置类
+ * 
+ * <p>组装 {@link EmbeddingClient} 外层的装饰器链 (缓存 → 请求合并 → 客户端)，
+ * 对外暴露为首选的 {@link EmbeddingService}</p>
+ */
+@Configuration
+public class EmbeddingServiceConfig {
+    
+    @Value("${rag.embedding.coalescer.enabled:true}")
+    private boolean coalescerEnabled;
+    
+    @Value("${rag.embedding.coalescer.window-micros:2000}")
+    private long coalescerWindowMicros;
+    
+    @Value("${rag.embedding.coalescer.max-batch-size:32}")
+    private int coalescerMaxBatchSize;
+    
+    @Value("${rag.embedding.coalescer.max-concurrent-batches:8}")
+    private int coalescerMaxConcurrentBatches;
+    
+    @Value("${rag.embedding.cache.hot-max-entries:10000}")
+    private long cacheHotMaxEntries;
+    
+    @Value("${rag.embedding.cache.disk.enabled:true}")
+    private boolean cacheDiskEnabled;
+    
+    @Value("${rag.embedding.cache.disk.directory:./data/embedding-cache}")
+    private String cacheDiskDirectory;
+    
+    @Value("${rag.embedding.cache.disk.segment-records:65536}")
+    private int cacheDiskSegmentRecords;
+    
+    @Value("${rag.embedding.cache.disk.max-segments:64}")
+    private int cacheDiskMaxSegments;
+    
+    @Value("${rag.ingestion.embedding.store.hot-max-entries:50000}")
+    private long storeHotMaxEntries;
+    
+    @Value("${rag.ingestion.embedding.store.directory:./data/embedding-store}")
+    private String storeDirectory;
+    
+    @Value("${rag.ingestion.embedding.store.segment-records:65536}")
+    private int storeSegmentRecords;
+    
+    @Value("${rag.ingestion.embedding.store.max-segments:256}")
+    private int storeMaxSegments;
+    
+    /**
+     * 查询向量两级缓存
+     */
+    @Bean
+    @ConditionalOnProperty(name = "rag.embedding.cache.enabled", havingValue = "true", matchIfMissing = true)
+    public EmbeddingVectorCache embeddingVectorCache(MeterRegistry meterRegistry) {
+        return new EmbeddingVectorCache("embedding", cacheHotMaxEntries, cacheDiskEnabled, Path.of(cacheDiskDirectory),
+                cacheDiskSegmentRecords, cacheDiskMaxSegments, meterRegistry);
+    }
+    
+    /**
+     * 摄取向量存储，与查询缓存分开存放，避免批量摄取挤出查询热点
+     */
+    @Bean
+    @ConditionalOnProperty(name = "rag.ingestion.embedding.store.enabled", havingValue = "true", matchIfMissing = true)
+    public MappedEmbeddingStore embeddingStore(MeterRegistry meterRegistry) {
+        EmbeddingVectorCache vectors = new EmbeddingVectorCache("ingestion_embedding", storeHotMaxEntries, true,
+                Path.of(storeDirectory), storeSegmentRecords, storeMaxSegments, meterRegistry);
+        return new MappedEmbeddingStore(vectors, meterRegistry);
+    }
+    
+    @Bean
+    @Primary
+    public EmbeddingService embeddingService(EmbeddingClient embeddingClient,
+                                             ObjectProvider<EmbeddingVectorCache> embeddingVectorCache,
+                                             MeterRegistry meterRegistry) {
+        EmbeddingService service = embeddingClient;
+        if (coalescerEnabled) {
+            service = new CoalescingEmbeddingService(service, coalescerWindowMicros,
+                    coalescerMaxBatchSize, coalescerMaxConcurrentBatches, meterRegistry);
+        }
+        EmbeddingVectorCache cache = embeddingVectorCache.getIfAvailable();
+        if (cache != null) {
+            service = new CachingEmbeddingService(service, cache);
+        }
+        return service;
+    }
+}
@@ -0,0 +1,85 @@
+package com.enterprise.rag.infrastructure.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 线程池配置类
+ */
+@Configuration
+public class ExecutorConfig {
+    
+    @Value("${rag.search.executor.core-pool-size:16}")
+    private int searchCorePoolSize;
+    
+    @Value("${rag.search.executor.max-pool-size:64}")
+    private int searchMaxPoolSize;
+    
+    @Value("${rag.search.executor.queue-capacity:256}")
+    private int searchQueueCapacity;
+    
+    @Value("${rag.ingestion.embedding.parallelism:4}")
+    private int embeddingParallelism;
+    
+    @Value("${rag.ingestion.embedding.queue-capacity:1024}")
+    private int embeddingQueueCapacity;
+    
+    @Value("${elasticsearch.write-buffer.max-concurrent-requests:4}")
+    private int bulkConcurrentRequests;
+    
+    /**
+     * 检索线程池 - 承载查询向量生成、检索分支编排和结果融合
+     * 
+     * <p>有界队列 + CallerRunsPolicy：过载时退化为在请求线程中执行，而不是无限堆积任务</p>
+     */
+    @Bean(name = "searchExecutor")
+    public ThreadPoolTaskExecutor searchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(searchCorePoolSize);
+        executor.setMaxPoolSize(searchMaxPoolSize);
+        executor.setQueueCapacity(searchQueueCapacity);
+        executor.setThreadNamePrefix("rag-search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+    
+    /**
+     * 向量生成线程池 - 承载摄取路径上的批量 Embedding 请求
+     * 
+     * <p>线程数即对 Embedding 服务的最大并发请求数</p>
+     */
+    @Bean(name = "embeddingExecutor")
+    public ThreadPoolTaskExecutor embeddingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(embeddingParallelism);
+        executor.setMaxPoolSize(embeddingParallelism);
+        executor.setQueueCapacity(embeddingQueueCapacity);
+        executor.setThreadNamePrefix("rag-embedding-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+    
+    /**
+     * 批量写入线程池 - 承载写缓冲区刷出的 _bulk 请求
+     * 
+     * <p>线程数即对 ES 的最大并发批量请求数；排队的批次受写缓冲区容量约束，队列无需另设上限</p>
+     */
+    @Bean(name = "bulkExecutor")
+    public ThreadPoolTaskExecutor bulkExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(bulkConcurrentRequests);
+        executor.setMaxPoolSize(bulkConcurrentRequests);
+        executor.setThreadNamePrefix("rag-bulk-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+}
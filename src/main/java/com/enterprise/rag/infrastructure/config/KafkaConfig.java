@@ -1,10 +1,17 @@
 package com.enterprise.rag.infrastructure.config;
 
+import com.enterprise.rag.infrastructure.kafka.IngestionRetryPolicy;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.util.Arrays;
 
 /**
  * Kafka 配置类
@@ -30,4 +37,47 @@ public class KafkaConfig {
                 .replicas(1)
                 .build();
     }
+    
+    /**
+     * 延迟重试主题 {摄取主题}.retry.1..N
+     */
+    @Bean
+    public KafkaAdmin.NewTopics ingestionRetryTopics(IngestionRetryPolicy retryPolicy) {
+        return new KafkaAdmin.NewTopics(Arrays.stream(retryPolicy.getTopics())
+                .map(topic -> TopicBuilder.name(topic)
+                        .partitions(3)
+                        .replicas(1)
+                        .build())
+                .toArray(NewTopic[]::new));
+    }
+    
+    /**
+     * 监听容器工厂
+     * 
+     * <p>沿用 spring.kafka.* 配置；rag.ingestion.consumer.mode=batch (默认) 时以批量模式投递一次 poll 的全部记录，
+     * record 时逐条投递</p>
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> kafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            @Value("${rag.ingestion.consumer.mode:batch}") String consumerMode) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener("batch".equalsIgnoreCase(consumerMode));
+        return factory;
+    }
+    
+    /**
+     * 延迟重试主题的监听容器工厂，始终为批量模式 (依赖 nack 暂停到期前的消息)
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> retryKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+        return factory;
+    }
 }
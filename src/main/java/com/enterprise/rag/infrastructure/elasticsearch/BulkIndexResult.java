@@ -0,0 +1,47 @@
+package com.enterprise.rag.infrastructure.elasticsearch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量写入结果
+ * 
+ * <p>记录成功条数与逐文档失败项，调用方据此决定重试或转入死信队列</p>
+ * 
+ * @param succeeded 成功的操作数
+ * @param failures 失败项
+ */
+public record BulkIndexResult(int succeeded, List<ItemFailure> failures) {
+    
+    public static BulkIndexResult empty() {
+        return new BulkIndexResult(0, List.of());
+    }
+    
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+    
+    /**
+     * 合并两个结果
+     */
+    public BulkIndexResult merge(BulkIndexResult other) {
+        if (other.failures.isEmpty()) {
+            return new BulkIndexResult(succeeded + other.succeeded, failures);
+        }
+        List<ItemFailure> merged = new ArrayList<>(failures.size() + other.failures.size());
+        merged.addAll(failures);
+        merged.addAll(other.failures);
+        return new BulkIndexResult(succeeded + other.succeeded, merged);
+    }
+    
+    /**
+     * 单个文档的失败信息
+     * 
+     * @param documentId 文档 ID
+     * @param status HTTP 状态码 (校验失败为 400)
+     * @param errorType ES 错误类型
+     * @param reason 失败原因
+     */
+    public record ItemFailure(String documentId, int status, String errorType, String reason) {
+    }
+}
@@ -0,0 +1,201 @@
+package com.enterprise.rag.infrastructure.elasticsearch;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ES 批量写入器
+ * 
+ * <p>按字节数和操作数将写入切分为多个 _bulk 请求；逐项检查响应，
+ * 只对被拒绝 (429 / es_rejected_execution_exception) 的项按指数退避重试，其余失败直接返回给调用方。
+ * 某项被拒绝时，分片内其后同一文档的操作无论结果如何都随之重试，避免较早的操作在重试后覆盖较新的写入。</p>
+ */
+@Slf4j
+@Component
+public class ElasticsearchBulkWriter {
+    
+    private final ElasticsearchClient esClient;
+    private final MeterRegistry meterRegistry;
+    private final long maxRequestBytes;
+    private final int maxActions;
+    private final int maxRetries;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    
+    public ElasticsearchBulkWriter(ElasticsearchClient esClient,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${elasticsearch.bulk.max-request-bytes:10485760}") long maxRequestBytes,
+                                   @Value("${elasticsearch.bulk.max-actions:1000}") int maxActions,
+                                   @Value("${elasticsearch.bulk.max-retries:3}") int maxRetries,
+                                   @Value("${elasticsearch.bulk.initial-backoff-ms:500}") long initialBackoffMs,
+                                   @Value("${elasticsearch.bulk.max-backoff-ms:10000}") long maxBackoffMs) {
+        this.esClient = esClient;
+        this.meterRegistry = meterRegistry;
+        this.maxRequestBytes = maxRequestBytes;
+        this.maxActions = maxActions;
+        this.maxRetries = maxRetries;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+    
+    /**
+     * 写入一组操作
+     * 
+     * @param items 待写入的操作
+     * @return 逐文档的写入结果
+     * @throws IOException 请求整体失败 (连接异常等)
+     */
+    public BulkIndexResult write(List<BulkItem> items) throws IOException {
+        int succeeded = 0;
+        List<BulkIndexResult.ItemFailure> failures = new ArrayList<>();
+        for (BulkIndexResult.ItemFailure failure : writeItems(items)) {
+            if (failure == null) {
+                succeeded++;
+            } else {
+                failures.add(failure);
+            }
+        }
+        return new BulkIndexResult(succeeded, failures);
+    }
+    
+    /**
+     * 写入一组操作，按位置返回结果
+     * 
+     * <p>同一批中同一文档可能有多个操作，调用方应按位置而非文档 ID 对应结果</p>
+     * 
+     * @param items 待写入的操作
+     * @return 与 items 一一对应的失败项，成功的位置为 null
+     * @throws IOException 请求整体失败 (连接异常等)
+     */
+    public List<BulkIndexResult.ItemFailure> writeItems(List<BulkItem> items) throws IOException {
+        BulkIndexResult.ItemFailure[] outcomes = new BulkIndexResult.ItemFailure[items.size()];
+        int chunkStart = 0;
+        long chunkBytes = 0;
+        for (int i = 0; i < items.size(); i++) {
+            BulkItem item = items.get(i);
+            if (i > chunkStart && (i - chunkStart >= maxActions || chunkBytes + item.sizeBytes() > maxRequestBytes)) {
+                writeChunk(items, chunkStart, i, chunkBytes, outcomes);
+                chunkStart = i;
+                chunkBytes = 0;
+            }
+            chunkBytes += item.sizeBytes();
+        }
+        if (chunkStart < items.size()) {
+            writeChunk(items, chunkStart, items.size(), chunkBytes, outcomes);
+        }
+        return Arrays.asList(outcomes);
+    }
+    
+    /**
+     * 写入 items 中 [from, to) 的分片，被拒绝的项退避后重试，失败项按位置写入 outcomes
+     */
+    private void writeChunk(List<BulkItem> items, int from, int to, long chunkBytes,
+                            BulkIndexResult.ItemFailure[] outcomes) throws IOException {
+        int succeeded = 0;
+        int failed = 0;
+        // 待写入项在 items 中的位置
+        List<Integer> pending = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            pending.add(i);
+        }
+        
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            boolean canRetry = attempt < maxRetries;
+            List<BulkOperation> operations = new ArrayList<>(pending.size());
+            for (int position : pending) {
+                operations.add(items.get(position).operation());
+            }
+            
+            BulkResponse response;
+            try {
+                response = esClient.bulk(BulkRequest.of(r -> r.operations(operations)));
+            } catch (ElasticsearchException e) {
+                // 整个请求被拒绝 (如协调节点队列已满)
+                if (e.status() == 429 && canRetry) {
+                    meterRegistry.counter("rag.es.bulk.items", "result", "retried").increment(pending.size());
+                    backoff(attempt);
+                    continue;
+                }
+                throw e;
+            }
+            
+            List<Integer> rejected = new ArrayList<>();
+            Set<String> heldBack = new HashSet<>();
+            List<BulkResponseItem> responseItems = response.items();
+            for (int i = 0; i < responseItems.size(); i++) {
+                BulkResponseItem responseItem = responseItems.get(i);
+                int position = pending.get(i);
+                BulkItem item = items.get(position);
+                if (canRetry && heldBack.contains(item.documentId())) {
+                    // 同一文档较早的操作被拒绝，本项须在其之后重新执行
+                    rejected.add(position);
+                } else if (responseItem.error() == null) {
+                    succeeded++;
+                } else if (isRejected(responseItem) && canRetry) {
+                    rejected.add(position);
+                    heldBack.add(item.documentId());
+                } else {
+                    log.error("Bulk {} error for document {}: {}",
+                            responseItem.operationType(), item.documentId(), responseItem.error().reason());
+                    outcomes[position] = new BulkIndexResult.ItemFailure(item.documentId(), responseItem.status(),
+                            responseItem.error().type(), responseItem.error().reason());
+                    failed++;
+                }
+            }
+            
+            if (!rejected.isEmpty()) {
+                log.warn("{} of {} bulk items rejected, retrying (attempt {})", rejected.size(), pending.size(), attempt + 1);
+                meterRegistry.counter("rag.es.bulk.items", "result", "retried").increment(rejected.size());
+                backoff(attempt);
+            }
+            pending = rejected;
+        }
+        
+        meterRegistry.counter("rag.es.bulk.items", "result", "succeeded").increment(succeeded);
+        meterRegistry.counter("rag.es.bulk.items", "result", "failed").increment(failed);
+        log.debug("Bulk wrote {} items ({} bytes), {} failed", to - from, chunkBytes, failed);
+    }
+    
+    private static boolean isRejected(BulkResponseItem item) {
+        return item.status() == 429 || "es_rejected_execution_exception".equals(item.error().type());
+    }
+    
+    /**
+     * 指数退避 (带抖动)
+     */
+    private void backoff(int attempt) {
+        long delay = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt, 20));
+        try {
+            Thread.sleep(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off bulk retry", e);
+        }
+    }
+    
+    /**
+     * 待写入的操作
+     * 
+     * @param documentId 文档 ID
+     * @param operation 批量操作
+     * @param sizeBytes 序列化后的大小 (估算)
+     */
+    public record BulkItem(String documentId, BulkOperation operation, long sizeBytes) {
+    }
+}
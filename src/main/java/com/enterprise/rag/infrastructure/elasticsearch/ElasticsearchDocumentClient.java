@@ -1,14 +1,23 @@
 package com.enterprise.rag.infrastructure.elasticsearch;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
 import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch.core.*;
 import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetResponseItem;
+import co.elastic.clients.elasticsearch.core.msearch.RequestItem;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.util.ApiTypeHelper;
+import co.elastic.clients.util.BinaryData;
 import com.enterprise.rag.domain.model.document.Document;
 import com.enterprise.rag.domain.model.knowledgebase.FieldDefinition;
 import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
+import com.enterprise.rag.domain.service.EmbeddingBatcher;
+import com.enterprise.rag.domain.service.EmbeddingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -17,6 +26,8 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Elasticsearch 文档操作客户端
@@ -26,72 +37,352 @@ import java.util.*;
 @RequiredArgsConstructor
 public class ElasticsearchDocumentClient {
     
+    /**
+     * 向量字段源文本哈希 (字段名 → 哈希)
+     */
+    public static final String CONTENT_HASHES_FIELD = "_content_hashes";
+    
+    /**
+     * 每个 _bulk 操作行 (action 元数据) 的估算字节数
+     */
+    private static final long BULK_ACTION_OVERHEAD_BYTES = 128;
+    
     private final ElasticsearchClient esClient;
+    private final ElasticsearchAsyncClient esAsyncClient;
+    private final ElasticsearchWriteBuffer writeBuffer;
+    private final EmbeddingService embeddingService;
     
     /**
-     * 索引单个文档
+     * 索引单个文档 (经写缓冲区与并发写入合并)
      */
     public void indexDocument(KnowledgeBase knowledgeBase, Document document, 
                               Map<String, float[]> vectors) throws IOException {
-        String indexName = knowledgeBase.getIndexName();
-        
-        // 构建 ES 文档
-        Map<String, Object> esDoc = buildEsDocument(knowledgeBase, document, vectors);
-        
-        IndexRequest<Map<String, Object>> request = IndexRequest.of(r -> r
-                .index(indexName)
-                .id(document.getId())
-                .document(esDoc)
-        );
+        String indexName = knowledgeBase.getPhysicalIndexName();
         
-        IndexResponse response = esClient.index(request);
-        log.debug("Indexed document {} in index {}, result: {}", 
-                document.getId(), indexName, response.result());
+        BulkIndexResult result = await(writeBuffer.submit(indexName,
+                List.of(indexItem(knowledgeBase, document, vectors))));
+        if (result.hasFailures()) {
+            BulkIndexResult.ItemFailure failure = result.failures().get(0);
+            throw new IOException(String.format("Failed to index document %s: [%s] %s",
+                    document.getId(), failure.errorType(), failure.reason()));
+        }
+        log.debug("Indexed document {} in index {}", document.getId(), indexName);
     }
     
     /**
      * 批量索引文档
      */
-    public void bulkIndexDocuments(KnowledgeBase knowledgeBase, 
-                                    List<Document> documents,
-                                    Map<String, Map<String, float[]>> documentVectors) throws IOException {
-        String indexName = knowledgeBase.getIndexName();
+    public BulkIndexResult bulkIndexDocuments(KnowledgeBase knowledgeBase, 
+                                              List<Document> documents,
+                                              Map<String, Map<String, float[]>> documentVectors) throws IOException {
+        return bulkWrite(knowledgeBase, documents, List.of(), documentVectors, List.of());
+    }
+    
+    /**
+     * 批量写入：索引 (覆盖)、部分更新与删除经 {@link ElasticsearchWriteBuffer} 写入，
+     * 与其他并发写入合并刷出，缓冲区满时阻塞
+     * 
+     * @param documents 待索引的文档
+     * @param partialUpdates 待部分更新的已有文档，只写入其中出现的内容字段和 documentVectors 中的向量
+     * @param documentVectors 文档 ID → (字段名 → 向量)
+     * @param deleteIds 待删除的文档 ID
+     * @return 逐文档的写入结果，删除不存在的文档不计为失败
+     */
+    public BulkIndexResult bulkWrite(KnowledgeBase knowledgeBase,
+                                     List<Document> documents,
+                                     List<Document> partialUpdates,
+                                     Map<String, Map<String, float[]>> documentVectors,
+                                     Collection<String> deleteIds) throws IOException {
+        String indexName = knowledgeBase.getPhysicalIndexName();
         
-        List<BulkOperation> operations = new ArrayList<>();
+        List<ElasticsearchBulkWriter.BulkItem> items =
+                new ArrayList<>(documents.size() + partialUpdates.size() + deleteIds.size());
         
         for (Document doc : documents) {
-            Map<String, float[]> vectors = documentVectors.getOrDefault(doc.getId(), Map.of());
-            Map<String, Object> esDoc = buildEsDocument(knowledgeBase, doc, vectors);
-            
-            operations.add(BulkOperation.of(op -> op
-                    .index(idx -> idx
+            items.add(indexItem(knowledgeBase, doc, documentVectors.getOrDefault(doc.getId(), Map.of())));
+        }
+        
+        for (Document doc : partialUpdates) {
+            items.add(updateItem(knowledgeBase, doc, documentVectors.getOrDefault(doc.getId(), Map.of())));
+        }
+        
+        for (String documentId : deleteIds) {
+            items.add(new ElasticsearchBulkWriter.BulkItem(documentId, BulkOperation.of(op -> op
+                    .delete(del -> del
                             .index(indexName)
-                            .id(doc.getId())
-                            .document(esDoc)
+                            .id(documentId)
                     )
-            ));
+            ), BULK_ACTION_OVERHEAD_BYTES));
         }
         
-        if (!operations.isEmpty()) {
-            BulkRequest request = BulkRequest.of(r -> r.operations(operations));
-            BulkResponse response = esClient.bulk(request);
-            
-            if (response.errors()) {
-                response.items().stream()
-                        .filter(item -> item.error() != null)
-                        .forEach(item -> log.error("Bulk index error: {}", item.error().reason()));
+        if (items.isEmpty()) {
+            return BulkIndexResult.empty();
+        }
+        
+        long startTime = System.currentTimeMillis();
+        BulkIndexResult result = await(writeBuffer.submit(indexName, items));
+        
+        log.info("Bulk wrote {} documents, updated {} and deleted {} in index {} ({} failed, took {} ms)",
+                documents.size(), partialUpdates.size(), deleteIds.size(), indexName, result.failures().size(),
+                System.currentTimeMillis() - startTime);
+        return result;
+    }
+    
+    /**
+     * 构建索引操作，文档预先序列化：按实际字节数切分请求，且重试时无需重复序列化
+     */
+    private ElasticsearchBulkWriter.BulkItem indexItem(KnowledgeBase knowledgeBase, Document document,
+                                                       Map<String, float[]> vectors) {
+        BinaryData source = BinaryData.of(buildEsDocument(knowledgeBase, document, vectors), esClient._jsonpMapper());
+        return new ElasticsearchBulkWriter.BulkItem(document.getId(), BulkOperation.of(op -> op
+                .index(idx -> idx
+                        .index(knowledgeBase.getPhysicalIndexName())
+                        .id(document.getId())
+                        .document(source)
+                )
+        ), source.size() + BULK_ACTION_OVERHEAD_BYTES);
+    }
+    
+    /**
+     * 构建部分更新操作 (不存在时失败，不创建残缺文档)
+     */
+    private ElasticsearchBulkWriter.BulkItem updateItem(KnowledgeBase knowledgeBase, Document document,
+                                                        Map<String, float[]> vectors) {
+        Map<String, Object> partial = buildPartialEsDocument(knowledgeBase, document, vectors);
+        BinaryData action = BinaryData.of(Map.of("doc", partial), esClient._jsonpMapper());
+        return new ElasticsearchBulkWriter.BulkItem(document.getId(), BulkOperation.of(op -> op
+                .update(u -> u
+                        .index(knowledgeBase.getPhysicalIndexName())
+                        .id(document.getId())
+                        .binaryAction(action)
+                )
+        ), action.size() + BULK_ACTION_OVERHEAD_BYTES);
+    }
+    
+    /**
+     * 批量读取已存储文档的向量字段源文本哈希
+     * 
+     * @return 文档 ID → (字段名 → 哈希)，不存在的文档不在结果中
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Map<String, String>> getContentHashes(String indexName, List<String> documentIds) throws IOException {
+        if (documentIds.isEmpty()) {
+            return Map.of();
+        }
+        MgetResponse<Map> response = esClient.mget(m -> m
+                .index(indexName)
+                .ids(documentIds)
+                .sourceIncludes(CONTENT_HASHES_FIELD), Map.class);
+        
+        Map<String, Map<String, String>> hashes = new HashMap<>();
+        for (MultiGetResponseItem<Map> item : response.docs()) {
+            if (item.isResult() && item.result().found()) {
+                Map<String, Object> source = item.result().source();
+                Object stored = source != null ? source.get(CONTENT_HASHES_FIELD) : null;
+                hashes.put(item.result().id(), stored instanceof Map ? (Map<String, String>) stored : Map.of());
             }
-            
-            log.info("Bulk indexed {} documents in index {}", documents.size(), indexName);
+        }
+        return hashes;
+    }
+    
+    /**
+     * 批量读取已存储文档并还原为文档实体 (不含向量)
+     * 
+     * <p>内容为 _source 中除系统字段与向量字段以外的全部字段</p>
+     * 
+     * @return 文档 ID → 文档，不存在的文档不在结果中
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Document> getDocuments(KnowledgeBase knowledgeBase, List<String> documentIds) throws IOException {
+        if (documentIds.isEmpty()) {
+            return Map.of();
+        }
+        Set<String> vectorFields = new HashSet<>(knowledgeBase.getVectorFieldNames().values());
+        MgetResponse<Map> response = esClient.mget(m -> m
+                .index(knowledgeBase.getPhysicalIndexName())
+                .ids(documentIds)
+                .sourceExcludes(new ArrayList<>(vectorFields)), Map.class);
+        
+        Map<String, Document> documents = new HashMap<>();
+        for (MultiGetResponseItem<Map> item : response.docs()) {
+            if (!item.isResult() || !item.result().found() || item.result().source() == null) {
+                continue;
+            }
+            Map<String, Object> source = item.result().source();
+            Map<String, Object> content = new HashMap<>();
+            source.forEach((field, value) -> {
+                if (!field.startsWith("_") && !vectorFields.contains(field)) {
+                    content.put(field, value);
+                }
+            });
+            documents.put(item.result().id(), Document.builder()
+                    .id(item.result().id())
+                    .knowledgeBaseId((String) source.get("_knowledge_base_id"))
+                    .content(content)
+                    .metadata((Map<String, Object>) source.get("_metadata"))
+                    .sourceDocumentId((String) source.get("_source_document_id"))
+                    .chunkIndex(source.get("_chunk_index") instanceof Number n ? n.intValue() : null)
+                    .createdAt(parseDateTime(source.get("_created_at")))
+                    .updatedAt(parseDateTime(source.get("_updated_at")))
+                    .build());
+        }
+        return documents;
+    }
+    
+    /**
+     * 批量读取文档 _source (检索结果回填)
+     * 
+     * @param sourceExcludes 不返回的 _source 字段
+     * @return 文档 ID → _source，不存在的文档不在结果中
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Map<String, Object>> getSources(String indexName, List<String> documentIds,
+                                                       List<String> sourceExcludes) throws IOException {
+        if (documentIds.isEmpty()) {
+            return Map.of();
+        }
+        MgetResponse<Map> response = esClient.mget(m -> m
+                .index(indexName)
+                .ids(documentIds)
+                .sourceExcludes(sourceExcludes), Map.class);
+        
+        Map<String, Map<String, Object>> sources = new HashMap<>();
+        for (MultiGetResponseItem<Map> item : response.docs()) {
+            if (item.isResult() && item.result().found()) {
+                Map<String, Object> source = item.result().source();
+                sources.put(item.result().id(), source != null ? source : Map.of());
+            }
+        }
+        return sources;
+    }
+    
+    /**
+     * 批量判断文档是否存在
+     */
+    public Set<String> existingIds(String indexName, List<String> documentIds) throws IOException {
+        if (documentIds.isEmpty()) {
+            return Set.of();
+        }
+        MgetResponse<Map> response = esClient.mget(m -> m
+                .index(indexName)
+                .ids(documentIds)
+                .source(s -> s.fetch(false)), Map.class);
+        
+        Set<String> existing = new HashSet<>();
+        for (MultiGetResponseItem<Map> item : response.docs()) {
+            if (item.isResult() && item.result().found()) {
+                existing.add(item.result().id());
+            }
+        }
+        return existing;
+    }
+    
+    /**
+     * 按文档 ID 顺序分页遍历索引
+     * 
+     * @param sourceIncludes 返回的 _source 字段，为空时不返回 _source
+     * @param after 上一页最后一个文档 ID，首页为 null
+     */
+    @SuppressWarnings("unchecked")
+    public List<ScannedDocument> scan(String indexName, List<String> sourceIncludes, String after, int size)
+            throws IOException {
+        SearchResponse<Map> response = esClient.search(s -> {
+            s.index(indexName)
+                    .size(size)
+                    .seqNoPrimaryTerm(true)
+                    .trackTotalHits(t -> t.enabled(false))
+                    .sort(o -> o.field(f -> f.field("_doc_id").order(SortOrder.Asc)));
+            if (sourceIncludes.isEmpty()) {
+                s.source(src -> src.fetch(false));
+            } else {
+                s.source(src -> src.filter(f -> f.includes(sourceIncludes)));
+            }
+            if (after != null) {
+                s.searchAfter(FieldValue.of(after));
+            }
+            return s;
+        }, Map.class);
+        
+        List<ScannedDocument> documents = new ArrayList<>(response.hits().hits().size());
+        for (Hit<Map> hit : response.hits().hits()) {
+            documents.add(new ScannedDocument(hit.id(), hit.seqNo(), hit.primaryTerm(),
+                    hit.source() != null ? hit.source() : Map.of()));
+        }
+        return documents;
+    }
+    
+    /**
+     * 写入重新生成的向量，仅在文档自读取后未被修改时生效 (if_seq_no / if_primary_term)，
+     * 期间被并发写入修改的文档以 409 失败返回
+     * 
+     * @param contents 文档 ID → 重新向量化字段的源文本
+     * @param documentVectors 文档 ID → (字段名 → 向量)
+     */
+    public BulkIndexResult updateVectorsIfUnchanged(KnowledgeBase knowledgeBase, List<ScannedDocument> documents,
+                                                    Map<String, Map<String, Object>> contents,
+                                                    Map<String, Map<String, float[]>> documentVectors)
+            throws IOException {
+        String indexName = knowledgeBase.getPhysicalIndexName();
+        List<ElasticsearchBulkWriter.BulkItem> items = new ArrayList<>(documents.size());
+        for (ScannedDocument document : documents) {
+            Map<String, float[]> vectors = documentVectors.getOrDefault(document.id(), Map.of());
+            if (vectors.isEmpty()) {
+                continue;
+            }
+            Map<String, Object> partial = new HashMap<>();
+            putVectors(knowledgeBase, contents.get(document.id()), vectors, partial);
+            BinaryData action = BinaryData.of(Map.of("doc", partial), esClient._jsonpMapper());
+            items.add(new ElasticsearchBulkWriter.BulkItem(document.id(), BulkOperation.of(op -> op
+                    .update(u -> u
+                            .index(indexName)
+                            .id(document.id())
+                            .ifSeqNo(document.seqNo())
+                            .ifPrimaryTerm(document.primaryTerm())
+                            .binaryAction(action)
+                    )
+            ), action.size() + BULK_ACTION_OVERHEAD_BYTES));
+        }
+        return items.isEmpty() ? BulkIndexResult.empty() : await(writeBuffer.submit(indexName, items));
+    }
+    
+    /**
+     * 删除文档，仅在文档自读取后未被修改时生效，期间被并发写入修改的文档以 409 失败返回
+     */
+    public BulkIndexResult deleteIfUnchanged(String indexName, List<ScannedDocument> documents) throws IOException {
+        List<ElasticsearchBulkWriter.BulkItem> items = new ArrayList<>(documents.size());
+        for (ScannedDocument document : documents) {
+            items.add(new ElasticsearchBulkWriter.BulkItem(document.id(), BulkOperation.of(op -> op
+                    .delete(del -> del
+                            .index(indexName)
+                            .id(document.id())
+                            .ifSeqNo(document.seqNo())
+                            .ifPrimaryTerm(document.primaryTerm())
+                    )
+            ), BULK_ACTION_OVERHEAD_BYTES));
+        }
+        return items.isEmpty() ? BulkIndexResult.empty() : await(writeBuffer.submit(indexName, items));
+    }
+    
+    private static BulkIndexResult await(CompletableFuture<BulkIndexResult> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
     }
     
     /**
-     * 根据知识库元数据构建 ES 文档
+     * 根据知识库元数据构建 ES 文档 (包可见供基准测试调用)
      */
-    private Map<String, Object> buildEsDocument(KnowledgeBase knowledgeBase, 
-                                                 Document document,
-                                                 Map<String, float[]> vectors) {
+    Map<String, Object> buildEsDocument(KnowledgeBase knowledgeBase,
+                                        Document document,
+                                        Map<String, float[]> vectors) {
         Map<String, Object> esDoc = new HashMap<>();
         
         // 系统字段
@@ -110,13 +401,11 @@ public class ElasticsearchDocumentClient {
             if (content.containsKey(fieldName)) {
                 esDoc.put(fieldName, content.get(fieldName));
             }
-            
-            // 如果是向量字段，添加向量值
-            if (fd.isVectorField() && vectors.containsKey(fieldName)) {
-                esDoc.put(fd.getVectorFieldName(), vectors.get(fieldName));
-            }
         }
         
+        // 向量字段，添加向量值及源文本哈希
+        putVectors(knowledgeBase, content, vectors, esDoc);
+        
         // 元数据
         if (document.getMetadata() != null) {
             esDoc.put("_metadata", document.getMetadata());
@@ -125,6 +414,49 @@ public class ElasticsearchDocumentClient {
         return esDoc;
     }
     
+    /**
+     * 构建部分更新文档：只包含出现的内容字段、重新生成的向量及其哈希、元数据和更新时间
+     */
+    private Map<String, Object> buildPartialEsDocument(KnowledgeBase knowledgeBase,
+                                                       Document document,
+                                                       Map<String, float[]> vectors) {
+        Map<String, Object> partial = new HashMap<>();
+        partial.put("_updated_at", formatDateTime(document.getUpdatedAt()));
+        
+        Map<String, Object> content = document.getContent() != null ? document.getContent() : Map.of();
+        for (FieldDefinition fd : knowledgeBase.getFieldDefinitionList()) {
+            if (content.containsKey(fd.getFieldName())) {
+                partial.put(fd.getFieldName(), content.get(fd.getFieldName()));
+            }
+        }
+        putVectors(knowledgeBase, content, vectors, partial);
+        
+        if (document.getMetadata() != null) {
+            partial.put("_metadata", document.getMetadata());
+        }
+        return partial;
+    }
+    
+    private void putVectors(KnowledgeBase knowledgeBase, Map<String, Object> content,
+                            Map<String, float[]> vectors, Map<String, Object> esDoc) {
+        if (vectors.isEmpty()) {
+            return;
+        }
+        Map<String, String> hashes = new HashMap<>();
+        Map<String, String> vectorFieldNames = knowledgeBase.getVectorFieldNames();
+        for (FieldDefinition fd : knowledgeBase.getVectorFields()) {
+            float[] vector = vectors.get(fd.getFieldName());
+            if (vector != null) {
+                esDoc.put(vectorFieldNames.get(fd.getFieldName()), vector);
+                // 降级向量的哈希置空 (部分更新时覆盖旧哈希)，内容不变的后续更新也会重新向量化
+                hashes.put(fd.getFieldName(), embeddingService.isFallback(vector)
+                        ? null
+                        : EmbeddingBatcher.sourceHash(fd, content.get(fd.getFieldName())));
+            }
+        }
+        esDoc.put(CONTENT_HASHES_FIELD, hashes);
+    }
+    
     /**
      * 根据 ID 获取文档
      */
@@ -182,6 +514,148 @@ public class ElasticsearchDocumentClient {
         return esClient.search(request, Map.class);
     }
     
+    /**
+     * 异步执行搜索请求
+     * 
+     * <p>取消返回的 Future 会中止底层 HTTP 请求</p>
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<SearchResponse<Map>> searchAsync(SearchRequest request) {
+        return esAsyncClient.search(request, Map.class);
+    }
+    
+    /**
+     * 通过一次 _msearch 往返异步执行多个搜索请求
+     * 
+     * <p>响应项与请求顺序一致，单个子请求失败体现在对应响应项中，不影响其他子请求。
+     * 取消返回的 Future 会中止底层 HTTP 请求</p>
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<MsearchResponse<Map>> msearchAsync(List<SearchRequest> requests) {
+        List<RequestItem> searches = new ArrayList<>(requests.size());
+        for (SearchRequest request : requests) {
+            searches.add(toRequestItem(request));
+        }
+        return esAsyncClient.msearch(MsearchRequest.of(r -> r.searches(searches)), Map.class);
+    }
+    
+    /**
+     * 将单个搜索请求转换为 _msearch 的 header/body 对
+     * 
+     * <p>复制 _msearch 支持的全部请求体字段与请求参数；没有对应项的字段 (rank、slice、scroll、URI 查询参数等)
+     * 直接拒绝，避免子请求被静默改变语义</p>
+     * 
+     * @throws IllegalArgumentException 请求使用了 _msearch 不支持的字段
+     */
+    private RequestItem toRequestItem(SearchRequest request) {
+        requireMultiSearchCompatible(request);
+        return RequestItem.of(item -> item
+                .header(h -> {
+                    h.index(request.index())
+                            .allowNoIndices(request.allowNoIndices())
+                            .allowPartialSearchResults(request.allowPartialSearchResults())
+                            .ccsMinimizeRoundtrips(request.ccsMinimizeRoundtrips())
+                            .ignoreThrottled(request.ignoreThrottled())
+                            .ignoreUnavailable(request.ignoreUnavailable())
+                            .preference(request.preference())
+                            .requestCache(request.requestCache())
+                            .routing(request.routing())
+                            .searchType(request.searchType());
+                    if (ApiTypeHelper.isDefined(request.expandWildcards())) {
+                        h.expandWildcards(request.expandWildcards());
+                    }
+                    return h;
+                })
+                .body(b -> {
+                    b.query(request.query())
+                            .size(request.size())
+                            .from(request.from())
+                            .highlight(request.highlight())
+                            .source(request.source())
+                            .minScore(request.minScore())
+                            .postFilter(request.postFilter())
+                            .trackTotalHits(request.trackTotalHits())
+                            .collapse(request.collapse())
+                            .explain(request.explain())
+                            .pit(request.pit())
+                            .profile(request.profile())
+                            .seqNoPrimaryTerm(request.seqNoPrimaryTerm())
+                            .suggest(request.suggest())
+                            .terminateAfter(request.terminateAfter())
+                            .timeout(request.timeout())
+                            .trackScores(request.trackScores())
+                            .version(request.version());
+                    if (ApiTypeHelper.isDefined(request.knn())) {
+                        b.knn(request.knn());
+                    }
+                    if (ApiTypeHelper.isDefined(request.sort())) {
+                        b.sort(request.sort());
+                    }
+                    if (ApiTypeHelper.isDefined(request.aggregations())) {
+                        b.aggregations(request.aggregations());
+                    }
+                    if (ApiTypeHelper.isDefined(request.docvalueFields())) {
+                        b.docvalueFields(request.docvalueFields());
+                    }
+                    if (ApiTypeHelper.isDefined(request.ext())) {
+                        b.ext(request.ext());
+                    }
+                    if (ApiTypeHelper.isDefined(request.fields())) {
+                        b.fields(request.fields());
+                    }
+                    if (ApiTypeHelper.isDefined(request.indicesBoost())) {
+                        b.indicesBoost(request.indicesBoost());
+                    }
+                    if (ApiTypeHelper.isDefined(request.rescore())) {
+                        b.rescore(request.rescore());
+                    }
+                    if (ApiTypeHelper.isDefined(request.runtimeMappings())) {
+                        b.runtimeMappings(request.runtimeMappings());
+                    }
+                    if (ApiTypeHelper.isDefined(request.scriptFields())) {
+                        b.scriptFields(request.scriptFields());
+                    }
+                    if (ApiTypeHelper.isDefined(request.searchAfter())) {
+                        b.searchAfter(request.searchAfter());
+                    }
+                    if (ApiTypeHelper.isDefined(request.stats())) {
+                        b.stats(request.stats());
+                    }
+                    if (ApiTypeHelper.isDefined(request.storedFields())) {
+                        b.storedFields(request.storedFields());
+                    }
+                    return b;
+                })
+        );
+    }
+    
+    /**
+     * 检查搜索请求是否只使用了 _msearch 子请求能表达的字段
+     */
+    private static void requireMultiSearchCompatible(SearchRequest request) {
+        List<String> unsupported = new ArrayList<>();
+        if (request.rank() != null) {
+            unsupported.add("rank");
+        }
+        if (request.slice() != null) {
+            unsupported.add("slice");
+        }
+        if (request.scroll() != null) {
+            unsupported.add("scroll");
+        }
+        if (request.q() != null || request.df() != null || request.analyzer() != null
+                || request.analyzeWildcard() != null || request.defaultOperator() != null || request.lenient() != null) {
+            unsupported.add("q");
+        }
+        if (request.batchedReduceSize() != null || request.maxConcurrentShardRequests() != null
+                || request.preFilterShardSize() != null || request.minCompatibleShardNode() != null) {
+            unsupported.add("shard request parameters");
+        }
+        if (!unsupported.isEmpty()) {
+            throw new IllegalArgumentException("Search request uses fields not supported by _msearch: " + unsupported);
+        }
+    }
+    
     /**
      * 从搜索结果中提取文档
      */
@@ -208,4 +682,19 @@ public class ElasticsearchDocumentClient {
         if (dateTime == null) return null;
         return dateTime.format(DateTimeFormatter.ISO_DATE_TIME);
     }
+    
+    private static LocalDateTime parseDateTime(Object value) {
+        return value instanceof String text ? LocalDateTime.parse(text, DateTimeFormatter.ISO_DATE_TIME) : null;
+    }
+    
+    /**
+     * 遍历得到的文档
+     * 
+     * @param id 文档 ID
+     * @param seqNo 读取时的序列号
+     * @param primaryTerm 读取时的主分片任期
+     * @param source 请求的 _source 字段
+     */
+    public record ScannedDocument(String id, Long seqNo, Long primaryTerm, Map<String, Object> source) {
+    }
 }
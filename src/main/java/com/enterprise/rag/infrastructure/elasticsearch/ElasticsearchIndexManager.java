@@ -1,11 +1,19 @@
 package com.enterprise.rag.infrastructure.elasticsearch;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Conflicts;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.OpType;
+import co.elastic.clients.elasticsearch._types.SlicesCalculation;
 import co.elastic.clients.elasticsearch._types.mapping.*;
+import co.elastic.clients.elasticsearch.core.ReindexResponse;
 import co.elastic.clients.elasticsearch.indices.CreateIndexRequest;
 import co.elastic.clients.elasticsearch.indices.DeleteIndexRequest;
 import co.elastic.clients.elasticsearch.indices.ExistsRequest;
+import co.elastic.clients.elasticsearch.tasks.GetTasksResponse;
+import co.elastic.clients.json.JsonData;
 import com.enterprise.rag.domain.model.knowledgebase.FieldDefinition;
+import com.enterprise.rag.domain.model.knowledgebase.IndexMigration;
 import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,18 +22,30 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Elasticsearch 索引管理器
  * 
- * <p>根据知识库元数据动态创建和管理 ES 索引</p>
+ * <p>根据知识库元数据动态创建和管理 ES 索引，以及重建索引所需的 _reindex 任务和别名切换</p>
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ElasticsearchIndexManager {
     
+    /**
+     * 复制时移除字段及其源文本哈希的脚本
+     */
+    private static final String REINDEX_SCRIPT = """
+            for (f in params.fields) { ctx._source.remove(f); }
+            def hashes = ctx._source.get(params.hashesField);
+            if (hashes instanceof Map) { for (h in params.hashes) { hashes.remove(h); } }
+            """;
+    
     private final ElasticsearchClient esClient;
     
     @Value("${rag.index.number-of-shards:1}")
@@ -34,11 +54,26 @@ public class ElasticsearchIndexManager {
     @Value("${rag.index.number-of-replicas:0}")
     private int numberOfReplicas;
     
+    @Value("${rag.index.refresh-interval:1s}")
+    private String refreshInterval;
+    
+    @Value("${rag.index.translog-flush-threshold:512mb}")
+    private String translogFlushThreshold;
+    
+    @Value("${rag.index.bulk-load.translog-flush-threshold:2gb}")
+    private String bulkLoadTranslogFlushThreshold;
+    
+    @Value("${rag.index.reindex.batch-size:500}")
+    private int reindexBatchSize;
+    
     /**
      * 根据知识库元数据创建 ES 索引
+     * 
+     * <p>创建知识库当前的物理索引，并将知识库索引名称作为别名指向它</p>
      */
     public void createIndex(KnowledgeBase knowledgeBase) throws IOException {
-        String indexName = knowledgeBase.getIndexName();
+        String indexName = knowledgeBase.getPhysicalIndexName();
+        String alias = knowledgeBase.getIndexName();
         
         // 检查索引是否已存在
         if (indexExists(indexName)) {
@@ -47,26 +82,277 @@ public class ElasticsearchIndexManager {
         }
         
         // 构建动态 mapping
-        Map<String, Property> properties = buildProperties(knowledgeBase);
+        Map<String, Property> properties = buildProperties(knowledgeBase.getFieldDefinitionList());
+        
+        CreateIndexRequest request = CreateIndexRequest.of(builder -> {
+            builder.index(indexName)
+                    .settings(s -> s
+                            .numberOfShards(String.valueOf(numberOfShards))
+                            .numberOfReplicas(String.valueOf(numberOfReplicas))
+                    )
+                    .mappings(m -> m.properties(properties));
+            if (!indexName.equals(alias)) {
+                builder.aliases(alias, a -> a);
+            }
+            return builder;
+        });
+        
+        esClient.indices().create(request);
+        log.info("Created ES index: {} (alias {}) with {} field definitions", 
+                indexName, alias, knowledgeBase.getFieldDefinitionList().size());
+    }
+    
+    /**
+     * 创建迁移目标索引
+     * 
+     * <p>使用迁移后的字段定义，并以批量装载设置创建 (关闭刷新、无副本、提高 translog 刷盘阈值)，
+     * 切换别名前由 {@link #finishBulkLoad} 恢复常规设置</p>
+     */
+    public void createMigrationIndex(KnowledgeBase knowledgeBase) throws IOException {
+        IndexMigration migration = knowledgeBase.getMigration();
+        String indexName = migration.getTargetIndex();
+        if (indexExists(indexName)) {
+            log.info("Migration index {} already exists, reusing it", indexName);
+            return;
+        }
         
-        CreateIndexRequest request = CreateIndexRequest.of(builder -> builder
+        Map<String, Property> properties = buildProperties(migration.getFieldDefinitions());
+        esClient.indices().create(c -> c
                 .index(indexName)
                 .settings(s -> s
                         .numberOfShards(String.valueOf(numberOfShards))
-                        .numberOfReplicas(String.valueOf(numberOfReplicas))
+                        .numberOfReplicas("0")
+                        .refreshInterval(t -> t.time("-1"))
+                        .translog(t -> t.flushThresholdSize(bulkLoadTranslogFlushThreshold))
                 )
                 .mappings(m -> m.properties(properties))
         );
+        log.info("Created migration index {} for knowledge base {}", indexName, knowledgeBase.getId());
+    }
+    
+    /**
+     * 切换到批量装载设置：关闭刷新、不写副本、提高 translog 刷盘阈值
+     */
+    public void startBulkLoad(String indexName) throws IOException {
+        esClient.indices().putSettings(p -> p
+                .index(indexName)
+                .settings(s -> s
+                        .numberOfReplicas("0")
+                        .refreshInterval(t -> t.time("-1"))
+                        .translog(t -> t.flushThresholdSize(bulkLoadTranslogFlushThreshold))
+                )
+        );
+        log.info("Applied bulk load settings to index {} (translog flush threshold {})",
+                indexName, bulkLoadTranslogFlushThreshold);
+    }
+    
+    /**
+     * 恢复批量装载后的常规索引设置并刷新
+     */
+    public void finishBulkLoad(String indexName) throws IOException {
+        esClient.indices().putSettings(p -> p
+                .index(indexName)
+                .settings(s -> s
+                        .numberOfReplicas(String.valueOf(numberOfReplicas))
+                        .refreshInterval(t -> t.time(refreshInterval))
+                        .translog(t -> t.flushThresholdSize(translogFlushThreshold))
+                )
+        );
+        refresh(indexName);
+        log.info("Restored settings of index {} (replicas={}, refresh={})", indexName, numberOfReplicas, refreshInterval);
+    }
+    
+    /**
+     * 提交异步段合并任务 (不等待完成)
+     * 
+     * @return 任务 ID
+     */
+    public String forceMerge(String indexName, long maxNumSegments) throws IOException {
+        String taskId = esClient.indices().forcemerge(f -> f
+                .index(indexName)
+                .maxNumSegments(maxNumSegments)
+                .waitForCompletion(false)
+        ).task();
+        log.info("Started force merge task {} of index {} to {} segments", taskId, indexName, maxNumSegments);
+        return taskId;
+    }
+    
+    /**
+     * 提交异步 _reindex 任务
+     * 
+     * <p>按 op_type=create 复制：已由双写写入目标索引的文档不会被旧快照覆盖，版本冲突跳过。
+     * 复制时移除需重新向量化的向量字段及其哈希、以及迁移后不再存在的字段</p>
+     * 
+     * @param removedFields 复制时从 _source 中移除的字段
+     * @param removedHashes 复制时从源文本哈希中移除的字段
+     * @param requestsPerSecond 限速 (每秒文档数)，不大于 0 时不限速
+     * @return 任务 ID
+     */
+    public String startReindex(String sourceIndex, String targetIndex, List<String> removedFields,
+                               List<String> removedHashes, float requestsPerSecond) throws IOException {
+        ReindexResponse response = esClient.reindex(r -> {
+            r.source(s -> s.index(sourceIndex).size(reindexBatchSize))
+                    .dest(d -> d.index(targetIndex).opType(OpType.Create))
+                    .conflicts(Conflicts.Proceed)
+                    .slices(s -> s.computed(SlicesCalculation.Auto))
+                    .requestsPerSecond(requestsPerSecond > 0 ? requestsPerSecond : -1f)
+                    .waitForCompletion(false);
+            if (!removedFields.isEmpty() || !removedHashes.isEmpty()) {
+                r.script(s -> s.inline(i -> i
+                        .lang("painless")
+                        .source(REINDEX_SCRIPT)
+                        .params("fields", JsonData.of(removedFields))
+                        .params("hashes", JsonData.of(removedHashes))
+                        .params("hashesField", JsonData.of(ElasticsearchDocumentClient.CONTENT_HASHES_FIELD))
+                ));
+            }
+            return r;
+        });
+        log.info("Started reindex task {} from {} to {} ({} docs/s)",
+                response.task(), sourceIndex, targetIndex, requestsPerSecond);
+        return response.task();
+    }
+    
+    /**
+     * 查询 _reindex 任务进度
+     * 
+     * @return 任务不存在时为空
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<ReindexProgress> getReindexProgress(String taskId) throws IOException {
+        GetTasksResponse response;
+        try {
+            response = esClient.tasks().get(g -> g.taskId(taskId));
+        } catch (ElasticsearchException e) {
+            if (e.status() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        }
         
-        esClient.indices().create(request);
-        log.info("Created ES index: {} with {} field definitions", 
-                indexName, knowledgeBase.getFieldDefinitionList().size());
+        JsonData body = response.completed() ? response.response() : response.task().status();
+        Map<String, Object> status = body != null ? body.to(Map.class, esClient._jsonpMapper()) : Map.of();
+        Object failures = status.get("failures");
+        String error = response.error() != null ? response.error().reason() : null;
+        if (error == null && failures instanceof List<?> list && !list.isEmpty()) {
+            error = list.size() + " documents failed to reindex, first: " + list.get(0);
+        }
+        return Optional.of(new ReindexProgress(response.completed(), longValue(status, "total"),
+                longValue(status, "created"), longValue(status, "version_conflicts"), error));
+    }
+    
+    /**
+     * 取消 ES 任务
+     */
+    public void cancelTask(String taskId) throws IOException {
+        try {
+            esClient.tasks().cancel(c -> c.taskId(taskId));
+        } catch (ElasticsearchException e) {
+            if (e.status() != 404) {
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * 原子切换别名到新物理索引 (可重复执行)
+     * 
+     * <p>别名从其当前指向的全部索引移除；别名名称仍是早期的无版本索引时，在同一请求中删除该索引后建立别名
+     * (需保留时先经 {@link #cloneIndex} 复制)</p>
+     */
+    public void swapAlias(String alias, String toIndex) throws IOException {
+        Set<String> current = esClient.indices().existsAlias(e -> e.name(alias)).value()
+                ? esClient.indices().getAlias(g -> g.name(alias)).result().keySet()
+                : Set.of();
+        if (current.equals(Set.of(toIndex))) {
+            log.info("Alias {} already points to {}", alias, toIndex);
+            return;
+        }
+        boolean concreteIndex = current.isEmpty() && indexExists(alias);
+        
+        esClient.indices().updateAliases(u -> {
+            if (concreteIndex) {
+                u.actions(a -> a.removeIndex(r -> r.index(alias)));
+            }
+            for (String index : current) {
+                if (!index.equals(toIndex)) {
+                    u.actions(a -> a.remove(r -> r.index(index).alias(alias)));
+                }
+            }
+            return u.actions(a -> a.add(add -> add.index(toIndex).alias(alias)));
+        });
+        log.info("Swapped alias {} from {} to {}", alias, concreteIndex ? "concrete index" : current, toIndex);
+    }
+    
+    /**
+     * 名称是否为实际索引 (早期的无版本索引) 而非别名
+     */
+    public boolean isConcreteIndex(String name) throws IOException {
+        return !esClient.indices().existsAlias(e -> e.name(name)).value() && indexExists(name);
+    }
+    
+    /**
+     * 以硬链接段文件复制索引 (可重复执行)
+     * 
+     * <p>复制要求源索引禁止写入，源索引此后保持禁止写入，由调用方删除或经 {@link #setWriteBlock} 恢复；
+     * 目标索引已存在时不重复复制</p>
+     */
+    public void cloneIndex(String sourceIndex, String targetIndex) throws IOException {
+        setWriteBlock(sourceIndex, true);
+        if (indexExists(targetIndex)) {
+            log.info("Clone {} of index {} already exists, reusing it", targetIndex, sourceIndex);
+            return;
+        }
+        esClient.indices().clone(c -> c
+                .index(sourceIndex)
+                .target(targetIndex)
+                .settings("index.blocks.write", JsonData.of(false))
+        );
+        log.info("Cloned index {} to {}", sourceIndex, targetIndex);
+    }
+    
+    /**
+     * 设置或解除索引的写入禁止
+     */
+    public void setWriteBlock(String indexName, boolean blocked) throws IOException {
+        esClient.indices().putSettings(p -> p
+                .index(indexName)
+                .settings(s -> s.blocks(b -> b.write(blocked)))
+        );
+    }
+    
+    /**
+     * 为早期创建的索引补充源文本哈希字段的 mapping (不建索引)
+     * 
+     * @return 是否成功；该字段已被动态映射为普通对象时无法修改，返回 false
+     */
+    public boolean ensureContentHashesMapping(String indexName) throws IOException {
+        try {
+            esClient.indices().putMapping(m -> m
+                    .index(indexName)
+                    .properties(ElasticsearchDocumentClient.CONTENT_HASHES_FIELD,
+                            Property.of(p -> p.object(o -> o.enabled(false))))
+            );
+            return true;
+        } catch (ElasticsearchException e) {
+            if (e.status() == 400) {
+                return false;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 刷新索引，使已写入的文档可被检索
+     */
+    public void refresh(String indexName) throws IOException {
+        esClient.indices().refresh(r -> r.index(indexName));
     }
     
     /**
      * 根据字段定义构建 ES properties
      */
-    private Map<String, Property> buildProperties(KnowledgeBase knowledgeBase) {
+    private Map<String, Property> buildProperties(List<FieldDefinition> fieldDefinitions) {
         Map<String, Property> properties = new HashMap<>();
         
         // 系统字段
@@ -76,9 +362,11 @@ public class ElasticsearchIndexManager {
         properties.put("_updated_at", Property.of(p -> p.date(d -> d)));
         properties.put("_source_document_id", Property.of(p -> p.keyword(k -> k)));
         properties.put("_chunk_index", Property.of(p -> p.integer(i -> i)));
+        // 向量字段源文本哈希，仅用于增量更新判断，不建索引
+        properties.put(ElasticsearchDocumentClient.CONTENT_HASHES_FIELD, Property.of(p -> p.object(o -> o.enabled(false))));
         
         // 根据字段定义动态构建
-        for (FieldDefinition fd : knowledgeBase.getFieldDefinitionList()) {
+        for (FieldDefinition fd : fieldDefinitions) {
             Property property = buildPropertyFromDefinition(fd);
             properties.put(fd.getFieldName(), property);
             
@@ -150,8 +438,8 @@ public class ElasticsearchIndexManager {
      * 更新索引 mapping (添加新字段)
      */
     public void updateMapping(KnowledgeBase knowledgeBase) throws IOException {
-        String indexName = knowledgeBase.getIndexName();
-        Map<String, Property> properties = buildProperties(knowledgeBase);
+        String indexName = knowledgeBase.getPhysicalIndexName();
+        Map<String, Property> properties = buildProperties(knowledgeBase.getFieldDefinitionList());
         
         esClient.indices().putMapping(m -> m
                 .index(indexName)
@@ -160,4 +448,20 @@ public class ElasticsearchIndexManager {
         
         log.info("Updated mapping for index: {}", indexName);
     }
+    
+    private static long longValue(Map<String, Object> status, String key) {
+        return status.get(key) instanceof Number number ? number.longValue() : 0;
+    }
+    
+    /**
+     * _reindex 任务进度
+     * 
+     * @param completed 是否结束
+     * @param total 待复制文档数
+     * @param created 已复制文档数
+     * @param versionConflicts 目标索引已存在而跳过的文档数
+     * @param error 任务失败或部分文档复制失败时的原因
+     */
+    public record ReindexProgress(boolean completed, long total, long created, long versionConflicts, String error) {
+    }
 }
@@ -0,0 +1,290 @@
+package com.enterprise.rag.infrastructure.elasticsearch;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ES 异步写缓冲区
+ * 
+ * <p>每个索引一个缓冲区，达到操作数、字节数或时间间隔任一阈值时刷出为一次批量写入，
+ * 由 {@link ElasticsearchBulkWriter} 执行 (切分与被拒绝项重试)。并发中的批量请求数由 bulkExecutor 的线程数限制。
+ * 同一索引的刷出按刷出顺序串行执行，对同一文档的先后写入不会在并发请求间乱序；并发来自不同索引。</p>
+ * 
+ * <p>每个索引已缓冲和写入中的操作总数有上限；写入跟不上时提交方阻塞等待，
+ * 超过 offerTimeout 仍无空间的操作以 429 失败返回，交由调用方重试。</p>
+ */
+@Slf4j
+@Component
+public class ElasticsearchWriteBuffer implements AutoCloseable {
+    
+    private static final String METRIC_PREFIX = "rag.es.write-buffer";
+    
+    private final ElasticsearchBulkWriter bulkWriter;
+    private final Executor bulkExecutor;
+    private final MeterRegistry meterRegistry;
+    private final int flushActions;
+    private final long flushBytes;
+    private final long flushIntervalMs;
+    private final int capacityPerIndex;
+    private final long offerTimeoutMs;
+    
+    private final Map<String, IndexBuffer> buffers = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingOperations = new AtomicInteger();
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean closed;
+    
+    public ElasticsearchWriteBuffer(ElasticsearchBulkWriter bulkWriter,
+                                    @Qualifier("bulkExecutor") Executor bulkExecutor,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${elasticsearch.write-buffer.flush-actions:1000}") int flushActions,
+                                    @Value("${elasticsearch.write-buffer.flush-bytes:5242880}") long flushBytes,
+                                    @Value("${elasticsearch.write-buffer.flush-interval-ms:1000}") long flushIntervalMs,
+                                    @Value("${elasticsearch.write-buffer.capacity-per-index:10000}") int capacityPerIndex,
+                                    @Value("${elasticsearch.write-buffer.offer-timeout-ms:30000}") long offerTimeoutMs) {
+        if (flushActions < 1 || capacityPerIndex < flushActions || flushIntervalMs < 1) {
+            throw new IllegalArgumentException("Write buffer capacity must be at least flush-actions");
+        }
+        this.bulkWriter = bulkWriter;
+        this.bulkExecutor = bulkExecutor;
+        this.meterRegistry = meterRegistry;
+        this.flushActions = flushActions;
+        this.flushBytes = flushBytes;
+        this.flushIntervalMs = flushIntervalMs;
+        this.capacityPerIndex = capacityPerIndex;
+        this.offerTimeoutMs = offerTimeoutMs;
+        
+        meterRegistry.gauge(METRIC_PREFIX + ".pending", pendingOperations);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "es-write-buffer-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushExpired, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * 提交一组操作
+     * 
+     * <p>缓冲区已满时阻塞 (反压)；返回的 Future 在这些操作全部写入 (可能跨多次刷出) 后完成，
+     * 请求整体失败时以异常完成</p>
+     * 
+     * @param indexName 索引名
+     * @param items 待写入的操作
+     * @return 逐文档的写入结果
+     */
+    public CompletableFuture<BulkIndexResult> submit(String indexName, List<ElasticsearchBulkWriter.BulkItem> items) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Write buffer is closed"));
+        }
+        if (items.isEmpty()) {
+            return CompletableFuture.completedFuture(BulkIndexResult.empty());
+        }
+        
+        PendingGroup group = new PendingGroup(items.size());
+        IndexBuffer buffer = buffers.computeIfAbsent(indexName, IndexBuffer::new);
+        for (ElasticsearchBulkWriter.BulkItem item : items) {
+            buffer.offer(new PendingItem(item, group));
+        }
+        return group.future;
+    }
+    
+    /**
+     * 刷出所有缓冲区并等待写入完成
+     */
+    public void flushAll() {
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+        for (IndexBuffer buffer : buffers.values()) {
+            inFlight.add(buffer.flush("manual"));
+        }
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+    }
+    
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        try {
+            flushAll();
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush write buffers on shutdown: {}", e.getMessage());
+        }
+    }
+    
+    private void flushExpired() {
+        long now = System.currentTimeMillis();
+        for (IndexBuffer buffer : buffers.values()) {
+            try {
+                if (buffer.isExpired(now)) {
+                    buffer.flush("interval");
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to flush write buffer for index {}", buffer.indexName, e);
+            }
+        }
+    }
+    
+    /**
+     * 单个索引的缓冲区
+     */
+    private final class IndexBuffer {
+        
+        private final String indexName;
+        private final Semaphore capacity;
+        private final ReentrantLock lock = new ReentrantLock();
+        private List<PendingItem> items = new ArrayList<>();
+        private long bytes;
+        private long oldestMillis;
+        // 最近一次刷出的写入，下一次刷出排在其后 (受 lock 保护)
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+        
+        private IndexBuffer(String indexName) {
+            this.indexName = indexName;
+            this.capacity = new Semaphore(capacityPerIndex);
+        }
+        
+        private void offer(PendingItem item) {
+            try {
+                if (!capacity.tryAcquire(offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    meterRegistry.counter(METRIC_PREFIX + ".rejected", "index", indexName).increment();
+                    item.group.complete(new BulkIndexResult.ItemFailure(item.item.documentId(), 429,
+                            "write_buffer_rejected", "Write buffer for index " + indexName + " is full"));
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                item.group.fail(e);
+                return;
+            }
+            pendingOperations.incrementAndGet();
+            
+            String reason = null;
+            lock.lock();
+            try {
+                if (items.isEmpty()) {
+                    oldestMillis = System.currentTimeMillis();
+                }
+                items.add(item);
+                bytes += item.item.sizeBytes();
+                if (items.size() >= flushActions) {
+                    reason = "actions";
+                } else if (bytes >= flushBytes) {
+                    reason = "bytes";
+                }
+                if (reason != null) {
+                    dispatch(drain(), reason);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private boolean isExpired(long now) {
+            lock.lock();
+            try {
+                return !items.isEmpty() && now - oldestMillis >= flushIntervalMs;
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        /**
+         * 刷出当前缓冲的操作
+         * 
+         * @return 该索引此前及本次刷出的写入全部完成时完成
+         */
+        private CompletableFuture<Void> flush(String reason) {
+            lock.lock();
+            try {
+                List<PendingItem> batch = drain();
+                return batch.isEmpty() ? tail : dispatch(batch, reason);
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private List<PendingItem> drain() {
+            List<PendingItem> batch = items;
+            items = new ArrayList<>();
+            bytes = 0;
+            return batch;
+        }
+        
+        /**
+         * 将批次排在该索引上一次刷出之后执行，须持有 lock 调用以保证排队顺序与刷出顺序一致
+         */
+        private CompletableFuture<Void> dispatch(List<PendingItem> batch, String reason) {
+            tail = tail.handle((ignored, error) -> null)
+                    .thenRunAsync(() -> write(batch, reason), bulkExecutor);
+            return tail;
+        }
+        
+        private void write(List<PendingItem> batch, String reason) {
+            List<ElasticsearchBulkWriter.BulkItem> bulkItems = new ArrayList<>(batch.size());
+            for (PendingItem pending : batch) {
+                bulkItems.add(pending.item);
+            }
+            
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                List<BulkIndexResult.ItemFailure> outcomes = bulkWriter.writeItems(bulkItems);
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).group.complete(outcomes.get(i));
+                }
+            } catch (Exception e) {
+                log.error("Bulk flush of {} operations to index {} failed: {}", batch.size(), indexName, e.getMessage());
+                for (PendingItem pending : batch) {
+                    pending.group.fail(e);
+                }
+            } finally {
+                sample.stop(meterRegistry.timer(METRIC_PREFIX + ".flush", "reason", reason));
+                capacity.release(batch.size());
+                pendingOperations.addAndGet(-batch.size());
+            }
+        }
+    }
+    
+    /**
+     * 缓冲中的操作
+     */
+    private record PendingItem(ElasticsearchBulkWriter.BulkItem item, PendingGroup group) {
+    }
+    
+    /**
+     * 一次提交的操作组，全部完成后汇总结果
+     */
+    private static final class PendingGroup {
+        
+        private final CompletableFuture<BulkIndexResult> future = new CompletableFuture<>();
+        private final List<BulkIndexResult.ItemFailure> failures = new ArrayList<>();
+        private int remaining;
+        private int succeeded;
+        
+        private PendingGroup(int size) {
+            this.remaining = size;
+        }
+        
+        private synchronized void complete(BulkIndexResult.ItemFailure failure) {
+            if (failure == null) {
+                succeeded++;
+            } else {
+                failures.add(failure);
+            }
+            if (--remaining == 0) {
+                future.complete(new BulkIndexResult(succeeded, List.copyOf(failures)));
+            }
+        }
+        
+        private void fail(Throwable error) {
+            future.completeExceptionally(error);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.enterprise.rag.infrastructure.external;
+
+import com.enterprise.rag.domain.service.EmbeddingService;
+import com.enterprise.rag.infrastructure.cache.EmbeddingVectorCache;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 带缓存的 Embedding 服务 (装饰器)
+ * 
+ * <p>embed 先查询 {@link EmbeddingVectorCache}，未命中时调用下游服务并写入缓存；
+ * 下游服务不可用时返回的降级向量不写入缓存。返回的向量可能被多个调用方共享，调用方不得修改。</p>
+ * 
+ * <p>embedBatch 为摄取路径使用，直接透传。</p>
+ */
+public class CachingEmbeddingService implements EmbeddingService, AutoCloseable {
+    
+    private final EmbeddingService delegate;
+    private final EmbeddingVectorCache cache;
+    
+    public CachingEmbeddingService(EmbeddingService delegate, EmbeddingVectorCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+    
+    @Override
+    public float[] embed(String text, String modelId) {
+        int dimension = delegate.getDimension(modelId);
+        EmbeddingVectorCache.CacheKey key = cache.keyOf(modelId, text);
+        
+        float[] cached = cache.get(key, dimension);
+        if (cached != null) {
+            return cached;
+        }
+        
+        float[] vector = delegate.embed(text, modelId);
+        if (!delegate.isFallback(vector)) {
+            cache.put(key, vector, dimension);
+        }
+        return vector;
+    }
+    
+    @Override
+    public CompletableFuture<float[]> embedAsync(String text, String modelId) {
+        int dimension = delegate.getDimension(modelId);
+        EmbeddingVectorCache.CacheKey key = cache.keyOf(modelId, text);
+        
+        float[] cached = cache.get(key, dimension);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        return delegate.embedAsync(text, modelId).thenApply(vector -> {
+            if (!delegate.isFallback(vector)) {
+                cache.put(key, vector, dimension);
+            }
+            return vector;
+        });
+    }
+    
+    @Override
+    public List<float[]> embedBatch(List<String> texts, String modelId) {
+        return delegate.embedBatch(texts, modelId);
+    }
+    
+    @Override
+    public CompletableFuture<List<float[]>> embedBatchAsync(List<String> texts, String modelId) {
+        return delegate.embedBatchAsync(texts, modelId);
+    }
+    
+    @Override
+    public boolean isFallback(float[] vector) {
+        return delegate.isFallback(vector);
+    }
+    
+    @Override
+    public int getDimension(String modelId) {
+        return delegate.getDimension(modelId);
+    }
+    
+    @Override
+    public int getMaxBatchSize(String modelId) {
+        return delegate.getMaxBatchSize(modelId);
+    }
+    
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
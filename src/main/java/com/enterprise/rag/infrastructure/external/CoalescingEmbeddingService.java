@@ -0,0 +1,271 @@
+package com.enterprise.rag.infrastructure.external;
+
+import com.enterprise.rag.domain.service.EmbeddingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 请求合并的 Embedding 服务 (装饰器)
+ * 
+ * <p>同一模型在合并窗口内的并发 embed 调用被合并为一次 embedBatch 请求，
+ * 窗口到期或累积到批量上限时立即发送。相同文本在排队或请求中时复用同一结果。</p>
+ * 
+ * <p>批量上限取配置值与下游模型批量上限中较小者。</p>
+ * 
+ * <p>embedBatch 调用方已自行批量，直接透传。</p>
+ */
+@Slf4j
+public class CoalescingEmbeddingService implements EmbeddingService, AutoCloseable {
+    
+    private static final String METRIC_PREFIX = "rag.embedding.coalescer";
+    
+    private final EmbeddingService delegate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final MeterRegistry meterRegistry;
+    
+    private final Map<String, ModelQueue> queues = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService dispatcher;
+    private final Counter deduplicated;
+    private final Timer queueWait;
+    
+    public CoalescingEmbeddingService(EmbeddingService delegate,
+                                      long windowMicros,
+                                      int maxBatchSize,
+                                      int maxConcurrentBatches,
+                                      MeterRegistry meterRegistry) {
+        if (maxBatchSize < 1 || maxConcurrentBatches < 1) {
+            throw new IllegalArgumentException("Coalescer batch size and concurrency must be positive");
+        }
+        this.delegate = delegate;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.meterRegistry = meterRegistry;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("rag-embedding-coalescer-timer"));
+        this.dispatcher = Executors.newFixedThreadPool(maxConcurrentBatches, daemonThreads("rag-embedding-coalescer-"));
+        this.deduplicated = Counter.builder(METRIC_PREFIX + ".deduplicated")
+                .description("Embed calls served by an identical queued or in-flight text")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder(METRIC_PREFIX + ".queue.wait")
+                .description("Time an embed call waited before its batch was sent")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public float[] embed(String text, String modelId) {
+        ModelQueue queue = queues.computeIfAbsent(modelKey(modelId), key -> new ModelQueue(modelId));
+        try {
+            return queue.submit(text).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    @Override
+    public CompletableFuture<float[]> embedAsync(String text, String modelId) {
+        ModelQueue queue = queues.computeIfAbsent(modelKey(modelId), key -> new ModelQueue(modelId));
+        // 结果可能被多个调用方共享，返回副本避免调用方取消影响其他调用方
+        return queue.submit(text).copy();
+    }
+    
+    @Override
+    public List<float[]> embedBatch(List<String> texts, String modelId) {
+        return delegate.embedBatch(texts, modelId);
+    }
+    
+    @Override
+    public CompletableFuture<List<float[]>> embedBatchAsync(List<String> texts, String modelId) {
+        return delegate.embedBatchAsync(texts, modelId);
+    }
+    
+    @Override
+    public boolean isFallback(float[] vector) {
+        return delegate.isFallback(vector);
+    }
+    
+    @Override
+    public int getDimension(String modelId) {
+        return delegate.getDimension(modelId);
+    }
+    
+    @Override
+    public int getMaxBatchSize(String modelId) {
+        return delegate.getMaxBatchSize(modelId);
+    }
+    
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        dispatcher.shutdown();
+    }
+    
+    private static String modelKey(String modelId) {
+        return modelId != null ? modelId : "";
+    }
+    
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * 单个模型的合并队列
+     */
+    private final class ModelQueue {
+        
+        private final String modelId;
+        private final int batchLimit;
+        private final DistributionSummary batchSize;
+        
+        /**
+         * 等待发送的文本 (保持到达顺序)
+         */
+        private LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+        
+        /**
+         * 已发送、等待响应的文本
+         */
+        private final Map<String, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+        
+        private ScheduledFuture<?> scheduledFlush;
+        
+        private ModelQueue(String modelId) {
+            this.modelId = modelId;
+            this.batchLimit = Math.max(1, Math.min(maxBatchSize, delegate.getMaxBatchSize(modelId)));
+            this.batchSize = DistributionSummary.builder(METRIC_PREFIX + ".batch.size")
+                    .description("Number of distinct texts per coalesced embedding request")
+                    .tag("model", modelKey(modelId).isEmpty() ? "default" : modelId)
+                    .register(meterRegistry);
+        }
+        
+        private CompletableFuture<float[]> submit(String text) {
+            CompletableFuture<float[]> existing = inFlight.get(text);
+            if (existing != null) {
+                deduplicated.increment();
+                return existing;
+            }
+            
+            LinkedHashMap<String, Pending> ready = null;
+            CompletableFuture<float[]> future;
+            synchronized (this) {
+                Pending queued = pending.get(text);
+                if (queued != null) {
+                    deduplicated.increment();
+                    return queued.future();
+                }
+                
+                future = new CompletableFuture<>();
+                pending.put(text, new Pending(future, System.nanoTime()));
+                
+                if (pending.size() >= batchLimit) {
+                    ready = drain();
+                } else if (pending.size() == 1) {
+                    scheduledFlush = scheduler.schedule(this::flushOnTimer, windowNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+            
+            if (ready != null) {
+                dispatch(ready);
+            }
+            return future;
+        }
+        
+        private void flushOnTimer() {
+            LinkedHashMap<String, Pending> ready;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                ready = drain();
+            }
+            dispatch(ready);
+        }
+        
+        /**
+         * 取出当前批次 (需持有锁)
+         */
+        private LinkedHashMap<String, Pending> drain() {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+            LinkedHashMap<String, Pending> ready = pending;
+            pending = new LinkedHashMap<>();
+            ready.forEach((text, p) -> inFlight.put(text, p.future()));
+            return ready;
+        }
+        
+        private void dispatch(LinkedHashMap<String, Pending> batch) {
+            try {
+                dispatcher.execute(() -> send(batch));
+            } catch (RuntimeException e) {
+                fail(batch, e);
+            }
+        }
+        
+        private void send(LinkedHashMap<String, Pending> batch) {
+            long sentAt = System.nanoTime();
+            List<String> texts = new ArrayList<>(batch.keySet());
+            batchSize.record(texts.size());
+            batch.values().forEach(p -> queueWait.record(sentAt - p.enqueuedNanos(), TimeUnit.NANOSECONDS));
+            
+            try {
+                List<float[]> vectors = delegate.embedBatch(texts, modelId);
+                if (vectors.size() != texts.size()) {
+                    throw new IllegalStateException(String.format(
+                            "Embedding service returned %d vectors for %d texts (model %s)",
+                            vectors.size(), texts.size(), modelId));
+                }
+                for (int i = 0; i < texts.size(); i++) {
+                    inFlight.remove(texts.get(i));
+                    batch.get(texts.get(i)).future().complete(vectors.get(i));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Coalesced embedding request of {} texts failed: {}", texts.size(), e.getMessage());
+                fail(batch, e);
+            }
+        }
+        
+        private void fail(LinkedHashMap<String, Pending> batch, RuntimeException e) {
+            batch.forEach((text, p) -> {
+                inFlight.remove(text);
+                p.future().completeExceptionally(e);
+            });
+        }
+    }
+    
+    /**
+     * 排队中的文本
+     * 
+     * @param future 调用方等待的结果
+     * @param enqueuedNanos 入队时间
+     */
+    private record Pending(CompletableFuture<float[]> future, long enqueuedNanos) {
+    }
+}
@@ -1,27 +1,48 @@
 package com.enterprise.rag.infrastructure.external;
 
 import com.enterprise.rag.domain.service.EmbeddingService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Embedding 客户端实现
  * 
- * <p>调用外部 Embedding 服务生成向量</p>
+ * <p>调用外部 Embedding 服务生成向量。基于 JDK HttpClient 非阻塞发送请求，
+ * 连接复用 (keep-alive) 并优先协商 HTTP/2；响应以流式方式解析，embedding 数组直接解码为 float[]。</p>
  */
 @Slf4j
 @Service
 public class EmbeddingClient implements EmbeddingService {
     
-    private final RestTemplate restTemplate;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+    private final URI embeddingsUri;
+    private final Duration requestTimeout;
     
-    @Value("${embedding.service.base-url:http://localhost:8081}")
-    private String baseUrl;
+    /**
+     * 已返回的降级向量 (按引用识别，弱引用不阻止回收)
+     */
+    private final Set<float[]> fallbackVectors = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
     
     @Value("${embedding.service.default-model:text-embedding-ada-002}")
     private String defaultModel;
@@ -29,6 +50,9 @@ public class EmbeddingClient implements EmbeddingService {
     @Value("${embedding.service.default-dimension:1536}")
     private int defaultDimension;
     
+    @Value("${embedding.service.default-max-batch-size:64}")
+    private int defaultMaxBatchSize;
+    
     private final Map<String, Integer> modelDimensions = Map.of(
             "text-embedding-ada-002", 1536,
             "text-embedding-3-small", 1536,
@@ -37,8 +61,25 @@ public class EmbeddingClient implements EmbeddingService {
             "bge-base-zh", 768
     );
     
-    public EmbeddingClient() {
-        this.restTemplate = new RestTemplate();
+    private final Map<String, Integer> modelMaxBatchSizes = Map.of(
+            "text-embedding-ada-002", 2048,
+            "text-embedding-3-small", 2048,
+            "text-embedding-3-large", 2048
+    );
+    
+    public EmbeddingClient(ObjectMapper objectMapper,
+                           @Value("${embedding.service.base-url:http://localhost:8081}") String baseUrl,
+                           @Value("${embedding.service.timeout:30000}") long timeoutMs,
+                           @Value("${embedding.service.connect-timeout:5000}") long connectTimeoutMs,
+                           @Value("${embedding.service.http-version:HTTP_2}") HttpClient.Version httpVersion) {
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+        this.embeddingsUri = URI.create(baseUrl + "/v1/embeddings");
+        this.requestTimeout = Duration.ofMillis(timeoutMs);
+        this.httpClient = HttpClient.newBuilder()
+                .version(httpVersion)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
     }
     
     @Override
@@ -49,42 +90,65 @@ public class EmbeddingClient implements EmbeddingService {
     
     @Override
     public List<float[]> embedBatch(List<String> texts, String modelId) {
+        try {
+            return embedBatchAsync(texts, modelId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    @Override
+    public CompletableFuture<float[]> embedAsync(String text, String modelId) {
+        return embedBatchAsync(List.of(text), modelId)
+                .thenApply(results -> results.isEmpty() ? new float[0] : results.get(0));
+    }
+    
+    @Override
+    public CompletableFuture<List<float[]>> embedBatchAsync(List<String> texts, String modelId) {
         if (texts == null || texts.isEmpty()) {
-            return List.of();
+            return CompletableFuture.completedFuture(List.of());
         }
         
         String model = modelId != null ? modelId : defaultModel;
+        int dimension = getDimension(model);
         
+        HttpRequest request;
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            Map<String, Object> requestBody = Map.of(
-                    "model", model,
-                    "input", texts
-            );
-            
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-            
-            @SuppressWarnings("unchecked")
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                    baseUrl + "/v1/embeddings",
-                    HttpMethod.POST,
-                    request,
-                    (Class<Map<String, Object>>) (Class<?>) Map.class
-            );
-            
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return parseEmbeddingResponse(response.getBody());
-            }
-            
-            log.error("Embedding service returned non-success status: {}", response.getStatusCode());
-            return generateMockEmbeddings(texts.size(), getDimension(model));
-            
-        } catch (Exception e) {
-            log.warn("Failed to call embedding service, using mock embeddings: {}", e.getMessage());
-            return generateMockEmbeddings(texts.size(), getDimension(model));
+            request = HttpRequest.newBuilder(embeddingsUri)
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(
+                            objectMapper.writeValueAsBytes(Map.of("model", model, "input", texts))))
+                    .build();
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to serialize embedding request", e));
         }
+        
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> {
+                    try (InputStream body = response.body()) {
+                        if (response.statusCode() / 100 != 2) {
+                            log.error("Embedding service returned non-success status: {}", response.statusCode());
+                            return generateMockEmbeddings(texts.size(), dimension);
+                        }
+                        return parseEmbeddingResponse(body, texts.size(), dimension);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    log.warn("Failed to call embedding service, using mock embeddings: {}", cause.getMessage());
+                    return generateMockEmbeddings(texts.size(), dimension);
+                });
+    }
+    
+    @Override
+    public boolean isFallback(float[] vector) {
+        return vector != null && fallbackVectors.contains(vector);
     }
     
     @Override
@@ -93,32 +157,89 @@ public class EmbeddingClient implements EmbeddingService {
         return modelDimensions.getOrDefault(model, defaultDimension);
     }
     
-    @SuppressWarnings("unchecked")
-    private List<float[]> parseEmbeddingResponse(Map<String, Object> responseBody) {
-        List<float[]> embeddings = new ArrayList<>();
+    @Override
+    public int getMaxBatchSize(String modelId) {
+        String model = modelId != null ? modelId : defaultModel;
+        return modelMaxBatchSizes.getOrDefault(model, defaultMaxBatchSize);
+    }
+    
+    /**
+     * 流式解析响应: {"data": [{"embedding": [...], "index": 0}, ...], ...}
+     * 
+     * <p>按 index 字段归位，缺省时按出现顺序</p>
+     */
+    private List<float[]> parseEmbeddingResponse(InputStream body, int expectedCount, int expectedDimension)
+            throws IOException {
+        float[][] embeddings = new float[expectedCount][];
+        int position = 0;
         
-        Object dataObj = responseBody.get("data");
-        if (dataObj instanceof List) {
-            List<Map<String, Object>> dataList = (List<Map<String, Object>>) dataObj;
-            
-            for (Map<String, Object> item : dataList) {
-                Object embeddingObj = item.get("embedding");
-                if (embeddingObj instanceof List) {
-                    List<Number> embeddingList = (List<Number>) embeddingObj;
-                    float[] embedding = new float[embeddingList.size()];
-                    for (int i = 0; i < embeddingList.size(); i++) {
-                        embedding[i] = embeddingList.get(i).floatValue();
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Embedding response is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!"data".equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    float[] embedding = null;
+                    int index = -1;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String itemField = parser.currentName();
+                        JsonToken itemValue = parser.nextToken();
+                        if ("embedding".equals(itemField) && itemValue == JsonToken.START_ARRAY) {
+                            embedding = readFloatArray(parser, expectedDimension);
+                        } else if ("index".equals(itemField) && itemValue == JsonToken.VALUE_NUMBER_INT) {
+                            index = parser.getIntValue();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    
+                    int slot = index >= 0 ? index : position;
+                    position++;
+                    if (embedding != null && slot < expectedCount) {
+                        embeddings[slot] = embedding;
                     }
-                    embeddings.add(embedding);
                 }
             }
         }
         
-        return embeddings;
+        List<float[]> result = new ArrayList<>(expectedCount);
+        for (float[] embedding : embeddings) {
+            if (embedding == null) {
+                throw new IllegalStateException("Embedding response is missing vectors: expected " + expectedCount);
+            }
+            result.add(embedding);
+        }
+        return result;
+    }
+    
+    /**
+     * 读取数值数组，解析器位于 START_ARRAY
+     */
+    private float[] readFloatArray(JsonParser parser, int expectedDimension) throws IOException {
+        float[] values = new float[Math.max(expectedDimension, 16)];
+        int size = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_NUMBER_INT) {
+                throw new IOException("Unexpected token in embedding array: " + token);
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = parser.getFloatValue();
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
     }
     
     /**
-     * 生成模拟向量 (用于测试或服务不可用时的降级)
+     * 生成模拟向量 (用于测试或服务不可用时的降级)，并登记为降级向量
      */
     private List<float[]> generateMockEmbeddings(int count, int dimension) {
         List<float[]> embeddings = new ArrayList<>();
@@ -140,6 +261,7 @@ public class EmbeddingClient implements EmbeddingService {
             }
             
             embeddings.add(embedding);
+            fallbackVectors.add(embedding);
         }
         
         return embeddings;
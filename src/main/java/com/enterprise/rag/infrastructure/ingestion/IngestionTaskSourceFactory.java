@@ -0,0 +1,67 @@
+package com.enterprise.rag.infrastructure.ingestion;
+
+import com.enterprise.rag.application.service.BulkIngestionService;
+import com.enterprise.rag.application.service.NdjsonLineSource;
+import com.enterprise.rag.domain.model.ingestion.IngestionTask;
+import com.enterprise.rag.infrastructure.kafka.KafkaRangeLineSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 摄取任务来源工厂
+ * 
+ * <p>按任务的来源类型打开行来源，并定位到任务检查点 (下一个待读位置)</p>
+ */
+@Component
+public class IngestionTaskSourceFactory {
+    
+    private final ConsumerFactory<String, String> consumerFactory;
+    private final int kafkaMaxPollRecords;
+    private final Duration kafkaPollTimeout;
+    private final int maxLineBytes;
+    
+    public IngestionTaskSourceFactory(
+            ConsumerFactory<String, String> consumerFactory,
+            @Value("${rag.ingestion.task.kafka-max-poll-records:500}") int kafkaMaxPollRecords,
+            @Value("${rag.ingestion.task.kafka-poll-timeout-ms:1000}") long kafkaPollTimeoutMs,
+            @Value("${rag.ingestion.bulk-api.max-line-bytes:1048576}") int maxLineBytes) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaMaxPollRecords = kafkaMaxPollRecords;
+        this.kafkaPollTimeout = Duration.ofMillis(kafkaPollTimeoutMs);
+        this.maxLineBytes = maxLineBytes;
+    }
+    
+    /**
+     * 打开任务来源
+     * 
+     * <p>文件来源的位置为从 0 开始的行序号，Kafka 来源的位置为消息位移</p>
+     */
+    public BulkIngestionService.LineSource open(IngestionTask task) throws IOException {
+        return switch (task.getSourceType()) {
+            case FILE, NDJSON_UPLOAD -> openFile(Path.of(task.getSourceLocation()), task.getCheckpoint());
+            case KAFKA_RANGE -> KafkaRangeLineSource.open(consumerFactory,
+                    KafkaRangeLineSource.Range.parse(task.getSourceLocation()),
+                    task.getCheckpoint(), kafkaMaxPollRecords, kafkaPollTimeout);
+        };
+    }
+    
+    /**
+     * 打开 NDJSON 文件并跳过检查点之前的行
+     */
+    private BulkIngestionService.LineSource openFile(Path file, long checkpoint) throws IOException {
+        NdjsonLineSource source = new NdjsonLineSource(Files.newInputStream(file), 0, maxLineBytes, true);
+        try {
+            source.skip(checkpoint);
+        } catch (IOException | RuntimeException e) {
+            source.close();
+            throw e;
+        }
+        return source;
+    }
+}
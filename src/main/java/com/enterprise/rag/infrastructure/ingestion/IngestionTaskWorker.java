@@ -0,0 +1,367 @@
+package com.enterprise.rag.infrastructure.ingestion;
+
+import com.enterprise.rag.application.service.BulkIngestionService;
+import com.enterprise.rag.application.service.IngestionTaskService;
+import com.enterprise.rag.application.service.KnowledgeBaseBulkLoadService;
+import com.enterprise.rag.domain.model.ingestion.IngestionSourceType;
+import com.enterprise.rag.domain.model.ingestion.IngestionTask;
+import com.enterprise.rag.domain.model.ingestion.IngestionTaskRepository;
+import com.enterprise.rag.domain.model.ingestion.IngestionTaskStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 摄取任务工作线程池
+ * 
+ * <p>轮询线程定期领取等待中的任务，以及持有者心跳已过期 (节点崩溃) 的运行中任务，交给固定大小的工作线程执行；
+ * 同时为本节点正在执行的任务刷新心跳。工作线程按微批次处理来源，每隔 checkpoint-interval-ms 持久化检查点与进度，
+ * 崩溃后从最近的检查点恢复：检查点之后的行会重新处理，未指定 ID 的文档由 (任务 ID, 行位置) 派生 ID，重放不产生重复。</p>
+ * 
+ * <p>节点停机时运行中的任务在当前批次结束后释放回等待状态；任务被取消或被其他节点接管时同样在批次边界停止。</p>
+ * 
+ * <p>上传任务的暂存文件只存在于接收节点，这类任务只由同名节点领取和接管。</p>
+ * 
+ * <p>大任务执行期间知识库进入批量装载模式，任务完成、失败或取消时退出；轮询线程定期恢复无人持有的装载模式。</p>
+ */
+@Slf4j
+@Component
+public class IngestionTaskWorker implements SmartLifecycle {
+    
+    private final IngestionTaskRepository taskRepository;
+    private final BulkIngestionService bulkIngestionService;
+    private final IngestionTaskSourceFactory sourceFactory;
+    private final KnowledgeBaseBulkLoadService bulkLoadService;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int workers;
+    private final long pollIntervalMs;
+    private final long heartbeatTimeoutMs;
+    private final long checkpointIntervalMs;
+    private final long shutdownTimeoutMs;
+    private final long bulkLoadSweepIntervalMs;
+    private final String nodeName;
+    private final String nodeId;
+    
+    private final Map<String, TaskExecution> executions = new ConcurrentHashMap<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile boolean running;
+    private long lastBulkLoadSweepNanos = System.nanoTime();
+    private ExecutorService pool;
+    private ScheduledExecutorService poller;
+    
+    public IngestionTaskWorker(
+            IngestionTaskRepository taskRepository,
+            BulkIngestionService bulkIngestionService,
+            IngestionTaskSourceFactory sourceFactory,
+            KnowledgeBaseBulkLoadService bulkLoadService,
+            IngestionTaskService taskService,
+            MeterRegistry meterRegistry,
+            @Value("${rag.ingestion.task.enabled:true}") boolean enabled,
+            @Value("${rag.ingestion.task.workers:2}") int workers,
+            @Value("${rag.ingestion.task.poll-interval-ms:5000}") long pollIntervalMs,
+            @Value("${rag.ingestion.task.heartbeat-timeout-ms:120000}") long heartbeatTimeoutMs,
+            @Value("${rag.ingestion.task.checkpoint-interval-ms:5000}") long checkpointIntervalMs,
+            @Value("${rag.ingestion.task.shutdown-timeout-ms:30000}") long shutdownTimeoutMs,
+            @Value("${rag.index.bulk-load.sweep-interval-ms:60000}") long bulkLoadSweepIntervalMs) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Ingestion task workers must be positive");
+        }
+        if (heartbeatTimeoutMs <= pollIntervalMs * 2) {
+            throw new IllegalArgumentException("Ingestion task heartbeat timeout must exceed twice the poll interval");
+        }
+        this.taskRepository = taskRepository;
+        this.bulkIngestionService = bulkIngestionService;
+        this.sourceFactory = sourceFactory;
+        this.bulkLoadService = bulkLoadService;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.workers = workers;
+        this.pollIntervalMs = pollIntervalMs;
+        this.heartbeatTimeoutMs = heartbeatTimeoutMs;
+        this.checkpointIntervalMs = checkpointIntervalMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.bulkLoadSweepIntervalMs = bulkLoadSweepIntervalMs;
+        this.nodeName = taskService.getNodeName();
+        this.nodeId = nodeName + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+    
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        AtomicInteger threadIndex = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(workers,
+                r -> new Thread(r, "rag-ingestion-task-" + threadIndex.incrementAndGet()));
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rag-ingestion-task-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Started {} ingestion task workers on node {}", workers, nodeId);
+    }
+    
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        poller.shutdownNow();
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Ingestion tasks {} did not stop within {} ms, they resume after their heartbeat expires",
+                        executions.keySet(), shutdownTimeoutMs);
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * 刷新本节点任务的心跳并领取新任务
+     */
+    private void poll() {
+        try {
+            for (TaskExecution execution : executions.values()) {
+                if (!taskRepository.heartbeat(execution.task.getId(), nodeId)) {
+                    execution.lost = true;
+                }
+            }
+            sweepBulkLoads();
+            
+            int idle = workers - active.get();
+            if (idle <= 0 || !running) {
+                return;
+            }
+            LocalDateTime staleBefore = LocalDateTime.now().minusNanos(heartbeatTimeoutMs * 1_000_000);
+            for (IngestionTask task : taskRepository.findClaimable(nodeName, staleBefore, idle)) {
+                if (executions.containsKey(task.getId())
+                        || !taskRepository.claim(task.getId(), nodeId, nodeName, staleBefore)) {
+                    continue;
+                }
+                if (task.getStatus() == IngestionTaskStatus.RUNNING) {
+                    log.info("Resuming ingestion task {} abandoned by {} from checkpoint {}",
+                            task.getId(), task.getOwner(), task.getCheckpoint());
+                }
+                TaskExecution execution = new TaskExecution(task);
+                executions.put(task.getId(), execution);
+                active.incrementAndGet();
+                try {
+                    pool.execute(() -> {
+                        try {
+                            run(execution);
+                        } finally {
+                            executions.remove(task.getId());
+                            active.decrementAndGet();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // 停机中，任务保持运行状态，心跳过期后由其他节点接管
+                    executions.remove(task.getId());
+                    active.decrementAndGet();
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to poll ingestion tasks: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 执行任务直至来源读完、失败或被中止
+     */
+    private void run(TaskExecution execution) {
+        IngestionTask task = execution.task;
+        String taskId = task.getId();
+        log.info("Running ingestion task {} ({} {}) from checkpoint {}",
+                taskId, task.getSourceType(), task.getSourceLocation(), task.getCheckpoint());
+        
+        BulkIngestionService.BulkOptions options = new BulkIngestionService.BulkOptions(
+                taskId, task.getSourceType() == IngestionSourceType.KAFKA_RANGE, true);
+        // 停机释放或被其他节点接管时任务仍在执行，不退出批量装载模式
+        boolean endBulkLoad = false;
+        try (BulkIngestionService.LineSource source = sourceFactory.open(task)) {
+            endBulkLoad = bulkLoadService.isLargeLoad(task) && bulkLoadService.begin(task.getKnowledgeBaseId());
+            bulkIngestionService.ingest(task.getKnowledgeBaseId(), source, options, execution);
+            
+            long total = task.getSourceType() == IngestionSourceType.KAFKA_RANGE
+                    ? task.getTotalDocuments() : execution.processed + execution.failed;
+            IngestionTask.Progress progress = execution.progress();
+            if (taskRepository.finish(taskId, nodeId, IngestionTaskStatus.COMPLETED, total, progress)) {
+                log.info("Completed ingestion task {}: {} processed, {} failed, {} docs/s, {} embeddings/s",
+                        taskId, progress.processedDocuments(), progress.failedDocuments(),
+                        rate(progress.processedDocuments() + progress.failedDocuments(), progress.elapsedMs()),
+                        rate(progress.embeddedVectors(), progress.elapsedMs()));
+                deleteSpool(task);
+            }
+        } catch (TaskStoppedException e) {
+            if (!execution.lost) {
+                taskRepository.release(taskId, nodeId, execution.progress());
+                log.info("Released ingestion task {} at checkpoint {} for shutdown", taskId, execution.checkpoint);
+                endBulkLoad = false;
+            } else if (taskRepository.findById(taskId).map(IngestionTask::getStatus)
+                    .orElse(null) == IngestionTaskStatus.CANCELLED) {
+                log.info("Stopped cancelled ingestion task {} at checkpoint {}", taskId, execution.checkpoint);
+                deleteSpool(task);
+            } else {
+                log.warn("Stopped ingestion task {}: no longer owned by node {}", taskId, nodeId);
+                endBulkLoad = false;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Ingestion task {} failed at checkpoint {}", taskId, execution.checkpoint, e);
+            execution.lastError = e.getMessage();
+            taskRepository.finish(taskId, nodeId, IngestionTaskStatus.FAILED, task.getTotalDocuments(),
+                    execution.progress());
+        } finally {
+            if (endBulkLoad) {
+                endBulkLoad(task);
+            }
+        }
+    }
+    
+    private void endBulkLoad(IngestionTask task) {
+        try {
+            bulkLoadService.end(task.getKnowledgeBaseId(), task.getId());
+        } catch (RuntimeException e) {
+            log.warn("Failed to end bulk load of knowledge base {} after ingestion task {}: {}",
+                    task.getKnowledgeBaseId(), task.getId(), e.getMessage());
+        }
+    }
+    
+    /**
+     * 按间隔恢复无人持有的批量装载模式
+     */
+    private void sweepBulkLoads() {
+        long now = System.nanoTime();
+        if (now - lastBulkLoadSweepNanos < TimeUnit.MILLISECONDS.toNanos(bulkLoadSweepIntervalMs)) {
+            return;
+        }
+        lastBulkLoadSweepNanos = now;
+        try {
+            bulkLoadService.releaseAbandoned();
+        } catch (RuntimeException e) {
+            log.warn("Failed to release abandoned bulk loads: {}", e.getMessage());
+        }
+    }
+    
+    private static void deleteSpool(IngestionTask task) {
+        if (task.getSourceType() != IngestionSourceType.NDJSON_UPLOAD) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Path.of(task.getSourceLocation()));
+        } catch (IOException e) {
+            log.warn("Failed to delete spooled upload for ingestion task {}: {}", task.getId(), e.getMessage());
+        }
+    }
+    
+    private static String rate(long count, long elapsedMs) {
+        return elapsedMs > 0 ? String.format("%.1f", count * 1000.0 / elapsedMs) : "0";
+    }
+    
+    /**
+     * 单个任务的执行状态，接收逐批进度并按间隔持久化检查点
+     */
+    private final class TaskExecution implements BulkIngestionService.StatusSink {
+        
+        private final IngestionTask task;
+        private final long startNanos = System.nanoTime();
+        private long processed;
+        private long failed;
+        private long embedded;
+        private long checkpoint;
+        private long lastSavedNanos = startNanos;
+        private String lastError;
+        
+        /**
+         * 任务已被取消或被其他节点接管
+         */
+        private volatile boolean lost;
+        
+        private TaskExecution(IngestionTask task) {
+            this.task = task;
+            this.processed = task.getProcessedDocuments();
+            this.failed = task.getFailedDocuments();
+            this.embedded = task.getEmbeddedVectors();
+            this.checkpoint = task.getCheckpoint();
+            this.lastError = task.getErrorMessage();
+        }
+        
+        @Override
+        public void accept(BulkIngestionService.LineStatus status) {
+            if (!status.succeeded()) {
+                lastError = "Position " + status.line() + ": " + status.error() + ": " + status.reason();
+            }
+        }
+        
+        @Override
+        public void batchCompleted(BulkIngestionService.BatchProgress progress) {
+            processed += progress.succeeded();
+            failed += progress.failed();
+            embedded += progress.embeddings();
+            checkpoint = progress.lastPosition() + 1;
+            meterRegistry.counter("rag.ingestion.task.documents", "knowledge_base", task.getKnowledgeBaseId(),
+                    "result", "success").increment(progress.succeeded());
+            meterRegistry.counter("rag.ingestion.task.documents", "knowledge_base", task.getKnowledgeBaseId(),
+                    "result", "failure").increment(progress.failed());
+            meterRegistry.counter("rag.ingestion.task.embeddings", "knowledge_base", task.getKnowledgeBaseId())
+                    .increment(progress.embeddings());
+            
+            if (lost || !running) {
+                throw new TaskStoppedException();
+            }
+            long now = System.nanoTime();
+            if (now - lastSavedNanos >= TimeUnit.MILLISECONDS.toNanos(checkpointIntervalMs)) {
+                lastSavedNanos = now;
+                if (!taskRepository.saveProgress(task.getId(), nodeId, progress())) {
+                    lost = true;
+                    throw new TaskStoppedException();
+                }
+            }
+        }
+        
+        private IngestionTask.Progress progress() {
+            long elapsedMs = task.getElapsedMs() + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            String error = lastError != null && lastError.length() > 2000 ? lastError.substring(0, 2000) : lastError;
+            return new IngestionTask.Progress(checkpoint, processed, failed, embedded, elapsedMs, error);
+        }
+    }
+    
+    /**
+     * 任务在批次边界被中止 (停机、取消或被接管)
+     */
+    private static final class TaskStoppedException extends RuntimeException {
+        
+        private TaskStoppedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.enterprise.rag.infrastructure.kafka;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 数据摄取 Kafka 批量消费者
+ * 
+ * <p>一次处理一个 poll 的全部记录 (见 {@link IngestionBatchProcessor})，
+ * 整批写入且失败消息转发成功后才提交位移</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "rag.ingestion.consumer.mode", havingValue = "batch", matchIfMissing = true)
+public class BatchIngestionConsumer {
+    
+    private final IngestionBatchProcessor batchProcessor;
+    
+    @KafkaListener(
+            topics = "${rag.ingestion.topic:rag.ingestion.raw}",
+            groupId = "${spring.kafka.consumer.group-id:rag-ingestion-group}",
+            containerFactory = "kafkaListenerContainerFactory",
+            properties = "max.poll.records=${rag.ingestion.batch-size:100}"
+    )
+    public void consume(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) {
+        long startTime = System.currentTimeMillis();
+        
+        int failed = batchProcessor.process(records);
+        acknowledgment.acknowledge();
+        
+        log.info("Processed {} ingestion messages in {} ms ({} routed to retry or DLQ)",
+                records.size(), System.currentTimeMillis() - startTime, failed);
+    }
+}
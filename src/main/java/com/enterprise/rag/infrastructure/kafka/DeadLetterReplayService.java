@@ -0,0 +1,217 @@
+package com.enterprise.rag.infrastructure.kafka;
+
+import com.google.common.util.concurrent.RateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 死信重放服务
+ * 
+ * <p>以限定速率将死信队列中的消息重新发布到其原始主题，重放位置保存在独立的消费组中。
+ * 每次重放只处理启动时已存在的消息，重放后再次失败回到死信队列的消息不会在同一次重放中循环。</p>
+ */
+@Slf4j
+@Component
+public class DeadLetterReplayService implements AutoCloseable {
+    
+    private final ConsumerFactory<String, String> consumerFactory;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final String ingestionTopic;
+    private final String dlqTopic;
+    private final String replayGroupId;
+    private final long sendTimeoutMs;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "dlq-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private volatile ReplayStatus status = ReplayStatus.idle();
+    private volatile boolean stopRequested;
+    
+    public DeadLetterReplayService(
+            ConsumerFactory<String, String> consumerFactory,
+            KafkaTemplate<String, String> kafkaTemplate,
+            @Value("${rag.ingestion.topic:rag.ingestion.raw}") String ingestionTopic,
+            @Value("${rag.ingestion.dlq.replay-group-id:rag-ingestion-dlq-replay}") String replayGroupId,
+            @Value("${rag.ingestion.dlq.send-timeout-ms:30000}") long sendTimeoutMs) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.ingestionTopic = ingestionTopic;
+        this.dlqTopic = ingestionTopic + ".dlq";
+        this.replayGroupId = replayGroupId;
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+    
+    /**
+     * 启动一次重放
+     * 
+     * @param ratePerSecond 每秒最多重放的消息数
+     * @param maxMessages 最多重放的消息数
+     * @throws IllegalStateException 已有重放在运行
+     */
+    public synchronized ReplayStatus start(double ratePerSecond, long maxMessages) {
+        if (ratePerSecond <= 0 || maxMessages <= 0) {
+            throw new IllegalArgumentException("Replay rate and max messages must be positive");
+        }
+        if (status.running()) {
+            throw new IllegalStateException("A dead letter replay is already running");
+        }
+        
+        stopRequested = false;
+        status = new ReplayStatus(true, ratePerSecond, maxMessages, 0, LocalDateTime.now(), null, null);
+        executor.execute(() -> replay(ratePerSecond, maxMessages));
+        log.info("Started dead letter replay from {} at {} msg/s (max {})", dlqTopic, ratePerSecond, maxMessages);
+        return status;
+    }
+    
+    /**
+     * 请求停止当前重放 (当前消息发布完成后停止)
+     */
+    public ReplayStatus stop() {
+        stopRequested = true;
+        return status;
+    }
+    
+    public ReplayStatus getStatus() {
+        return status;
+    }
+    
+    @Override
+    public void close() {
+        stopRequested = true;
+        executor.shutdown();
+    }
+    
+    private void replay(double ratePerSecond, long maxMessages) {
+        RateLimiter rateLimiter = RateLimiter.create(ratePerSecond);
+        long replayed = 0;
+        String error = null;
+        
+        try (Consumer<String, String> consumer = consumerFactory.createConsumer(replayGroupId, "-replay")) {
+            List<TopicPartition> partitions = consumer.partitionsFor(dlqTopic).stream()
+                    .map(p -> new TopicPartition(p.topic(), p.partition()))
+                    .toList();
+            consumer.assign(partitions);
+            
+            // 只重放启动时已存在的消息
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+            Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+            for (TopicPartition partition : partitions) {
+                OffsetAndMetadata offset = committed.get(partition);
+                if (offset != null) {
+                    consumer.seek(partition, offset.offset());
+                } else {
+                    consumer.seekToBeginning(List.of(partition));
+                }
+            }
+            
+            while (!stopRequested && replayed < maxMessages && !reachedEnd(consumer, partitions, endOffsets)) {
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofSeconds(1));
+                Map<TopicPartition, OffsetAndMetadata> progress = new HashMap<>();
+                
+                for (ConsumerRecord<String, String> record : records) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    if (stopRequested || replayed >= maxMessages || record.offset() >= endOffsets.get(partition)) {
+                        continue;
+                    }
+                    rateLimiter.acquire();
+                    republish(record);
+                    progress.put(partition, new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+                
+                if (!progress.isEmpty()) {
+                    consumer.commitSync(progress);
+                    status = status.withReplayed(replayed);
+                }
+                // 本批未处理完的消息回退，下次从已提交位置继续
+                for (TopicPartition partition : records.partitions()) {
+                    OffsetAndMetadata offset = progress.get(partition);
+                    if (offset != null) {
+                        consumer.seek(partition, offset.offset());
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Dead letter replay failed after {} messages", replayed, e);
+            error = e.getMessage();
+        }
+        
+        status = new ReplayStatus(false, ratePerSecond, maxMessages, replayed, status.startedAt(),
+                LocalDateTime.now(), error);
+        log.info("Dead letter replay finished: {} messages replayed", replayed);
+    }
+    
+    /**
+     * 重新发布到原始主题，去掉失败原因和重试层级，重放次数加一
+     */
+    private void republish(ConsumerRecord<String, String> record) {
+        String originalTopic = IngestionHeaders.originalTopicOf(record);
+        String target = originalTopic != null ? originalTopic : ingestionTopic;
+        long replayCount = IngestionHeaders.longValue(record, IngestionHeaders.REPLAY_COUNT, 0) + 1;
+        
+        ProducerRecord<String, String> replay = new ProducerRecord<>(target, record.key(), record.value());
+        IngestionHeaders.copyWithOrigin(record, replay.headers());
+        replay.headers().remove(IngestionHeaders.REPLAY_COUNT);
+        replay.headers().add(IngestionHeaders.REPLAY_COUNT, String.valueOf(replayCount).getBytes(StandardCharsets.UTF_8));
+        
+        try {
+            kafkaTemplate.send(replay).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying dead letter", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to replay dead letter to " + target, e);
+        }
+    }
+    
+    private static boolean reachedEnd(Consumer<String, String> consumer, List<TopicPartition> partitions,
+                                      Map<TopicPartition, Long> endOffsets) {
+        for (TopicPartition partition : partitions) {
+            if (consumer.position(partition) < endOffsets.get(partition)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 重放状态
+     */
+    public record ReplayStatus(boolean running,
+                               double ratePerSecond,
+                               long maxMessages,
+                               long replayed,
+                               LocalDateTime startedAt,
+                               LocalDateTime finishedAt,
+                               String error) {
+        
+        static ReplayStatus idle() {
+            return new ReplayStatus(false, 0, 0, 0, null, null, null);
+        }
+        
+        ReplayStatus withReplayed(long count) {
+            return new ReplayStatus(running, ratePerSecond, maxMessages, count, startedAt, finishedAt, error);
+        }
+    }
+}
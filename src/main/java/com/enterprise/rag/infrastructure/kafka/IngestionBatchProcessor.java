@@ -0,0 +1,292 @@
+package com.enterprise.rag.infrastructure.kafka;
+
+import com.enterprise.rag.application.service.IngestionService;
+import com.enterprise.rag.domain.model.document.Document;
+import com.enterprise.rag.infrastructure.elasticsearch.BulkIndexResult;
+import com.enterprise.rag.infrastructure.kafka.IngestionFailureClassifier.FailureCategory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 摄取消息批处理器
+ * 
+ * <p>按知识库分组，每个知识库整批生成向量并以一次 _bulk 写入。
+ * 同一文档在批内的多条消息按 {@link IngestionMessage#foldWith} 依次折叠，不能折叠的后续操作 (删除后的更新)
+ * 在下一轮写入，与逐条消费的最终状态一致。某一轮失败并转入重试的文档，其后续操作随之转入重试，保持先后顺序。</p>
+ * 
+ * <p>瞬时失败在消费线程内按指数退避快速重试，仅重试失败的文档；仍失败的消息按
+ * {@link IngestionFailureClassifier} 的分类交给 {@link IngestionFailureRouter} 进入延迟重试主题或死信队列。
+ * 方法返回时所有转发均已被 broker 确认，调用方随后即可提交位移。</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IngestionBatchProcessor {
+    
+    private final ObjectMapper objectMapper;
+    private final IngestionService ingestionService;
+    private final IngestionFailureClassifier failureClassifier;
+    private final IngestionFailureRouter failureRouter;
+    private final IngestionDeadLetterPublisher deadLetterPublisher;
+    private final IngestionRetryPolicy retryPolicy;
+    
+    /**
+     * 处理一批消息
+     * 
+     * @return 转入重试或死信的消息数
+     */
+    public int process(List<ConsumerRecord<String, String>> records) {
+        List<CompletableFuture<SendResult<String, String>>> routed = new ArrayList<>();
+        
+        // 知识库 ID → (文档 ID → 批内按到达顺序折叠后的操作序列)
+        Map<String, Map<String, List<PendingMessage>>> byKnowledgeBase = new LinkedHashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            PendingMessage pending = parse(record, routed);
+            if (pending == null) {
+                continue;
+            }
+            List<PendingMessage> sequence = byKnowledgeBase
+                    .computeIfAbsent(pending.message().getKnowledgeBaseId(), k -> new LinkedHashMap<>())
+                    .computeIfAbsent(pending.documentId(), k -> new ArrayList<>(1));
+            PendingMessage folded = sequence.isEmpty() ? null : sequence.get(sequence.size() - 1).foldWith(pending);
+            if (folded != null) {
+                sequence.set(sequence.size() - 1, folded);
+            } else {
+                sequence.add(pending);
+            }
+        }
+        
+        for (Map.Entry<String, Map<String, List<PendingMessage>>> entry : byKnowledgeBase.entrySet()) {
+            writeKnowledgeBase(entry.getKey(), entry.getValue(), routed);
+        }
+        
+        deadLetterPublisher.awaitAll(routed);
+        return routed.size();
+    }
+    
+    /**
+     * 解析并校验消息，无法处理的消息 (含墓碑、空值与 JSON null) 按原始内容直接转入死信，不影响批内其他消息
+     */
+    private PendingMessage parse(ConsumerRecord<String, String> record,
+                                 List<CompletableFuture<SendResult<String, String>>> routed) {
+        if (record.value() == null || record.value().isBlank()) {
+            routed.add(failureRouter.route(record, FailureCategory.FATAL, "validation_exception",
+                    "Message value is empty"));
+            return null;
+        }
+        IngestionMessage message;
+        try {
+            message = objectMapper.readValue(record.value(), IngestionMessage.class);
+        } catch (JsonProcessingException e) {
+            routed.add(failureRouter.route(record, FailureCategory.FATAL, "parse_exception", e.getOriginalMessage()));
+            return null;
+        } catch (RuntimeException e) {
+            routed.add(failureRouter.route(record, FailureCategory.FATAL, "parse_exception", e.getMessage()));
+            return null;
+        }
+        
+        if (message == null) {
+            routed.add(failureRouter.route(record, FailureCategory.FATAL, "validation_exception",
+                    "Message value is JSON null"));
+            return null;
+        }
+        if (message.getKnowledgeBaseId() == null) {
+            routed.add(failureRouter.route(record, FailureCategory.FATAL, "validation_exception",
+                    "Knowledge base ID is missing"));
+            return null;
+        }
+        IngestionMessage.OperationType operation = message.getOperation() != null
+                ? message.getOperation() : IngestionMessage.OperationType.INDEX;
+        if (operation != IngestionMessage.OperationType.INDEX && message.getDocumentId() == null) {
+            routed.add(failureRouter.route(record, FailureCategory.FATAL, "validation_exception",
+                    "Document ID is required for " + operation));
+            return null;
+        }
+        
+        // 未指定 ID 时由消息来源位置派生，批次重投或经重试主题再处理时不会产生重复文档
+        String documentId = message.getDocumentId() != null
+                ? message.getDocumentId()
+                : UUID.nameUUIDFromBytes(IngestionHeaders.originOf(record).getBytes(StandardCharsets.UTF_8)).toString();
+        return new PendingMessage(List.of(record), message, operation, documentId);
+    }
+    
+    /**
+     * 按轮次写入一个知识库的消息，每轮每个文档一个操作
+     * 
+     * <p>某一轮转入重试 (而非死信) 的文档，其后续轮次的操作不再写入，以相同类别转入重试，避免重试后覆盖较新的写入</p>
+     */
+    private void writeKnowledgeBase(String knowledgeBaseId, Map<String, List<PendingMessage>> sequences,
+                                    List<CompletableFuture<SendResult<String, String>>> routed) {
+        Map<String, FailureCategory> blocked = new HashMap<>();
+        for (int round = 0; ; round++) {
+            Map<String, PendingMessage> batch = new LinkedHashMap<>();
+            boolean more = false;
+            for (Map.Entry<String, List<PendingMessage>> entry : sequences.entrySet()) {
+                if (entry.getValue().size() <= round) {
+                    continue;
+                }
+                more = true;
+                PendingMessage pending = entry.getValue().get(round);
+                FailureCategory category = blocked.get(entry.getKey());
+                if (category != null) {
+                    route(pending, category, "blocked_by_earlier_failure",
+                            "An earlier operation on document " + entry.getKey() + " was scheduled for retry", routed);
+                } else {
+                    batch.put(entry.getKey(), pending);
+                }
+            }
+            if (!more) {
+                return;
+            }
+            if (!batch.isEmpty()) {
+                writeRound(knowledgeBaseId, batch, routed).forEach((documentId, category) -> {
+                    if (category != FailureCategory.FATAL) {
+                        blocked.put(documentId, category);
+                    }
+                });
+            }
+        }
+    }
+    
+    /**
+     * 写入一轮消息，瞬时失败的部分快速重试
+     * 
+     * @return 转入重试或死信的文档 ID → 失败类别
+     */
+    private Map<String, FailureCategory> writeRound(String knowledgeBaseId, Map<String, PendingMessage> messages,
+                                                    List<CompletableFuture<SendResult<String, String>>> routed) {
+        Map<String, FailureCategory> failed = new HashMap<>();
+        Map<String, PendingMessage> remaining = messages;
+        for (int attempt = 1; ; attempt++) {
+            boolean canRetry = attempt < retryPolicy.getQuickAttempts();
+            BulkIndexResult result;
+            try {
+                result = write(knowledgeBaseId, remaining.values());
+            } catch (RuntimeException e) {
+                FailureCategory category = failureClassifier.classify(e);
+                if (category == FailureCategory.TRANSIENT && canRetry) {
+                    log.warn("Bulk write into knowledge base {} failed (attempt {}), retrying: {}",
+                            knowledgeBaseId, attempt, e.getMessage());
+                    backoff(attempt);
+                    continue;
+                }
+                String failureType = failureClassifier.typeOf(e);
+                for (PendingMessage pending : remaining.values()) {
+                    route(pending, category, failureType, e.getMessage(), routed);
+                    failed.put(pending.documentId(), category);
+                }
+                return failed;
+            }
+            
+            Map<String, PendingMessage> retry = new LinkedHashMap<>();
+            for (BulkIndexResult.ItemFailure failure : result.failures()) {
+                PendingMessage pending = remaining.get(failure.documentId());
+                if (pending == null) {
+                    continue;
+                }
+                FailureCategory category = failureClassifier.classify(failure);
+                if (category == FailureCategory.TRANSIENT && canRetry) {
+                    retry.put(failure.documentId(), pending);
+                } else {
+                    route(pending, category, failure.errorType(), failure.reason(), routed);
+                    failed.put(failure.documentId(), category);
+                }
+            }
+            if (retry.isEmpty()) {
+                return failed;
+            }
+            log.warn("Retrying {} documents rejected by knowledge base {} (attempt {})",
+                    retry.size(), knowledgeBaseId, attempt);
+            backoff(attempt);
+            remaining = retry;
+        }
+    }
+    
+    /**
+     * 索引为整文档覆盖，更新为部分更新，与删除合并为一次批量写入
+     */
+    private BulkIndexResult write(String knowledgeBaseId, Collection<PendingMessage> messages) {
+        List<Document> upserts = new ArrayList<>();
+        List<Document> updates = new ArrayList<>();
+        List<String> deleteIds = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        
+        for (PendingMessage pending : messages) {
+            IngestionMessage message = pending.message();
+            if (pending.operation() == IngestionMessage.OperationType.DELETE) {
+                deleteIds.add(pending.documentId());
+                continue;
+            }
+            Document document = Document.builder()
+                    .id(pending.documentId())
+                    .knowledgeBaseId(knowledgeBaseId)
+                    .content(message.getContent())
+                    .metadata(message.getMetadata())
+                    .sourceDocumentId(message.getSourceDocumentId())
+                    .chunkIndex(message.getChunkIndex())
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build();
+            (pending.operation() == IngestionMessage.OperationType.UPDATE ? updates : upserts).add(document);
+        }
+        
+        BulkIndexResult result = ingestionService.ingestBatch(knowledgeBaseId, upserts, updates, deleteIds);
+        log.debug("Wrote {} operations into knowledge base {} ({} failed)",
+                result.succeeded(), knowledgeBaseId, result.failures().size());
+        return result;
+    }
+    
+    /**
+     * 转发一个 (可能由多条消息折叠而成的) 操作的全部消息，保持到达顺序
+     */
+    private void route(PendingMessage pending, FailureCategory category, String failureType, String reason,
+                       List<CompletableFuture<SendResult<String, String>>> routed) {
+        for (ConsumerRecord<String, String> record : pending.records()) {
+            routed.add(failureRouter.route(record, category, failureType, reason));
+        }
+    }
+    
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(retryPolicy.quickBackoffFor(attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off ingestion retry", e);
+        }
+    }
+    
+    /**
+     * 待写入的操作
+     * 
+     * @param records 折叠为该操作的消息 (按到达顺序)
+     */
+    private record PendingMessage(List<ConsumerRecord<String, String>> records,
+                                  IngestionMessage message,
+                                  IngestionMessage.OperationType operation,
+                                  String documentId) {
+        
+        /**
+         * 与同一文档紧随其后的操作折叠，不能折叠时返回 null
+         */
+        private PendingMessage foldWith(PendingMessage next) {
+            IngestionMessage folded = message.foldWith(next.message());
+            if (folded == null) {
+                return null;
+            }
+            List<ConsumerRecord<String, String>> merged = new ArrayList<>(records.size() + next.records().size());
+            merged.addAll(records);
+            merged.addAll(next.records());
+            return new PendingMessage(merged, folded, folded.operationOrDefault(), documentId);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.enterprise.rag.infrastructure.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 摄取死信发布器
+ * 
+ * <p>将无法处理的消息原样 (键、值、原有消息头) 发布到 {摄取主题}.dlq，
+ * 并附加来源位置与失败原因消息头，便于排查和重放 (见 {@link DeadLetterReplayService})</p>
+ */
+@Slf4j
+@Component
+public class IngestionDeadLetterPublisher {
+    
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final String dlqTopic;
+    private final long sendTimeoutMs;
+    
+    public IngestionDeadLetterPublisher(
+            KafkaTemplate<String, String> kafkaTemplate,
+            @Value("${rag.ingestion.topic:rag.ingestion.raw}") String ingestionTopic,
+            @Value("${rag.ingestion.dlq.send-timeout-ms:30000}") long sendTimeoutMs) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.dlqTopic = ingestionTopic + ".dlq";
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+    
+    /**
+     * 异步发布一条死信
+     * 
+     * @param record 原始消息
+     * @param failureType 失败类型
+     * @param reason 失败原因
+     */
+    public CompletableFuture<SendResult<String, String>> publish(ConsumerRecord<String, String> record,
+                                                                 String failureType, String reason) {
+        ProducerRecord<String, String> deadLetter = new ProducerRecord<>(dlqTopic, record.key(), record.value());
+        IngestionHeaders.copyWithOrigin(record, deadLetter.headers());
+        IngestionHeaders.addFailure(deadLetter.headers(), failureType, reason);
+        
+        log.warn("Sending ingestion message {}-{}@{} to {}: [{}] {}",
+                record.topic(), record.partition(), record.offset(), dlqTopic, failureType, reason);
+        return kafkaTemplate.send(deadLetter);
+    }
+    
+    /**
+     * 等待死信或重试消息全部被 broker 确认，失败时抛出异常 (调用方不应提交位移)
+     */
+    public void awaitAll(List<CompletableFuture<SendResult<String, String>>> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing failed messages", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to publish " + pending.size() + " failed messages", e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.enterprise.rag.infrastructure.kafka;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import com.enterprise.rag.infrastructure.elasticsearch.BulkIndexResult;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 摄取失败分类器
+ * 
+ * <p>决定失败消息的去向：瞬时故障 (ES 429/5xx、网络异常) 先快速重试再进入延迟重试；
+ * 知识库暂不接收数据时跳过快速重试直接延迟；校验失败等不可恢复错误直接进入死信队列</p>
+ */
+@Component
+public class IngestionFailureClassifier {
+    
+    /**
+     * 失败类别
+     */
+    public enum FailureCategory {
+        /** 瞬时故障：快速重试 → 延迟重试 → 死信 */
+        TRANSIENT,
+        /** 需要等待外部状态变化：延迟重试 → 死信 */
+        DEFERRED,
+        /** 不可恢复：直接死信 */
+        FATAL
+    }
+    
+    /**
+     * 对整组处理抛出的异常分类 (沿 cause 链查找)
+     */
+    public FailureCategory classify(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ElasticsearchException es) {
+                return isTransientStatus(es.status()) ? FailureCategory.TRANSIENT : FailureCategory.FATAL;
+            }
+            if (t instanceof IOException || t instanceof TimeoutException) {
+                return FailureCategory.TRANSIENT;
+            }
+            if (t instanceof IllegalArgumentException) {
+                return FailureCategory.FATAL;
+            }
+            if (t instanceof IllegalStateException) {
+                return FailureCategory.DEFERRED;
+            }
+        }
+        return FailureCategory.TRANSIENT;
+    }
+    
+    /**
+     * 对 _bulk 中单个文档的失败分类
+     */
+    public FailureCategory classify(BulkIndexResult.ItemFailure failure) {
+        if (isTransientStatus(failure.status()) || "es_rejected_execution_exception".equals(failure.errorType())) {
+            return FailureCategory.TRANSIENT;
+        }
+        return FailureCategory.FATAL;
+    }
+    
+    /**
+     * 失败类型 (写入失败原因消息头)
+     */
+    public String typeOf(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof ElasticsearchException es && es.error() != null && es.error().type() != null) {
+                return es.error().type();
+            }
+            if (t.getCause() == null) {
+                return t.getClass().getName();
+            }
+        }
+        return "unknown";
+    }
+    
+    private static boolean isTransientStatus(int status) {
+        return status == 429 || status == 502 || status == 503 || status == 504;
+    }
+}
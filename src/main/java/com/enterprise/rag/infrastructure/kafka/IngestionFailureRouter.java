@@ -0,0 +1,80 @@
+package com.enterprise.rag.infrastructure.kafka;
+
+import com.enterprise.rag.infrastructure.kafka.IngestionFailureClassifier.FailureCategory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 摄取失败路由
+ * 
+ * <p>不可恢复的失败或延迟重试层级用尽时发布到死信队列，否则发布到下一层延迟重试主题，
+ * 并写入重试层级和最早可处理时间消息头</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IngestionFailureRouter {
+    
+    private static final String METRIC_NAME = "rag.ingestion.failures";
+    
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final IngestionDeadLetterPublisher deadLetterPublisher;
+    private final IngestionRetryPolicy retryPolicy;
+    private final MeterRegistry meterRegistry;
+    
+    /**
+     * 路由一条失败消息
+     * 
+     * @param record 失败的消息
+     * @param category 失败类别
+     * @param failureType 失败类型
+     * @param reason 失败原因
+     */
+    public CompletableFuture<SendResult<String, String>> route(ConsumerRecord<String, String> record,
+                                                               FailureCategory category,
+                                                               String failureType, String reason) {
+        int nextAttempt = attemptOf(record) + 1;
+        if (category == FailureCategory.FATAL || nextAttempt > retryPolicy.getTopicAttempts()) {
+            meterRegistry.counter(METRIC_NAME, "category", category.name(), "destination", "dlq").increment();
+            return deadLetterPublisher.publish(record, failureType, reason);
+        }
+        
+        String topic = retryPolicy.topicFor(nextAttempt);
+        long notBefore = System.currentTimeMillis() + retryPolicy.delayFor(nextAttempt);
+        ProducerRecord<String, String> retry = new ProducerRecord<>(topic, record.key(), record.value());
+        IngestionHeaders.copyWithOrigin(record, retry.headers());
+        IngestionHeaders.addFailure(retry.headers(), failureType, reason);
+        retry.headers()
+                .add(IngestionRetryPolicy.ATTEMPT_HEADER, String.valueOf(nextAttempt).getBytes(StandardCharsets.UTF_8))
+                .add(IngestionRetryPolicy.NOT_BEFORE_HEADER, String.valueOf(notBefore).getBytes(StandardCharsets.UTF_8));
+        
+        meterRegistry.counter(METRIC_NAME, "category", category.name(), "destination", "retry." + nextAttempt)
+                .increment();
+        log.info("Scheduling ingestion message {} for retry {} via {}: [{}] {}",
+                IngestionHeaders.originOf(record), nextAttempt, topic, failureType, reason);
+        return kafkaTemplate.send(retry);
+    }
+    
+    /**
+     * 消息所处的重试层级，原始主题为 0
+     */
+    public static int attemptOf(ConsumerRecord<String, String> record) {
+        return (int) IngestionHeaders.longValue(record, IngestionRetryPolicy.ATTEMPT_HEADER, 0);
+    }
+    
+    /**
+     * 消息最早可处理时间 (epoch 毫秒)
+     */
+    public static long notBeforeOf(ConsumerRecord<String, String> record) {
+        return IngestionHeaders.longValue(record, IngestionRetryPolicy.NOT_BEFORE_HEADER, 0);
+    }
+}
@@ -0,0 +1,104 @@
+package com.enterprise.rag.infrastructure.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * 摄取消息头工具
+ * 
+ * <p>消息第一次离开原始主题 (进入重试主题或死信队列) 时记录来源位置，之后的每一跳保留不变，
+ * 因此来源位置可作为消息在整个重试链路上的稳定标识</p>
+ */
+final class IngestionHeaders {
+    
+    /**
+     * 失败类型消息头 (如 ES 错误类型、validation_exception)
+     */
+    static final String FAILURE_TYPE = "rag_failure-type";
+    
+    /**
+     * 重放次数消息头
+     */
+    static final String REPLAY_COUNT = "rag_replay-count";
+    
+    /**
+     * 每一跳都会重写的消息头
+     */
+    private static final Set<String> TRANSIENT_HEADERS = Set.of(
+            FAILURE_TYPE,
+            KafkaHeaders.DLT_EXCEPTION_MESSAGE,
+            IngestionRetryPolicy.ATTEMPT_HEADER,
+            IngestionRetryPolicy.NOT_BEFORE_HEADER
+    );
+    
+    private IngestionHeaders() {
+    }
+    
+    /**
+     * 复制原消息头 (不含每跳重写的消息头)，缺少来源位置时补充
+     */
+    static void copyWithOrigin(ConsumerRecord<String, String> record, Headers target) {
+        for (Header header : record.headers()) {
+            if (!TRANSIENT_HEADERS.contains(header.key())) {
+                target.add(header);
+            }
+        }
+        if (target.lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC) == null) {
+            target.add(KafkaHeaders.DLT_ORIGINAL_TOPIC, record.topic().getBytes(StandardCharsets.UTF_8))
+                    .add(KafkaHeaders.DLT_ORIGINAL_PARTITION, ByteBuffer.allocate(Integer.BYTES).putInt(record.partition()).array())
+                    .add(KafkaHeaders.DLT_ORIGINAL_OFFSET, ByteBuffer.allocate(Long.BYTES).putLong(record.offset()).array());
+        }
+    }
+    
+    /**
+     * 写入失败原因
+     */
+    static void addFailure(Headers target, String failureType, String reason) {
+        target.add(FAILURE_TYPE, String.valueOf(failureType).getBytes(StandardCharsets.UTF_8))
+                .add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, String.valueOf(reason).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 消息的来源位置 topic/partition/offset，未离开过原始主题时为当前位置
+     */
+    static String originOf(ConsumerRecord<String, String> record) {
+        Header topic = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC);
+        Header partition = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_PARTITION);
+        Header offset = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_OFFSET);
+        if (topic == null || partition == null || offset == null) {
+            return record.topic() + "/" + record.partition() + "/" + record.offset();
+        }
+        return new String(topic.value(), StandardCharsets.UTF_8) + "/"
+                + ByteBuffer.wrap(partition.value()).getInt() + "/"
+                + ByteBuffer.wrap(offset.value()).getLong();
+    }
+    
+    /**
+     * 原始主题，缺失时返回 null
+     */
+    static String originalTopicOf(ConsumerRecord<String, String> record) {
+        Header topic = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC);
+        return topic != null ? new String(topic.value(), StandardCharsets.UTF_8) : null;
+    }
+    
+    /**
+     * 读取整数型字符串消息头，缺失时返回 defaultValue
+     */
+    static long longValue(ConsumerRecord<String, String> record, String key, long defaultValue) {
+        Header header = record.headers().lastHeader(key);
+        if (header == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.extern.jackson.Jacksonized;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -55,4 +56,50 @@ public class IngestionMessage {
     public enum OperationType {
         INDEX, DELETE, UPDATE
     }
+    
+    /**
+     * 操作类型，未指定时为 INDEX
+     */
+    public OperationType operationOrDefault() {
+        return operation != null ? operation : OperationType.INDEX;
+    }
+    
+    /**
+     * 将同一文档紧随其后的消息折叠为一条，结果与依次执行两条消息一致
+     * 
+     * <p>INDEX 与 DELETE 覆盖此前的操作；UPDATE 为部分更新，合并到此前的 INDEX 或 UPDATE 中
+     * (内容字段与元数据按键合并，后者优先)。DELETE 之后的 UPDATE 作用于不存在的文档，不能折叠。</p>
+     * 
+     * @return 折叠后的消息，不能折叠时返回 null
+     */
+    public IngestionMessage foldWith(IngestionMessage next) {
+        if (next.operationOrDefault() != OperationType.UPDATE) {
+            return next;
+        }
+        OperationType folded = operationOrDefault();
+        if (folded == OperationType.DELETE) {
+            return null;
+        }
+        return IngestionMessage.builder()
+                .knowledgeBaseId(knowledgeBaseId)
+                .documentId(documentId)
+                .content(merge(content, next.content))
+                .metadata(merge(metadata, next.metadata))
+                .sourceDocumentId(next.sourceDocumentId != null ? next.sourceDocumentId : sourceDocumentId)
+                .chunkIndex(next.chunkIndex != null ? next.chunkIndex : chunkIndex)
+                .operation(folded)
+                .build();
+    }
+    
+    private static Map<String, Object> merge(Map<String, Object> base, Map<String, Object> overlay) {
+        if (overlay == null) {
+            return base;
+        }
+        if (base == null) {
+            return overlay;
+        }
+        Map<String, Object> merged = new HashMap<>(base);
+        merged.putAll(overlay);
+        return merged;
+    }
 }
@@ -0,0 +1,55 @@
+package com.enterprise.rag.infrastructure.kafka;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 延迟重试主题消费者
+ * 
+ * <p>同一重试主题内消息的延迟相同，因此各分区按最早可处理时间有序。批内遇到第一条未到期的消息时，
+ * 先处理它之前的消息，再 nack 到该位置并暂停消费直到其到期，期间不提交它之后的位移</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IngestionRetryConsumer {
+    
+    private final IngestionBatchProcessor batchProcessor;
+    private final IngestionRetryPolicy retryPolicy;
+    
+    @KafkaListener(
+            topics = "#{@ingestionRetryPolicy.topics}",
+            groupId = "${spring.kafka.consumer.group-id:rag-ingestion-group}",
+            containerFactory = "retryKafkaListenerContainerFactory",
+            properties = "max.poll.records=${rag.ingestion.batch-size:100}"
+    )
+    public void consume(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) {
+        long now = System.currentTimeMillis();
+        int due = 0;
+        while (due < records.size() && IngestionFailureRouter.notBeforeOf(records.get(due)) <= now) {
+            due++;
+        }
+        
+        if (due > 0) {
+            int failed = batchProcessor.process(records.subList(0, due));
+            log.info("Retried {} ingestion messages ({} routed onward)", due, failed);
+        }
+        
+        if (due == records.size()) {
+            acknowledgment.acknowledge();
+            return;
+        }
+        
+        ConsumerRecord<String, String> next = records.get(due);
+        // 不同层级的消息混在同一批中，等待不超过最短层级延迟，避免长延迟消息阻塞短延迟层级
+        long waitMs = Math.min(IngestionFailureRouter.notBeforeOf(next) - now, retryPolicy.delayFor(1));
+        acknowledgment.nack(due, Duration.ofMillis(Math.max(waitMs, 1)));
+    }
+}
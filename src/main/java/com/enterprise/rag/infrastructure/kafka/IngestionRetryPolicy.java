@@ -0,0 +1,78 @@
+package com.enterprise.rag.infrastructure.kafka;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 摄取重试策略
+ * 
+ * <p>第一层为消费线程内的快速重试；仍失败的消息依次进入延迟重试主题 {摄取主题}.retry.1..N，
+ * 第 n 层延迟为 initialDelay * multiplier^(n-1)，全部用尽后进入死信队列</p>
+ */
+@Getter
+@Component
+public class IngestionRetryPolicy {
+    
+    /**
+     * 重试层级消息头 (从 1 开始，原始主题为 0)
+     */
+    public static final String ATTEMPT_HEADER = "rag_retry-attempt";
+    
+    /**
+     * 最早可处理时间 (epoch 毫秒) 消息头
+     */
+    public static final String NOT_BEFORE_HEADER = "rag_retry-not-before";
+    
+    private final int quickAttempts;
+    private final long quickBackoffMs;
+    private final int topicAttempts;
+    private final long initialDelayMs;
+    private final double multiplier;
+    private final long maxDelayMs;
+    private final String[] topics;
+    
+    public IngestionRetryPolicy(
+            @Value("${rag.ingestion.topic:rag.ingestion.raw}") String ingestionTopic,
+            @Value("${rag.ingestion.retry.quick-attempts:3}") int quickAttempts,
+            @Value("${rag.ingestion.retry.quick-backoff-ms:200}") long quickBackoffMs,
+            @Value("${rag.ingestion.retry.topic-attempts:3}") int topicAttempts,
+            @Value("${rag.ingestion.retry.initial-delay-ms:10000}") long initialDelayMs,
+            @Value("${rag.ingestion.retry.multiplier:6.0}") double multiplier,
+            @Value("${rag.ingestion.retry.max-delay-ms:3600000}") long maxDelayMs) {
+        if (quickAttempts < 1 || topicAttempts < 1 || initialDelayMs < 0 || multiplier < 1.0) {
+            throw new IllegalArgumentException("Invalid ingestion retry configuration");
+        }
+        this.quickAttempts = quickAttempts;
+        this.quickBackoffMs = quickBackoffMs;
+        this.topicAttempts = topicAttempts;
+        this.initialDelayMs = initialDelayMs;
+        this.multiplier = multiplier;
+        this.maxDelayMs = maxDelayMs;
+        this.topics = new String[topicAttempts];
+        for (int i = 0; i < topicAttempts; i++) {
+            topics[i] = ingestionTopic + ".retry." + (i + 1);
+        }
+    }
+    
+    /**
+     * 第 attempt 层延迟重试主题
+     */
+    public String topicFor(int attempt) {
+        return topics[attempt - 1];
+    }
+    
+    /**
+     * 第 attempt 层延迟重试的等待时间
+     */
+    public long delayFor(int attempt) {
+        return (long) Math.min(maxDelayMs, initialDelayMs * Math.pow(multiplier, attempt - 1));
+    }
+    
+    /**
+     * 第 attempt 次快速重试前的等待时间 (指数退避)
+     */
+    public long quickBackoffFor(int attempt) {
+        return quickBackoffMs << Math.min(attempt - 1, 10);
+    }
+}
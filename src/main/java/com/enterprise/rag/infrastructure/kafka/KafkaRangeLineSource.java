@@ -0,0 +1,131 @@
+package com.enterprise.rag.infrastructure.kafka;
+
+import com.enterprise.rag.application.service.BulkIngestionService;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.core.ConsumerFactory;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Kafka 位移区间行来源
+ * 
+ * <p>以手动分配 (不加入消费组、不提交位移) 的方式读取单个分区 [startOffset, endOffset) 区间内的消息，
+ * 消息值即一行，行位置为消息位移。endOffset 超过分区当前末尾时以打开时的末尾为准。</p>
+ */
+public class KafkaRangeLineSource implements BulkIngestionService.LineSource {
+    
+    private final Consumer<String, String> consumer;
+    private final TopicPartition partition;
+    private final long endOffset;
+    private final Duration pollTimeout;
+    private Iterator<ConsumerRecord<String, String>> buffered = List.<ConsumerRecord<String, String>>of().iterator();
+    
+    private KafkaRangeLineSource(Consumer<String, String> consumer, TopicPartition partition, long endOffset,
+                                 Duration pollTimeout) {
+        this.consumer = consumer;
+        this.partition = partition;
+        this.endOffset = endOffset;
+        this.pollTimeout = pollTimeout;
+    }
+    
+    /**
+     * 打开区间
+     * 
+     * @param range 区间
+     * @param fromOffset 起始位移 (从检查点恢复时大于区间起点)
+     * @param maxPollRecords 单次拉取的最大消息数
+     * @param pollTimeout 单次拉取超时
+     */
+    public static KafkaRangeLineSource open(ConsumerFactory<String, String> consumerFactory, Range range,
+                                            long fromOffset, int maxPollRecords, Duration pollTimeout) {
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        Consumer<String, String> consumer = consumerFactory.createConsumer(null, "rag-ingestion-task", null, overrides);
+        try {
+            TopicPartition partition = new TopicPartition(range.topic(), range.partition());
+            consumer.assign(List.of(partition));
+            long logEnd = consumer.endOffsets(List.of(partition)).get(partition);
+            consumer.seek(partition, Math.max(fromOffset, range.startOffset()));
+            return new KafkaRangeLineSource(consumer, partition, Math.min(range.endOffset(), logEnd), pollTimeout);
+        } catch (RuntimeException e) {
+            consumer.close();
+            throw e;
+        }
+    }
+    
+    @Override
+    public BulkIngestionService.SourceLine next() {
+        while (true) {
+            if (buffered.hasNext()) {
+                ConsumerRecord<String, String> record = buffered.next();
+                if (record.offset() >= endOffset) {
+                    return null;
+                }
+                // 墓碑消息按空行处理，仍推进位置
+                return new BulkIngestionService.SourceLine(record.offset(), record.value() != null ? record.value() : "");
+            }
+            if (consumer.position(partition) >= endOffset) {
+                return null;
+            }
+            buffered = consumer.poll(pollTimeout).records(partition).iterator();
+        }
+    }
+    
+    @Override
+    public void close() {
+        consumer.close();
+    }
+    
+    /**
+     * 位移区间
+     * 
+     * @param topic 主题
+     * @param partition 分区
+     * @param startOffset 起始位移 (含)
+     * @param endOffset 结束位移 (不含)
+     */
+    public record Range(String topic, int partition, long startOffset, long endOffset) {
+        
+        public Range {
+            if (topic == null || topic.isBlank() || partition < 0 || startOffset < 0 || endOffset < startOffset) {
+                throw new IllegalArgumentException(String.format("Invalid Kafka offset range %s:%d:%d:%d",
+                        topic, partition, startOffset, endOffset));
+            }
+        }
+        
+        /**
+         * 解析 topic:partition:startOffset:endOffset
+         */
+        public static Range parse(String location) {
+            int last = location.lastIndexOf(':');
+            int middle = last > 0 ? location.lastIndexOf(':', last - 1) : -1;
+            int first = middle > 0 ? location.lastIndexOf(':', middle - 1) : -1;
+            if (first <= 0) {
+                throw new IllegalArgumentException("Kafka range must be topic:partition:startOffset:endOffset");
+            }
+            try {
+                return new Range(location.substring(0, first),
+                        Integer.parseInt(location.substring(first + 1, middle)),
+                        Long.parseLong(location.substring(middle + 1, last)),
+                        Long.parseLong(location.substring(last + 1)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid Kafka range: " + location, e);
+            }
+        }
+        
+        public String format() {
+            return topic + ":" + partition + ":" + startOffset + ":" + endOffset;
+        }
+        
+        public long size() {
+            return endOffset - startOffset;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.enterprise.rag.infrastructure.persistence.converter;
+
+import com.enterprise.rag.domain.model.ingestion.IngestionSourceType;
+import com.enterprise.rag.domain.model.ingestion.IngestionTask;
+import com.enterprise.rag.domain.model.ingestion.IngestionTaskStatus;
+import com.enterprise.rag.infrastructure.persistence.entity.IngestionTaskPO;
+import org.springframework.stereotype.Component;
+
+/**
+ * 摄取任务实体转换器
+ */
+@Component
+public class IngestionTaskConverter {
+    
+    /**
+     * 领域模型 -> 数据库实体
+     */
+    public IngestionTaskPO toEntity(IngestionTask domain) {
+        IngestionTaskPO entity = new IngestionTaskPO();
+        entity.setId(domain.getId());
+        entity.setKnowledgeBaseId(domain.getKnowledgeBaseId());
+        entity.setStatus(domain.getStatus().name());
+        entity.setSourceType(domain.getSourceType().name());
+        entity.setSourceLocation(domain.getSourceLocation());
+        entity.setTotalDocuments(domain.getTotalDocuments());
+        entity.setSourceBytes(domain.getSourceBytes());
+        entity.setSourceNode(domain.getSourceNode());
+        entity.setProcessedDocuments(domain.getProcessedDocuments());
+        entity.setFailedDocuments(domain.getFailedDocuments());
+        entity.setEmbeddedVectors(domain.getEmbeddedVectors());
+        entity.setCheckpoint(domain.getCheckpoint());
+        entity.setElapsedMs(domain.getElapsedMs());
+        entity.setOwner(domain.getOwner());
+        entity.setHeartbeatAt(domain.getHeartbeatAt());
+        entity.setErrorMessage(domain.getErrorMessage());
+        entity.setStartedAt(domain.getStartedAt());
+        entity.setCompletedAt(domain.getCompletedAt());
+        entity.setCreatedAt(domain.getCreatedAt());
+        return entity;
+    }
+    
+    /**
+     * 数据库实体 -> 领域模型
+     */
+    public IngestionTask toDomain(IngestionTaskPO entity) {
+        return IngestionTask.builder()
+                .id(entity.getId())
+                .knowledgeBaseId(entity.getKnowledgeBaseId())
+                .status(IngestionTaskStatus.valueOf(entity.getStatus()))
+                .sourceType(IngestionSourceType.valueOf(entity.getSourceType()))
+                .sourceLocation(entity.getSourceLocation())
+                .totalDocuments(valueOf(entity.getTotalDocuments()))
+                .sourceBytes(valueOf(entity.getSourceBytes()))
+                .sourceNode(entity.getSourceNode())
+                .processedDocuments(valueOf(entity.getProcessedDocuments()))
+                .failedDocuments(valueOf(entity.getFailedDocuments()))
+                .embeddedVectors(valueOf(entity.getEmbeddedVectors()))
+                .checkpoint(valueOf(entity.getCheckpoint()))
+                .elapsedMs(valueOf(entity.getElapsedMs()))
+                .owner(entity.getOwner())
+                .heartbeatAt(entity.getHeartbeatAt())
+                .errorMessage(entity.getErrorMessage())
+                .startedAt(entity.getStartedAt())
+                .completedAt(entity.getCompletedAt())
+                .createdAt(entity.getCreatedAt())
+                .build();
+    }
+    
+    private static long valueOf(Long value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -7,6 +7,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -34,34 +35,23 @@ public class KnowledgeBaseConverter {
         entity.setTenantId(domain.getTenantId());
         entity.setStatus(domain.getStatus().name());
         entity.setIndexName(domain.getIndexName());
+        entity.setActiveIndex(domain.getActiveIndex());
         entity.setCreatedAt(domain.getCreatedAt());
         entity.setUpdatedAt(domain.getUpdatedAt());
         entity.setVersion(domain.getVersion());
         
-        // 序列化字段定义
+        // 序列化字段定义与进行中的迁移
         try {
-            List<Map<String, Object>> fieldDefList = new ArrayList<>();
-            for (FieldDefinition fd : domain.getFieldDefinitionList()) {
-                Map<String, Object> fieldMap = new java.util.HashMap<>();
-                fieldMap.put("fieldName", fd.getFieldName());
-                fieldMap.put("indexType", fd.getIndexType().name());
-                fieldMap.put("isFilter", fd.isFilter());
-                fieldMap.put("required", fd.isRequired());
-                fieldMap.put("description", fd.getDescription() != null ? fd.getDescription() : "");
-                
-                if (fd.getEmbeddingConfig() != null) {
-                    Map<String, Object> embeddingMap = new java.util.HashMap<>();
-                    embeddingMap.put("modelId", fd.getEmbeddingConfig().getModelId());
-                    embeddingMap.put("dimension", fd.getEmbeddingConfig().getDimension());
-                    embeddingMap.put("similarity", fd.getEmbeddingConfig().getSimilarity());
-                    fieldMap.put("embeddingConfig", embeddingMap);
-                } else {
-                    fieldMap.put("embeddingConfig", null);
-                }
-                
-                fieldDefList.add(fieldMap);
+            entity.setFieldDefinitions(objectMapper.writeValueAsString(toFieldMaps(domain.getFieldDefinitionList())));
+            IndexMigration migration = domain.getMigration();
+            if (migration != null) {
+                Map<String, Object> migrationMap = new java.util.HashMap<>();
+                migrationMap.put("targetIndex", migration.getTargetIndex());
+                migrationMap.put("fieldDefinitions", toFieldMaps(migration.getFieldDefinitions()));
+                migrationMap.put("reindexTaskId", migration.getReindexTaskId());
+                migrationMap.put("startedAt", migration.getStartedAt() != null ? migration.getStartedAt().toString() : null);
+                entity.setMigration(objectMapper.writeValueAsString(migrationMap));
             }
-            entity.setFieldDefinitions(objectMapper.writeValueAsString(fieldDefList));
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Failed to serialize field definitions", e);
         }
@@ -74,38 +64,31 @@ public class KnowledgeBaseConverter {
      */
     public KnowledgeBase toDomain(KnowledgeBasePO entity) {
         List<FieldDefinition> fieldDefinitions = new ArrayList<>();
+        IndexMigration migration = null;
         
-        // 反序列化字段定义
+        // 反序列化字段定义与进行中的迁移
         try {
             if (entity.getFieldDefinitions() != null && !entity.getFieldDefinitions().isBlank()) {
                 List<Map<String, Object>> fieldDefList = objectMapper.readValue(
                         entity.getFieldDefinitions(),
                         new TypeReference<List<Map<String, Object>>>() {}
                 );
-                
-                for (Map<String, Object> fieldMap : fieldDefList) {
-                    EmbeddingConfig embeddingConfig = null;
-                    Object embConfigObj = fieldMap.get("embeddingConfig");
-                    if (embConfigObj instanceof Map) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> embConfigMap = (Map<String, Object>) embConfigObj;
-                        embeddingConfig = EmbeddingConfig.builder()
-                                .modelId((String) embConfigMap.get("modelId"))
-                                .dimension((Integer) embConfigMap.get("dimension"))
-                                .similarity((String) embConfigMap.get("similarity"))
-                                .build();
-                    }
-                    
-                    FieldDefinition fd = FieldDefinition.builder()
-                            .fieldName((String) fieldMap.get("fieldName"))
-                            .indexType(IndexType.valueOf((String) fieldMap.get("indexType")))
-                            .isFilter((Boolean) fieldMap.getOrDefault("isFilter", false))
-                            .required((Boolean) fieldMap.getOrDefault("required", false))
-                            .description((String) fieldMap.get("description"))
-                            .embeddingConfig(embeddingConfig)
-                            .build();
-                    fieldDefinitions.add(fd);
-                }
+                fieldDefinitions = fromFieldMaps(fieldDefList);
+            }
+            if (entity.getMigration() != null && !entity.getMigration().isBlank()) {
+                Map<String, Object> migrationMap = objectMapper.readValue(
+                        entity.getMigration(),
+                        new TypeReference<Map<String, Object>>() {}
+                );
+                @SuppressWarnings("unchecked")
+                List<Map<String, Object>> targetFields = (List<Map<String, Object>>) migrationMap.get("fieldDefinitions");
+                String startedAt = (String) migrationMap.get("startedAt");
+                migration = IndexMigration.builder()
+                        .targetIndex((String) migrationMap.get("targetIndex"))
+                        .fieldDefinitions(fromFieldMaps(targetFields != null ? targetFields : List.of()))
+                        .reindexTaskId((String) migrationMap.get("reindexTaskId"))
+                        .startedAt(startedAt != null ? LocalDateTime.parse(startedAt) : null)
+                        .build();
             }
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Failed to deserialize field definitions", e);
@@ -119,9 +102,64 @@ public class KnowledgeBaseConverter {
                 .status(KnowledgeBaseStatus.valueOf(entity.getStatus()))
                 .fieldDefinitions(fieldDefinitions)
                 .indexName(entity.getIndexName())
+                .activeIndex(entity.getActiveIndex())
+                .migration(migration)
                 .createdAt(entity.getCreatedAt())
                 .updatedAt(entity.getUpdatedAt())
                 .version(entity.getVersion())
                 .build();
     }
+    
+    private static List<Map<String, Object>> toFieldMaps(List<FieldDefinition> fieldDefinitions) {
+        List<Map<String, Object>> fieldDefList = new ArrayList<>();
+        for (FieldDefinition fd : fieldDefinitions) {
+            Map<String, Object> fieldMap = new java.util.HashMap<>();
+            fieldMap.put("fieldName", fd.getFieldName());
+            fieldMap.put("indexType", fd.getIndexType().name());
+            fieldMap.put("isFilter", fd.isFilter());
+            fieldMap.put("required", fd.isRequired());
+            fieldMap.put("description", fd.getDescription() != null ? fd.getDescription() : "");
+            
+            if (fd.getEmbeddingConfig() != null) {
+                Map<String, Object> embeddingMap = new java.util.HashMap<>();
+                embeddingMap.put("modelId", fd.getEmbeddingConfig().getModelId());
+                embeddingMap.put("dimension", fd.getEmbeddingConfig().getDimension());
+                embeddingMap.put("similarity", fd.getEmbeddingConfig().getSimilarity());
+                fieldMap.put("embeddingConfig", embeddingMap);
+            } else {
+                fieldMap.put("embeddingConfig", null);
+            }
+            
+            fieldDefList.add(fieldMap);
+        }
+        return fieldDefList;
+    }
+    
+    private static List<FieldDefinition> fromFieldMaps(List<Map<String, Object>> fieldDefList) {
+        List<FieldDefinition> fieldDefinitions = new ArrayList<>();
+        for (Map<String, Object> fieldMap : fieldDefList) {
+            EmbeddingConfig embeddingConfig = null;
+            Object embConfigObj = fieldMap.get("embeddingConfig");
+            if (embConfigObj instanceof Map) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> embConfigMap = (Map<String, Object>) embConfigObj;
+                embeddingConfig = EmbeddingConfig.builder()
+                        .modelId((String) embConfigMap.get("modelId"))
+                        .dimension((Integer) embConfigMap.get("dimension"))
+                        .similarity((String) embConfigMap.get("similarity"))
+                        .build();
+            }
+            
+            FieldDefinition fd = FieldDefinition.builder()
+                    .fieldName((String) fieldMap.get("fieldName"))
+                    .indexType(IndexType.valueOf((String) fieldMap.get("indexType")))
+                    .isFilter((Boolean) fieldMap.getOrDefault("isFilter", false))
+                    .required((Boolean) fieldMap.getOrDefault("required", false))
+                    .description((String) fieldMap.get("description"))
+                    .embeddingConfig(embeddingConfig)
+                    .build();
+            fieldDefinitions.add(fd);
+        }
+        return fieldDefinitions;
+    }
 }
@@ -0,0 +1,55 @@
+package com.enterprise.rag.infrastructure.persistence.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 摄取任务数据库实体
+ */
+@Data
+@TableName("ingestion_task")
+public class IngestionTaskPO {
+    
+    @TableId(type = IdType.ASSIGN_UUID)
+    private String id;
+    
+    private String knowledgeBaseId;
+    
+    private String status;
+    
+    private String sourceType;
+    
+    private String sourceLocation;
+    
+    private Long totalDocuments;
+    
+    private Long sourceBytes;
+    
+    private String sourceNode;
+    
+    private Long processedDocuments;
+    
+    private Long failedDocuments;
+    
+    private Long embeddedVectors;
+    
+    private Long checkpoint;
+    
+    private Long elapsedMs;
+    
+    private String owner;
+    
+    private LocalDateTime heartbeatAt;
+    
+    private String errorMessage;
+    
+    private LocalDateTime startedAt;
+    
+    private LocalDateTime completedAt;
+    
+    private LocalDateTime createdAt;
+}
@@ -30,6 +30,17 @@ public class KnowledgeBasePO {
     
     private String indexName;
     
+    /**
+     * 当前物理索引名称
+     */
+    private String activeIndex;
+    
+    /**
+     * 进行中的索引迁移 JSON (完成或放弃后置空)
+     */
+    @TableField(updateStrategy = FieldStrategy.ALWAYS)
+    private String migration;
+    
     @TableField(fill = FieldFill.INSERT)
     private LocalDateTime createdAt;
     
@@ -0,0 +1,73 @@
+package com.enterprise.rag.infrastructure.persistence.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.enterprise.rag.infrastructure.persistence.entity.IngestionTaskPO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 摄取任务 Mapper 接口
+ */
+@Mapper
+public interface IngestionTaskMapper extends BaseMapper<IngestionTaskPO> {
+    
+    @Select("SELECT * FROM ingestion_task WHERE knowledge_base_id = #{knowledgeBaseId} ORDER BY created_at DESC")
+    List<IngestionTaskPO> findByKnowledgeBaseId(@Param("knowledgeBaseId") String knowledgeBaseId);
+    
+    @Select("SELECT * FROM ingestion_task WHERE (source_node IS NULL OR source_node = #{node}) "
+            + "AND (status = 'PENDING' "
+            + "OR (status = 'RUNNING' AND (heartbeat_at IS NULL OR heartbeat_at < #{staleBefore}))) "
+            + "ORDER BY created_at LIMIT #{limit}")
+    List<IngestionTaskPO> findClaimable(@Param("node") String node, @Param("staleBefore") LocalDateTime staleBefore,
+                                        @Param("limit") int limit);
+    
+    /**
+     * 领取任务，仅当来源可在本节点读取，且任务仍在等待或原持有者心跳已过期时成功
+     */
+    @Update("UPDATE ingestion_task SET status = 'RUNNING', owner = #{owner}, heartbeat_at = #{now}, "
+            + "started_at = COALESCE(started_at, #{now}) "
+            + "WHERE id = #{id} AND (source_node IS NULL OR source_node = #{node}) AND (status = 'PENDING' "
+            + "OR (status = 'RUNNING' AND (heartbeat_at IS NULL OR heartbeat_at < #{staleBefore})))")
+    int claim(@Param("id") String id, @Param("owner") String owner, @Param("node") String node,
+              @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+    
+    @Update("UPDATE ingestion_task SET heartbeat_at = #{now} "
+            + "WHERE id = #{id} AND owner = #{owner} AND status = 'RUNNING'")
+    int heartbeat(@Param("id") String id, @Param("owner") String owner, @Param("now") LocalDateTime now);
+    
+    @Update("UPDATE ingestion_task SET checkpoint = #{task.checkpoint}, "
+            + "processed_documents = #{task.processedDocuments}, failed_documents = #{task.failedDocuments}, "
+            + "embedded_vectors = #{task.embeddedVectors}, elapsed_ms = #{task.elapsedMs}, "
+            + "error_message = #{task.errorMessage}, heartbeat_at = #{task.heartbeatAt} "
+            + "WHERE id = #{task.id} AND owner = #{task.owner} AND status = 'RUNNING'")
+    int updateProgress(@Param("task") IngestionTaskPO task);
+    
+    @Update("UPDATE ingestion_task SET status = #{task.status}, total_documents = #{task.totalDocuments}, "
+            + "checkpoint = #{task.checkpoint}, "
+            + "processed_documents = #{task.processedDocuments}, failed_documents = #{task.failedDocuments}, "
+            + "embedded_vectors = #{task.embeddedVectors}, elapsed_ms = #{task.elapsedMs}, "
+            + "error_message = #{task.errorMessage}, heartbeat_at = #{task.heartbeatAt}, "
+            + "completed_at = #{task.completedAt} "
+            + "WHERE id = #{task.id} AND owner = #{task.owner} AND status = 'RUNNING'")
+    int finish(@Param("task") IngestionTaskPO task);
+    
+    @Update("UPDATE ingestion_task SET status = 'PENDING', owner = NULL, checkpoint = #{task.checkpoint}, "
+            + "processed_documents = #{task.processedDocuments}, failed_documents = #{task.failedDocuments}, "
+            + "embedded_vectors = #{task.embeddedVectors}, elapsed_ms = #{task.elapsedMs}, "
+            + "error_message = #{task.errorMessage}, heartbeat_at = #{task.heartbeatAt} "
+            + "WHERE id = #{task.id} AND owner = #{task.owner} AND status = 'RUNNING'")
+    int release(@Param("task") IngestionTaskPO task);
+    
+    @Update("UPDATE ingestion_task SET status = 'PENDING', owner = NULL, completed_at = NULL "
+            + "WHERE id = #{id} AND status = 'FAILED'")
+    int requeue(@Param("id") String id);
+    
+    @Update("UPDATE ingestion_task SET status = 'CANCELLED', completed_at = #{now} "
+            + "WHERE id = #{id} AND status IN ('PENDING', 'RUNNING')")
+    int cancel(@Param("id") String id, @Param("now") LocalDateTime now);
+}
@@ -2,10 +2,14 @@ package com.enterprise.rag.infrastructure.persistence.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.enterprise.rag.infrastructure.persistence.entity.KnowledgeBasePO;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,4 +24,72 @@ public interface KnowledgeBaseMapper extends BaseMapper<KnowledgeBasePO> {
     
     @Select("SELECT * FROM knowledge_base WHERE tenant_id = #{tenantId} AND deleted = 0")
     List<KnowledgeBasePO> findByTenantId(@Param("tenantId") String tenantId);
+    
+    @Select("SELECT * FROM knowledge_base WHERE status = #{status} AND deleted = 0")
+    List<KnowledgeBasePO> findByStatus(@Param("status") String status);
+    
+    /**
+     * 查询版本号 (缓存过期校验使用，不读取字段定义 JSON)
+     */
+    @Select("SELECT version FROM knowledge_base WHERE id = #{id} AND deleted = 0")
+    Long findVersionById(@Param("id") String id);
+    
+    /**
+     * 发送知识库变更通知，通知在事务提交后投递给所有 LISTEN 该通道的节点
+     */
+    @Select("SELECT 1 FROM pg_notify(#{channel}, #{id})")
+    Integer notifyChange(@Param("channel") String channel, @Param("id") String id);
+    
+    /**
+     * 条件切换状态 (无进行中迁移时)，同时递增 version 使其他节点的缓存与并发 save 感知变化
+     */
+    @Update("UPDATE knowledge_base SET status = #{status}, updated_at = #{now}, version = version + 1 "
+            + "WHERE id = #{id} AND deleted = 0 AND status = #{expected} AND migration IS NULL")
+    int transitionStatus(@Param("id") String id, @Param("expected") String expected,
+                         @Param("status") String status, @Param("now") LocalDateTime now);
+    
+    /**
+     * 领取迁移租约，仅当迁移存在且无持有者、已由该节点持有或原持有者心跳已过期时成功
+     * 
+     * <p>租约列不属于实体，不随 save 写入，也不改变 version (不使缓存失效)</p>
+     */
+    @Update("UPDATE knowledge_base SET migration_owner = #{owner}, migration_heartbeat_at = #{now} "
+            + "WHERE id = #{id} AND deleted = 0 AND migration IS NOT NULL AND (migration_owner IS NULL "
+            + "OR migration_owner = #{owner} OR migration_heartbeat_at IS NULL "
+            + "OR migration_heartbeat_at < #{staleBefore})")
+    int claimMigration(@Param("id") String id, @Param("owner") String owner, @Param("now") LocalDateTime now,
+                       @Param("staleBefore") LocalDateTime staleBefore);
+    
+    @Update("UPDATE knowledge_base SET migration_heartbeat_at = #{now} "
+            + "WHERE id = #{id} AND migration_owner = #{owner} AND migration IS NOT NULL")
+    int renewMigration(@Param("id") String id, @Param("owner") String owner, @Param("now") LocalDateTime now);
+    
+    @Update("UPDATE knowledge_base SET migration_owner = NULL, migration_heartbeat_at = NULL "
+            + "WHERE id = #{id} AND migration_owner = #{owner}")
+    int releaseMigration(@Param("id") String id, @Param("owner") String owner);
+    
+    @Select("SELECT migration_owner FROM knowledge_base WHERE id = #{id} AND deleted = 0 "
+            + "AND migration IS NOT NULL AND migration_heartbeat_at >= #{staleBefore}")
+    String findMigrationOwner(@Param("id") String id, @Param("staleBefore") LocalDateTime staleBefore);
+    
+    @Insert("INSERT INTO index_retirement (index_name, knowledge_base_id, retire_after) "
+            + "VALUES (#{indexName}, #{knowledgeBaseId}, #{retireAfter}) "
+            + "ON CONFLICT (index_name) DO UPDATE SET retire_after = EXCLUDED.retire_after")
+    int insertIndexRetirement(@Param("knowledgeBaseId") String knowledgeBaseId,
+                              @Param("indexName") String indexName,
+                              @Param("retireAfter") LocalDateTime retireAfter);
+    
+    @Select("SELECT index_name FROM index_retirement WHERE retire_after <= #{now} ORDER BY retire_after")
+    List<String> findDueIndexRetirements(@Param("now") LocalDateTime now);
+    
+    /**
+     * 领取到期的旧索引删除，推迟到 retryAfter 防止其他节点重复执行，删除失败时届时重试
+     */
+    @Update("UPDATE index_retirement SET retire_after = #{retryAfter} "
+            + "WHERE index_name = #{indexName} AND retire_after <= #{now}")
+    int claimIndexRetirement(@Param("indexName") String indexName, @Param("now") LocalDateTime now,
+                             @Param("retryAfter") LocalDateTime retryAfter);
+    
+    @Delete("DELETE FROM index_retirement WHERE index_name = #{indexName}")
+    int deleteIndexRetirement(@Param("indexName") String indexName);
 }
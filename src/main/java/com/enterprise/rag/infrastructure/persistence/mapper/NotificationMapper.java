@@ -0,0 +1,15 @@
+package com.enterprise.rag.infrastructure.persistence.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * PostgreSQL 通知 Mapper 接口
+ */
+@Mapper
+public interface NotificationMapper {
+    
+    @Select("SELECT 1 FROM pg_notify(#{channel}, #{payload})")
+    Integer notify(@Param("channel") String channel, @Param("payload") String payload);
+}
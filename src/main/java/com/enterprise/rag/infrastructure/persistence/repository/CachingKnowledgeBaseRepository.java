@@ -0,0 +1,210 @@
+package com.enterprise.rag.infrastructure.persistence.repository;
+
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBaseRepository;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBaseStatus;
+import com.enterprise.rag.infrastructure.persistence.mapper.KnowledgeBaseMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * 带缓存的知识库仓储 (装饰 {@link KnowledgeBaseRepositoryImpl})
+ * 
+ * <p>检索与摄取热路径上的 findById 直接返回已解析的知识库，避免每次请求都查询数据库并反序列化字段定义。
+ * 缓存按容量和 TTL 淘汰；条目超过校验间隔后通过只读 version 列的轻量查询确认是否过期。</p>
+ * 
+ * <p>save/delete 会清除本地条目并通过 PostgreSQL NOTIFY 通知其他节点，
+ * 由 {@link KnowledgeBaseCacheInvalidationListener} 接收后清除对应条目。</p>
+ * 
+ * <p>缓存的知识库实例不对外暴露：findById 每次返回独立副本 ({@link KnowledgeBase#copy()})，
+ * 调用方可直接修改后 save，不会影响其他线程读取的状态。</p>
+ */
+@Slf4j
+@Primary
+@Repository
+public class CachingKnowledgeBaseRepository implements KnowledgeBaseRepository {
+    
+    private final KnowledgeBaseRepositoryImpl delegate;
+    private final KnowledgeBaseMapper mapper;
+    private final Cache<String, CachedKnowledgeBase> cache;
+    private final long versionCheckIntervalNanos;
+    private final String invalidationChannel;
+    
+    public CachingKnowledgeBaseRepository(
+            KnowledgeBaseRepositoryImpl delegate,
+            KnowledgeBaseMapper mapper,
+            MeterRegistry meterRegistry,
+            @Value("${rag.knowledge-base-cache.maximum-size:1000}") long maximumSize,
+            @Value("${rag.knowledge-base-cache.expire-after-write-ms:600000}") long expireAfterWriteMs,
+            @Value("${rag.knowledge-base-cache.version-check-interval-ms:5000}") long versionCheckIntervalMs,
+            @Value("${rag.knowledge-base-cache.invalidation-channel:rag_knowledge_base_changed}") String invalidationChannel) {
+        this.delegate = delegate;
+        this.mapper = mapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .recordStats()
+                .build();
+        this.versionCheckIntervalNanos = Duration.ofMillis(versionCheckIntervalMs).toNanos();
+        this.invalidationChannel = invalidationChannel;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "knowledge_base");
+    }
+    
+    @Override
+    public KnowledgeBase save(KnowledgeBase knowledgeBase) {
+        // 不缓存写入结果：事务可能回滚，提交后的通知也会投递给本节点
+        KnowledgeBase saved = delegate.save(knowledgeBase);
+        cache.invalidate(saved.getId());
+        publishInvalidation(saved.getId());
+        return saved;
+    }
+    
+    @Override
+    public Optional<KnowledgeBase> findById(String id) {
+        CachedKnowledgeBase cached = cache.getIfPresent(id);
+        if (cached != null) {
+            long now = System.nanoTime();
+            if (now - cached.verifiedAtNanos() < versionCheckIntervalNanos) {
+                return Optional.of(cached.knowledgeBase().copy());
+            }
+            // 超过校验间隔，仅查询 version 判断是否过期
+            Long currentVersion = mapper.findVersionById(id);
+            if (currentVersion != null && Objects.equals(currentVersion, cached.knowledgeBase().getVersion())) {
+                cache.put(id, new CachedKnowledgeBase(cached.knowledgeBase(), now));
+                return Optional.of(cached.knowledgeBase().copy());
+            }
+            log.debug("Cached knowledge base {} is stale (version {} -> {})",
+                    id, cached.knowledgeBase().getVersion(), currentVersion);
+            cache.invalidate(id);
+        }
+        
+        Optional<KnowledgeBase> loaded = delegate.findById(id);
+        loaded.ifPresent(kb -> cache.put(id, new CachedKnowledgeBase(kb.copy(), System.nanoTime())));
+        return loaded;
+    }
+    
+    @Override
+    public Optional<KnowledgeBase> findByIndexName(String indexName) {
+        return delegate.findByIndexName(indexName);
+    }
+    
+    @Override
+    public List<KnowledgeBase> findByTenantId(String tenantId) {
+        return delegate.findByTenantId(tenantId);
+    }
+    
+    @Override
+    public List<KnowledgeBase> findByStatus(KnowledgeBaseStatus status) {
+        return delegate.findByStatus(status);
+    }
+    
+    @Override
+    public void delete(String id) {
+        cache.invalidate(id);
+        delegate.delete(id);
+        publishInvalidation(id);
+    }
+    
+    @Override
+    public boolean existsById(String id) {
+        return delegate.existsById(id);
+    }
+    
+    @Override
+    public boolean transitionStatus(String id, KnowledgeBaseStatus expected, KnowledgeBaseStatus status) {
+        boolean transitioned = delegate.transitionStatus(id, expected, status);
+        if (transitioned) {
+            cache.invalidate(id);
+            publishInvalidation(id);
+        }
+        return transitioned;
+    }
+    
+    // 迁移租约与旧索引删除记录不属于缓存的知识库状态，直接访问数据库
+    
+    @Override
+    public boolean claimMigration(String id, String owner, LocalDateTime staleBefore) {
+        return delegate.claimMigration(id, owner, staleBefore);
+    }
+    
+    @Override
+    public boolean renewMigration(String id, String owner) {
+        return delegate.renewMigration(id, owner);
+    }
+    
+    @Override
+    public void releaseMigration(String id, String owner) {
+        delegate.releaseMigration(id, owner);
+    }
+    
+    @Override
+    public Optional<String> findMigrationOwner(String id, LocalDateTime staleBefore) {
+        return delegate.findMigrationOwner(id, staleBefore);
+    }
+    
+    @Override
+    public void scheduleIndexRetirement(String id, String indexName, LocalDateTime retireAfter) {
+        delegate.scheduleIndexRetirement(id, indexName, retireAfter);
+    }
+    
+    @Override
+    public List<String> findDueIndexRetirements(LocalDateTime now) {
+        return delegate.findDueIndexRetirements(now);
+    }
+    
+    @Override
+    public boolean claimIndexRetirement(String indexName, LocalDateTime now, LocalDateTime retryAfter) {
+        return delegate.claimIndexRetirement(indexName, now, retryAfter);
+    }
+    
+    @Override
+    public void removeIndexRetirement(String indexName) {
+        delegate.removeIndexRetirement(indexName);
+    }
+    
+    /**
+     * 清除单个缓存条目 (收到其他节点的变更通知时调用)
+     */
+    public void evict(String id) {
+        cache.invalidate(id);
+    }
+    
+    /**
+     * 清除全部缓存条目 (通知连接中断、可能漏收通知时调用)
+     */
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+    
+    /**
+     * 通知其他节点清除缓存，通知失败不影响写入，依赖 version 校验兜底
+     */
+    private void publishInvalidation(String id) {
+        try {
+            mapper.notifyChange(invalidationChannel, id);
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish cache invalidation for knowledge base {}: {}", id, e.getMessage());
+        }
+    }
+    
+    /**
+     * 缓存条目
+     * 
+     * @param knowledgeBase 已解析的知识库
+     * @param verifiedAtNanos 最近一次确认未过期的时间
+     */
+    private record CachedKnowledgeBase(KnowledgeBase knowledgeBase, long verifiedAtNanos) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.enterprise.rag.infrastructure.persistence.repository;
+
+import com.enterprise.rag.domain.model.ingestion.IngestionTask;
+import com.enterprise.rag.domain.model.ingestion.IngestionTaskRepository;
+import com.enterprise.rag.domain.model.ingestion.IngestionTaskStatus;
+import com.enterprise.rag.infrastructure.persistence.converter.IngestionTaskConverter;
+import com.enterprise.rag.infrastructure.persistence.entity.IngestionTaskPO;
+import com.enterprise.rag.infrastructure.persistence.mapper.IngestionTaskMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * 摄取任务仓储实现
+ */
+@Repository
+public class IngestionTaskRepositoryImpl implements IngestionTaskRepository {
+    
+    private final IngestionTaskMapper mapper;
+    private final IngestionTaskConverter converter;
+    
+    public IngestionTaskRepositoryImpl(IngestionTaskMapper mapper, IngestionTaskConverter converter) {
+        this.mapper = mapper;
+        this.converter = converter;
+    }
+    
+    @Override
+    public IngestionTask create(IngestionTask task) {
+        IngestionTaskPO entity = converter.toEntity(task);
+        mapper.insert(entity);
+        return converter.toDomain(mapper.selectById(entity.getId()));
+    }
+    
+    @Override
+    public Optional<IngestionTask> findById(String id) {
+        return Optional.ofNullable(mapper.selectById(id)).map(converter::toDomain);
+    }
+    
+    @Override
+    public List<IngestionTask> findByKnowledgeBaseId(String knowledgeBaseId) {
+        return mapper.findByKnowledgeBaseId(knowledgeBaseId).stream()
+                .map(converter::toDomain)
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    public List<IngestionTask> findClaimable(String node, LocalDateTime staleBefore, int limit) {
+        return mapper.findClaimable(node, staleBefore, limit).stream()
+                .map(converter::toDomain)
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    public boolean claim(String id, String owner, String node, LocalDateTime staleBefore) {
+        return mapper.claim(id, owner, node, LocalDateTime.now(), staleBefore) == 1;
+    }
+    
+    @Override
+    public boolean heartbeat(String id, String owner) {
+        return mapper.heartbeat(id, owner, LocalDateTime.now()) == 1;
+    }
+    
+    @Override
+    public boolean saveProgress(String id, String owner, IngestionTask.Progress progress) {
+        return mapper.updateProgress(progressEntity(id, owner, progress)) == 1;
+    }
+    
+    @Override
+    public boolean finish(String id, String owner, IngestionTaskStatus status, long totalDocuments,
+                          IngestionTask.Progress progress) {
+        if (!status.isTerminal()) {
+            throw new IllegalArgumentException("Not a terminal task status: " + status);
+        }
+        IngestionTaskPO entity = progressEntity(id, owner, progress);
+        entity.setStatus(status.name());
+        entity.setTotalDocuments(totalDocuments);
+        entity.setCompletedAt(entity.getHeartbeatAt());
+        return mapper.finish(entity) == 1;
+    }
+    
+    @Override
+    public boolean release(String id, String owner, IngestionTask.Progress progress) {
+        return mapper.release(progressEntity(id, owner, progress)) == 1;
+    }
+    
+    @Override
+    public boolean requeue(String id) {
+        return mapper.requeue(id) == 1;
+    }
+    
+    @Override
+    public boolean cancel(String id) {
+        return mapper.cancel(id, LocalDateTime.now()) == 1;
+    }
+    
+    private static IngestionTaskPO progressEntity(String id, String owner, IngestionTask.Progress progress) {
+        IngestionTaskPO entity = new IngestionTaskPO();
+        entity.setId(id);
+        entity.setOwner(owner);
+        entity.setCheckpoint(progress.checkpoint());
+        entity.setProcessedDocuments(progress.processedDocuments());
+        entity.setFailedDocuments(progress.failedDocuments());
+        entity.setEmbeddedVectors(progress.embeddedVectors());
+        entity.setElapsedMs(progress.elapsedMs());
+        entity.setErrorMessage(progress.errorMessage());
+        entity.setHeartbeatAt(LocalDateTime.now());
+        return entity;
+    }
+}
@@ -0,0 +1,121 @@
+package com.enterprise.rag.infrastructure.persistence.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 知识库缓存失效监听器
+ * 
+ * <p>使用独立连接 LISTEN 变更通道，收到通知后清除 {@link CachingKnowledgeBaseRepository} 中的对应条目。
+ * 连接中断期间可能漏收通知，重连成功后会清空整个缓存。</p>
+ */
+@Slf4j
+@Component
+public class KnowledgeBaseCacheInvalidationListener implements SmartLifecycle {
+    
+    private final DataSource dataSource;
+    private final CachingKnowledgeBaseRepository repository;
+    private final String channel;
+    private final boolean enabled;
+    private final long pollTimeoutMs;
+    private final long reconnectDelayMs;
+    
+    private volatile boolean running;
+    private Thread listenerThread;
+    
+    public KnowledgeBaseCacheInvalidationListener(
+            DataSource dataSource,
+            CachingKnowledgeBaseRepository repository,
+            @Value("${rag.knowledge-base-cache.invalidation-channel:rag_knowledge_base_changed}") String channel,
+            @Value("${rag.knowledge-base-cache.listener-enabled:true}") boolean enabled,
+            @Value("${rag.knowledge-base-cache.listener-poll-timeout-ms:1000}") long pollTimeoutMs,
+            @Value("${rag.knowledge-base-cache.listener-reconnect-delay-ms:5000}") long reconnectDelayMs) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid invalidation channel name: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.repository = repository;
+        this.channel = channel;
+        this.enabled = enabled;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.reconnectDelayMs = reconnectDelayMs;
+    }
+    
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "kb-cache-invalidation");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        log.info("Started knowledge base cache invalidation listener on channel {}", channel);
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+            listenerThread = null;
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * 监听循环：断线后等待重连，直到停止
+     */
+    private void listenLoop() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (reconnect) {
+                    // 断线期间的通知已丢失
+                    repository.evictAll();
+                    log.info("Reconnected cache invalidation listener, cleared knowledge base cache");
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeoutMs);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        log.debug("Received invalidation for knowledge base {}", notification.getParameter());
+                        repository.evict(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cache invalidation listener connection failed, retrying in {} ms: {}",
+                        reconnectDelayMs, e.getMessage());
+                reconnect = true;
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -2,11 +2,13 @@ package com.enterprise.rag.infrastructure.persistence.repository;
 
 import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
 import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBaseRepository;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBaseStatus;
 import com.enterprise.rag.infrastructure.persistence.converter.KnowledgeBaseConverter;
 import com.enterprise.rag.infrastructure.persistence.entity.KnowledgeBasePO;
 import com.enterprise.rag.infrastructure.persistence.mapper.KnowledgeBaseMapper;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -30,7 +32,9 @@ public class KnowledgeBaseRepositoryImpl implements KnowledgeBaseRepository {
         KnowledgeBasePO entity = converter.toEntity(knowledgeBase);
         
         if (mapper.selectById(knowledgeBase.getId()) != null) {
-            mapper.updateById(entity);
+            if (mapper.updateById(entity) == 0) {
+                throw new IllegalStateException("Knowledge base was modified concurrently: " + knowledgeBase.getId());
+            }
         } else {
             mapper.insert(entity);
         }
@@ -56,6 +60,13 @@ public class KnowledgeBaseRepositoryImpl implements KnowledgeBaseRepository {
                 .collect(Collectors.toList());
     }
     
+    @Override
+    public List<KnowledgeBase> findByStatus(KnowledgeBaseStatus status) {
+        return mapper.findByStatus(status.name()).stream()
+                .map(converter::toDomain)
+                .collect(Collectors.toList());
+    }
+    
     @Override
     public void delete(String id) {
         mapper.deleteById(id);
@@ -65,4 +76,49 @@ public class KnowledgeBaseRepositoryImpl implements KnowledgeBaseRepository {
     public boolean existsById(String id) {
         return mapper.selectById(id) != null;
     }
+    
+    @Override
+    public boolean transitionStatus(String id, KnowledgeBaseStatus expected, KnowledgeBaseStatus status) {
+        return mapper.transitionStatus(id, expected.name(), status.name(), LocalDateTime.now()) == 1;
+    }
+    
+    @Override
+    public boolean claimMigration(String id, String owner, LocalDateTime staleBefore) {
+        return mapper.claimMigration(id, owner, LocalDateTime.now(), staleBefore) == 1;
+    }
+    
+    @Override
+    public boolean renewMigration(String id, String owner) {
+        return mapper.renewMigration(id, owner, LocalDateTime.now()) == 1;
+    }
+    
+    @Override
+    public void releaseMigration(String id, String owner) {
+        mapper.releaseMigration(id, owner);
+    }
+    
+    @Override
+    public Optional<String> findMigrationOwner(String id, LocalDateTime staleBefore) {
+        return Optional.ofNullable(mapper.findMigrationOwner(id, staleBefore));
+    }
+    
+    @Override
+    public void scheduleIndexRetirement(String id, String indexName, LocalDateTime retireAfter) {
+        mapper.insertIndexRetirement(id, indexName, retireAfter);
+    }
+    
+    @Override
+    public List<String> findDueIndexRetirements(LocalDateTime now) {
+        return mapper.findDueIndexRetirements(now);
+    }
+    
+    @Override
+    public boolean claimIndexRetirement(String indexName, LocalDateTime now, LocalDateTime retryAfter) {
+        return mapper.claimIndexRetirement(indexName, now, retryAfter) == 1;
+    }
+    
+    @Override
+    public void removeIndexRetirement(String indexName) {
+        mapper.deleteIndexRetirement(indexName);
+    }
 }
@@ -0,0 +1,57 @@
+package com.enterprise.rag.interfaces.rest;
+
+import com.enterprise.rag.infrastructure.kafka.DeadLetterReplayService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 摄取死信重放 REST API 控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/admin/ingestion/dlq/replay")
+@RequiredArgsConstructor
+public class DeadLetterReplayController {
+    
+    private final DeadLetterReplayService replayService;
+    
+    /**
+     * 以限定速率将死信重新发布到原始主题
+     * 
+     * POST /api/v1/admin/ingestion/dlq/replay?ratePerSecond=50&maxMessages=10000
+     */
+    @PostMapping
+    public ResponseEntity<DeadLetterReplayService.ReplayStatus> start(
+            @RequestParam(defaultValue = "50") double ratePerSecond,
+            @RequestParam(defaultValue = "10000") long maxMessages) {
+        log.info("Starting dead letter replay: rate={}/s, max={}", ratePerSecond, maxMessages);
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(replayService.start(ratePerSecond, maxMessages));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(replayService.getStatus());
+        }
+    }
+    
+    /**
+     * 查询重放进度
+     * 
+     * GET /api/v1/admin/ingestion/dlq/replay
+     */
+    @GetMapping
+    public ResponseEntity<DeadLetterReplayService.ReplayStatus> status() {
+        return ResponseEntity.ok(replayService.getStatus());
+    }
+    
+    /**
+     * 停止当前重放
+     * 
+     * DELETE /api/v1/admin/ingestion/dlq/replay
+     */
+    @DeleteMapping
+    public ResponseEntity<DeadLetterReplayService.ReplayStatus> stop() {
+        return ResponseEntity.ok(replayService.stop());
+    }
+}
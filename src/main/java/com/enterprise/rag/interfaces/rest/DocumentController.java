@@ -0,0 +1,74 @@
+package com.enterprise.rag.interfaces.rest;
+
+import com.enterprise.rag.application.service.BulkIngestionService;
+import com.enterprise.rag.application.service.IngestionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 文档摄取 REST API 控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/knowledge-bases/{id}/documents")
+@RequiredArgsConstructor
+public class DocumentController {
+    
+    private static final String NDJSON = "application/x-ndjson";
+    
+    private final IngestionService ingestionService;
+    private final BulkIngestionService bulkIngestionService;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * 流式批量摄取
+     * 
+     * <p>请求体为 NDJSON，每行一个文档操作 (documentId, content, metadata, operation 等)；
+     * 响应同为 NDJSON，按输入顺序每行输出一条处理状态，最后一行为汇总。
+     * 响应在处理过程中逐批刷出，请求体与响应均不在内存中整体缓存。</p>
+     * 
+     * POST /api/v1/knowledge-bases/{id}/documents/_bulk
+     */
+    @PostMapping(value = "/_bulk", consumes = {NDJSON, "application/json", "text/plain"})
+    public void bulkIngest(@PathVariable String id, InputStream body, HttpServletResponse response)
+            throws IOException {
+        // 在响应提交之前检查知识库，错误仍按常规错误响应返回
+        ingestionService.requireIngestible(id);
+        log.info("Streaming bulk ingestion into knowledge base: {}", id);
+        
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writer();
+        
+        BulkIngestionService.BulkSummary summary = bulkIngestionService.ingest(id, body,
+                new BulkIngestionService.StatusSink() {
+                    @Override
+                    public void accept(BulkIngestionService.LineStatus status) throws IOException {
+                        writeLine(writer, out, status);
+                    }
+                    
+                    @Override
+                    public void batchCompleted(BulkIngestionService.BatchProgress progress) throws IOException {
+                        out.flush();
+                    }
+                });
+        writeLine(writer, out, summary);
+        out.flush();
+    }
+    
+    private static void writeLine(ObjectWriter writer, OutputStream out, Object value) throws IOException {
+        out.write(writer.writeValueAsBytes(value));
+        out.write('\n');
+    }
+}
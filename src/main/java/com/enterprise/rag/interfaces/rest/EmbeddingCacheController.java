@@ -0,0 +1,92 @@
+package com.enterprise.rag.interfaces.rest;
+
+import com.enterprise.rag.infrastructure.cache.EmbeddingCachePurger;
+import com.enterprise.rag.infrastructure.cache.MappedEmbeddingStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * 向量缓存管理 REST API 控制器
+ * 
+ * <p>清除接口在本节点同步执行并广播到其他节点，响应中的 purged 为本节点清除的条目数，
+ * scope 为 cluster 表示已广播，为 node 表示广播失败、仅清除了本节点。
+ * 模型 ID 为 _default 时指代未指定模型写入的条目，清除默认模型时这些条目一并清除。</p>
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/admin/embedding-cache")
+@RequiredArgsConstructor
+public class EmbeddingCacheController {
+    
+    private final ObjectProvider<MappedEmbeddingStore> embeddingStore;
+    private final EmbeddingCachePurger purger;
+    
+    /**
+     * 清除指定模型的缓存向量，指定 from 时只清除 [from, to) 内写入的向量 (to 默认为当前时间)
+     * 
+     * DELETE /api/v1/admin/embedding-cache/models/{modelId}?from=&to=
+     */
+    @DeleteMapping("/models/{modelId}")
+    public ResponseEntity<Map<String, Object>> purgeModel(
+            @PathVariable String modelId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        log.info("Purging embedding cache for model: {}", modelId);
+        return purge(EmbeddingCachePurger.Target.QUERY_CACHE, modelId, from, to);
+    }
+    
+    /**
+     * 各知识库摄取时的向量复用统计
+     * 
+     * GET /api/v1/admin/embedding-cache/ingestion-store/dedup
+     */
+    @GetMapping("/ingestion-store/dedup")
+    public ResponseEntity<Map<String, Map<String, Object>>> getDeduplicationStats() {
+        MappedEmbeddingStore store = embeddingStore.getIfAvailable();
+        if (store == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(store.getDeduplicationStats());
+    }
+    
+    /**
+     * 清除摄取向量存储中指定模型的向量，指定 from 时只清除 [from, to) 内写入的向量 (to 默认为当前时间)
+     * 
+     * DELETE /api/v1/admin/embedding-cache/ingestion-store/models/{modelId}?from=&to=
+     */
+    @DeleteMapping("/ingestion-store/models/{modelId}")
+    public ResponseEntity<Map<String, Object>> purgeIngestionModel(
+            @PathVariable String modelId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        log.info("Purging ingestion embedding store for model: {}", modelId);
+        return purge(EmbeddingCachePurger.Target.INGESTION_STORE, modelId, from, to);
+    }
+    
+    private ResponseEntity<Map<String, Object>> purge(EmbeddingCachePurger.Target target, String modelId,
+                                                      Instant from, Instant to) {
+        if (!purger.isAvailable(target)) {
+            return ResponseEntity.notFound().build();
+        }
+        EmbeddingCachePurger.PurgeResult result = from == null
+                ? purger.purge(target, modelId, null, null)
+                : purger.purge(target, modelId, from.toEpochMilli(), toMillis(from, to));
+        return ResponseEntity.ok(Map.of("modelId", modelId, "purged", result.purged(),
+                "scope", result.broadcast() ? "cluster" : "node"));
+    }
+    
+    private static long toMillis(Instant from, Instant to) {
+        long toMillis = to != null ? to.toEpochMilli() : System.currentTimeMillis();
+        if (toMillis <= from.toEpochMilli()) {
+            throw new IllegalArgumentException("Purge range end must be after its start");
+        }
+        return toMillis;
+    }
+}
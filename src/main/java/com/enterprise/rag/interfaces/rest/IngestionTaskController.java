@@ -0,0 +1,124 @@
+package com.enterprise.rag.interfaces.rest;
+
+import com.enterprise.rag.application.service.IngestionTaskService;
+import com.enterprise.rag.domain.model.ingestion.IngestionTask;
+import com.enterprise.rag.interfaces.rest.assembler.DtoAssembler;
+import com.enterprise.rag.interfaces.rest.dto.IngestionTaskDTO;
+import com.enterprise.rag.interfaces.rest.dto.IngestionTaskRequestDTO;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 摄取任务 REST API 控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/knowledge-bases/{id}/ingestion-tasks")
+@RequiredArgsConstructor
+public class IngestionTaskController {
+    
+    private final IngestionTaskService taskService;
+    private final DtoAssembler dtoAssembler;
+    
+    /**
+     * 提交文件或 Kafka 位移区间摄取任务
+     * 
+     * POST /api/v1/knowledge-bases/{id}/ingestion-tasks
+     */
+    @PostMapping(consumes = "application/json")
+    public ResponseEntity<IngestionTaskDTO> submit(@PathVariable String id,
+                                                   @Valid @RequestBody IngestionTaskRequestDTO requestDTO) {
+        IngestionTask task = switch (requestDTO.getSourceType()) {
+            case FILE -> {
+                if (requestDTO.getPath() == null || requestDTO.getPath().isBlank()) {
+                    throw new IllegalArgumentException("Path is required for FILE tasks");
+                }
+                yield taskService.submitFile(id, requestDTO.getPath());
+            }
+            case KAFKA_RANGE -> {
+                if (requestDTO.getTopic() == null || requestDTO.getPartition() == null
+                        || requestDTO.getStartOffset() == null || requestDTO.getEndOffset() == null) {
+                    throw new IllegalArgumentException(
+                            "Topic, partition, startOffset and endOffset are required for KAFKA_RANGE tasks");
+                }
+                yield taskService.submitKafkaRange(id, requestDTO.getTopic(), requestDTO.getPartition(),
+                        requestDTO.getStartOffset(), requestDTO.getEndOffset());
+            }
+            case NDJSON_UPLOAD -> throw new IllegalArgumentException(
+                    "Upload NDJSON to /api/v1/knowledge-bases/{id}/ingestion-tasks/_upload");
+        };
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(dtoAssembler.toIngestionTaskDTO(task));
+    }
+    
+    /**
+     * 上传 NDJSON 并提交摄取任务，请求体落盘后立即返回
+     * 
+     * POST /api/v1/knowledge-bases/{id}/ingestion-tasks/_upload
+     */
+    @PostMapping(value = "/_upload", consumes = {"application/x-ndjson", "application/json", "text/plain"})
+    public ResponseEntity<IngestionTaskDTO> upload(@PathVariable String id, InputStream body) {
+        IngestionTask task = taskService.submitUpload(id, body);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(dtoAssembler.toIngestionTaskDTO(task));
+    }
+    
+    /**
+     * 获取知识库的摄取任务
+     * 
+     * GET /api/v1/knowledge-bases/{id}/ingestion-tasks
+     */
+    @GetMapping
+    public ResponseEntity<List<IngestionTaskDTO>> list(@PathVariable String id) {
+        return ResponseEntity.ok(taskService.listTasks(id).stream()
+                .map(dtoAssembler::toIngestionTaskDTO)
+                .collect(Collectors.toList()));
+    }
+    
+    /**
+     * 获取任务进度与吞吐
+     * 
+     * GET /api/v1/knowledge-bases/{id}/ingestion-tasks/{taskId}
+     */
+    @GetMapping("/{taskId}")
+    public ResponseEntity<IngestionTaskDTO> get(@PathVariable String id, @PathVariable String taskId) {
+        return ResponseEntity.ok(dtoAssembler.toIngestionTaskDTO(requireTask(id, taskId)));
+    }
+    
+    /**
+     * 取消任务
+     * 
+     * DELETE /api/v1/knowledge-bases/{id}/ingestion-tasks/{taskId}
+     */
+    @DeleteMapping("/{taskId}")
+    public ResponseEntity<IngestionTaskDTO> cancel(@PathVariable String id, @PathVariable String taskId) {
+        requireTask(id, taskId);
+        return ResponseEntity.ok(dtoAssembler.toIngestionTaskDTO(taskService.cancel(taskId)));
+    }
+    
+    /**
+     * 从检查点继续失败的任务
+     * 
+     * POST /api/v1/knowledge-bases/{id}/ingestion-tasks/{taskId}/_resume
+     */
+    @PostMapping("/{taskId}/_resume")
+    public ResponseEntity<IngestionTaskDTO> resume(@PathVariable String id, @PathVariable String taskId) {
+        requireTask(id, taskId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(dtoAssembler.toIngestionTaskDTO(taskService.resume(taskId)));
+    }
+    
+    private IngestionTask requireTask(String knowledgeBaseId, String taskId) {
+        IngestionTask task = taskService.getTask(taskId);
+        if (!task.getKnowledgeBaseId().equals(knowledgeBaseId)) {
+            throw new IllegalArgumentException("Ingestion task not found: " + taskId);
+        }
+        return task;
+    }
+}
@@ -0,0 +1,70 @@
+package com.enterprise.rag.interfaces.rest;
+
+import com.enterprise.rag.application.service.KnowledgeBaseReindexService;
+import com.enterprise.rag.interfaces.rest.assembler.DtoAssembler;
+import com.enterprise.rag.interfaces.rest.dto.ReindexRequestDTO;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 知识库重建索引 REST API 控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/knowledge-bases/{id}/_reindex")
+@RequiredArgsConstructor
+public class KnowledgeBaseReindexController {
+    
+    private final KnowledgeBaseReindexService reindexService;
+    private final DtoAssembler dtoAssembler;
+    
+    /**
+     * 以新字段定义在后台重建索引，完成后切换别名
+     * 
+     * POST /api/v1/knowledge-bases/{id}/_reindex
+     */
+    @PostMapping
+    public ResponseEntity<KnowledgeBaseReindexService.ReindexStatus> start(
+            @PathVariable String id, @Valid @RequestBody ReindexRequestDTO requestDTO) {
+        log.info("Starting reindex of knowledge base: {}", id);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reindexService.start(id,
+                dtoAssembler.toFieldDefinitions(requestDTO.getFieldDefinitions()), requestDTO.getRequestsPerSecond()));
+    }
+    
+    /**
+     * 恢复中断或失败的重建索引
+     * 
+     * POST /api/v1/knowledge-bases/{id}/_reindex/_resume?requestsPerSecond=500
+     */
+    @PostMapping("/_resume")
+    public ResponseEntity<KnowledgeBaseReindexService.ReindexStatus> resume(
+            @PathVariable String id, @RequestParam(required = false) Float requestsPerSecond) {
+        log.info("Resuming reindex of knowledge base: {}", id);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reindexService.resume(id, requestsPerSecond));
+    }
+    
+    /**
+     * 查询重建索引进度
+     * 
+     * GET /api/v1/knowledge-bases/{id}/_reindex
+     */
+    @GetMapping
+    public ResponseEntity<KnowledgeBaseReindexService.ReindexStatus> status(@PathVariable String id) {
+        return ResponseEntity.ok(reindexService.getStatus(id));
+    }
+    
+    /**
+     * 放弃重建索引并删除目标索引
+     * 
+     * DELETE /api/v1/knowledge-bases/{id}/_reindex
+     */
+    @DeleteMapping
+    public ResponseEntity<KnowledgeBaseReindexService.ReindexStatus> abort(@PathVariable String id) {
+        log.info("Aborting reindex of knowledge base: {}", id);
+        return ResponseEntity.ok(reindexService.abort(id));
+    }
+}
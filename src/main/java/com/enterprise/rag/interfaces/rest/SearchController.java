@@ -128,11 +128,14 @@ public class SearchController {
         requestDTO.setRetrievalMethods(java.util.List.of(vectorMethod, textMethod));
         
         // 设置融合策略
-        requestDTO.setFusionStrategy(
-                "LINEAR".equalsIgnoreCase(fusionStrategy) 
-                        ? com.enterprise.rag.domain.model.search.FusionStrategyType.LINEAR_WEIGHT
-                        : com.enterprise.rag.domain.model.search.FusionStrategyType.RRF
-        );
+        requestDTO.setFusionStrategy(switch (fusionStrategy.toUpperCase()) {
+            case "LINEAR" -> com.enterprise.rag.domain.model.search.FusionStrategyType.LINEAR_WEIGHT;
+            case "COMB_MNZ", "COMBMNZ" -> com.enterprise.rag.domain.model.search.FusionStrategyType.COMB_MNZ;
+            case "ZSCORE", "Z_SCORE" -> com.enterprise.rag.domain.model.search.FusionStrategyType.ZSCORE;
+            case "DBSF" -> com.enterprise.rag.domain.model.search.FusionStrategyType.DBSF;
+            case "NATIVE_RRF", "ES_NATIVE_RRF" -> com.enterprise.rag.domain.model.search.FusionStrategyType.ES_NATIVE_RRF;
+            default -> com.enterprise.rag.domain.model.search.FusionStrategyType.RRF;
+        });
         
         return search(requestDTO);
     }
@@ -1,9 +1,11 @@
 package com.enterprise.rag.interfaces.rest.assembler;
 
+import com.enterprise.rag.domain.model.ingestion.IngestionTask;
 import com.enterprise.rag.domain.model.knowledgebase.EmbeddingConfig;
 import com.enterprise.rag.domain.model.knowledgebase.FieldDefinition;
 import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
 import com.enterprise.rag.domain.model.search.*;
+import com.enterprise.rag.interfaces.rest.dto.IngestionTaskDTO;
 import com.enterprise.rag.interfaces.rest.dto.KnowledgeBaseDTO;
 import com.enterprise.rag.interfaces.rest.dto.SearchRequestDTO;
 import com.enterprise.rag.interfaces.rest.dto.SearchResponseDTO;
@@ -49,6 +51,7 @@ public class DtoAssembler {
                 .includeVectors(dto.isIncludeVectors())
                 .includeMetadata(dto.isIncludeMetadata())
                 .highlightConfig(highlightConfig)
+                .timeoutMs(dto.getTimeoutMs())
                 .build();
     }
     
@@ -116,9 +119,7 @@ public class DtoAssembler {
      * KnowledgeBaseDTO -> KnowledgeBase (领域模型)
      */
     public KnowledgeBase toKnowledgeBase(KnowledgeBaseDTO dto) {
-        List<FieldDefinition> fieldDefinitions = dto.getFieldDefinitions().stream()
-                .map(this::toFieldDefinition)
-                .collect(Collectors.toList());
+        List<FieldDefinition> fieldDefinitions = toFieldDefinitions(dto.getFieldDefinitions());
         
         return KnowledgeBase.builder()
                 .id(dto.getId())
@@ -131,6 +132,15 @@ public class DtoAssembler {
                 .build();
     }
     
+    /**
+     * FieldDefinitionDTO 列表 -> FieldDefinition 列表
+     */
+    public List<FieldDefinition> toFieldDefinitions(List<KnowledgeBaseDTO.FieldDefinitionDTO> dtos) {
+        return dtos.stream()
+                .map(this::toFieldDefinition)
+                .collect(Collectors.toList());
+    }
+    
     private FieldDefinition toFieldDefinition(KnowledgeBaseDTO.FieldDefinitionDTO dto) {
         EmbeddingConfig embeddingConfig = null;
         if (dto.getEmbeddingConfig() != null) {
@@ -162,6 +172,7 @@ public class DtoAssembler {
         dto.setTenantId(kb.getTenantId());
         dto.setStatus(kb.getStatus());
         dto.setIndexName(kb.getIndexName());
+        dto.setActiveIndex(kb.getPhysicalIndexName());
         
         List<KnowledgeBaseDTO.FieldDefinitionDTO> fieldDefs = kb.getFieldDefinitionList().stream()
                 .map(fd -> {
@@ -188,4 +199,31 @@ public class DtoAssembler {
         
         return dto;
     }
+    
+    /**
+     * IngestionTask -> IngestionTaskDTO
+     */
+    public IngestionTaskDTO toIngestionTaskDTO(IngestionTask task) {
+        IngestionTaskDTO dto = new IngestionTaskDTO();
+        dto.setId(task.getId());
+        dto.setKnowledgeBaseId(task.getKnowledgeBaseId());
+        dto.setStatus(task.getStatus());
+        dto.setSourceType(task.getSourceType());
+        dto.setSourceLocation(task.getSourceLocation());
+        dto.setTotalDocuments(task.getTotalDocuments());
+        dto.setProcessedDocuments(task.getProcessedDocuments());
+        dto.setFailedDocuments(task.getFailedDocuments());
+        dto.setEmbeddedVectors(task.getEmbeddedVectors());
+        dto.setCheckpoint(task.getCheckpoint());
+        dto.setElapsedMs(task.getElapsedMs());
+        dto.setDocumentsPerSecond(task.getDocumentsPerSecond());
+        dto.setEmbeddingsPerSecond(task.getEmbeddingsPerSecond());
+        dto.setOwner(task.getOwner());
+        dto.setHeartbeatAt(task.getHeartbeatAt());
+        dto.setErrorMessage(task.getErrorMessage());
+        dto.setStartedAt(task.getStartedAt());
+        dto.setCompletedAt(task.getCompletedAt());
+        dto.setCreatedAt(task.getCreatedAt());
+        return dto;
+    }
 }
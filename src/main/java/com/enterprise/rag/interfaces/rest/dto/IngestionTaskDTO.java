@@ -0,0 +1,58 @@
+package com.enterprise.rag.interfaces.rest.dto;
+
+import com.enterprise.rag.domain.model.ingestion.IngestionSourceType;
+import com.enterprise.rag.domain.model.ingestion.IngestionTaskStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 摄取任务响应 DTO
+ */
+@Data
+public class IngestionTaskDTO {
+    
+    private String id;
+    
+    private String knowledgeBaseId;
+    
+    private IngestionTaskStatus status;
+    
+    private IngestionSourceType sourceType;
+    
+    private String sourceLocation;
+    
+    private long totalDocuments;
+    
+    private long processedDocuments;
+    
+    private long failedDocuments;
+    
+    private long embeddedVectors;
+    
+    private long checkpoint;
+    
+    private long elapsedMs;
+    
+    /**
+     * 文档吞吐 (条/秒)
+     */
+    private double documentsPerSecond;
+    
+    /**
+     * 向量吞吐 (个/秒)
+     */
+    private double embeddingsPerSecond;
+    
+    private String owner;
+    
+    private LocalDateTime heartbeatAt;
+    
+    private String errorMessage;
+    
+    private LocalDateTime startedAt;
+    
+    private LocalDateTime completedAt;
+    
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,34 @@
+package com.enterprise.rag.interfaces.rest.dto;
+
+import com.enterprise.rag.domain.model.ingestion.IngestionSourceType;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * 摄取任务提交请求 DTO
+ * 
+ * <p>FILE 需要 path；KAFKA_RANGE 需要 topic、partition、startOffset、endOffset。
+ * 上传 NDJSON 使用单独的上传接口。</p>
+ */
+@Data
+public class IngestionTaskRequestDTO {
+    
+    @NotNull(message = "Source type is required")
+    private IngestionSourceType sourceType;
+    
+    /**
+     * 相对于摄取文件根目录的 NDJSON 文件路径
+     */
+    private String path;
+    
+    private String topic;
+    
+    private Integer partition;
+    
+    private Long startOffset;
+    
+    /**
+     * 结束位移 (不含)
+     */
+    private Long endOffset;
+}
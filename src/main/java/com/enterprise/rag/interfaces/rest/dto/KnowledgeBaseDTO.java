@@ -33,6 +33,11 @@ public class KnowledgeBaseDTO {
     
     private String indexName;
     
+    /**
+     * 当前物理索引名称 (只读)
+     */
+    private String activeIndex;
+    
     /**
      * 字段定义 DTO
      */
@@ -0,0 +1,26 @@
+package com.enterprise.rag.interfaces.rest.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 重建索引请求 DTO
+ */
+@Data
+public class ReindexRequestDTO {
+    
+    /**
+     * 迁移后的完整字段定义
+     */
+    @NotEmpty(message = "Field definitions are required")
+    @Valid
+    private List<KnowledgeBaseDTO.FieldDefinitionDTO> fieldDefinitions;
+    
+    /**
+     * 复制与重新向量化的限速 (每秒文档数)，为空时使用默认值
+     */
+    private Float requestsPerSecond;
+}
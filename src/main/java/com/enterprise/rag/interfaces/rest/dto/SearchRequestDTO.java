@@ -48,6 +48,10 @@ public class SearchRequestDTO {
     
     private HighlightConfigDTO highlightConfig;
     
+    @Min(value = 1, message = "Timeout must be at least 1 ms")
+    @Max(value = 60000, message = "Timeout must not exceed 60000 ms")
+    private Long timeoutMs;
+    
     /**
      * 检索方法 DTO
      */
@@ -76,7 +80,9 @@ public class SearchRequestDTO {
     @Data
     public static class VectorSearchConfigDTO {
         private String vectorField;
-        private Integer numCandidates = 100;
+        @Min(value = 1, message = "Num candidates must be at least 1")
+        @Max(value = 10000, message = "Num candidates must not exceed 10000")
+        private Integer numCandidates;
         private Float similarity = 0.7f;
     }
     
@@ -0,0 +1,112 @@
+package com.enterprise.rag.application.service;
+
+import com.enterprise.rag.domain.model.document.Document;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
+import com.enterprise.rag.infrastructure.elasticsearch.BulkIndexResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * NDJSON 批量摄取服务测试
+ */
+class BulkIngestionServiceTest {
+    
+    private static final String KB_ID = "kb-1";
+    
+    private final IngestionService ingestionService = mock(IngestionService.class);
+    private final List<BulkIngestionService.LineStatus> statuses = new ArrayList<>();
+    private final List<BulkIngestionService.BatchProgress> batches = new ArrayList<>();
+    private final BulkIngestionService.StatusSink sink = new BulkIngestionService.StatusSink() {
+        @Override
+        public void accept(BulkIngestionService.LineStatus status) {
+            statuses.add(status);
+        }
+        
+        @Override
+        public void batchCompleted(BulkIngestionService.BatchProgress progress) {
+            batches.add(progress);
+        }
+    };
+    
+    @BeforeEach
+    void setUp() {
+        when(ingestionService.requireIngestible(KB_ID)).thenReturn(KnowledgeBase.builder().id(KB_ID).build());
+        when(ingestionService.ingestBatch(anyString(), anyList(), anyList(), anyList()))
+                .thenAnswer(invocation -> new BulkIndexResult(
+                        invocation.<List<Document>>getArgument(1).size(), List.of()));
+    }
+    
+    @Test
+    void nullAndOversizeLinesFailWithoutAbortingTheStream() throws IOException {
+        BulkIngestionService service = service(100, 1_000_000, 64);
+        String body = line("a", "A") + "\n"
+                + "null\n"
+                + line("big", "x".repeat(100)) + "\n"
+                + line("b", "B") + "\n";
+        
+        BulkIngestionService.BulkSummary summary = service.ingest(KB_ID, input(body), sink);
+        
+        assertThat(statuses).extracting(BulkIngestionService.LineStatus::line).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(statuses).extracting(BulkIngestionService.LineStatus::status).containsExactly(201, 400, 413, 201);
+        assertThat(statuses.get(1).error()).isEqualTo("validation_exception");
+        assertThat(statuses.get(2).error()).isEqualTo("line_too_long");
+        assertThat(summary.succeeded()).isEqualTo(2);
+        assertThat(summary.failed()).isEqualTo(2);
+        
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Document>> upserts = ArgumentCaptor.forClass(List.class);
+        verify(ingestionService).ingestBatch(eq(KB_ID), upserts.capture(), anyList(), anyList());
+        assertThat(upserts.getValue()).extracting(Document::getId).containsExactly("a", "b");
+    }
+    
+    @Test
+    void batchByteBudgetCountsEncodedBytes() throws IOException {
+        String first = line("a", "汉".repeat(60));
+        byte[] firstBytes = first.getBytes(StandardCharsets.UTF_8);
+        // 按字符数计算时两行才达到预算，按 UTF-8 字节数计算时一行即达到
+        assertThat(first.length() * 2).isLessThan(firstBytes.length);
+        BulkIngestionService service = service(100, firstBytes.length, 1_000_000);
+        
+        service.ingest(KB_ID, input(first + "\n" + line("b", "汉".repeat(60)) + "\n"), sink);
+        
+        assertThat(batches).extracting(BulkIngestionService.BatchProgress::lines).containsExactly(1, 1);
+        verify(ingestionService, times(2)).ingestBatch(eq(KB_ID), anyList(), anyList(), anyList());
+    }
+    
+    @Test
+    void utf8LengthMatchesEncodedSize() {
+        for (String text : List.of("", "abc", "é", "汉字", "a😀b")) {
+            assertThat(BulkIngestionService.utf8Length(text))
+                    .isEqualTo(text.getBytes(StandardCharsets.UTF_8).length);
+        }
+    }
+    
+    private BulkIngestionService service(int batchSize, long maxBatchBytes, int maxLineBytes) {
+        return new BulkIngestionService(ingestionService, new ObjectMapper(), batchSize, maxBatchBytes, maxLineBytes);
+    }
+    
+    private static String line(String documentId, String title) {
+        return "{\"documentId\":\"" + documentId + "\",\"content\":{\"title\":\"" + title + "\"}}";
+    }
+    
+    private static ByteArrayInputStream input(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,61 @@
+package com.enterprise.rag.application.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 有长度上限的 NDJSON 行来源测试
+ */
+class NdjsonLineSourceTest {
+    
+    @Test
+    void splitsLinesAndStripsCarriageReturn() throws IOException {
+        List<BulkIngestionService.SourceLine> lines = readAll(source("a\r\n\nbc\nlast", 1, 16));
+        
+        assertThat(lines).extracting(BulkIngestionService.SourceLine::position).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(lines).extracting(BulkIngestionService.SourceLine::text).containsExactly("a", "", "bc", "last");
+    }
+    
+    @Test
+    void oversizeLineIsReturnedWithoutContent() throws IOException {
+        // 上限按字节计：三个汉字为 9 字节
+        List<BulkIngestionService.SourceLine> lines = readAll(source("1234\r\n12345\n汉字字\nok\n", 0, 4));
+        
+        assertThat(lines).extracting(BulkIngestionService.SourceLine::text).containsExactly("1234", null, null, "ok");
+        assertThat(lines).extracting(BulkIngestionService.SourceLine::position).containsExactly(0L, 1L, 2L, 3L);
+    }
+    
+    @Test
+    void skipAdvancesPosition() throws IOException {
+        NdjsonLineSource source = source("a\nbbbbbbbb\nc\n", 0, 2);
+        
+        assertThat(source.skip(2)).isEqualTo(2);
+        BulkIngestionService.SourceLine line = source.next();
+        
+        assertThat(line.position()).isEqualTo(2);
+        assertThat(line.text()).isEqualTo("c");
+        assertThat(source.skip(5)).isZero();
+        assertThat(source.next()).isNull();
+    }
+    
+    private static NdjsonLineSource source(String text, long firstPosition, int maxLineBytes) {
+        return new NdjsonLineSource(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)),
+                firstPosition, maxLineBytes, true);
+    }
+    
+    private static List<BulkIngestionService.SourceLine> readAll(NdjsonLineSource source) throws IOException {
+        List<BulkIngestionService.SourceLine> lines = new ArrayList<>();
+        BulkIngestionService.SourceLine line;
+        while ((line = source.next()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,46 @@
+package com.enterprise.rag.domain.service.fusion;
+
+import com.enterprise.rag.domain.model.search.RetrievalMethodType;
+import com.enterprise.rag.domain.model.search.SearchResultItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 自适应候选数量控制器测试
+ */
+class AdaptiveCandidateSizerTest {
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveCandidateSizer sizer = new AdaptiveCandidateSizer(meterRegistry, true, 0.95, 1.0, 4.0,
+            0.0, 500, 20000, 5);
+    
+    @Test
+    void removeDropsPerKnowledgeBaseMeters() {
+        int[] windows = new int[RetrievalMethodType.values().length];
+        windows[RetrievalMethodType.VECTOR.ordinal()] = 20;
+        windows[RetrievalMethodType.TEXT.ordinal()] = 20;
+        AdaptiveCandidateSizer.CandidatePlan plan = new AdaptiveCandidateSizer.CandidatePlan(10, 20, windows,
+                new boolean[windows.length], false);
+        List<SearchResultItem> results = List.of(SearchResultItem.builder()
+                .documentId("a")
+                .methodRanks(Map.of(RetrievalMethodType.VECTOR, 1, RetrievalMethodType.TEXT, 2))
+                .build());
+        sizer.observe("kb-1", plan, results);
+        sizer.observe("kb-2", plan, results);
+        assertThat(meterRegistry.find("rag.search.candidate.window").tag("knowledge_base", "kb-1").meters())
+                .hasSize(2);
+        
+        sizer.remove("kb-1");
+        
+        assertThat(meterRegistry.find("rag.search.fusion.overlap").tag("knowledge_base", "kb-1").meters()).isEmpty();
+        assertThat(meterRegistry.find("rag.search.candidate.window").tag("knowledge_base", "kb-1").meters()).isEmpty();
+        assertThat(meterRegistry.find("rag.search.fusion.overlap").tag("knowledge_base", "kb-2").meters()).hasSize(1);
+        assertThat(sizer.overlapRate("kb-1")).isEqualTo(-1);
+        assertThat(sizer.overlapRate("kb-2")).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,125 @@
+package com.enterprise.rag.domain.service.fusion;
+
+import com.enterprise.rag.domain.model.search.RetrievalMethodType;
+import com.enterprise.rag.domain.model.search.SearchResultItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 融合累加器测试
+ */
+class FusionAccumulatorTest {
+    
+    private FusionAccumulator accumulator;
+    
+    @BeforeEach
+    void setUp() {
+        // 预留容量最小 (16)，便于触发扩容
+        accumulator = FusionAccumulator.acquire(Map.of(RetrievalMethodType.VECTOR, List.of(document("seed"))));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        accumulator.release();
+    }
+    
+    @Test
+    void topKReturnsHighestScoresInDescendingOrder() {
+        double[] scores = {0.3, 0.9, 0.1, 0.7, 0.5};
+        for (int i = 0; i < scores.length; i++) {
+            accumulator.add(accumulator.slot(document("doc-" + i)), scores[i]);
+        }
+        
+        List<SearchResultItem> top = accumulator.topK(3);
+        
+        assertThat(top).extracting(SearchResultItem::getDocumentId).containsExactly("doc-1", "doc-3", "doc-4");
+        assertThat(top).extracting(SearchResultItem::getScore).containsExactly(0.9, 0.7, 0.5);
+    }
+    
+    @Test
+    void tiesKeepFirstSeenOrder() {
+        for (int i = 0; i < 6; i++) {
+            accumulator.add(accumulator.slot(document("doc-" + i)), 1.0);
+        }
+        
+        assertThat(accumulator.topK(4)).extracting(SearchResultItem::getDocumentId)
+                .containsExactly("doc-0", "doc-1", "doc-2", "doc-3");
+    }
+    
+    @Test
+    void topKLargerThanSizeReturnsAllDocuments() {
+        accumulator.add(accumulator.slot(document("a")), 0.2);
+        accumulator.add(accumulator.slot(document("b")), 0.4);
+        
+        assertThat(accumulator.topK(10)).extracting(SearchResultItem::getDocumentId).containsExactly("b", "a");
+        assertThat(accumulator.topK(0)).isEmpty();
+    }
+    
+    @Test
+    void repeatedDocumentAccumulatesIntoSameSlot() {
+        int first = accumulator.slot(document("a"));
+        accumulator.record(first, RetrievalMethodType.VECTOR, 2, 0.8);
+        accumulator.add(first, 0.5);
+        int second = accumulator.slot(document("a"));
+        accumulator.record(second, RetrievalMethodType.TEXT, 1, 12.0);
+        accumulator.add(second, 0.25);
+        accumulator.add(accumulator.slot(document("b")), 0.6);
+        accumulator.record(accumulator.slot(document("b")), RetrievalMethodType.TEXT, 2, 10.0);
+        accumulator.multiplyByHits();
+        
+        List<SearchResultItem> top = accumulator.topK(2);
+        
+        assertThat(second).isEqualTo(first);
+        assertThat(accumulator.size()).isEqualTo(2);
+        assertThat(top.get(0).getDocumentId()).isEqualTo("a");
+        assertThat(top.get(0).getScore()).isEqualTo(1.5);
+        assertThat(top.get(0).getMethodRanks())
+                .containsExactlyInAnyOrderEntriesOf(Map.of(RetrievalMethodType.VECTOR, 2, RetrievalMethodType.TEXT, 1));
+        assertThat(top.get(0).getMethodScores())
+                .containsExactlyInAnyOrderEntriesOf(Map.of(RetrievalMethodType.VECTOR, 0.8, RetrievalMethodType.TEXT, 12.0));
+        assertThat(top.get(1).getScore()).isEqualTo(0.6);
+        assertThat(top.get(1).getMethodRanks()).containsOnlyKeys(RetrievalMethodType.TEXT);
+    }
+    
+    @Test
+    void growthKeepsExistingSlots() {
+        int documents = 1000;
+        for (int i = 0; i < documents; i++) {
+            int slot = accumulator.slot(document("doc-" + i));
+            assertThat(slot).isEqualTo(i);
+            accumulator.add(slot, i);
+        }
+        for (int i = 0; i < documents; i++) {
+            assertThat(accumulator.slot(document("doc-" + i))).isEqualTo(i);
+        }
+        
+        List<SearchResultItem> top = accumulator.topK(documents);
+        
+        assertThat(accumulator.size()).isEqualTo(documents);
+        assertThat(top).hasSize(documents);
+        assertThat(top.get(0).getDocumentId()).isEqualTo("doc-999");
+        assertThat(top.get(documents - 1).getDocumentId()).isEqualTo("doc-0");
+    }
+    
+    @Test
+    void releasedAccumulatorIsEmptyWhenReacquired() {
+        accumulator.add(accumulator.slot(document("a")), 1.0);
+        accumulator.release();
+        
+        accumulator = FusionAccumulator.acquire(Map.of());
+        
+        assertThat(accumulator.size()).isZero();
+        assertThat(accumulator.topK(5)).isEmpty();
+        assertThat(accumulator.slot(document("b"))).isZero();
+    }
+    
+    private static FusionStrategy.RankedDocument document(String id) {
+        return new FusionStrategy.RankedDocument(id, null, null, Map.of("id", id), Map.of());
+    }
+}
@@ -0,0 +1,130 @@
+package com.enterprise.rag.domain.service.search;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.RangeQuery;
+import com.enterprise.rag.domain.model.knowledgebase.EmbeddingConfig;
+import com.enterprise.rag.domain.model.knowledgebase.FieldDefinition;
+import com.enterprise.rag.domain.model.knowledgebase.KnowledgeBase;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 检索过滤条件编译器测试
+ */
+class SearchFilterCompilerTest {
+    
+    private final SearchFilterCompiler compiler = new SearchFilterCompiler();
+    
+    private final KnowledgeBase knowledgeBase = KnowledgeBase.builder()
+            .id("kb-1")
+            .tenantId("tenant")
+            .fieldDefinitions(List.of(
+                    FieldDefinition.textField("title", true),
+                    FieldDefinition.textField("body", false),
+                    FieldDefinition.keywordField("category", true),
+                    FieldDefinition.keywordField("year", true),
+                    FieldDefinition.vectorField("embedding", EmbeddingConfig.builder().build())))
+            .build();
+    
+    @Test
+    void emptyFiltersCompileToNoClauses() {
+        assertThat(compiler.compile(knowledgeBase, null)).isEmpty();
+        assertThat(compiler.compile(knowledgeBase, Map.of())).isEmpty();
+    }
+    
+    @Test
+    void scalarValueCompilesToTerm() {
+        Query query = single(Map.of("category", "news"));
+        
+        assertThat(query.isTerm()).isTrue();
+        assertThat(query.term().field()).isEqualTo("category");
+        assertThat(query.term().value().stringValue()).isEqualTo("news");
+    }
+    
+    @Test
+    void textFieldFiltersOnKeywordSubField() {
+        Query query = single(Map.of("title", "Release notes"));
+        
+        assertThat(query.term().field()).isEqualTo("title.keyword");
+    }
+    
+    @Test
+    void scalarTypesMapToFieldValueKinds() {
+        assertThat(single(Map.of("year", 2024)).term().value().longValue()).isEqualTo(2024L);
+        assertThat(single(Map.of("year", 2.5)).term().value().doubleValue()).isEqualTo(2.5);
+        assertThat(single(Map.of("category", true)).term().value().booleanValue()).isTrue();
+    }
+    
+    @Test
+    void listValueCompilesToTerms() {
+        Query query = single(Map.of("category", List.of("news", "blog")));
+        
+        assertThat(query.isTerms()).isTrue();
+        assertThat(query.terms().field()).isEqualTo("category");
+        assertThat(query.terms().terms().value()).extracting(FieldValue::stringValue).containsExactly("news", "blog");
+    }
+    
+    @Test
+    void mapValueCompilesToRange() {
+        Map<String, Object> range = new LinkedHashMap<>();
+        range.put("gte", 2020);
+        range.put("lt", 2024);
+        
+        Query query = single(Map.of("year", range));
+        
+        assertThat(query.isRange()).isTrue();
+        RangeQuery rangeQuery = query.range();
+        assertThat(rangeQuery.field()).isEqualTo("year");
+        assertThat(rangeQuery.gte().to(Integer.class)).isEqualTo(2020);
+        assertThat(rangeQuery.lt().to(Integer.class)).isEqualTo(2024);
+        assertThat(rangeQuery.gt()).isNull();
+        assertThat(rangeQuery.lte()).isNull();
+    }
+    
+    @Test
+    void compilesOneClausePerFilter() {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("category", "news");
+        filters.put("year", Map.of("gt", 2000));
+        
+        List<Query> clauses = compiler.compile(knowledgeBase, filters);
+        
+        assertThat(clauses).hasSize(2);
+        assertThat(clauses.get(0).isTerm()).isTrue();
+        assertThat(clauses.get(1).isRange()).isTrue();
+    }
+    
+    @Test
+    void rejectsFieldsThatAreNotFilterable() {
+        assertThatThrownBy(() -> single(Map.of("body", "x"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> single(Map.of("embedding", "x"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> single(Map.of("missing", "x"))).isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    @Test
+    void rejectsMalformedValues() {
+        Map<String, Object> nullValue = new LinkedHashMap<>();
+        nullValue.put("category", null);
+        
+        assertThatThrownBy(() -> single(nullValue)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> single(Map.of("category", List.of()))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> single(Map.of("year", Map.of()))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> single(Map.of("year", Map.of("between", 1))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> single(Map.of("category", new Object())))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    private Query single(Map<String, Object> filters) {
+        List<Query> clauses = compiler.compile(knowledgeBase, filters);
+        assertThat(clauses).hasSize(1);
+        return clauses.get(0);
+    }
+}
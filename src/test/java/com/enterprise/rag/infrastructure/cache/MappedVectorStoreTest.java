@@ -0,0 +1,134 @@
+package com.enterprise.rag.infrastructure.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 内存映射向量存储测试
+ */
+class MappedVectorStoreTest {
+    
+    private static final int DIMENSION = 4;
+    
+    /**
+     * 分段头与单条记录的字节数 (16 字节键 + 8 字节写入时间 + 向量)
+     */
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 24 + DIMENSION * Float.BYTES;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void reopenRestoresStoredVectors() throws IOException {
+        try (MappedVectorStore store = MappedVectorStore.open(directory, DIMENSION, 8, 4)) {
+            for (int i = 0; i < 20; i++) {
+                assertThat(store.put(i, -i, vector(i))).isTrue();
+            }
+            assertThat(store.put(3, -3, vector(99))).isFalse();
+        }
+        
+        try (MappedVectorStore store = MappedVectorStore.open(directory, DIMENSION, 8, 4)) {
+            assertThat(store.size()).isEqualTo(20);
+            for (int i = 0; i < 20; i++) {
+                assertThat(store.get(i, -i)).containsExactly(vector(i));
+            }
+            assertThat(store.get(20, -20)).isNull();
+        }
+    }
+    
+    @Test
+    void reopenIgnoresTornLastRecord() throws IOException {
+        try (MappedVectorStore store = MappedVectorStore.open(directory, DIMENSION, 8, 1)) {
+            for (int i = 0; i < 3; i++) {
+                store.put(i, i, vector(i));
+            }
+        }
+        // 模拟最后一条记录写入向量后、提交键高位前进程退出
+        try (FileChannel channel = FileChannel.open(directory.resolve("segment-00000.vec"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES), HEADER_BYTES + 2L * RECORD_BYTES);
+        }
+        
+        try (MappedVectorStore store = MappedVectorStore.open(directory, DIMENSION, 8, 1)) {
+            assertThat(store.size()).isEqualTo(2);
+            assertThat(store.get(0, 0)).containsExactly(vector(0));
+            assertThat(store.get(1, 1)).containsExactly(vector(1));
+            assertThat(store.get(2, 2)).isNull();
+            
+            // 未提交的记录位置被重新使用
+            assertThat(store.put(5, 5, vector(5))).isTrue();
+            assertThat(store.size()).isEqualTo(3);
+        }
+        
+        try (MappedVectorStore store = MappedVectorStore.open(directory, DIMENSION, 8, 1)) {
+            assertThat(store.size()).isEqualTo(3);
+            assertThat(store.get(1, 1)).containsExactly(vector(1));
+            assertThat(store.get(5, 5)).containsExactly(vector(5));
+        }
+    }
+    
+    @Test
+    void removeWrittenBetweenTombstonesRecordsInWindow() throws IOException {
+        long before;
+        try (MappedVectorStore store = MappedVectorStore.open(directory, DIMENSION, 8, 2)) {
+            before = System.currentTimeMillis();
+            store.put(1, 1, vector(1));
+            store.put(2, 2, vector(2));
+            
+            assertThat(store.removeWrittenBetween(0, before)).isZero();
+            assertThat(store.removeWrittenBetween(before, Long.MAX_VALUE)).isEqualTo(2);
+            assertThat(store.size()).isZero();
+            assertThat(store.get(1, 1)).isNull();
+            assertThat(store.removeWrittenBetween(before, Long.MAX_VALUE)).isZero();
+            
+            // 墓碑空间不回收，新记录追加在其后
+            assertThat(store.put(3, 3, vector(3))).isTrue();
+        }
+        
+        try (MappedVectorStore store = MappedVectorStore.open(directory, DIMENSION, 8, 2)) {
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.get(2, 2)).isNull();
+            assertThat(store.get(3, 3)).containsExactly(vector(3));
+        }
+    }
+    
+    @Test
+    void stopsAppendingWhenFull() throws IOException {
+        try (MappedVectorStore store = MappedVectorStore.open(directory, DIMENSION, 2, 2)) {
+            for (int i = 0; i < 4; i++) {
+                assertThat(store.put(i, i, vector(i))).isTrue();
+            }
+            assertThat(store.put(4, 4, vector(4))).isFalse();
+            assertThat(store.size()).isEqualTo(4);
+        }
+    }
+    
+    @Test
+    void rejectsMismatchedDimension() throws IOException {
+        try (MappedVectorStore store = MappedVectorStore.open(directory, DIMENSION, 8, 1)) {
+            assertThatThrownBy(() -> store.put(1, 1, new float[DIMENSION + 1]))
+                    .isInstanceOf(IllegalArgumentException.class);
+            store.put(1, 1, vector(1));
+        }
+        
+        assertThatThrownBy(() -> MappedVectorStore.open(directory, DIMENSION + 1, 8, 1))
+                .isInstanceOf(IllegalStateException.class);
+    }
+    
+    private static float[] vector(int seed) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = seed + i / 10f;
+        }
+        return vector;
+    }
+}
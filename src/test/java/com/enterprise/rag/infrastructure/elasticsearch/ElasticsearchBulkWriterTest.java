@@ -0,0 +1,200 @@
+package com.enterprise.rag.infrastructure.elasticsearch;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ErrorCause;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.bulk.OperationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * ES 批量写入器测试
+ * 
+ * <p>模拟的客户端按调用顺序为每个操作返回预设状态码 (缺省为 201)，并记录每次请求的操作</p>
+ */
+class ElasticsearchBulkWriterTest {
+    
+    private final ElasticsearchClient esClient = mock(ElasticsearchClient.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<BulkOperation>> requests = new ArrayList<>();
+    private final Deque<Map<String, Integer>> statuses = new ArrayDeque<>();
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        when(esClient.bulk(any(BulkRequest.class))).thenAnswer(invocation -> {
+            BulkRequest request = invocation.getArgument(0);
+            requests.add(request.operations());
+            Map<String, Integer> byOperation = statuses.isEmpty() ? Map.of() : statuses.poll();
+            List<BulkResponseItem> items = new ArrayList<>();
+            for (BulkOperation operation : request.operations()) {
+                items.add(responseItem(operation, byOperation.getOrDefault(key(operation), 201)));
+            }
+            return BulkResponse.of(r -> r.errors(false).took(1).items(items));
+        });
+    }
+    
+    @Test
+    void splitsByMaxActions() throws IOException {
+        ElasticsearchBulkWriter writer = writer(1_000_000, 2, 3);
+        
+        List<BulkIndexResult.ItemFailure> outcomes = writer.writeItems(indexItems("a", "b", "c", "d", "e"));
+        
+        assertThat(requests).extracting(List::size).containsExactly(2, 2, 1);
+        assertThat(outcomes).hasSize(5).containsOnlyNulls();
+        assertThat(counter("succeeded")).isEqualTo(5);
+    }
+    
+    @Test
+    void splitsByRequestBytes() throws IOException {
+        ElasticsearchBulkWriter writer = writer(250, 1000, 3);
+        
+        writer.writeItems(indexItems("a", "b", "c", "d", "e"));
+        
+        // 每项 100 字节，单个请求最多 2 项
+        assertThat(requests).extracting(List::size).containsExactly(2, 2, 1);
+    }
+    
+    @Test
+    void oversizedItemIsSentAlone() throws IOException {
+        ElasticsearchBulkWriter writer = writer(150, 1000, 3);
+        List<ElasticsearchBulkWriter.BulkItem> items = new ArrayList<>(indexItems("a"));
+        items.add(new ElasticsearchBulkWriter.BulkItem("big", index("big"), 1000));
+        items.addAll(indexItems("c"));
+        
+        writer.writeItems(items);
+        
+        assertThat(requests).extracting(List::size).containsExactly(1, 1, 1);
+    }
+    
+    @Test
+    void reportsFailuresByPosition() throws IOException {
+        ElasticsearchBulkWriter writer = writer(1_000_000, 1000, 3);
+        statuses.add(Map.of("index:b", 400));
+        
+        List<BulkIndexResult.ItemFailure> outcomes = writer.writeItems(indexItems("a", "b", "c"));
+        
+        assertThat(requests).hasSize(1);
+        assertThat(outcomes.get(0)).isNull();
+        assertThat(outcomes.get(1).documentId()).isEqualTo("b");
+        assertThat(outcomes.get(1).status()).isEqualTo(400);
+        assertThat(outcomes.get(1).errorType()).isEqualTo("mapper_parsing_exception");
+        assertThat(outcomes.get(2)).isNull();
+        assertThat(counter("failed")).isEqualTo(1);
+    }
+    
+    @Test
+    void writeSummarizesPositionalOutcomes() throws IOException {
+        ElasticsearchBulkWriter writer = writer(1_000_000, 1000, 3);
+        statuses.add(Map.of("index:c", 400));
+        
+        BulkIndexResult result = writer.write(indexItems("a", "b", "c"));
+        
+        assertThat(result.succeeded()).isEqualTo(2);
+        assertThat(result.failures()).extracting(BulkIndexResult.ItemFailure::documentId).containsExactly("c");
+    }
+    
+    @Test
+    void retriesOnlyRejectedItems() throws IOException {
+        ElasticsearchBulkWriter writer = writer(1_000_000, 1000, 3);
+        statuses.add(Map.of("index:b", 429));
+        
+        List<BulkIndexResult.ItemFailure> outcomes = writer.writeItems(indexItems("a", "b", "c"));
+        
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(1)).extracting(ElasticsearchBulkWriterTest::key).containsExactly("index:b");
+        assertThat(outcomes).containsOnlyNulls();
+        assertThat(counter("retried")).isEqualTo(1);
+        assertThat(counter("succeeded")).isEqualTo(3);
+    }
+    
+    @Test
+    void holdsBackLaterOperationsOnRejectedDocument() throws IOException {
+        ElasticsearchBulkWriter writer = writer(1_000_000, 1000, 3);
+        statuses.add(Map.of("index:a", 429));
+        List<ElasticsearchBulkWriter.BulkItem> items = List.of(
+                new ElasticsearchBulkWriter.BulkItem("a", index("a"), 100),
+                new ElasticsearchBulkWriter.BulkItem("b", index("b"), 100),
+                new ElasticsearchBulkWriter.BulkItem("a", delete("a"), 100));
+        
+        List<BulkIndexResult.ItemFailure> outcomes = writer.writeItems(items);
+        
+        // 删除虽已成功，也须在被拒绝的写入之后重新执行
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(1)).extracting(ElasticsearchBulkWriterTest::key)
+                .containsExactly("index:a", "delete:a");
+        assertThat(outcomes).containsOnlyNulls();
+    }
+    
+    @Test
+    void rejectionAfterLastRetryIsReportedAsFailure() throws IOException {
+        ElasticsearchBulkWriter writer = writer(1_000_000, 1000, 1);
+        statuses.add(Map.of("index:a", 429));
+        statuses.add(Map.of("index:a", 429));
+        
+        List<BulkIndexResult.ItemFailure> outcomes = writer.writeItems(indexItems("a", "b"));
+        
+        assertThat(requests).hasSize(2);
+        assertThat(outcomes.get(0).status()).isEqualTo(429);
+        assertThat(outcomes.get(1)).isNull();
+    }
+    
+    private ElasticsearchBulkWriter writer(long maxRequestBytes, int maxActions, int maxRetries) {
+        return new ElasticsearchBulkWriter(esClient, meterRegistry, maxRequestBytes, maxActions, maxRetries, 1, 2);
+    }
+    
+    private double counter(String result) {
+        return meterRegistry.counter("rag.es.bulk.items", "result", result).count();
+    }
+    
+    private static List<ElasticsearchBulkWriter.BulkItem> indexItems(String... ids) {
+        List<ElasticsearchBulkWriter.BulkItem> items = new ArrayList<>();
+        for (String id : ids) {
+            items.add(new ElasticsearchBulkWriter.BulkItem(id, index(id), 100));
+        }
+        return items;
+    }
+    
+    private static BulkOperation index(String id) {
+        return BulkOperation.of(o -> o.index(i -> i.index("test").id(id).document(Map.of("id", id))));
+    }
+    
+    private static BulkOperation delete(String id) {
+        return BulkOperation.of(o -> o.delete(d -> d.index("test").id(id)));
+    }
+    
+    private static String key(BulkOperation operation) {
+        return operation.isIndex() ? "index:" + operation.index().id() : "delete:" + operation.delete().id();
+    }
+    
+    private static BulkResponseItem responseItem(BulkOperation operation, int status) {
+        String id = operation.isIndex() ? operation.index().id() : operation.delete().id();
+        return BulkResponseItem.of(item -> {
+            item.operationType(operation.isIndex() ? OperationType.Index : OperationType.Delete)
+                    .index("test")
+                    .id(id)
+                    .status(status);
+            if (status == 429) {
+                item.error(ErrorCause.of(e -> e.type("es_rejected_execution_exception").reason("queue full")));
+            } else if (status >= 300) {
+                item.error(ErrorCause.of(e -> e.type("mapper_parsing_exception").reason("bad document")));
+            }
+            return item;
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package com.enterprise.rag.infrastructure.external;
+
+import com.enterprise.rag.domain.service.EmbeddingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 请求合并的 Embedding 服务测试
+ */
+class CoalescingEmbeddingServiceTest {
+    
+    @Test
+    void batchIsCappedByDelegateMaxBatchSize() throws Exception {
+        EmbeddingService delegate = mock(EmbeddingService.class);
+        when(delegate.getMaxBatchSize("small")).thenReturn(2);
+        when(delegate.embedBatch(anyList(), eq("small")))
+                .thenReturn(List.of(new float[]{1f}, new float[]{2f}));
+        
+        // 窗口足够长，只有达到批量上限才会立即发送
+        try (CoalescingEmbeddingService service = new CoalescingEmbeddingService(delegate,
+                TimeUnit.SECONDS.toMicros(60), 32, 1, new SimpleMeterRegistry())) {
+            CompletableFuture<float[]> first = service.embedAsync("a", "small");
+            CompletableFuture<float[]> second = service.embedAsync("b", "small");
+            
+            assertThat(first.get(5, TimeUnit.SECONDS)).containsExactly(1f);
+            assertThat(second.get(5, TimeUnit.SECONDS)).containsExactly(2f);
+            verify(delegate).embedBatch(List.of("a", "b"), "small");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.enterprise.rag.infrastructure.kafka;
+
+import com.enterprise.rag.application.service.IngestionService;
+import com.enterprise.rag.domain.model.document.Document;
+import com.enterprise.rag.infrastructure.elasticsearch.BulkIndexResult;
+import com.enterprise.rag.infrastructure.kafka.IngestionFailureClassifier.FailureCategory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 摄取消息批处理器测试
+ */
+class IngestionBatchProcessorTest {
+    
+    private static final String TOPIC = "rag.ingestion.raw";
+    
+    private final IngestionService ingestionService = mock(IngestionService.class);
+    private final IngestionFailureRouter failureRouter = mock(IngestionFailureRouter.class);
+    private final IngestionDeadLetterPublisher deadLetterPublisher = mock(IngestionDeadLetterPublisher.class);
+    private final IngestionBatchProcessor processor = new IngestionBatchProcessor(new ObjectMapper(), ingestionService,
+            new IngestionFailureClassifier(), failureRouter, deadLetterPublisher,
+            new IngestionRetryPolicy(TOPIC, 3, 1, 3, 10, 2.0, 100));
+    
+    @BeforeEach
+    void setUp() {
+        when(failureRouter.route(any(), any(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(ingestionService.ingestBatch(anyString(), anyList(), anyList(), anyList()))
+                .thenAnswer(invocation -> new BulkIndexResult(
+                        invocation.<List<Document>>getArgument(1).size(), List.of()));
+    }
+    
+    @Test
+    void malformedRecordsAreDeadLetteredWithoutFailingTheBatch() {
+        ConsumerRecord<String, String> tombstone = record(1, null);
+        ConsumerRecord<String, String> empty = record(2, "");
+        ConsumerRecord<String, String> jsonNull = record(3, "null");
+        ConsumerRecord<String, String> truncated = record(5, "{\"knowledgeBaseId\":");
+        List<ConsumerRecord<String, String>> records = List.of(
+                record(0, "{\"knowledgeBaseId\":\"kb-1\",\"documentId\":\"a\",\"content\":{\"title\":\"A\"}}"),
+                tombstone,
+                empty,
+                jsonNull,
+                record(4, "{\"knowledgeBaseId\":\"kb-1\",\"documentId\":\"b\",\"content\":{\"title\":\"B\"}}"),
+                truncated);
+        
+        int routed = processor.process(records);
+        
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Document>> upserts = ArgumentCaptor.forClass(List.class);
+        verify(ingestionService).ingestBatch(eq("kb-1"), upserts.capture(), anyList(), anyList());
+        assertThat(upserts.getValue()).extracting(Document::getId).containsExactly("a", "b");
+        
+        assertThat(routed).isEqualTo(4);
+        for (ConsumerRecord<String, String> record : List.of(tombstone, empty, jsonNull, truncated)) {
+            verify(failureRouter).route(eq(record), eq(FailureCategory.FATAL), anyString(), anyString());
+        }
+        verify(deadLetterPublisher).awaitAll(anyList());
+    }
+    
+    @Test
+    void batchOfOnlyTombstonesWritesNothing() {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        records.add(record(0, null));
+        records.add(record(1, null));
+        
+        assertThat(processor.process(records)).isEqualTo(2);
+        verify(ingestionService, never()).ingestBatch(anyString(), anyList(), anyList(), anyList());
+    }
+    
+    private static ConsumerRecord<String, String> record(long offset, String value) {
+        return new ConsumerRecord<>(TOPIC, 0, offset, "key-" + offset, value);
+    }
+}